@@ -0,0 +1,64 @@
+package com.jesse.examination.core.archive;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * <p>脏用户追踪器。</p>
+ *
+ * <p>
+ *     某用户 Redis 中的问题答对次数被修改后，将其标记为脏，
+ *     后台的存档写回任务定期取走这些用户并将数据写回存档。
+ *     同一个用户在两次写回之间无论被修改多少次，都只会被写回一次。
+ * </p>
+ */
+@Slf4j
+@Component
+public class DirtyUserTracker
+{
+    /** 自上一次写回以来数据被修改过的用户。*/
+    private final Set<String> dirtyUsers = ConcurrentHashMap.newKeySet();
+
+    /** 将某用户标记为脏。*/
+    public void markDirty(String userName)
+    {
+        if (userName != null && !userName.isEmpty()) {
+            this.dirtyUsers.add(userName);
+        }
+    }
+
+    /** 某用户是否被标记为脏？*/
+    public boolean isDirty(String userName) {
+        return this.dirtyUsers.contains(userName);
+    }
+
+    /** 当前有多少个脏用户？*/
+    public int dirtyCount() {
+        return this.dirtyUsers.size();
+    }
+
+    /**
+     * 取走所有的脏用户（同时清除他们的标记），
+     * 取走之后再次被修改的用户会重新被标记，在下一轮写回。
+     */
+    public List<String> drain()
+    {
+        List<String> drained = new ArrayList<>(this.dirtyUsers.size());
+
+        Iterator<String> iterator = this.dirtyUsers.iterator();
+
+        while (iterator.hasNext())
+        {
+            drained.add(iterator.next());
+            iterator.remove();
+        }
+
+        return drained;
+    }
+}
@@ -0,0 +1,253 @@
+package com.jesse.examination.core.count;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.jesse.examination.core.properties.ProjectProperties;
+import com.jesse.examination.core.redis.keys.ConcatRedisKey;
+import com.jesse.examination.core.redis.script.RedisScriptRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.jetbrains.annotations.NotNull;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+import static com.jesse.examination.core.redis.errorhandle.RedisGenericErrorHandle.redisGenericErrorHandel;
+import static com.jesse.examination.core.redis.keys.ConcatRedisKey.isTableCountKey;
+import static com.jesse.examination.core.redis.script.ProjectRedisScript.COUNT_COMPARE_AND_SET;
+import static com.jesse.examination.core.redis.script.ProjectRedisScript.INCRBY_IF_EXISTS;
+
+/**
+ * <p>数据总数缓存（表的总行数、某用户的成绩总数等）。</p>
+ *
+ * <p>
+ *     缓存分为两层：本地内存（Caffeine，容量有上限，写入
+ *     <code>app.count-cache.local-expire-after-write</code> 秒后过期）和 Redis（多个实例之间共享），
+ *     都未命中时才执行调用方提供的数据库查询，并把结果写回两层缓存。
+ *     本地计数的存活时间很短，其他实例造成的变化最多在这段时间之后可见。
+ * </p>
+ *
+ * <p>
+ *     数据发生插入或删除时，调用方通过 {@link #increment(String, long)} 增量的修改计数，
+ *     Redis 中的计数只在键存在时才会被修改（避免凭空创建一个错误的计数）。
+ *     用数据库中的计数写入 Redis 时一律通过比较并设置（COUNT_COMPARE_AND_SET）：
+ *     读数据库期间计数被修改过则放弃这次写入，不会覆盖掉这期间发生的增量。
+ * </p>
+ *
+ * <p>
+ *     每隔 <code>app.count-cache.reconcile-interval</code> 秒，
+ *     表的总行数（{@link ConcatRedisKey#tableCountKey(String)}）会重新从数据库读取一次进行校准；
+ *     其他计数（比如每个用户的成绩总数）数量与用户数成正比，不参与校准，
+ *     而是在 Redis 中以校准间隔为过期时间，过期后下一次读取时自然从数据库重新加载。
+ * </p>
+ */
+@Slf4j
+@Component
+public class TotalCountCache
+{
+    @Autowired
+    private ReactiveRedisTemplate<String, Object> redisTemplate;
+
+    @Autowired
+    private RedisScriptRegistry scriptRegistry;
+
+    @Autowired
+    private ProjectProperties projectProperties;
+
+    /** 本地缓存的计数，键与 Redis 键相同。*/
+    private Cache<String, Long> localCounts;
+
+    /** 表总行数的数据库查询方法（键数量与表的数量相同），供定时校准使用。*/
+    private final Map<String, Supplier<Mono<Long>>> tableLoaders
+        = new ConcurrentHashMap<>();
+
+    /** 非表总行数的计数在 Redis 中的过期时间（单位：秒，不大于 0 表示不过期）。*/
+    private long redisExpiration;
+
+    /** 定时校准任务。*/
+    private Disposable reconcileTask;
+
+    @PostConstruct
+    void scheduleReconcile()
+    {
+        this.localCounts
+            = Caffeine.newBuilder()
+                      .maximumSize(Long.parseLong(this.projectProperties.getCountCacheLocalMaximumSize()))
+                      .expireAfterWrite(
+                          Duration.ofSeconds(
+                              Long.parseLong(this.projectProperties.getCountCacheLocalExpireAfterWrite())))
+                      .build();
+
+        long interval
+            = Long.parseLong(this.projectProperties.getCountCacheReconcileInterval());
+
+        this.redisExpiration = Math.max(interval, 0L);
+
+        if (interval <= 0) { return; }
+
+        this.reconcileTask
+            = Flux.interval(Duration.ofSeconds(interval))
+                  .onBackpressureDrop()
+                  .concatMap((ignore) -> this.reconcile())
+                  .subscribe();
+    }
+
+    @PreDestroy
+    void cancelReconcile()
+    {
+        if (this.reconcileTask != null) {
+            this.reconcileTask.dispose();
+        }
+    }
+
+    /**
+     * 获取某个计数，依次查询本地内存、Redis 和数据库。
+     *
+     * @param key    计数的键（同时也是 Redis 键）
+     * @param loader 缓存都未命中时，从数据库查询这个计数的方法（结果为空视为 0 且不缓存）
+     *
+     * @return 承载了计数的 Mono
+     */
+    public Mono<Long>
+    get(String key, Supplier<Mono<Long>> loader)
+    {
+        if (isTableCountKey(key)) {
+            this.tableLoaders.putIfAbsent(key, loader);
+        }
+
+        Long local = this.localCounts.getIfPresent(key);
+
+        if (local != null) {
+            return Mono.just(local);
+        }
+
+        return this.readRedis(key)
+                   .flatMap((cached) ->
+                       cached.map(Mono::just)
+                             .orElseGet(() -> this.load(key, loader, Optional.empty())))
+                   .doOnNext((count) -> this.localCounts.put(key, count))
+                   .defaultIfEmpty(0L);
+    }
+
+    /**
+     * 增量的修改某个计数（比如插入了一条数据就 +1），
+     * 计数尚未被缓存时什么也不做，下一次读取时自然会从数据库加载。
+     *
+     * @param key   计数的键
+     * @param delta 增量，可以为负数
+     */
+    public Mono<Void>
+    increment(String key, long delta)
+    {
+        this.localCounts.asMap().computeIfPresent(key, (ignore, count) -> count + delta);
+
+        return this.scriptRegistry
+                   .execute(INCRBY_IF_EXISTS, List.of(key), List.of(delta))
+                   .next()
+                   .timeout(Duration.ofSeconds(3L))
+                   // 以 Redis 中的计数为准，顺便同步其他实例造成的变化
+                   .doOnNext((count) -> this.localCounts.asMap().replace(key, count))
+                   .onErrorResume((exception) ->
+                       redisGenericErrorHandel(exception, 0L))
+                   .then();
+    }
+
+    /**
+     * 让某个计数失效（比如整张表被清空或用户被删除），
+     * 下一次读取时会重新从数据库加载。
+     */
+    public Mono<Void>
+    invalidate(String key)
+    {
+        this.localCounts.invalidate(key);
+
+        return this.redisTemplate
+                   .delete(key)
+                   .timeout(Duration.ofSeconds(3L))
+                   .onErrorResume((exception) ->
+                       redisGenericErrorHandel(exception, 0L))
+                   .then();
+    }
+
+    /** 读取 Redis 中的计数，键不存在或 Redis 不可用时为 Optional.empty()。*/
+    private @NotNull Mono<Optional<Long>>
+    readRedis(String key)
+    {
+        return this.redisTemplate.opsForValue()
+                   .get(key)
+                   .timeout(Duration.ofSeconds(3L))
+                   .map((count) -> Optional.of(((Number) count).longValue()))
+                   .onErrorResume((exception) ->
+                       redisGenericErrorHandel(exception, Optional.empty()))
+                   .defaultIfEmpty(Optional.empty());
+    }
+
+    /**
+     * 从数据库中加载某个计数，并在 Redis 中的计数仍然等于 expected 时写入 Redis
+     * （expected 为空表示期望键不存在）。
+     * 数据库查询结果为空（比如查询了一个不存在的用户）时不做缓存，返回空 Mono，
+     * 避免任意的请求参数在缓存中堆积。
+     *
+     * @return 承载了数据库中计数的 Mono（无论是否写入了 Redis）
+     */
+    private @NotNull Mono<Long>
+    load(String key, @NotNull Supplier<Mono<Long>> loader, @NotNull Optional<Long> expected)
+    {
+        long expiration = (isTableCountKey(key)) ? 0L : this.redisExpiration;
+
+        return loader.get()
+                     .flatMap((count) ->
+                         this.scriptRegistry
+                             .execute(
+                                 COUNT_COMPARE_AND_SET, List.of(key),
+                                 List.of(expected.map(String::valueOf).orElse(""), count, expiration))
+                             .next()
+                             .timeout(Duration.ofSeconds(3L))
+                             .doOnNext((updated) -> {
+                                 if (updated == 0L) {
+                                     log.debug("Count {} changed while loading, skip writing {}.", key, count);
+                                 }
+                             })
+                             .onErrorResume((exception) ->
+                                 redisGenericErrorHandel(exception, 0L))
+                             .thenReturn(count));
+    }
+
+    /**
+     * 将所有表的总行数重新从数据库读取一次，校准本地内存和 Redis 中的计数，
+     * 读取数据库期间计数被修改过的，留到下一轮再校准。
+     */
+    private Mono<Void> reconcile()
+    {
+        return Flux.fromIterable(this.tableLoaders.entrySet())
+                   .flatMap((entry) ->
+                       this.readRedis(entry.getKey())
+                           .flatMap((expected) ->
+                               this.load(entry.getKey(), entry.getValue(), expected))
+                           .doOnNext((count) -> this.localCounts.invalidate(entry.getKey()))
+                           .onErrorResume((exception) -> {
+                               log.warn(
+                                   "Reconcile count {} failed! Cause: {}",
+                                   entry.getKey(), exception.getMessage()
+                               );
+
+                               return Mono.empty();
+                           }), 4
+                   )
+                   .count()
+                   .doOnNext((amount) ->
+                       log.debug("Reconciled {} cached counts.", amount))
+                   .then();
+    }
+}
@@ -0,0 +1,11 @@
+package com.jesse.examination.core.email.bulk;
+
+import com.jesse.examination.core.email.dto.EmailContent;
+
+/**
+ * 批量邮件中的一封。
+ *
+ * @param cursor  游标（收件人在数据源中的排序键，任务断点即记录最后一个处理完的游标）
+ * @param content 邮件内容
+ */
+public record BulkMailItem(long cursor, EmailContent content) {}
@@ -0,0 +1,106 @@
+package com.jesse.examination.core.email.bulk;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Map;
+
+/** 批量邮件任务的状态、断点与进度（存放在 Redis 哈希表中）。*/
+@Data
+@ToString
+@NoArgsConstructor
+public class BulkMailJob
+{
+    /** 哈希表字段名。*/
+    public static final String NAME       = "name";
+    public static final String STATUS     = "status";
+    public static final String TOTAL      = "total";
+    public static final String ENQUEUED   = "enqueued";
+    public static final String DELIVERED  = "delivered";
+    public static final String FAILED     = "failed";
+    public static final String CHECKPOINT = "checkpoint";
+    public static final String CREATED_AT = "created-at";
+    public static final String UPDATED_AT = "updated-at";
+
+    public enum Status
+    {
+        /** 正在把邮件写入发件箱。*/
+        RUNNING,
+
+        /** 执行任务的节点已经不在了（租约过期），可以恢复。*/
+        INTERRUPTED,
+
+        /** 写入过程中出错，可以恢复。*/
+        FAILED,
+
+        /** 被取消（已经写入发件箱的邮件仍会投递）。*/
+        CANCELLED,
+
+        /** 所有邮件都已写入发件箱，等待投递完成。*/
+        ENQUEUED
+    }
+
+    private String jobId;
+
+    private String name;
+
+    private Status status;
+
+    /** 邮件总数。*/
+    private long total;
+
+    /** 已写入发件箱的邮件数。*/
+    private long enqueued;
+
+    /** 已投递成功的邮件数。*/
+    private long delivered;
+
+    /** 最终投递失败（或者收件人邮箱无效）的邮件数。*/
+    private long failed;
+
+    /** 断点：最后一封写入发件箱的邮件的游标。*/
+    private long checkpoint;
+
+    /** 创建、最后更新的时间戳（单位：毫秒）。*/
+    private long createdAt;
+    private long updatedAt;
+
+    /** 是否可以从断点恢复？*/
+    public boolean isResumable() {
+        return this.status == Status.INTERRUPTED || this.status == Status.FAILED;
+    }
+
+    /** 所有邮件是否都已投递完毕（成功或最终失败）？*/
+    public boolean isFinished()
+    {
+        return this.status == Status.ENQUEUED
+            && this.delivered + this.failed >= this.enqueued;
+    }
+
+    /** 从 Redis 哈希表还原任务。*/
+    public static @NotNull BulkMailJob
+    fromHash(String jobId, @NotNull Map<String, String> hash)
+    {
+        BulkMailJob job = new BulkMailJob();
+
+        job.setJobId(jobId);
+        job.setName(hash.get(NAME));
+        job.setStatus(Status.valueOf(hash.getOrDefault(STATUS, Status.FAILED.name())));
+        job.setTotal(parseLong(hash.get(TOTAL)));
+        job.setEnqueued(parseLong(hash.get(ENQUEUED)));
+        job.setDelivered(parseLong(hash.get(DELIVERED)));
+        job.setFailed(parseLong(hash.get(FAILED)));
+        job.setCheckpoint(parseLong(hash.get(CHECKPOINT)));
+        job.setCreatedAt(parseLong(hash.get(CREATED_AT)));
+        job.setUpdatedAt(parseLong(hash.get(UPDATED_AT)));
+
+        return job;
+    }
+
+    private static long
+    parseLong(String value) {
+        return (value == null) ? 0L : Long.parseLong(value);
+    }
+}
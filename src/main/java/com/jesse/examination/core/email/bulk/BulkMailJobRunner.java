@@ -0,0 +1,427 @@
+package com.jesse.examination.core.email.bulk;
+
+import com.jesse.examination.core.email.bulk.exception.BulkMailJobConflictException;
+import com.jesse.examination.core.email.exception.EmailException;
+import com.jesse.examination.core.email.outbox.EmailLane;
+import com.jesse.examination.core.email.outbox.EmailOutbox;
+import com.jesse.examination.core.exception.ResourceNotFoundException;
+import com.jesse.examination.core.properties.ProjectProperties;
+import com.jesse.examination.core.redis.script.RedisScriptRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.jetbrains.annotations.NotNull;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.ReactiveHashOperations;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.Disposables;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static com.jesse.examination.core.redis.keys.ConcatRedisKey.bulkMailJobKey;
+import static com.jesse.examination.core.redis.keys.ConcatRedisKey.bulkMailJobLeaseKey;
+import static com.jesse.examination.core.redis.keys.ProjectRedisKey.EMAIL_OUTBOX_BULK;
+import static com.jesse.examination.core.redis.script.ProjectRedisScript.COMPARE_AND_DELETE;
+import static com.jesse.examination.core.redis.script.ProjectRedisScript.COMPARE_AND_EXPIRE;
+import static java.lang.String.format;
+
+/**
+ * <p>批量邮件任务执行器。</p>
+ *
+ * <p>
+ *     任务只负责按页从数据源取出邮件、写入发件箱的批量通道，
+ *     真正的投递（多条 SMTP 连接并发、按服务商限速、失败重投）由发件箱完成，
+ *     投递结果由发件箱累加回任务的进度中。
+ * </p>
+ *
+ * <ul>
+ *     <li>每写完一页，把最后一封邮件的游标作为断点记录在任务的哈希表中</li>
+ *     <li>
+ *         执行任务的节点持有一个会过期的租约，节点宕机后租约过期，任务显示为 INTERRUPTED，
+ *         可以从断点恢复（断点之后、宕机之前写入的那一页可能会重复发送）
+ *     </li>
+ *     <li>批量通道积压超过 <code>app.bulk-mail.max-backlog</code> 时暂停写入，避免发件箱无限膨胀</li>
+ * </ul>
+ */
+@Slf4j
+@Component
+public class BulkMailJobRunner
+{
+    /** 任务结束后，状态在 Redis 中保留多久？*/
+    private static final Duration JOB_RETENTION = Duration.ofDays(7L);
+
+    /** 同一页中同时写入发件箱的邮件数。*/
+    private static final int ENQUEUE_CONCURRENCY = 16;
+
+    @Autowired
+    private ReactiveStringRedisTemplate stringRedisTemplate;
+
+    @Autowired
+    private RedisScriptRegistry scriptRegistry;
+
+    @Autowired
+    private EmailOutbox emailOutbox;
+
+    @Autowired
+    private ProjectProperties projectProperties;
+
+    private ReactiveHashOperations<String, String, String> hashOperations;
+
+    private int      pageSize;
+    private long     maxBacklog;
+    private Duration leaseTime;
+
+    /** 本节点正在执行的任务。*/
+    private final Disposable.Composite runningJobs = Disposables.composite();
+
+    @PostConstruct
+    void readProperties()
+    {
+        this.hashOperations = this.stringRedisTemplate.opsForHash();
+
+        this.pageSize
+            = Integer.parseInt(this.projectProperties.getBulkMailPageSize());
+        this.maxBacklog
+            = Long.parseLong(this.projectProperties.getBulkMailMaxBacklog());
+        this.leaseTime
+            = Duration.ofSeconds(Long.parseLong(this.projectProperties.getBulkMailLeaseTime()));
+    }
+
+    /** 停止本节点上的任务，它们的租约会自然过期，之后可以在任意节点上恢复。*/
+    @PreDestroy
+    void stopRunningJobs() {
+        this.runningJobs.dispose();
+    }
+
+    /**
+     * 启动一个新的批量邮件任务，任务在后台执行，立即返回任务的初始状态。
+     *
+     * @throws BulkMailJobConflictException 已经有一个同名任务正在执行时抛出
+     */
+    public Mono<BulkMailJob>
+    start(@NotNull BulkMailSource source)
+    {
+        String jobId = UUID.randomUUID().toString();
+
+        return this.acquireLease(source.getJobName(), jobId)
+                   .then(source.count())
+                   .flatMap((total) -> {
+                       long now = System.currentTimeMillis();
+
+                       Map<String, String> hash = new HashMap<>();
+
+                       hash.put(BulkMailJob.NAME, source.getJobName());
+                       hash.put(BulkMailJob.STATUS, BulkMailJob.Status.RUNNING.name());
+                       hash.put(BulkMailJob.TOTAL, String.valueOf(total));
+                       hash.put(BulkMailJob.ENQUEUED, "0");
+                       hash.put(BulkMailJob.DELIVERED, "0");
+                       hash.put(BulkMailJob.FAILED, "0");
+                       hash.put(BulkMailJob.CHECKPOINT, "0");
+                       hash.put(BulkMailJob.CREATED_AT, String.valueOf(now));
+                       hash.put(BulkMailJob.UPDATED_AT, String.valueOf(now));
+
+                       return this.hashOperations.putAll(bulkMailJobKey(jobId), hash)
+                                  .then(this.stringRedisTemplate.expire(bulkMailJobKey(jobId), JOB_RETENTION));
+                   })
+                   .onErrorResume((exception) ->
+                       this.releaseLease(source.getJobName(), jobId).then(Mono.error(exception)))
+                   .then(Mono.fromRunnable(() -> this.launch(jobId, source, 0L)))
+                   .then(this.progress(jobId));
+    }
+
+    /**
+     * 从断点恢复一个中断或失败的任务。
+     *
+     * @throws ResourceNotFoundException    任务不存在时抛出
+     * @throws IllegalArgumentException     任务不可恢复（正在执行、已完成或已取消）时抛出
+     * @throws BulkMailJobConflictException 已经有一个同名任务正在执行时抛出
+     */
+    public Mono<BulkMailJob>
+    resume(String jobId, @NotNull BulkMailSource source)
+    {
+        return this.progress(jobId)
+                   .flatMap((job) -> {
+                       if (!source.getJobName().equals(job.getName()))
+                       {
+                           return Mono.error(
+                               new IllegalArgumentException(
+                                   format("Job %s is not a %s job!", jobId, source.getJobName())
+                               )
+                           );
+                       }
+
+                       if (!job.isResumable())
+                       {
+                           return Mono.error(
+                               new IllegalArgumentException(
+                                   format("Job %s is %s, can not resume!", jobId, job.getStatus())
+                               )
+                           );
+                       }
+
+                       return this.acquireLease(job.getName(), jobId)
+                                  .then(this.updateStatus(jobId, BulkMailJob.Status.RUNNING))
+                                  .then(Mono.fromRunnable(() ->
+                                      this.launch(jobId, source, job.getCheckpoint())))
+                                  .then(this.progress(jobId));
+                   });
+    }
+
+    /**
+     * 取消一个正在执行的任务，执行任务的节点在写下一页之前停止。
+     * 已经写入发件箱的邮件仍会投递。
+     */
+    public Mono<BulkMailJob>
+    cancel(String jobId)
+    {
+        return this.progress(jobId)
+                   .flatMap((job) ->
+                       (job.getStatus() == BulkMailJob.Status.ENQUEUED
+                        || job.getStatus() == BulkMailJob.Status.CANCELLED)
+                           ? Mono.error(
+                               new IllegalArgumentException(
+                                   format("Job %s is %s, can not cancel!", jobId, job.getStatus())
+                               ))
+                           : this.updateStatus(jobId, BulkMailJob.Status.CANCELLED)
+                                 .then(this.progress(jobId))
+                   );
+    }
+
+    /**
+     * 查询任务的状态与进度。
+     * 状态为 RUNNING 但租约已不属于它时，说明执行它的节点已经不在了，显示为 INTERRUPTED。
+     *
+     * @throws ResourceNotFoundException 任务不存在（或已过保留期）时抛出
+     */
+    public Mono<BulkMailJob>
+    progress(String jobId)
+    {
+        return this.hashOperations
+                   .entries(bulkMailJobKey(jobId))
+                   .collectMap(Map.Entry::getKey, Map.Entry::getValue)
+                   .timeout(Duration.ofSeconds(3L))
+                   .filter((hash) -> !hash.isEmpty())
+                   .switchIfEmpty(
+                       Mono.error(
+                           new ResourceNotFoundException(format("Bulk mail job %s not found!", jobId))
+                       )
+                   )
+                   .map((hash) -> BulkMailJob.fromHash(jobId, hash))
+                   .flatMap((job) ->
+                       (job.getStatus() != BulkMailJob.Status.RUNNING)
+                           ? Mono.just(job)
+                           : this.stringRedisTemplate.opsForValue()
+                                 .get(bulkMailJobLeaseKey(job.getName()))
+                                 .defaultIfEmpty("")
+                                 .map((holder) -> {
+                                     if (!holder.equals(jobId)) {
+                                         job.setStatus(BulkMailJob.Status.INTERRUPTED);
+                                     }
+
+                                     return job;
+                                 })
+                   );
+    }
+
+    /** 在后台执行任务（从 checkpoint 之后开始）。*/
+    private void
+    launch(String jobId, @NotNull BulkMailSource source, long checkpoint)
+    {
+        log.info("Bulk mail job {} ({}) start from checkpoint {}.", jobId, source.getJobName(), checkpoint);
+
+        this.runningJobs.add(
+            this.enqueuePage(jobId, source, checkpoint)
+                .expand((next) -> this.enqueuePage(jobId, source, next))
+                .then(this.completeIfRunning(jobId))
+                .onErrorResume((exception) -> {
+                    log.error(
+                        "Bulk mail job {} failed, resume it later. Cause: {}",
+                        jobId, exception.getMessage()
+                    );
+
+                    return this.updateStatus(jobId, BulkMailJob.Status.FAILED);
+                })
+                .then(this.releaseLease(source.getJobName(), jobId))
+                .subscribe()
+        );
+    }
+
+    /**
+     * 写入一页邮件，并记录断点。
+     *
+     * @return 承载了下一页起点（本页最后一封邮件的游标）的 Mono，
+     *         没有下一页、或任务已被取消时为空
+     */
+    private Mono<Long>
+    enqueuePage(String jobId, @NotNull BulkMailSource source, long cursor)
+    {
+        return this.isStillRunning(jobId)
+                   .filter((running) -> running)
+                   .flatMap((running) ->
+                       this.awaitBacklog(source.getJobName(), jobId)
+                           .then(
+                               source.fetchAfter(cursor, this.pageSize)
+                                     .flatMapSequential((item) -> this.enqueueItem(jobId, item), ENQUEUE_CONCURRENCY)
+                                     .collectList()
+                           )
+                   )
+                   .filter((cursors) -> !cursors.isEmpty())
+                   .flatMap((cursors) -> {
+                       long lastCursor = cursors.get(cursors.size() - 1);
+
+                       return this.saveCheckpoint(jobId, lastCursor, cursors)
+                                  .then(
+                                      (cursors.size() < this.pageSize)
+                                          ? Mono.empty()
+                                          : Mono.just(lastCursor)
+                                  );
+                   });
+    }
+
+    /**
+     * 把一封邮件写入发件箱的批量通道，返回它的游标。
+     * 收件人邮箱无效时直接计入失败数，不影响其他邮件。
+     */
+    private Mono<Long>
+    enqueueItem(String jobId, @NotNull BulkMailItem item)
+    {
+        return this.emailOutbox
+                   .enqueue(item.content(), EmailLane.BULK, jobId)
+                   .thenReturn(item.cursor())
+                   .onErrorResume(EmailException.class, (exception) -> {
+                       log.warn(
+                           "Skip bulk mail to {} of job {}. Cause: {}",
+                           item.content().getTo(), jobId, exception.getMessage()
+                       );
+
+                       return this.hashOperations
+                                  .increment(bulkMailJobKey(jobId), BulkMailJob.FAILED, 1L)
+                                  .thenReturn(item.cursor());
+                   });
+    }
+
+    /** 记录断点（写入发件箱的邮件数不含被跳过的）。*/
+    private Mono<Void>
+    saveCheckpoint(String jobId, long lastCursor, @NotNull List<Long> cursors)
+    {
+        String jobKey = bulkMailJobKey(jobId);
+
+        return this.hashOperations
+                   .putAll(
+                       jobKey,
+                       Map.of(
+                           BulkMailJob.CHECKPOINT, String.valueOf(lastCursor),
+                           BulkMailJob.UPDATED_AT, String.valueOf(System.currentTimeMillis())
+                       )
+                   )
+                   .then(this.hashOperations.increment(jobKey, BulkMailJob.ENQUEUED, cursors.size()))
+                   .then(this.stringRedisTemplate.expire(jobKey, JOB_RETENTION))
+                   .then();
+    }
+
+    /** 任务是否仍是 RUNNING 状态（没有被取消）？*/
+    private Mono<Boolean>
+    isStillRunning(String jobId)
+    {
+        return this.hashOperations
+                   .get(bulkMailJobKey(jobId), BulkMailJob.STATUS)
+                   .map(BulkMailJob.Status.RUNNING.name()::equals)
+                   .defaultIfEmpty(false);
+    }
+
+    /** 所有邮件都写入发件箱后，把仍在 RUNNING 的任务标记为 ENQUEUED（被取消的保持 CANCELLED）。*/
+    private Mono<Void>
+    completeIfRunning(String jobId)
+    {
+        return this.isStillRunning(jobId)
+                   .filter((running) -> running)
+                   .flatMap((running) -> this.updateStatus(jobId, BulkMailJob.Status.ENQUEUED))
+                   .doOnSuccess((ignore) -> log.info("Bulk mail job {} all enqueued.", jobId));
+    }
+
+    private Mono<Void>
+    updateStatus(String jobId, BulkMailJob.@NotNull Status status)
+    {
+        return this.hashOperations
+                   .putAll(
+                       bulkMailJobKey(jobId),
+                       Map.of(
+                           BulkMailJob.STATUS, status.name(),
+                           BulkMailJob.UPDATED_AT, String.valueOf(System.currentTimeMillis())
+                       )
+                   )
+                   .then();
+    }
+
+    /** 等到批量通道的积压降到上限以下（期间持续续租）。*/
+    private Mono<Void>
+    awaitBacklog(String jobName, String jobId)
+    {
+        return Mono.defer(() ->
+                       this.renewLease(jobName, jobId)
+                           .then(this.stringRedisTemplate.opsForStream().size(EMAIL_OUTBOX_BULK.toString()))
+                   )
+                   .filter((backlog) -> backlog <= this.maxBacklog)
+                   .repeatWhenEmpty((attempts) -> attempts.delayElements(Duration.ofSeconds(1L)))
+                   .then();
+    }
+
+    /** 获取同名任务的租约。*/
+    private Mono<Void>
+    acquireLease(String jobName, String jobId)
+    {
+        return this.stringRedisTemplate.opsForValue()
+                   .setIfAbsent(bulkMailJobLeaseKey(jobName), jobId, this.leaseTime)
+                   .flatMap((acquired) ->
+                       (acquired)
+                           ? Mono.<Void>empty()
+                           : Mono.error(
+                               new BulkMailJobConflictException(
+                                   format("Another %s job is running!", jobName)
+                               ))
+                   );
+    }
+
+    /**
+     * 续租，租约已经不属于本任务时（本节点卡顿过久，租约过期后被其他节点拿走）失败，
+     * 避免两个节点同时执行同一个任务。
+     * 比较持有者与续期在同一个脚本中完成，不会在比较之后给其他节点刚拿到的租约续期。
+     */
+    private Mono<Void>
+    renewLease(String jobName, String jobId)
+    {
+        return this.scriptRegistry
+                   .execute(
+                       COMPARE_AND_EXPIRE, List.of(bulkMailJobLeaseKey(jobName)),
+                       List.of(jobId, this.leaseTime.toMillis())
+                   )
+                   .next()
+                   .filter((renewed) -> renewed == 1L)
+                   .switchIfEmpty(
+                       Mono.error(
+                           new IllegalStateException(format("Lease of job %s lost!", jobId))
+                       )
+                   )
+                   .then();
+    }
+
+    /** 释放租约（只释放属于本任务的租约，比较与删除在同一个脚本中完成）。*/
+    private Mono<Void>
+    releaseLease(String jobName, String jobId)
+    {
+        return this.scriptRegistry
+                   .execute(
+                       COMPARE_AND_DELETE, List.of(bulkMailJobLeaseKey(jobName)),
+                       List.of(jobId)
+                   )
+                   .then()
+                   .onErrorResume((exception) -> Mono.empty());
+    }
+}
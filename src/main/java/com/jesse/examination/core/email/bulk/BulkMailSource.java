@@ -0,0 +1,24 @@
+package com.jesse.examination.core.email.bulk;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/** 批量邮件的数据源，按游标升序分批给出要发送的邮件。*/
+public interface BulkMailSource
+{
+    /** 同一时刻只能有一个同名任务在执行（比如 score-report）。*/
+    String getJobName();
+
+    /** 本次要发送的邮件总数。*/
+    Mono<Long>
+    count();
+
+    /**
+     * 按游标升序，取出游标大于 cursor 的至多 limit 封邮件。
+     *
+     * @param cursor 上一批最后一封邮件的游标（从头开始时为 0）
+     * @param limit  最多取多少封
+     */
+    Flux<BulkMailItem>
+    fetchAfter(long cursor, int limit);
+}
@@ -0,0 +1,12 @@
+package com.jesse.examination.core.email.bulk.exception;
+
+/**
+ * 已经有一个同名的批量邮件任务正在执行时，
+ * 启动或恢复任务的请求应当被拒绝（409 Conflict）。
+ */
+public class BulkMailJobConflictException extends RuntimeException
+{
+    public BulkMailJobConflictException(String message) {
+        super(message);
+    }
+}
@@ -21,6 +21,29 @@ public class EmailContent
     @Nullable
     private String attachmentPath;  // 附件路径（可以为 null 表示没有附件）
 
+    /**
+     * 构造一封邮件的内容。
+     *
+     * @param to             收件人邮箱
+     * @param subject        邮件主题
+     * @param textBody       邮件正文
+     * @param attachmentPath 附件路径（可以为 null 表示没有附件）
+     *
+     * @return 邮件内容
+     */
+    public static @NotNull EmailContent
+    of(String to, String subject, String textBody, @Nullable String attachmentPath)
+    {
+        EmailContent emailContent = new EmailContent();
+
+        emailContent.setTo(to);
+        emailContent.setSubject(subject);
+        emailContent.setTextBody(textBody);
+        emailContent.setAttachmentPath(attachmentPath);
+
+        return emailContent;
+    }
+
     /**
      * 发送验证码邮件需要的内容。
      *
@@ -0,0 +1,32 @@
+package com.jesse.examination.core.email.outbox;
+
+import com.jesse.examination.core.redis.keys.ProjectRedisKey;
+import lombok.Getter;
+
+import static com.jesse.examination.core.redis.keys.ProjectRedisKey.EMAIL_OUTBOX_BULK;
+import static com.jesse.examination.core.redis.keys.ProjectRedisKey.EMAIL_OUTBOX_VERIFY;
+
+/**
+ * 发件箱的投递通道，每个通道对应一个 Redis Stream。
+ * 投递时总是先清空验证码通道，再处理批量通道。
+ */
+@Getter
+public enum EmailLane
+{
+    /** 验证码邮件（用户正在等待，优先投递）。*/
+    VERIFY(EMAIL_OUTBOX_VERIFY),
+
+    /** 批量邮件（成绩报告等，可以延后）。*/
+    BULK(EMAIL_OUTBOX_BULK);
+
+    private final ProjectRedisKey streamKey;
+
+    EmailLane(ProjectRedisKey streamKey) {
+        this.streamKey = streamKey;
+    }
+
+    /** 指标标签值。*/
+    public String tag() {
+        return this.name().toLowerCase();
+    }
+}
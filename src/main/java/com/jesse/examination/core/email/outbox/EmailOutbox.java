@@ -0,0 +1,41 @@
+package com.jesse.examination.core.email.outbox;
+
+import com.jesse.examination.core.email.dto.EmailContent;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import reactor.core.publisher.Mono;
+
+/**
+ * 邮件发件箱接口。
+ * 调用方只负责把邮件写入发件箱，实际投递由后台的 {@link EmailOutboxWorker} 完成。
+ */
+public interface EmailOutbox
+{
+    /**
+     * 将一封邮件写入发件箱指定的通道。
+     *
+     * @param content 邮件内容
+     * @param lane    投递通道
+     *
+     * @throws com.jesse.examination.core.email.exception.EmailException 收件人邮箱格式错误时抛出
+     *
+     * @return 承载了消息 ID 的 Mono
+     */
+    default Mono<String>
+    enqueue(@NotNull EmailContent content, @NotNull EmailLane lane) {
+        return this.enqueue(content, lane, null);
+    }
+
+    /**
+     * 将一封属于某个批量邮件任务的邮件写入发件箱指定的通道，
+     * 投递成功或最终失败时会累加到该任务的进度中。
+     *
+     * @param content 邮件内容
+     * @param lane    投递通道
+     * @param jobId   批量邮件任务 ID（可以为 null 表示不属于任何任务）
+     *
+     * @return 承载了消息 ID 的 Mono
+     */
+    Mono<String>
+    enqueue(@NotNull EmailContent content, @NotNull EmailLane lane, @Nullable String jobId);
+}
@@ -0,0 +1,77 @@
+package com.jesse.examination.core.email.outbox;
+
+import com.jesse.examination.core.email.dto.EmailContent;
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/** 邮件内容与发件箱 Stream 消息字段之间的转换。*/
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+final public class EmailOutboxRecord
+{
+    public static final String TO              = "to";
+    public static final String SUBJECT         = "subject";
+    public static final String TEXT_BODY       = "text-body";
+    public static final String ATTACHMENT_PATH = "attachment-path";
+
+    /** 写入发件箱的时间戳（单位：毫秒）。*/
+    public static final String ENQUEUED_AT     = "enqueued-at";
+
+    /** 所属批量邮件任务的 ID（只有批量邮件才有）。*/
+    public static final String JOB_ID          = "job-id";
+
+    /** 死信消息额外记录的字段：来源通道、失败原因。*/
+    public static final String LANE            = "lane";
+    public static final String ERROR           = "error";
+
+    /** 邮件内容 -> Stream 消息字段。*/
+    public static @NotNull Map<String, String>
+    toFields(@NotNull EmailContent content, long enqueuedAt) {
+        return toFields(content, enqueuedAt, null);
+    }
+
+    /** 邮件内容 -> Stream 消息字段（带上所属批量邮件任务的 ID）。*/
+    public static @NotNull Map<String, String>
+    toFields(@NotNull EmailContent content, long enqueuedAt, @Nullable String jobId)
+    {
+        Map<String, String> fields = new HashMap<>(8);
+
+        fields.put(TO, content.getTo());
+        fields.put(SUBJECT, content.getSubject());
+        fields.put(TEXT_BODY, content.getTextBody());
+        fields.put(ENQUEUED_AT, String.valueOf(enqueuedAt));
+
+        if (content.getAttachmentPath() != null) {
+            fields.put(ATTACHMENT_PATH, content.getAttachmentPath());
+        }
+
+        if (jobId != null) {
+            fields.put(JOB_ID, jobId);
+        }
+
+        return fields;
+    }
+
+    /** Stream 消息字段 -> 邮件内容。*/
+    public static @NotNull EmailContent
+    fromFields(@NotNull Map<String, String> fields)
+    {
+        return EmailContent.of(
+            fields.get(TO), fields.get(SUBJECT),
+            fields.get(TEXT_BODY), fields.get(ATTACHMENT_PATH)
+        );
+    }
+
+    /** 读取消息写入发件箱的时间戳，缺失时返回 -1。*/
+    public static long
+    enqueuedAt(@NotNull Map<String, String> fields)
+    {
+        String enqueuedAt = fields.get(ENQUEUED_AT);
+
+        return (enqueuedAt == null) ? -1L : Long.parseLong(enqueuedAt);
+    }
+}
@@ -0,0 +1,493 @@
+package com.jesse.examination.core.email.outbox;
+
+import com.jesse.examination.core.email.bulk.BulkMailJob;
+import com.jesse.examination.core.email.exception.EmailException;
+import com.jesse.examination.core.email.publisher.EmailPublisher;
+import com.jesse.examination.core.email.publisher.EmailPublisherRegistry;
+import com.jesse.examination.core.email.service.EmailSenderInterface;
+import com.jesse.examination.core.properties.ProjectProperties;
+import com.jesse.examination.core.redis.script.RedisScriptRegistry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.jetbrains.annotations.NotNull;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.data.domain.Range;
+import org.springframework.data.redis.connection.RedisStreamCommands;
+import org.springframework.data.redis.connection.stream.*;
+import org.springframework.data.redis.core.ReactiveStreamOperations;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.Disposables;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.jesse.examination.core.redis.keys.ConcatRedisKey.bulkMailJobKey;
+import static com.jesse.examination.core.email.service.EmailSenderInterface.SEND_ATTEMPT_TIMEOUT;
+import static com.jesse.examination.core.redis.keys.ProjectRedisKey.EMAIL_OUTBOX_DEAD;
+
+/**
+ * <p>发件箱投递器，以消费者组的形式从各通道的 Redis Stream 中取出邮件并投递。</p>
+ *
+ * <ul>
+ *     <li>
+ *         每隔 <code>app.email-outbox.poll-interval</code> 毫秒拉取一次：
+ *         先把验证码通道拉空，再拉一批批量邮件，验证码邮件不会排在批量邮件后面
+ *     </li>
+ *     <li>
+ *         同一时刻最多投递 <code>app.email-outbox.concurrency</code> 封邮件，
+ *         并且按发件人账号限制整个集群每秒的投递数（{@link ProviderRateLimiter}）
+ *     </li>
+ *     <li>
+ *         投递成功后确认并删除消息；失败的消息留在待确认列表中，
+ *         空闲时间超过退避时间（每失败一次翻倍）后重新认领并投递，
+ *         节点宕机时未确认的消息也会被其他节点以同样的方式认领
+ *     </li>
+ *     <li>
+ *         每次投递只尝试发送一次（最长 {@link EmailSenderInterface#SEND_ATTEMPT_TIMEOUT}），
+ *         基础退避时间不短于它的两倍，其他节点不会认领一封仍在发送中的邮件
+ *     </li>
+ *     <li>投递次数达到上限、或者邮件内容本身有误的消息转入死信流</li>
+ * </ul>
+ *
+ * <p>暴露的指标：</p>
+ *
+ * <ul>
+ *     <li><code>email.outbox.backlog</code>     通道中尚未确认的邮件数（按 lane 区分）</li>
+ *     <li><code>email.outbox.queue.wait</code>  邮件从写入发件箱到开始投递的等待时间</li>
+ *     <li><code>email.outbox.delivery</code>    单封邮件的投递耗时（按 lane、outcome 区分）</li>
+ *     <li><code>email.outbox.dead.letter</code> 转入死信流的邮件数</li>
+ * </ul>
+ */
+@Slf4j
+@Component
+public class EmailOutboxWorker
+{
+    /** 消费者组名。*/
+    private static final String CONSUMER_GROUP = "email-workers";
+
+    /** 每次检查待确认列表时最多检查多少条。*/
+    private static final long PENDING_SCAN_LIMIT = 128L;
+
+    @Autowired
+    private ReactiveStringRedisTemplate stringRedisTemplate;
+
+    @Autowired
+    @Qualifier(value = "createEmailSender")
+    private EmailSenderInterface emailSender;
+
+    @Autowired
+    private EmailPublisherRegistry publisherRegistry;
+
+    @Autowired
+    private RedisScriptRegistry scriptRegistry;
+
+    @Autowired
+    private ProjectProperties projectProperties;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private ReactiveStreamOperations<String, String, String> streamOperations;
+
+    /** 本节点在消费者组中的名字（pid@host）。*/
+    private String consumerName;
+
+    private int      batchSize;
+    private int      concurrency;
+    private int      maxAttempts;
+    private Duration retryBackoff;
+    private long     deadLetterMaxLength;
+
+    private ProviderRateLimiter rateLimiter;
+
+    /** 本节点正在投递的消息，重新认领时跳过它们。*/
+    private final Set<RecordId> inFlight = ConcurrentHashMap.newKeySet();
+
+    private final Map<EmailLane, AtomicLong> backlogs = new EnumMap<>(EmailLane.class);
+
+    private final Map<EmailLane, Timer>   queueWaitTimers   = new EnumMap<>(EmailLane.class);
+    private final Map<EmailLane, Counter> deadLetterCounter = new EnumMap<>(EmailLane.class);
+
+    private final Disposable.Composite tasks = Disposables.composite();
+
+    @PostConstruct
+    void startWorker()
+    {
+        this.streamOperations = this.stringRedisTemplate.opsForStream();
+        this.consumerName     = ManagementFactory.getRuntimeMXBean().getName();
+
+        this.batchSize
+            = Integer.parseInt(this.projectProperties.getEmailOutboxBatchSize());
+        this.concurrency
+            = Integer.parseInt(this.projectProperties.getEmailOutboxConcurrency());
+        this.maxAttempts
+            = Integer.parseInt(this.projectProperties.getEmailOutboxMaxAttempts());
+        this.retryBackoff
+            = Duration.ofSeconds(Long.parseLong(this.projectProperties.getEmailOutboxRetryBackoff()));
+
+        if (this.retryBackoff.compareTo(SEND_ATTEMPT_TIMEOUT.multipliedBy(2L)) < 0)
+        {
+            log.warn(
+                "Email outbox retry backoff ({}) is too short for a send attempt ({}), use {} instead.",
+                this.retryBackoff, SEND_ATTEMPT_TIMEOUT, SEND_ATTEMPT_TIMEOUT.multipliedBy(2L)
+            );
+
+            this.retryBackoff = SEND_ATTEMPT_TIMEOUT.multipliedBy(2L);
+        }
+        this.deadLetterMaxLength
+            = Long.parseLong(this.projectProperties.getEmailOutboxDeadLetterMaxLength());
+        this.rateLimiter
+            = new ProviderRateLimiter(
+                Double.parseDouble(this.projectProperties.getEmailOutboxRatePerSecond()),
+                this.scriptRegistry
+            );
+
+        for (EmailLane lane : EmailLane.values())
+        {
+            AtomicLong backlog = new AtomicLong(0L);
+
+            this.backlogs.put(lane, backlog);
+
+            Gauge.builder("email.outbox.backlog", backlog, AtomicLong::get)
+                 .tag("lane", lane.tag())
+                 .register(this.meterRegistry);
+
+            this.queueWaitTimers.put(
+                lane,
+                Timer.builder("email.outbox.queue.wait")
+                     .tag("lane", lane.tag())
+                     .register(this.meterRegistry)
+            );
+
+            this.deadLetterCounter.put(
+                lane,
+                Counter.builder("email.outbox.dead.letter")
+                       .tag("lane", lane.tag())
+                       .register(this.meterRegistry)
+            );
+        }
+
+        Duration pollInterval
+            = Duration.ofMillis(Long.parseLong(this.projectProperties.getEmailOutboxPollInterval()));
+        Duration reclaimInterval
+            = Duration.ofSeconds(Long.parseLong(this.projectProperties.getEmailOutboxReclaimInterval()));
+
+        this.tasks.add(
+            this.createGroups()
+                .thenMany(
+                    Flux.interval(pollInterval)
+                        .onBackpressureDrop()
+                        .concatMap((tick) ->
+                            this.poll()
+                                .onErrorResume((exception) -> {
+                                    log.warn("Poll email outbox failed! Cause: {}", exception.getMessage());
+                                    return Mono.empty();
+                                })
+                        )
+                )
+                .subscribe()
+        );
+
+        this.tasks.add(
+            Flux.interval(reclaimInterval, reclaimInterval)
+                .onBackpressureDrop()
+                .concatMap((tick) ->
+                    Flux.fromArray(EmailLane.values())
+                        .concatMap(this::reclaim)
+                        .onErrorResume((exception) -> {
+                            log.warn("Reclaim email outbox failed! Cause: {}", exception.getMessage());
+                            return Mono.empty();
+                        })
+                )
+                .subscribe()
+        );
+
+        log.info(
+            "Email outbox worker {} started. (batch size: {}, concurrency: {})",
+            this.consumerName, this.batchSize, this.concurrency
+        );
+    }
+
+    @PreDestroy
+    void stopWorker() {
+        this.tasks.dispose();
+    }
+
+    /** 为每个通道创建消费者组（流不存在时一并创建，组已存在时忽略）。*/
+    private Mono<Void>
+    createGroups()
+    {
+        return Flux.fromArray(EmailLane.values())
+                   .concatMap((lane) ->
+                       this.streamOperations
+                           .createGroup(lane.getStreamKey().toString(), ReadOffset.from("0"), CONSUMER_GROUP)
+                           .onErrorResume((exception) -> Mono.empty())
+                   )
+                   .then();
+    }
+
+    /** 一次拉取：先把验证码通道拉空，再拉一批批量邮件，最后刷新积压数指标。*/
+    private Mono<Void>
+    poll()
+    {
+        return this.readAndDeliver(EmailLane.VERIFY)
+                   .expand((count) ->
+                       (count >= this.batchSize)
+                           ? this.readAndDeliver(EmailLane.VERIFY)
+                           : Mono.empty()
+                   )
+                   .then(this.readAndDeliver(EmailLane.BULK))
+                   .then(this.refreshBacklogs());
+    }
+
+    /**
+     * 从指定通道读取一批新消息并投递。
+     *
+     * @return 读到的消息数
+     */
+    private Mono<Long>
+    readAndDeliver(@NotNull EmailLane lane)
+    {
+        // 直接传入数组，避免可变参数隐式创建泛型数组（数组中只有 StreamOffset<String>）
+        @SuppressWarnings("unchecked")
+        StreamOffset<String>[] offsets
+            = (StreamOffset<String>[]) new StreamOffset<?>[] {
+                StreamOffset.create(lane.getStreamKey().toString(), ReadOffset.lastConsumed())
+            };
+
+        return this.streamOperations
+                   .read(
+                       Consumer.from(CONSUMER_GROUP, this.consumerName),
+                       StreamReadOptions.empty().count(this.batchSize),
+                       offsets
+                   )
+                   .doOnNext((record) -> this.recordQueueWait(lane, record))
+                   .flatMap((record) -> this.deliver(lane, record).thenReturn(record), this.concurrency)
+                   .count();
+    }
+
+    /** 记录新消息从写入发件箱到被读出的等待时间（重投的消息包含退避时间，不统计）。*/
+    private void
+    recordQueueWait(@NotNull EmailLane lane, @NotNull MapRecord<String, String, String> record)
+    {
+        long enqueuedAt = EmailOutboxRecord.enqueuedAt(record.getValue());
+
+        if (enqueuedAt > 0L)
+        {
+            this.queueWaitTimers.get(lane)
+                .record(Math.max(0L, System.currentTimeMillis() - enqueuedAt), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /** 刷新各通道的积压数（已确认的消息会被删除，流的长度就是积压数）。*/
+    private Mono<Void>
+    refreshBacklogs()
+    {
+        return Flux.fromArray(EmailLane.values())
+                   .concatMap((lane) ->
+                       this.streamOperations
+                           .size(lane.getStreamKey().toString())
+                           .doOnNext((size) -> this.backlogs.get(lane).set(size))
+                   )
+                   .then();
+    }
+
+    /**
+     * 投递一封邮件。成功后确认并删除消息，
+     * 失败时消息留在待确认列表中等待重新认领，内容有误的直接转入死信流。
+     */
+    private Mono<Void>
+    deliver(@NotNull EmailLane lane, @NotNull MapRecord<String, String, String> record)
+    {
+        Map<String, String> fields = record.getValue();
+
+        this.inFlight.add(record.getId());
+
+        // 先选出发件人账号再按账号限流，等待限流的邮件也算作该账号的正在发送数
+        return Mono.using(
+                       this.publisherRegistry::select,
+                       (publisher) ->
+                           this.rateLimiter
+                               .acquire(publisher.getAddress())
+                               .then(Mono.defer(() -> {
+                                   Timer.Sample sample = Timer.start(this.meterRegistry);
+
+                                   // 只尝试一次，失败后由重新认领重投
+                                   return this.emailSender
+                                              .sendEmailOnce(EmailOutboxRecord.fromFields(fields), publisher)
+                                              .doOnSuccess((ignore) ->
+                                                  sample.stop(this.deliveryTimer(lane, "success")))
+                                              .doOnError((exception) ->
+                                                  sample.stop(this.deliveryTimer(lane, "failure")));
+                               })),
+                       EmailPublisher::release
+                   )
+                   .then(this.acknowledge(lane, record.getId()))
+                   .then(this.countJobProgress(fields, BulkMailJob.DELIVERED))
+                   .onErrorResume((exception) -> {
+                       if (isPermanentFailure(exception)) {
+                           return this.deadLetter(lane, record, exception.getMessage());
+                       }
+
+                       log.warn(
+                           "Deliver email {} to {} failed, retry later. Cause: {}",
+                           record.getId(), fields.get(EmailOutboxRecord.TO), exception.getMessage()
+                       );
+
+                       return Mono.empty();
+                   })
+                   .doFinally((signal) -> this.inFlight.remove(record.getId()));
+    }
+
+    private Timer
+    deliveryTimer(@NotNull EmailLane lane, String outcome)
+    {
+        return Timer.builder("email.outbox.delivery")
+                    .tag("lane", lane.tag())
+                    .tag("outcome", outcome)
+                    .register(this.meterRegistry);
+    }
+
+    /** 邮件内容本身有误（收件人格式错误、附件不存在等），重投也不会成功。*/
+    private static boolean
+    isPermanentFailure(Throwable exception)
+    {
+        for (Throwable cause = exception; cause != null; cause = cause.getCause())
+        {
+            if (cause instanceof EmailException emailException
+                && emailException.getErrorType() == EmailException.ErrorType.INVALID_CONTENT) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /** 确认并删除消息。*/
+    private Mono<Void>
+    acknowledge(@NotNull EmailLane lane, RecordId recordId)
+    {
+        String streamKey = lane.getStreamKey().toString();
+
+        return this.streamOperations
+                   .acknowledge(streamKey, CONSUMER_GROUP, recordId)
+                   .then(this.streamOperations.delete(streamKey, recordId))
+                   .then();
+    }
+
+    /** 把消息转入死信流，并从原通道中确认删除。*/
+    private Mono<Void>
+    deadLetter(
+        @NotNull EmailLane lane,
+        @NotNull MapRecord<String, String, String> record, String reason)
+    {
+        Map<String, String> fields = new HashMap<>(record.getValue());
+
+        fields.put(EmailOutboxRecord.LANE, lane.tag());
+        fields.put(EmailOutboxRecord.ERROR, String.valueOf(reason));
+
+        log.error(
+            "Email {} to {} moved to dead letter stream. Cause: {}",
+            record.getId(), fields.get(EmailOutboxRecord.TO), reason
+        );
+
+        return this.streamOperations
+                   .add(
+                       EMAIL_OUTBOX_DEAD.toString(), fields,
+                       RedisStreamCommands.XAddOptions
+                           .maxlen(this.deadLetterMaxLength)
+                           .approximateTrimming(true)
+                   )
+                   .then(this.acknowledge(lane, record.getId()))
+                   .then(this.countJobProgress(fields, BulkMailJob.FAILED))
+                   .doOnSuccess((ignore) -> this.deadLetterCounter.get(lane).increment());
+    }
+
+    /** 邮件属于某个批量邮件任务时，累加该任务的投递进度（失败不影响投递本身）。*/
+    private Mono<Void>
+    countJobProgress(@NotNull Map<String, String> fields, String counter)
+    {
+        String jobId = fields.get(EmailOutboxRecord.JOB_ID);
+
+        if (jobId == null) { return Mono.empty(); }
+
+        return this.stringRedisTemplate
+                   .opsForHash()
+                   .increment(bulkMailJobKey(jobId), counter, 1L)
+                   .then()
+                   .onErrorResume((exception) -> {
+                       log.warn(
+                           "Count progress of bulk mail job {} failed! Cause: {}",
+                           jobId, exception.getMessage()
+                       );
+
+                       return Mono.empty();
+                   });
+    }
+
+    /** 第 deliveryCount 次投递失败后，需要空闲多久才能重投？（每失败一次翻倍）*/
+    private @NotNull Duration
+    backoffOf(long deliveryCount)
+    {
+        return this.retryBackoff.multipliedBy(1L << Math.min(Math.max(deliveryCount - 1L, 0L), 10L));
+    }
+
+    /**
+     * 检查指定通道的待确认列表：
+     * 退避时间已过的消息重新认领并投递，投递次数达到上限的转入死信流。
+     */
+    private Flux<Void>
+    reclaim(@NotNull EmailLane lane)
+    {
+        String streamKey = lane.getStreamKey().toString();
+
+        return this.streamOperations
+                   .pending(streamKey, CONSUMER_GROUP, Range.unbounded(), PENDING_SCAN_LIMIT)
+                   .flatMapMany(Flux::fromIterable)
+                   .filter((pending) -> !this.inFlight.contains(pending.getId()))
+                   .filter((pending) ->
+                       pending.getElapsedTimeSinceLastDelivery()
+                              .compareTo(this.backoffOf(pending.getTotalDeliveryCount())) >= 0
+                   )
+                   .concatMap((pending) ->
+                       (pending.getTotalDeliveryCount() >= this.maxAttempts)
+                           ? this.streamOperations
+                                 .range(streamKey, Range.just(pending.getIdAsString()))
+                                 .next()
+                                 .flatMap((record) ->
+                                     this.deadLetter(
+                                         lane, record,
+                                         "Delivery attempts exhausted. (" + pending.getTotalDeliveryCount() + ")"
+                                     )
+                                 )
+                                 // 消息已经不在流中，只需确认
+                                 .switchIfEmpty(
+                                     Mono.defer(() -> this.acknowledge(lane, pending.getId())))
+                           : this.streamOperations
+                                 .claim(
+                                     streamKey, CONSUMER_GROUP, this.consumerName,
+                                     this.backoffOf(pending.getTotalDeliveryCount()),
+                                     pending.getId()
+                                 )
+                                 .concatMap((record) -> this.deliver(lane, record))
+                                 .then()
+                   );
+    }
+}
@@ -0,0 +1,137 @@
+package com.jesse.examination.core.email.outbox;
+
+import com.jesse.examination.core.redis.script.RedisScriptRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.jetbrains.annotations.NotNull;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.jesse.examination.core.redis.keys.ConcatRedisKey.rateLimitKey;
+import static com.jesse.examination.core.redis.script.ProjectRedisScript.GCRA_RATE_LIMIT;
+
+/**
+ * <p>按邮件服务商限制投递速率。</p>
+ *
+ * <p>
+ *     每个服务商维护一个"下一个可用时刻"，每次投递预约一个时间槽，
+ *     相邻两次投递至少间隔 1 / ratePerSecond 秒，空闲期间不积攒额度，
+ *     因此不会在空闲之后瞬间涌出一大批邮件触发服务商的反垃圾限制。
+ * </p>
+ *
+ * <p>
+ *     本地预约只能约束本节点，预约到时间槽后还要通过 Redis 中的 GCRA 脚本（与请求限流共用，突发容忍度为 0），
+ *     整个集群对同一服务商共用一份速率；被拒绝时按脚本返回的等待时间重试。
+ *     Redis 不可用时只按本地时间槽限流，不阻塞投递。
+ * </p>
+ *
+ * <p>服务商对每个发件人账号分别限频，因此发件箱以发件人邮箱作为 provider。</p>
+ */
+@Slf4j
+public class ProviderRateLimiter
+{
+    /** 集群限流键使用的策略名。*/
+    private static final String POLICY_NAME = "email-provider";
+
+    /** 相邻两次投递的最小间隔（单位：纳秒）。*/
+    private final long intervalNanos;
+
+    /** 相邻两次投递的最小间隔（单位：毫秒，集群限流用）。*/
+    private final long intervalMillis;
+
+    /** 服务商 -> 下一个可用时刻（System.nanoTime() 时间轴）。*/
+    private final Map<String, AtomicLong> nextSlots = new ConcurrentHashMap<>();
+
+    /** 为 null 时只在本节点限流。*/
+    private final RedisScriptRegistry scriptRegistry;
+
+    /** 只在本节点限流。*/
+    public ProviderRateLimiter(double ratePerSecond) {
+        this(ratePerSecond, null);
+    }
+
+    public ProviderRateLimiter(double ratePerSecond, RedisScriptRegistry scriptRegistry)
+    {
+        if (ratePerSecond <= 0) {
+            throw new IllegalArgumentException("Rate per second must be positive!");
+        }
+
+        this.intervalNanos  = (long) (1_000_000_000L / ratePerSecond);
+        this.intervalMillis = Math.max(1L, Duration.ofNanos(this.intervalNanos).toMillis());
+        this.scriptRegistry = scriptRegistry;
+    }
+
+    /**
+     * 为指定服务商预约一个投递时间槽。
+     *
+     * @param provider 服务商
+     * @param nowNanos 当前时刻（System.nanoTime()）
+     *
+     * @return 需要等待多久才能投递
+     */
+    public @NotNull Duration
+    reserve(@NotNull String provider, long nowNanos)
+    {
+        AtomicLong nextSlot
+            = this.nextSlots.computeIfAbsent(provider, (key) -> new AtomicLong(nowNanos));
+
+        long slot
+            = nextSlot.getAndAccumulate(
+                nowNanos,
+                (next, now) -> Math.max(next, now) + this.intervalNanos
+            );
+
+        return Duration.ofNanos(Math.max(0L, slot - nowNanos));
+    }
+
+    /** 等到指定服务商可以投递时完成（先等本地时间槽，再等集群额度）。*/
+    public Mono<Void>
+    acquire(@NotNull String provider)
+    {
+        Duration wait = this.reserve(provider, System.nanoTime());
+
+        Mono<Void> local
+            = wait.isZero()
+                ? Mono.empty()
+                : Mono.delay(wait).then();
+
+        return (this.scriptRegistry == null)
+            ? local
+            : local.then(Mono.defer(() -> this.acquireGlobal(provider)));
+    }
+
+    /** 在 Redis 中申请一次投递额度，被拒绝时等待后重试。*/
+    private Mono<Void>
+    acquireGlobal(@NotNull String provider)
+    {
+        String key = rateLimitKey(POLICY_NAME, provider);
+
+        return this.scriptRegistry
+                   .execute(GCRA_RATE_LIMIT, List.of(key), List.of(this.intervalMillis, 0L))
+                   .next()
+                   .timeout(Duration.ofMillis(500L))
+                   .map((result) ->
+                       (((Number) result.get(0)).longValue() == 1L)
+                           ? 0L
+                           : Math.max(1L, ((Number) result.get(1)).longValue())
+                   )
+                   .onErrorResume((exception) -> {
+                       log.warn(
+                           "Rate limit of email provider {} fall back to local slots. Cause: {}",
+                           provider, exception.getMessage()
+                       );
+
+                       return Mono.just(0L);
+                   })
+                   .flatMap((waitMillis) ->
+                       (waitMillis == 0L)
+                           ? Mono.empty()
+                           : Mono.delay(Duration.ofMillis(waitMillis))
+                                 .then(Mono.defer(() -> this.acquireGlobal(provider)))
+                   );
+    }
+}
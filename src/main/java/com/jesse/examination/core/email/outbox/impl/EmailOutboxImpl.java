@@ -0,0 +1,49 @@
+package com.jesse.examination.core.email.outbox.impl;
+
+import com.jesse.examination.core.email.dto.EmailContent;
+import com.jesse.examination.core.email.outbox.EmailLane;
+import com.jesse.examination.core.email.outbox.EmailOutbox;
+import com.jesse.examination.core.email.outbox.EmailOutboxRecord;
+import com.jesse.examination.core.email.utils.EmailFormatVerifier;
+import lombok.extern.slf4j.Slf4j;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.connection.stream.RecordId;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+
+import static com.jesse.examination.core.redis.errorhandle.RedisGenericErrorHandle.redisGenericErrorHandel;
+
+/** 邮件发件箱实现类，邮件以消息的形式追加到对应通道的 Redis Stream 中。*/
+@Slf4j
+@Component
+public class EmailOutboxImpl implements EmailOutbox
+{
+    @Autowired
+    private ReactiveStringRedisTemplate stringRedisTemplate;
+
+    @Override
+    public Mono<String>
+    enqueue(@NotNull EmailContent content, @NotNull EmailLane lane, @Nullable String jobId)
+    {
+        // 邮箱格式错误在这里就直接拒绝，不必等到投递时才失败
+        return EmailFormatVerifier
+            .isValidEmail(content.getTo())
+            .then(
+                this.stringRedisTemplate
+                    .<String, String>opsForStream()
+                    .add(
+                        lane.getStreamKey().toString(),
+                        EmailOutboxRecord.toFields(content, System.currentTimeMillis(), jobId)
+                    )
+                    .timeout(Duration.ofSeconds(3L))
+                    .map(RecordId::getValue)
+                    .onErrorResume((exception) ->
+                        redisGenericErrorHandel(exception, null))
+            );
+    }
+}
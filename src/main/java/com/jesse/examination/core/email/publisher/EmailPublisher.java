@@ -0,0 +1,64 @@
+package com.jesse.examination.core.email.publisher;
+
+import com.jesse.examination.core.email.transport.SmtpTransportPool;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * <p>一个发件人账号（email_auth_table 中的一行）。</p>
+ *
+ * <p>
+ *     记录该账号当前正在发送（含等待限流）的邮件数，
+ *     {@link EmailPublisherRegistry#select()} 选中后加一，发送结束后调用 {@link #release()} 减一。
+ * </p>
+ */
+public final class EmailPublisher
+{
+    private final SmtpTransportPool.Credential credential;
+
+    /** 正在发送的邮件数，刷新账号列表时同一邮箱沿用同一个计数器。*/
+    private final AtomicInteger inFlight;
+
+    EmailPublisher(
+        @NotNull String address, @NotNull String authCode,
+        @NotNull AtomicInteger inFlight)
+    {
+        this.credential = new SmtpTransportPool.Credential(address, authCode);
+        this.inFlight   = inFlight;
+    }
+
+    public String getAddress() {
+        return this.credential.address();
+    }
+
+    public String getAuthCode() {
+        return this.credential.authCode();
+    }
+
+    public SmtpTransportPool.Credential getCredential() {
+        return this.credential;
+    }
+
+    public int getInFlight() {
+        return this.inFlight.get();
+    }
+
+    AtomicInteger inFlightCounter() {
+        return this.inFlight;
+    }
+
+    void acquire() {
+        this.inFlight.incrementAndGet();
+    }
+
+    /** 这封邮件发送结束（无论成败）。*/
+    public void release() {
+        this.inFlight.decrementAndGet();
+    }
+
+    @Override
+    public String toString() {
+        return this.credential.toString();
+    }
+}
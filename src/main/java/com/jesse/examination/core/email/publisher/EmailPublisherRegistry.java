@@ -0,0 +1,202 @@
+package com.jesse.examination.core.email.publisher;
+
+import com.jesse.examination.core.email.entity.EmailAuthTable;
+import com.jesse.examination.core.email.exception.EmailException;
+import com.jesse.examination.core.email.service.EmailAuthQueryService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.jetbrains.annotations.NotNull;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.stereotype.Service;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.jesse.examination.core.redis.keys.ProjectRedisKey.EMAIL_PUBLISHER_REFRESH_CHANNEL;
+
+/**
+ * <p>发件人账号登记处。</p>
+ *
+ * <p>
+ *     启动时把 email_auth_table 中的所有账号读入内存，发信时不再查询 Redis。
+ *     修改数据表后调用 {@link #publishRefresh()}（或直接向
+ *     {@link com.jesse.examination.core.redis.keys.ProjectRedisKey#EMAIL_PUBLISHER_REFRESH_CHANNEL}
+ *     频道发布任意消息，比如 <code>PUBLISH channel:email-publisher-refresh refresh</code>），
+ *     所有节点都会重新读取账号列表。频道以字符串收发，消息内容不需要是 JSON。
+ * </p>
+ *
+ * <p>
+ *     有多个账号时，每封邮件交给正在发送数最少的账号，数量相同时轮流选择，
+ *     服务商对单个账号的发送频率限制因此可以叠加。
+ * </p>
+ */
+@Slf4j
+@Service
+public class EmailPublisherRegistry
+{
+    @Autowired
+    private EmailAuthQueryService emailAuthQueryService;
+
+    @Autowired
+    private ReactiveStringRedisTemplate stringRedisTemplate;
+
+    /** 当前的账号列表（不可变，刷新时整体替换）。*/
+    private volatile List<EmailPublisher> publishers = List.of();
+
+    /** 轮询起点。*/
+    private final AtomicInteger cursor = new AtomicInteger(0);
+
+    /** 刷新通知的订阅。*/
+    private Disposable refreshSubscription;
+
+    /**
+     * 订阅刷新通知。每次（重新）订阅时都先读一次账号列表，
+     * 启动时的加载与订阅断开期间可能错过的通知都由此覆盖。
+     */
+    @PostConstruct
+    void loadAndSubscribe()
+    {
+        this.refreshSubscription
+            = Flux.defer(() ->
+                      Flux.concat(
+                          Mono.just("initial"),
+                          this.stringRedisTemplate
+                              .listenToChannel(EMAIL_PUBLISHER_REFRESH_CHANNEL.toString())
+                              .map((message) -> message.getMessage())
+                      ))
+                  .doOnError((exception) ->
+                      log.warn(
+                          "Email publisher refresh subscription lost, resubscribe. Cause: {}",
+                          exception.getMessage()
+                      ))
+                  .retryWhen(Retry.backoff(Long.MAX_VALUE, Duration.ofSeconds(1L))
+                                  .maxBackoff(Duration.ofSeconds(30L)))
+                  .concatMap((ignore) -> this.reload())
+                  .subscribe();
+    }
+
+    @PreDestroy
+    void cancelSubscription()
+    {
+        if (this.refreshSubscription != null) {
+            this.refreshSubscription.dispose();
+        }
+    }
+
+    /**
+     * 从数据库重新读取账号列表。
+     * 读取失败或读不到任何账号时保留原有列表。
+     *
+     * @return 当前可用的账号数
+     */
+    public Mono<Integer>
+    reload()
+    {
+        return this.emailAuthQueryService
+                   .findAllEmailPublisherInfo()
+                   .collectList()
+                   .timeout(Duration.ofSeconds(5L))
+                   .map((rows) -> {
+                       if (rows.isEmpty()) {
+                           log.warn("No email publisher found in email_auth_table, keep the old ones.");
+                       }
+                       else {
+                           this.replacePublishers(rows);
+                       }
+
+                       return this.publishers.size();
+                   })
+                   .doOnNext((count) ->
+                       log.info("Load email publisher info complete! Publishers: {}", count))
+                   .onErrorResume((exception) -> {
+                       log.error(
+                           "Load email publisher info failed! Cause: {}",
+                           exception.getMessage()
+                       );
+
+                       return Mono.just(this.publishers.size());
+                   });
+    }
+
+    /** 通知所有节点（包括本节点）重新读取账号列表。*/
+    public Mono<Void>
+    publishRefresh()
+    {
+        return this.stringRedisTemplate
+                   .convertAndSend(EMAIL_PUBLISHER_REFRESH_CHANNEL.toString(), "refresh")
+                   .timeout(Duration.ofSeconds(3L))
+                   .then();
+    }
+
+    /** 用数据表中的行替换当前的账号列表，同一邮箱沿用原有的正在发送计数。*/
+    public void
+    replacePublishers(@NotNull List<EmailAuthTable> rows)
+    {
+        Map<String, AtomicInteger> counters = new HashMap<>();
+
+        for (EmailPublisher publisher : this.publishers) {
+            counters.put(publisher.getAddress(), publisher.inFlightCounter());
+        }
+
+        this.publishers
+            = rows.stream()
+                  .filter((row) -> row.getEmail() != null && row.getEmailAuthCode() != null)
+                  .map((row) ->
+                      new EmailPublisher(
+                          row.getEmail(), row.getEmailAuthCode(),
+                          counters.getOrDefault(row.getEmail(), new AtomicInteger(0))
+                      ))
+                  .toList();
+    }
+
+    public List<EmailPublisher>
+    getPublishers() {
+        return this.publishers;
+    }
+
+    /**
+     * 选出正在发送数最少的账号（相同时轮流），并把它的正在发送数加一，
+     * 调用方发送结束后必须调用 {@link EmailPublisher#release()}。
+     *
+     * @throws EmailException 还没有任何可用账号
+     */
+    public @NotNull EmailPublisher
+    select()
+    {
+        List<EmailPublisher> current = this.publishers;
+
+        if (current.isEmpty())
+        {
+            throw new EmailException(
+                EmailException.ErrorType.CONFIG_MISSING,
+                "Missing email publisher info!", null
+            );
+        }
+
+        int start = Math.floorMod(this.cursor.getAndIncrement(), current.size());
+
+        EmailPublisher chosen = current.get(start);
+
+        for (int offset = 1; offset < current.size(); ++offset)
+        {
+            EmailPublisher candidate = current.get((start + offset) % current.size());
+
+            if (candidate.getInFlight() < chosen.getInFlight()) {
+                chosen = candidate;
+            }
+        }
+
+        chosen.acquire();
+
+        return chosen;
+    }
+}
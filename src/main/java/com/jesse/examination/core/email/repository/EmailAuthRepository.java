@@ -4,6 +4,7 @@ import com.jesse.examination.core.email.entity.EmailAuthTable;
 import org.springframework.data.r2dbc.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.data.repository.reactive.ReactiveCrudRepository;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 /** 邮箱数据表仓储类。 */
@@ -19,4 +20,7 @@ public interface EmailAuthRepository
     findAuthCodeByEmail(
         @Param(value = "email") String email
     );
+
+    /** 查询所有发件人账号。*/
+    Flux<EmailAuthTable> findAllByOrderById();
 }
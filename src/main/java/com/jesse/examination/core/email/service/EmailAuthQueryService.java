@@ -1,6 +1,7 @@
 package com.jesse.examination.core.email.service;
 
 import com.jesse.examination.core.email.entity.EmailAuthTable;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 public interface EmailAuthQueryService
@@ -22,4 +23,8 @@ public interface EmailAuthQueryService
      */
     Mono<EmailAuthTable>
     findEmailPublisherInfoById(Integer id);
+
+    /** 查询所有的邮箱发布者信息（按 ID 排序）。*/
+    Flux<EmailAuthTable>
+    findAllEmailPublisherInfo();
 }
@@ -1,12 +1,30 @@
 package com.jesse.examination.core.email.service;
 
 import com.jesse.examination.core.email.dto.EmailContent;
+import com.jesse.examination.core.email.publisher.EmailPublisher;
 import org.jetbrains.annotations.NotNull;
 import reactor.core.publisher.Mono;
 
+import java.time.Duration;
+
 /** 封装了 javax.mail 库的响应式邮件发送器接口。*/
 public interface EmailSenderInterface
 {
+    /** 单次发送尝试的最长时间。*/
+    Duration SEND_ATTEMPT_TIMEOUT = Duration.ofSeconds(30L);
+
+    /** 发送邮件，发件人由发件人账号登记处选出。*/
     Mono<Void>
     sendEmail(@NotNull EmailContent emailContent);
+
+    /** 以指定的发件人账号发送邮件（调用方自行选择账号并负责释放）。*/
+    Mono<Void>
+    sendEmail(@NotNull EmailContent emailContent, @NotNull EmailPublisher publisher);
+
+    /**
+     * 以指定的发件人账号只尝试发送一次（不重试，最长 {@link #SEND_ATTEMPT_TIMEOUT}），
+     * 失败后的重投由调用方（比如发件箱）自行安排。
+     */
+    Mono<Void>
+    sendEmailOnce(@NotNull EmailContent emailContent, @NotNull EmailPublisher publisher);
 }
@@ -6,6 +6,7 @@ import com.jesse.examination.core.email.service.EmailAuthQueryService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 /** 邮箱服务授权信息服务实现类。 */
@@ -26,4 +27,10 @@ public class EmailAuthQueryServiceImpl implements EmailAuthQueryService
     findEmailPublisherInfoById(Integer id) {
         return this.emailAuthRepository.findById(id);
     }
+
+    @Override
+    public Flux<EmailAuthTable>
+    findAllEmailPublisherInfo() {
+        return this.emailAuthRepository.findAllByOrderById();
+    }
 }
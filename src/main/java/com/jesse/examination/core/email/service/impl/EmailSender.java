@@ -3,17 +3,21 @@ package com.jesse.examination.core.email.service.impl;
 
 import com.jesse.examination.core.email.dto.EmailContent;
 import com.jesse.examination.core.email.exception.EmailException;
+import com.jesse.examination.core.email.publisher.EmailPublisher;
+import com.jesse.examination.core.email.publisher.EmailPublisherRegistry;
 import com.jesse.examination.core.email.service.EmailSenderInterface;
+import com.jesse.examination.core.email.transport.SmtpTransportPool;
 import com.jesse.examination.core.email.utils.EmailFormatVerifier;
+import com.jesse.examination.core.properties.ProjectProperties;
+import jakarta.annotation.PreDestroy;
 import lombok.Data;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.pool2.impl.GenericKeyedObjectPoolConfig;
 import org.jetbrains.annotations.NotNull;
 import org.springframework.context.annotation.Bean;
-import org.springframework.data.redis.core.ReactiveRedisTemplate;
 import org.springframework.stereotype.Component;
 import reactor.core.publisher.Mono;
 import reactor.core.scheduler.Schedulers;
-import reactor.util.function.Tuple2;
 import reactor.util.retry.Retry;
 
 import javax.mail.*;
@@ -26,8 +30,6 @@ import java.io.IOException;
 import java.time.Duration;
 import java.util.Properties;
 
-import static com.jesse.examination.core.redis.keys.ProjectRedisKey.ENTERPRISE_EMAIL_ADDRESS;
-import static com.jesse.examination.core.redis.keys.ProjectRedisKey.SERVICE_AUTH_CODE;
 import static java.lang.String.format;
 
 /** 封装了 javax.mail 库的响应式邮件发送器。*/
@@ -66,8 +68,11 @@ public class EmailSender implements EmailSenderInterface
     /** 邮件配置属性 */
     private final Properties mailProperties;
 
-    /** Redis 模板实例 */
-    private final ReactiveRedisTemplate<String, Object> redisTemplate;
+    /** 发件人账号登记处 */
+    private final EmailPublisherRegistry publisherRegistry;
+
+    /** 已登录的 SMTP 连接池（按发件人区分）*/
+    private final SmtpTransportPool transportPool;
 
     /**
      * 邮件发送器构造函数，在调用 EmailSenderBuilder::build() 时调用，
@@ -82,22 +87,32 @@ public class EmailSender implements EmailSenderInterface
         this.smtpHost            = builder.getSmtpHost();
         this.smtpPort            = builder.getSmtpPort();
         this.mailProperties      = builder.getMailProperties();
-        this.redisTemplate       = builder.getRedisTemplate();
+        this.publisherRegistry   = builder.getPublisherRegistry();
+        this.transportPool
+            = new SmtpTransportPool(this.mailProperties, builder.getTransportPoolConfig());
     }
 
     @Bean(name = "createEmailSender")
     public static EmailSender createEmailSender(
-        ReactiveRedisTemplate<String, Object> redisTemplate
+        EmailPublisherRegistry publisherRegistry,
+        ProjectProperties projectProperties
     )
     {
         return new EmailSender.EmailSenderBuilder()
             .smtpHost(SMTP_HOST)
             .smtpPort(SMTP_PORT)
-            .redisTemplate(redisTemplate)
+            .publisherRegistry(publisherRegistry)
             .defaultSetProperties()
+            .defaultSetTransportPoolConfig(projectProperties)
             .build();
     }
 
+    /** 关闭 SMTP 连接池，断开所有连接。*/
+    @PreDestroy
+    void closeTransportPool() {
+        this.transportPool.close();
+    }
+
     /**
      * <p>邮件发送器实例生成器。</p>
      *
@@ -119,8 +134,11 @@ public class EmailSender implements EmailSenderInterface
         /** 邮件配置属性 */
         private Properties  mailProperties  = null;
 
-        /** Redis 模板实例 */
-        private ReactiveRedisTemplate<String, Object> redisTemplate = null;
+        /** 发件人账号登记处 */
+        private EmailPublisherRegistry publisherRegistry = null;
+
+        /** SMTP 连接池配置 */
+        private GenericKeyedObjectPoolConfig<Transport> transportPoolConfig = null;
 
         /** 设置提供 SMTP 服务的运营商主机名。*/
         public EmailSenderBuilder smtpHost(String host) {
@@ -132,10 +150,43 @@ public class EmailSender implements EmailSenderInterface
             this.smtpPort = port; return this;
         }
 
-        /** 注入 Redis 模板实例。 */
+        /** 注入发件人账号登记处。 */
         public EmailSenderBuilder
-        redisTemplate(ReactiveRedisTemplate<String, Object> redisTemplate) {
-            this.redisTemplate = redisTemplate; return this;
+        publisherRegistry(EmailPublisherRegistry publisherRegistry) {
+            this.publisherRegistry = publisherRegistry; return this;
+        }
+
+        /** 设置 SMTP 连接池配置。*/
+        public EmailSenderBuilder
+        transportPoolConfig(GenericKeyedObjectPoolConfig<Transport> config) {
+            this.transportPoolConfig = config; return this;
+        }
+
+        /** 按项目属性配置 SMTP 连接池。*/
+        public EmailSenderBuilder
+        defaultSetTransportPoolConfig(@NotNull ProjectProperties properties)
+        {
+            GenericKeyedObjectPoolConfig<Transport> config
+                = new GenericKeyedObjectPoolConfig<>();
+
+            config.setMaxTotalPerKey(
+                Integer.parseInt(properties.getSmtpPoolMaxPerPublisher()));
+            config.setMaxIdlePerKey(
+                Integer.parseInt(properties.getSmtpPoolMaxIdlePerPublisher()));
+            config.setMaxWait(
+                Duration.ofSeconds(Long.parseLong(properties.getSmtpPoolMaxWait())));
+
+            // 空闲连接由后台定期检查：先发 NOOP 保活，空闲过久的直接断开
+            config.setTestWhileIdle(true);
+            config.setMinEvictableIdleDuration(
+                Duration.ofSeconds(Long.parseLong(properties.getSmtpPoolMaxIdleTime())));
+            config.setTimeBetweenEvictionRuns(
+                Duration.ofSeconds(Long.parseLong(properties.getSmtpPoolEvictionInterval())));
+            config.setNumTestsPerEvictionRun(-1);
+
+            this.transportPoolConfig = config;
+
+            return this;
         }
 
         /** 添加邮件服务配置属性（暂时用不到，但考虑扩展性予以保留）。*/
@@ -161,9 +212,11 @@ public class EmailSender implements EmailSenderInterface
                 this.mailProperties.put("mail.smtp.auth", "true");
                 this.mailProperties.put("mail.smtp.host", this.smtpHost);
                 this.mailProperties.put("mail.smtp.port", this.smtpPort);
-                this.mailProperties.put("mail.smtp.connectionpool", "true");
-                this.mailProperties.put("mail.smtp.connectionpooltimeout", "5000");
-                this.mailProperties.put("mail.smtp.connectionpoolsize", "10");
+
+                // 连接会被池长期持有，必须设置超时，避免一条坏掉的连接永远阻塞发送线程
+                this.mailProperties.put("mail.smtp.connectiontimeout", "10000");
+                this.mailProperties.put("mail.smtp.timeout", "10000");
+                this.mailProperties.put("mail.smtp.writetimeout", "10000");
 
                 switch (this.smtpPort)
                 {
@@ -193,44 +246,6 @@ public class EmailSender implements EmailSenderInterface
         }
     }
 
-    /**
-     * 创建邮件发送会话的静态方法。
-     *
-     * @param props     邮件配置属性
-     * @param userName  邮件发送人用户名
-     * @param password  邮箱服务授权码
-     *
-     * @return 构造好的承载了一个 Session 实例的 Mono
-     */
-    private static Session createSession(
-        Properties props,
-        String userName, String password)
-    {
-        return Session.getInstance(props, new Authenticator() {
-            @Override
-            protected PasswordAuthentication getPasswordAuthentication() {
-                return new PasswordAuthentication(userName, password);
-            }
-        });
-    }
-
-    /**
-     * 从 Redis 中查询发件人邮箱号和对应的服务授权码，
-     * 返回一个承载了上述两个信息的元组。
-     */
-    private Mono<Tuple2<String, String>>
-    getEmailPublisherInfo()
-    {
-        return Mono.zip(
-            this.redisTemplate.opsForValue()
-                .get(ENTERPRISE_EMAIL_ADDRESS.toString())
-                .map((address) -> (String) address),
-            this.redisTemplate.opsForValue()
-                .get(SERVICE_AUTH_CODE.toString())
-                .map((authCode) -> (String) authCode)
-        );
-    }
-
     /**
      * 检查在发送邮件过程中所抛出的异常，
      * 是否有重发邮件的必要？
@@ -259,26 +274,24 @@ public class EmailSender implements EmailSenderInterface
      *     表示返回的响应式流不承载任何数据。
      * </p>
      *
-     * @param content 邮件内容
-     * @param fromName 发件人
-     * @param authCode 邮箱服务授权码
+     * <p>
+     *     邮件通过连接池中已经登录好的连接发出，不再每封邮件都新建会话、建立连接。
+     * </p>
+     *
+     * @param content   邮件内容
+     * @param publisher 发件人账号
      *
      * @return 不承载任何数据的 Mono，表示操作成功完成
      */
     private Mono<Void>
-    sendEmailReactive(EmailContent content, String fromName, String authCode)
+    sendEmailReactive(EmailContent content, EmailPublisher publisher)
     {
         return Mono.fromCallable(() -> {
             try {
-                Session newSession
-                    = createSession(this.mailProperties, fromName, authCode);
-
                 Message message
-                    = new MimeMessage(newSession);
+                    = new MimeMessage(this.transportPool.getSession());
 
-                if (fromName != null) {
-                    message.setFrom(new InternetAddress(fromName));
-                }
+                message.setFrom(new InternetAddress(publisher.getAddress()));
 
                 message.setRecipient(
                     Message.RecipientType.TO,
@@ -328,7 +341,7 @@ public class EmailSender implements EmailSenderInterface
                     message.setContent(multipart);
                 }
 
-                Transport.send(message);
+                this.transportPool.send(publisher.getCredential(), message);
 
                 // log.info("Email send to: {} complete.", content.getTo());
 
@@ -360,7 +373,7 @@ public class EmailSender implements EmailSenderInterface
     }
 
     /**
-     * 外部可调用的发送邮件的方法。
+     * 外部可调用的发送邮件的方法，由发件人账号登记处选出一个发件人。
      *
      * @param emailContent 邮件内容
      *
@@ -369,6 +382,25 @@ public class EmailSender implements EmailSenderInterface
     @Override
     public Mono<Void>
     sendEmail(@NotNull EmailContent emailContent)
+    {
+        return Mono.using(
+            this.publisherRegistry::select,
+            (publisher) -> this.sendEmail(emailContent, publisher),
+            EmailPublisher::release
+        );
+    }
+
+    /**
+     * 以指定的发件人账号发送邮件。
+     *
+     * @param emailContent 邮件内容
+     * @param publisher    发件人账号
+     *
+     * @return 表示操作是否正确完成的响应式流
+     */
+    @Override
+    public Mono<Void>
+    sendEmail(@NotNull EmailContent emailContent, @NotNull EmailPublisher publisher)
     {
         /*
          * 对于邮件发送过程中因为网络波动而出现的失败，
@@ -408,22 +440,8 @@ public class EmailSender implements EmailSenderInterface
 
         return EmailFormatVerifier
             .isValidEmail(emailContent.getTo()).then(
-                this.getEmailPublisherInfo()
-                    .switchIfEmpty(
-                        Mono.error(
-                            new EmailException(
-                                EmailException.ErrorType.CONFIG_MISSING,
-                                "Missing email publisher info!", null
-                            )
-                        )
-                    )
-                    .flatMap(tuple ->
-                        this.sendEmailReactive(
-                            emailContent,
-                            tuple.getT1(), tuple.getT2()
-                        )
-                    )
-                    .timeout(Duration.ofSeconds(30L))
+                this.sendEmailReactive(emailContent, publisher)
+                    .timeout(SEND_ATTEMPT_TIMEOUT)
                     .retryWhen(retryStrategy)
                     .onErrorResume(exception ->
                     {
@@ -445,4 +463,24 @@ public class EmailSender implements EmailSenderInterface
                     })
             );
     }
-}
\ No newline at end of file
+
+    /**
+     * 以指定的发件人账号只尝试发送一次，不做任何重试。
+     *
+     * @param emailContent 邮件内容
+     * @param publisher    发件人账号
+     *
+     * @return 表示操作是否正确完成的响应式流
+     */
+    @Override
+    public Mono<Void>
+    sendEmailOnce(@NotNull EmailContent emailContent, @NotNull EmailPublisher publisher)
+    {
+        return EmailFormatVerifier
+            .isValidEmail(emailContent.getTo())
+            .then(
+                this.sendEmailReactive(emailContent, publisher)
+                    .timeout(SEND_ATTEMPT_TIMEOUT)
+            );
+    }
+}
@@ -0,0 +1,248 @@
+package com.jesse.examination.core.email.transport;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.pool2.BaseKeyedPooledObjectFactory;
+import org.apache.commons.pool2.PooledObject;
+import org.apache.commons.pool2.impl.DefaultPooledObject;
+import org.apache.commons.pool2.impl.GenericKeyedObjectPool;
+import org.apache.commons.pool2.impl.GenericKeyedObjectPoolConfig;
+import org.jetbrains.annotations.NotNull;
+
+import javax.mail.*;
+import java.io.Closeable;
+import java.util.NoSuchElementException;
+import java.util.Properties;
+
+import static java.lang.String.format;
+
+/**
+ * <p>已登录的 SMTP 连接（{@link Transport}）池。</p>
+ *
+ * <p>
+ *     原先每发一封邮件都要新建 Session、建立连接、完成 TLS 握手与登录，发完再断开。
+ *     这里所有邮件共用一个 Session，按发件人分别维护若干条登录好的长连接：
+ * </p>
+ *
+ * <ul>
+ *     <li>借出连接前用 NOOP 检查连接是否仍然可用（{@link Transport#isConnected()}），不可用则销毁重建</li>
+ *     <li>后台定期检查空闲连接，空闲过久的连接主动断开，避免被服务器单方面关闭</li>
+ *     <li>发送时连接出错，作废这条连接并用一条新连接重发一次</li>
+ * </ul>
+ */
+@Slf4j
+public class SmtpTransportPool implements Closeable
+{
+    /**
+     * 发件人登录信息，作为连接池的键。
+     *
+     * @param address  发件人邮箱
+     * @param authCode 邮箱服务授权码
+     */
+    public record Credential(String address, String authCode)
+    {
+        @Override
+        public @NotNull String toString() {
+            return "Credential[address=" + this.address + "]";
+        }
+    }
+
+    /** 所有连接、所有邮件共用的会话。*/
+    private final Session session;
+
+    private final GenericKeyedObjectPool<Credential, Transport> pool;
+
+    /**
+     * 构造连接池（不会立即建立任何连接）。
+     *
+     * @param mailProperties 邮件配置属性
+     * @param config         连接池配置（可以为 null，表示使用默认配置）
+     */
+    public SmtpTransportPool(
+        Properties mailProperties,
+        GenericKeyedObjectPoolConfig<Transport> config)
+    {
+        this.session
+            = Session.getInstance(
+                (mailProperties == null) ? new Properties() : mailProperties
+            );
+
+        GenericKeyedObjectPoolConfig<Transport> poolConfig
+            = (config == null) ? new GenericKeyedObjectPoolConfig<>() : config.clone();
+
+        // 借出前必须检查连接是否可用，这是断线重连的基础
+        poolConfig.setTestOnBorrow(true);
+        poolConfig.setJmxEnabled(false);
+
+        this.pool = new GenericKeyedObjectPool<>(new TransportFactory(this.session), poolConfig);
+    }
+
+    /** 获取连接池使用的会话（构造邮件时需要）。*/
+    public Session getSession() {
+        return this.session;
+    }
+
+    /** 获取指定发件人当前借出的连接数。*/
+    public int getNumActive(Credential credential) {
+        return this.pool.getNumActive(credential);
+    }
+
+    /** 获取指定发件人当前空闲的连接数。*/
+    public int getNumIdle(Credential credential) {
+        return this.pool.getNumIdle(credential);
+    }
+
+    /** 从池中借出一条可用的连接，池中没有时新建连接并登录。*/
+    private @NotNull Transport
+    borrow(Credential credential) throws MessagingException
+    {
+        try {
+            return this.pool.borrowObject(credential);
+        }
+        catch (MessagingException exception) {
+            throw exception;
+        }
+        catch (NoSuchElementException exception)
+        {
+            throw new MessagingException(
+                format("No SMTP transport available for %s!", credential.address()),
+                exception
+            );
+        }
+        catch (Exception exception)
+        {
+            throw new MessagingException(
+                format(
+                    "Borrow SMTP transport for %s failed! Cause: %s",
+                    credential.address(), exception.getMessage()
+                ),
+                exception
+            );
+        }
+    }
+
+    /** 作废一条出错的连接（关闭并从池中移除）。*/
+    private void
+    invalidate(Credential credential, Transport transport)
+    {
+        try {
+            this.pool.invalidateObject(credential, transport);
+        }
+        catch (Exception exception)
+        {
+            log.warn(
+                "Invalidate SMTP transport of {} failed! Cause: {}",
+                credential.address(), exception.getMessage()
+            );
+        }
+    }
+
+    /**
+     * 借用一条连接发送邮件（阻塞调用）。
+     * 连接出错时作废这条连接，再用一条新建的连接重发一次。
+     *
+     * @param credential 发件人登录信息
+     * @param message    以 {@link #getSession()} 构造的邮件
+     *
+     * @throws AuthenticationFailedException 登录失败
+     * @throws SendFailedException           收件人被服务器拒绝（连接本身正常）
+     * @throws MessagingException            重连后仍然发送失败
+     */
+    public void
+    send(Credential credential, @NotNull Message message) throws MessagingException
+    {
+        MessagingException lastFailure = null;
+
+        for (int attempt = 0; attempt < 2; ++attempt)
+        {
+            Transport transport = this.borrow(credential);
+
+            try
+            {
+                transport.sendMessage(message, message.getAllRecipients());
+                this.pool.returnObject(credential, transport);
+
+                return;
+            }
+            catch (SendFailedException exception)
+            {
+                // 服务器拒绝了这封邮件，但连接仍然可用
+                this.pool.returnObject(credential, transport);
+
+                throw exception;
+            }
+            catch (MessagingException exception)
+            {
+                this.invalidate(credential, transport);
+
+                lastFailure = exception;
+
+                log.warn(
+                    "SMTP transport of {} broken, reconnect. Cause: {}",
+                    credential.address(), exception.getMessage()
+                );
+            }
+        }
+
+        throw lastFailure;
+    }
+
+    /** 关闭连接池以及池中所有的连接。*/
+    @Override
+    public void close() {
+        this.pool.close();
+    }
+
+    /** 创建、检查与销毁 SMTP 连接的工厂。*/
+    private static class TransportFactory
+        extends BaseKeyedPooledObjectFactory<Credential, Transport>
+    {
+        private final Session session;
+
+        private TransportFactory(Session session) {
+            this.session = session;
+        }
+
+        /** 建立一条新的连接，并以发件人身份登录。*/
+        @Override
+        public Transport
+        create(@NotNull Credential credential) throws MessagingException
+        {
+            Transport transport = this.session.getTransport("smtp");
+
+            transport.connect(credential.address(), credential.authCode());
+
+            log.debug("SMTP transport of {} connected.", credential.address());
+
+            return transport;
+        }
+
+        @Override
+        public PooledObject<Transport>
+        wrap(Transport transport) {
+            return new DefaultPooledObject<>(transport);
+        }
+
+        /** 对 SMTP 连接而言，isConnected() 会向服务器发送 NOOP 检查连接是否存活。*/
+        @Override
+        public boolean
+        validateObject(Credential credential, @NotNull PooledObject<Transport> pooled) {
+            return pooled.getObject().isConnected();
+        }
+
+        @Override
+        public void
+        destroyObject(Credential credential, @NotNull PooledObject<Transport> pooled)
+        {
+            try {
+                pooled.getObject().close();
+            }
+            catch (MessagingException exception)
+            {
+                log.debug(
+                    "Close SMTP transport of {} failed! Cause: {}",
+                    credential.address(), exception.getMessage()
+                );
+            }
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.jesse.examination.core.file.cache;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.util.IllegalReferenceCountException;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.nio.file.Path;
+import java.time.Instant;
+
+/**
+ * <p>热点文件缓存中的一个条目：文件的元数据，以及（文件不太大时）存放在直接内存中的文件内容。</p>
+ *
+ * <p>
+ *     content 的引用计数归缓存所有，条目被淘汰时释放一次；
+ *     每次响应通过 {@link #retainedContent()} 取得一份共享同一块内存的副本，写出后由框架释放，
+ *     所以正在发送的条目即使被淘汰，内存也要等到发送完毕才真正归还。
+ * </p>
+ *
+ * @param path         文件路径
+ * @param length       文件大小（单位：字节）
+ * @param lastModified 文件最后修改时间（精确到秒，与 HTTP 日期格式一致）
+ * @param eTag         由文件大小与最后修改时间（毫秒）生成的实体标签
+ * @param content      文件内容（直接内存，只读），文件过大不缓存时为 null
+ */
+public record CachedFile(
+    Path path, long length, Instant lastModified,
+    String eTag, @Nullable ByteBuf content)
+{
+    /**
+     * 取得文件内容的一份共享副本（引用计数加一，零拷贝）。
+     *
+     * @return 文件内容，内容没有缓存或者条目刚好被淘汰时返回 null（此时应从磁盘读取）
+     */
+    public @Nullable ByteBuf
+    retainedContent()
+    {
+        if (this.content == null) { return null; }
+
+        try {
+            return this.content.retainedDuplicate();
+        }
+        catch (IllegalReferenceCountException exception) {
+            return null;
+        }
+    }
+
+    /** 条目占用的缓存容量（单位：字节）。*/
+    public int weight()
+    {
+        return (this.content == null)
+            ? 256
+            : 256 + this.content.capacity();
+    }
+
+    /** 条目被淘汰时调用，归还缓存持有的那一份引用。*/
+    void release()
+    {
+        if (this.content != null && this.content.refCnt() > 0) {
+            this.content.release();
+        }
+    }
+
+    /** 由文件大小与最后修改时间生成实体标签（不需要读取文件内容）。*/
+    static @NotNull String
+    eTagOf(long length, long lastModifiedMillis)
+    {
+        return "\"" + Long.toHexString(length) + "-"
+                    + Long.toHexString(lastModifiedMillis) + "\"";
+    }
+}
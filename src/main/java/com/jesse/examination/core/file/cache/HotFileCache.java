@@ -0,0 +1,162 @@
+package com.jesse.examination.core.file.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.jesse.examination.core.properties.ProjectProperties;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.jetbrains.annotations.NotNull;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+
+import static java.lang.String.format;
+
+/**
+ * <p>热点文件缓存（目前用于用户头像）。</p>
+ *
+ * <p>
+ *     按文件路径缓存文件的元数据与内容，内容存放在直接内存（堆外）中，
+ *     响应时把同一块内存直接交给 Netty 写出，不经过堆上的字节数组。
+ *     缓存总量不超过 <code>app.file-cache.maximum-bytes</code>，超出时淘汰最近最少使用的条目；
+ *     大于 <code>app.file-cache.max-file-bytes</code> 的文件只缓存元数据，内容由调用方从磁盘零拷贝发送。
+ * </p>
+ *
+ * <p>
+ *     文件通过本项目修改时，修改方负责调用 {@link #invalidate(Path)}；
+ *     其他途径（例如别的节点）的修改，最多在 <code>app.file-cache.expire-after-write</code> 秒后生效。
+ * </p>
+ */
+@Slf4j
+@Component
+public class HotFileCache
+{
+    @Autowired
+    private ProjectProperties projectProperties;
+
+    private Cache<Path, CachedFile> cache;
+
+    private long maxFileBytes;
+
+    @PostConstruct
+    void createCache()
+    {
+        this.maxFileBytes
+            = Long.parseLong(this.projectProperties.getFileCacheMaxFileBytes());
+
+        this.cache
+            = Caffeine.newBuilder()
+                      .maximumWeight(Long.parseLong(this.projectProperties.getFileCacheMaximumBytes()))
+                      .weigher((Path path, CachedFile file) -> file.weight())
+                      .expireAfterWrite(
+                          Duration.ofSeconds(
+                              Long.parseLong(this.projectProperties.getFileCacheExpireAfterWrite())))
+                      // 淘汰时在调用线程上立即释放直接内存，不交给公共线程池
+                      .executor(Runnable::run)
+                      .removalListener((Path path, CachedFile file, RemovalCause cause) -> {
+                          if (file != null) { file.release(); }
+                      })
+                      .build();
+    }
+
+    @PreDestroy
+    void releaseAll() {
+        this.cache.invalidateAll();
+    }
+
+    /**
+     * 获取某个文件，缓存未命中时在 boundedElastic 调度器上读取。
+     *
+     * @param path 文件路径
+     *
+     * @return 承载了缓存条目的 Mono，文件不存在时发出 FileNotFoundException
+     */
+    public Mono<CachedFile>
+    get(@NotNull Path path)
+    {
+        Path key = path.toAbsolutePath().normalize();
+
+        CachedFile cached = this.cache.getIfPresent(key);
+
+        if (cached != null) {
+            return Mono.just(cached);
+        }
+
+        return Mono.fromCallable(() -> this.load(key))
+                   .subscribeOn(Schedulers.boundedElastic())
+                   .map((loaded) -> {
+                       // 并发加载同一个文件时只保留先放进去的那一份
+                       CachedFile existing = this.cache.asMap().putIfAbsent(key, loaded);
+
+                       if (existing != null)
+                       {
+                           loaded.release();
+
+                           return existing;
+                       }
+
+                       return loaded;
+                   });
+    }
+
+    /** 文件被修改或删除后，移除它的缓存。*/
+    public void invalidate(@NotNull Path path) {
+        this.cache.invalidate(path.toAbsolutePath().normalize());
+    }
+
+    private @NotNull CachedFile
+    load(@NotNull Path path) throws IOException
+    {
+        if (!Files.exists(path)) {
+            throw new FileNotFoundException(format("File: %s not exist!", path));
+        }
+
+        BasicFileAttributes attributes
+            = Files.readAttributes(path, BasicFileAttributes.class);
+
+        long    length       = attributes.size();
+        Instant lastModified = attributes.lastModifiedTime().toInstant().truncatedTo(ChronoUnit.SECONDS);
+        String  eTag         = CachedFile.eTagOf(length, attributes.lastModifiedTime().toMillis());
+
+        if (length > this.maxFileBytes) {
+            return new CachedFile(path, length, lastModified, eTag, null);
+        }
+
+        ByteBuf content = Unpooled.directBuffer((int) length, (int) length);
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ))
+        {
+            // 直接从文件通道读进直接内存，不经过堆（writerIndex 即已读到的文件位置）
+            while (content.isWritable())
+            {
+                if (content.writeBytes(channel, content.writerIndex(), content.writableBytes()) < 0) {
+                    break;
+                }
+            }
+        }
+        catch (IOException exception)
+        {
+            content.release();
+
+            throw exception;
+        }
+
+        return new CachedFile(path, content.readableBytes(), lastModified, eTag, content.asReadOnly());
+    }
+}
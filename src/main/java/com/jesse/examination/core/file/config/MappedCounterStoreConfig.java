@@ -0,0 +1,44 @@
+package com.jesse.examination.core.file.config;
+
+import com.jesse.examination.core.file.mapped.MappedCounterStore;
+import com.jesse.examination.core.properties.ProjectProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.jetbrains.annotations.NotNull;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * 内存映射计数存储配置类，
+ * 只有 <code>app.archive.storage=mapped</code> 时才会打开段文件。
+ */
+@Slf4j
+@Configuration
+public class MappedCounterStoreConfig
+{
+    /** 存放所有用户问题答对次数的内存映射段文件（以用户 ID 为记录 ID）。*/
+    @Bean(initMethod = "start", destroyMethod = "close")
+    @ConditionalOnProperty(name = "app.archive.storage", havingValue = "mapped")
+    public MappedCounterStore
+    correctTimesCounterStore(@NotNull ProjectProperties projectProperties)
+    {
+        MappedCounterStore store
+            = new MappedCounterStore(
+                Path.of(projectProperties.getMappedArchiveSegmentFile()).normalize(),
+                Integer.parseInt(projectProperties.getMappedArchiveCapacity()),
+                Duration.ofSeconds(
+                    Long.parseLong(projectProperties.getMappedArchiveForceInterval())
+                )
+            );
+
+        log.info(
+            "Open correct times segment file: {} (capacity: {}).",
+            store.getSegmentFile(), store.getCapacity()
+        );
+
+        return store;
+    }
+}
@@ -0,0 +1,9 @@
+package com.jesse.examination.core.file.exception;
+
+/** 上传的文件超过了允许的最大大小。 */
+public class FileTooLargeException extends RuntimeException
+{
+    public FileTooLargeException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,9 @@
+package com.jesse.examination.core.file.exception;
+
+/** 上传的文件内容与要求的格式不符（例如文件头不对）。 */
+public class InvalidFileContentException extends RuntimeException
+{
+    public InvalidFileContentException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,426 @@
+package com.jesse.examination.core.file.mapped;
+
+import com.jesse.examination.core.file.exception.FileOperatorException;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.jetbrains.annotations.NotNull;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static java.lang.String.format;
+
+/**
+ * <p>基于内存映射文件的计数向量存储。</p>
+ *
+ * <p>
+ *     所有记录（比如每个用户的问题答对次数）存放在同一个段文件中，
+ *     每条记录长度固定，按记录 ID 直接定位，文件布局如下（所有整数均为大端）：
+ * </p>
+ *
+ * <code><pre>
+ * [文件头 4096 字节] 魔数 "QCS1" | 版本号 u32 | 每条记录的计数槽容量 u32 | 其余保留
+ * [段 0]  记录 1, 记录 2, ... 记录 k
+ * [段 1]  记录 k + 1, ...
+ * ......
+ * 每条记录：有效计数槽个数 u32（为 0 表示记录不存在） | 容量个 u32 计数槽
+ * </pre></code>
+ *
+ * <p>
+ *     文件按段（约 64 MiB，不会切断记录）懒加载的映射到内存，
+ *     写入时只修改值发生了变化的计数槽，所以只有这些槽所在的页会变脏，
+ *     脏页由后台任务定时 {@link MappedByteBuffer#force()} 写回磁盘。
+ * </p>
+ */
+@Slf4j
+public class MappedCounterStore implements Closeable
+{
+    /** 文件魔数 "QCS1"。*/
+    private static final int MAGIC = 0x51435331;
+
+    /** 当前的格式版本号。*/
+    private static final int VERSION = 1;
+
+    /** 文件头长度（一个页）。*/
+    private static final int HEADER_BYTES = 4096;
+
+    /** 每个段的目标大小。*/
+    private static final long SEGMENT_TARGET_BYTES = 64L << 20;
+
+    /** 单个计数的最大值（u32 上限）。*/
+    private static final long MAX_COUNTER = 0xFFFFFFFFL;
+
+    /** 段文件路径。*/
+    @Getter
+    private final Path segmentFile;
+
+    /** 每条记录最多容纳几个计数？*/
+    @Getter
+    private final int capacity;
+
+    /** 每条记录占几个字节？*/
+    private final int recordBytes;
+
+    /** 每个段容纳几条记录？*/
+    private final int recordsPerSegment;
+
+    private final FileChannel channel;
+
+    /** 已经映射的段，段号 -> 映射缓冲区。*/
+    private final Map<Integer, MappedByteBuffer> segments
+        = new ConcurrentHashMap<>();
+
+    /** 自上一次 force() 以来是否有写入？*/
+    private final AtomicBoolean dirty = new AtomicBoolean(false);
+
+    /** 脏页写回磁盘的间隔，为 null 或不大于 0 时只在关闭时写回。*/
+    private final Duration forceInterval;
+
+    /** 定时写回任务，由 {@link #start()} 启动。*/
+    private Disposable forceTask;
+
+    /**
+     * 打开（不存在则创建）一个段文件。
+     *
+     * @param segmentFile   段文件路径
+     * @param capacity      每条记录最多容纳几个计数
+     * @param forceInterval 脏页写回磁盘的间隔（调用 {@link #start()} 后生效），为 null 或不大于 0 时只在关闭时写回
+     *
+     * @throws FileOperatorException 打开文件失败，或已有文件的格式、容量不匹配时抛出
+     */
+    public MappedCounterStore(
+        @NotNull Path segmentFile, int capacity, Duration forceInterval)
+    {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive!");
+        }
+
+        this.segmentFile       = segmentFile;
+        this.capacity          = capacity;
+        this.forceInterval     = forceInterval;
+        this.recordBytes       = Integer.BYTES * (capacity + 1);
+        this.recordsPerSegment = (int) Math.max(1L, SEGMENT_TARGET_BYTES / this.recordBytes);
+
+        try
+        {
+            if (segmentFile.getParent() != null) {
+                Files.createDirectories(segmentFile.getParent());
+            }
+
+            this.channel = FileChannel.open(
+                segmentFile,
+                StandardOpenOption.CREATE,
+                StandardOpenOption.READ,
+                StandardOpenOption.WRITE
+            );
+
+            this.prepareHeader();
+        }
+        catch (IOException exception)
+        {
+            throw new FileOperatorException(
+                format("Open segment file %s failed! Cause: %s", segmentFile, exception.getMessage()),
+                exception
+            );
+        }
+    }
+
+    /**
+     * 启动定时写回任务（不在构造函数中启动，避免对象尚未构造完成就被另一个线程使用）。
+     * 某一次写回失败只记录日志，脏标记会被保留，下一次定时写回时重试。
+     */
+    public synchronized void start()
+    {
+        if (this.forceTask != null
+            || this.forceInterval == null
+            || this.forceInterval.isZero()
+            || this.forceInterval.isNegative()) {
+            return;
+        }
+
+        this.forceTask
+            = Flux.interval(this.forceInterval, Schedulers.boundedElastic())
+                  .onBackpressureDrop()
+                  .concatMap((ignore) ->
+                      Mono.fromRunnable(this::force)
+                          .onErrorResume((exception) -> {
+                              log.error(
+                                  "Force segment file {} failed, retry in next round. Cause: {}",
+                                  this.segmentFile, exception.getMessage(), exception
+                              );
+
+                              return Mono.empty();
+                          }))
+                  .subscribe();
+    }
+
+    /** 新文件写入文件头，已有文件校验文件头。*/
+    private void prepareHeader() throws IOException
+    {
+        ByteBuffer header = ByteBuffer.allocate(3 * Integer.BYTES);
+
+        if (this.channel.size() == 0L)
+        {
+            header.putInt(MAGIC).putInt(VERSION).putInt(this.capacity).flip();
+
+            this.channel.write(header, 0L);
+            this.channel.force(true);
+
+            return;
+        }
+
+        this.channel.read(header, 0L);
+        header.flip();
+
+        if (header.remaining() < 3 * Integer.BYTES || header.getInt() != MAGIC) {
+            throw new IOException("Bad segment file magic!");
+        }
+
+        int version  = header.getInt();
+        int capacity = header.getInt();
+
+        if (version != VERSION) {
+            throw new IOException(format("Unsupported segment file version: %d!", version));
+        }
+
+        if (capacity != this.capacity) {
+            throw new IOException(
+                format("Segment file capacity %d mismatch configured capacity %d!", capacity, this.capacity)
+            );
+        }
+    }
+
+    /** 段号对应的段在文件中的起始偏移。*/
+    private long segmentOffset(int segmentIndex) {
+        return HEADER_BYTES + (long) segmentIndex * this.recordsPerSegment * this.recordBytes;
+    }
+
+    /**
+     * 获取记录所在的段，段尚未映射时进行映射。
+     *
+     * @param create 文件还没有这么长时，是否扩展文件？（读取时不扩展）
+     */
+    private Optional<MappedByteBuffer>
+    segmentOf(int segmentIndex, boolean create)
+    {
+        MappedByteBuffer segment = this.segments.get(segmentIndex);
+
+        if (segment != null) { return Optional.of(segment); }
+
+        long segmentBytes = (long) this.recordsPerSegment * this.recordBytes;
+
+        try
+        {
+            if (!create && this.channel.size() < this.segmentOffset(segmentIndex) + segmentBytes) {
+                return Optional.empty();
+            }
+
+            return Optional.of(
+                this.segments.computeIfAbsent(segmentIndex, (index) -> {
+                    try
+                    {
+                        // 映射区域超出文件末尾时，文件会自动扩展（新区域全为 0，即记录不存在）
+                        return this.channel.map(
+                            FileChannel.MapMode.READ_WRITE,
+                            this.segmentOffset(index), segmentBytes
+                        );
+                    }
+                    catch (IOException exception) {
+                        throw new FileOperatorException(
+                            format("Map segment %d of %s failed!", index, this.segmentFile),
+                            exception
+                        );
+                    }
+                })
+            );
+        }
+        catch (IOException exception)
+        {
+            throw new FileOperatorException(
+                format("Read size of %s failed!", this.segmentFile), exception
+            );
+        }
+    }
+
+    private static void checkRecordId(long recordId)
+    {
+        if (recordId < 1L || recordId > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException(
+                format("Record id %d out of range!", recordId)
+            );
+        }
+    }
+
+    /**
+     * 读取一条记录。
+     *
+     * @param recordId 记录 ID（从 1 开始，比如用户 ID）
+     *
+     * @return 记录中的所有计数，记录不存在时返回 Optional.empty()
+     */
+    public Optional<long[]>
+    read(long recordId)
+    {
+        checkRecordId(recordId);
+
+        int index = (int) (recordId - 1);
+
+        return this.segmentOf(index / this.recordsPerSegment, false)
+                   .flatMap((segment) -> {
+                       int offset = (index % this.recordsPerSegment) * this.recordBytes;
+
+                       synchronized (segment)
+                       {
+                           int length = segment.getInt(offset);
+
+                           if (length <= 0 || length > this.capacity) {
+                               return Optional.empty();
+                           }
+
+                           long[] counters = new long[length];
+
+                           for (int slot = 0; slot < length; ++slot)
+                           {
+                               counters[slot]
+                                   = Integer.toUnsignedLong(
+                                       segment.getInt(offset + Integer.BYTES * (slot + 1))
+                                   );
+                           }
+
+                           return Optional.of(counters);
+                       }
+                   });
+    }
+
+    /**
+     * 写入一条记录，只有值发生变化的计数槽才会被写入。
+     *
+     * @param recordId 记录 ID（从 1 开始，比如用户 ID）
+     * @param counters 所有计数（超出 u32 范围的值会被截断）
+     *
+     * @throws IllegalArgumentException 计数个数超出容量时抛出
+     *
+     * @return 实际被修改的计数槽个数（包括记录长度字段）
+     */
+    public int
+    write(long recordId, long @NotNull [] counters)
+    {
+        checkRecordId(recordId);
+
+        if (counters.length > this.capacity)
+        {
+            throw new IllegalArgumentException(
+                format(
+                    "Too many counters! (%d, capacity: %d)",
+                    counters.length, this.capacity
+                )
+            );
+        }
+
+        int index = (int) (recordId - 1);
+
+        MappedByteBuffer segment
+            = this.segmentOf(index / this.recordsPerSegment, true).orElseThrow();
+
+        int offset  = (index % this.recordsPerSegment) * this.recordBytes;
+        int changed = 0;
+
+        synchronized (segment)
+        {
+            int oldLength = Math.clamp(segment.getInt(offset), 0, this.capacity);
+
+            for (int slot = 0; slot < Math.max(oldLength, counters.length); ++slot)
+            {
+                int position = offset + Integer.BYTES * (slot + 1);
+                int newValue
+                    = (slot < counters.length)
+                        ? (int) Math.clamp(counters[slot], 0L, MAX_COUNTER)
+                        : 0;
+
+                if (segment.getInt(position) != newValue)
+                {
+                    segment.putInt(position, newValue);
+                    ++changed;
+                }
+            }
+
+            if (oldLength != counters.length)
+            {
+                segment.putInt(offset, counters.length);
+                ++changed;
+            }
+        }
+
+        if (changed > 0) {
+            this.dirty.set(true);
+        }
+
+        return changed;
+    }
+
+    /**
+     * 删除一条记录（所有计数清零，长度设为 0）。
+     *
+     * @param recordId 记录 ID
+     */
+    public void delete(long recordId)
+    {
+        checkRecordId(recordId);
+
+        int index = (int) (recordId - 1);
+
+        // 所在的段从未写入过（文件还没有这么长）时记录必然不存在，不必为了清零而扩展文件
+        if (this.segmentOf(index / this.recordsPerSegment, false).isEmpty()) {
+            return;
+        }
+
+        this.write(recordId, new long[0]);
+    }
+
+    /** 若自上一次写回以来有写入，将所有已映射段的脏页写回磁盘。*/
+    public void force()
+    {
+        if (!this.dirty.getAndSet(false)) { return; }
+
+        try {
+            this.segments.values().forEach(MappedByteBuffer::force);
+        }
+        catch (RuntimeException exception)
+        {
+            // 写回失败时保留脏标记，以便下一次重试
+            this.dirty.set(true);
+
+            throw exception;
+        }
+
+        log.debug("Segment file {} forced.", this.segmentFile);
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+        if (this.forceTask != null) {
+            this.forceTask.dispose();
+        }
+
+        this.dirty.set(true);
+        this.force();
+        this.segments.clear();
+        this.channel.close();
+    }
+}
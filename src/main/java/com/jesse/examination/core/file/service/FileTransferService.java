@@ -1,7 +1,13 @@
 package com.jesse.examination.core.file.service;
 
+import com.jesse.examination.core.file.exception.FileOperatorException;
+import com.jesse.examination.core.file.exception.FileTooLargeException;
+import com.jesse.examination.core.file.exception.InvalidFileContentException;
+import org.springframework.core.io.buffer.DataBuffer;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.nio.ByteBuffer;
 import java.nio.file.Path;
 
 /** 文件操作核心接口。 */
@@ -36,6 +42,45 @@ public interface FileTransferService
     Mono<Void>
     saveDataFile(Path filePath, String fileName, byte[] fileData);
 
+    /**
+     * <p>非文本文件流式存储方法（响应式）。</p>
+     *
+     * <p>
+     *     数据块依次通过 AsynchronousFileChannel 写入目标目录下的临时文件，每写完一块就释放一块，
+     *     内存占用只与单个数据块的大小有关。全部写完并且文件头校验通过后，
+     *     临时文件被原子地移动为目标文件；任何一步失败都会删除临时文件，目标文件保持不变。
+     * </p>
+     *
+     * @param filePath       文件路径
+     * @param fileName       文件名
+     * @param fileData       文件数据流
+     * @param maxBytes       最大字节数，写入的数据一旦超出即停止写入
+     * @param expectedHeader 文件必须以这些字节开头（例如图片格式的魔数）
+     *
+     * @return 写入的字节数
+     *
+     * @throws FileTooLargeException        数据超过 maxBytes 时抛出
+     * @throws InvalidFileContentException  文件头与 expectedHeader 不符时抛出
+     * @throws FileOperatorException        其他文件操作失败时抛出
+     */
+    Mono<Long>
+    saveDataStream(
+        Path filePath, String fileName, Flux<DataBuffer> fileData,
+        long maxBytes, byte[] expectedHeader
+    );
+
+    /**
+     * 非文本文件读取方法（响应式），
+     * 按文件大小一次性分配缓冲区，通过 FileChannel 读入。
+     *
+     * @param filePath 文件路径
+     * @param fileName 文件名
+     *
+     * @return 承载了文件全部内容的 ByteBuffer（已经 flip，可以直接读取）
+     */
+    Mono<ByteBuffer>
+    readDataFile(Path filePath, String fileName);
+
     /**删除指定文件方法（响应式）。*/
     Mono<Void>
     deleteFile(Path filePath, String fileName);
@@ -2,23 +2,34 @@ package com.jesse.examination.core.file.service.impl;
 
 import com.jesse.examination.core.file.service.FileTransferService;
 import com.jesse.examination.core.file.exception.FileOperatorException;
+import com.jesse.examination.core.file.exception.FileTooLargeException;
+import com.jesse.examination.core.file.exception.InvalidFileContentException;
 import lombok.extern.slf4j.Slf4j;
 import org.jetbrains.annotations.NotNull;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
 import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.core.scheduler.Schedulers;
 
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.AsynchronousFileChannel;
+import java.nio.channels.FileChannel;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardCopyOption;
 import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Comparator;
 import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Stream;
 
 import static java.lang.String.format;
@@ -175,6 +186,217 @@ public class FileTransferServiceImpl implements FileTransferService
         ).then();
     }
 
+    @Override
+    public Mono<Long>
+    saveDataStream(
+        Path filePath, String fileName, Flux<DataBuffer> fileData,
+        long maxBytes, byte[] expectedHeader)
+    {
+        Objects.requireNonNull(filePath, "File path cannot be null!");
+        Objects.requireNonNull(fileName, "File name cannot be null!");
+
+        Path fullPath = filePath.resolve(fileName).normalize();
+
+        /*
+         * 先写到同一目录下的临时文件（保证最后的移动不跨盘，可以原子完成），
+         * 无论成功、失败还是请求被取消，最后都要删除残留的临时文件。
+         */
+        return Mono.usingWhen(
+            Mono.fromCallable(() ->
+                    Files.createTempFile(prepareDirectory(filePath), "." + fileName + "-", ".uploading"))
+                .subscribeOn(Schedulers.boundedElastic()),
+            (tempFile) ->
+                writeLimited(tempFile, fileData, maxBytes)
+                    .flatMap((written) ->
+                        Mono.fromCallable(() -> {
+                            checkFileHeader(tempFile, fileName, expectedHeader);
+                            moveAtomically(tempFile, fullPath);
+
+                            return written;
+                        }).subscribeOn(Schedulers.boundedElastic())),
+            FileTransferServiceImpl::deleteTempFile,
+            (tempFile, exception) -> deleteTempFile(tempFile),
+            FileTransferServiceImpl::deleteTempFile
+        )
+        .doOnError((exception) ->
+            log.error(
+                "[saveDataStream()] Save {} file: {} failed! Cause: {}",
+                fileName,
+                getFileExtension(fileName),
+                exception.getMessage()
+            )
+        )
+        .onErrorResume(
+            (exception) ->
+                !(exception instanceof FileTooLargeException)
+             && !(exception instanceof InvalidFileContentException),
+            (exception) ->
+                Mono.error(new FileOperatorException(
+                    format(
+                        ERROR_MESSAGE_TEMPLATE,
+                        fileName, exception.getMessage()
+                    ), exception)
+                )
+        );
+    }
+
+    /**
+     * 把数据流写入临时文件，每个数据块写完即释放；
+     * 累计字节数一旦超过 maxBytes 就释放当前块并终止写入（不必等整个请求体到达）。
+     */
+    private static @NotNull Mono<Long>
+    writeLimited(Path tempFile, @NotNull Flux<DataBuffer> fileData, long maxBytes)
+    {
+        return Mono.defer(() -> {
+            AtomicLong received = new AtomicLong(0L);
+
+            Flux<DataBuffer> limited
+                = fileData.handle((buffer, sink) -> {
+                    if (received.addAndGet(buffer.readableByteCount()) > maxBytes)
+                    {
+                        DataBufferUtils.release(buffer);
+                        sink.error(new FileTooLargeException(
+                            format("File too large! (limit: %d bytes)", maxBytes)
+                        ));
+
+                        return;
+                    }
+
+                    sink.next(buffer);
+                });
+
+            return Mono.using(
+                () -> AsynchronousFileChannel.open(tempFile, StandardOpenOption.WRITE),
+                (channel) ->
+                    DataBufferUtils.write(limited, channel)
+                                   .map(DataBufferUtils::release)
+                                   .then(Mono.fromSupplier(received::get)),
+                (channel) -> {
+                    try {
+                        channel.close();
+                    }
+                    catch (IOException exception) {
+                        log.warn("Close channel of {} failed!", tempFile, exception);
+                    }
+                }
+            );
+        });
+    }
+
+    /** 检查文件是否以 expectedHeader 开头（只读取文件头，不读取整个文件）。*/
+    private static void
+    checkFileHeader(Path file, String fileName, byte @NotNull [] expectedHeader) throws IOException
+    {
+        if (expectedHeader.length == 0) { return; }
+
+        ByteBuffer header = ByteBuffer.allocate(expectedHeader.length);
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ))
+        {
+            while (header.hasRemaining())
+            {
+                if (channel.read(header) == -1) { break; }
+            }
+        }
+
+        if (header.hasRemaining() || !Arrays.equals(header.array(), expectedHeader))
+        {
+            throw new InvalidFileContentException(
+                format("Content of file %s does not match the expected format!", fileName)
+            );
+        }
+    }
+
+    /** 把临时文件原子地替换为目标文件，读取方要么看到旧文件，要么看到完整的新文件。*/
+    private static void
+    moveAtomically(Path source, Path target) throws IOException
+    {
+        try {
+            Files.move(
+                source, target,
+                StandardCopyOption.ATOMIC_MOVE,
+                StandardCopyOption.REPLACE_EXISTING
+            );
+        }
+        catch (AtomicMoveNotSupportedException exception)
+        {
+            log.warn("Atomic move not supported, fallback to replace: {}", target);
+
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /** 删除残留的临时文件（成功移动后临时文件已不存在，此时什么也不做）。*/
+    private static @NotNull Mono<Void>
+    deleteTempFile(Path tempFile)
+    {
+        return Mono.fromCallable(() -> Files.deleteIfExists(tempFile))
+                   .subscribeOn(Schedulers.boundedElastic())
+                   .onErrorResume((exception) -> {
+                       log.warn("Delete temp file: {} failed!", tempFile, exception);
+
+                       return Mono.empty();
+                   })
+                   .then();
+    }
+
+    @Override
+    public Mono<ByteBuffer>
+    readDataFile(Path filePath, String fileName)
+    {
+        Objects.requireNonNull(filePath, "File path cannot be null!");
+        Objects.requireNonNull(fileName, "File name cannot be null!");
+
+        return Mono.fromCallable(
+            () -> {
+                Path fullPath = filePath.resolve(fileName).normalize();
+
+                if (!Files.exists(fullPath)) {
+                    throw new FileNotFoundException(
+                        format("File %s not exist!", fullPath)
+                    );
+                }
+
+                try (FileChannel channel = FileChannel.open(fullPath, StandardOpenOption.READ))
+                {
+                    long fileSize = channel.size();
+
+                    if (fileSize > Integer.MAX_VALUE) {
+                        throw new IOException(
+                            format("File %s is too large! (%d bytes)", fullPath, fileSize)
+                        );
+                    }
+
+                    ByteBuffer buffer = ByteBuffer.allocate((int) fileSize);
+
+                    // 通常一次 read() 就能读满，循环只是为了应对操作系统的短读
+                    while (buffer.hasRemaining())
+                    {
+                        if (channel.read(buffer) == -1) { break; }
+                    }
+
+                    return buffer.flip();
+                }
+            })
+            .subscribeOn(Schedulers.boundedElastic())
+            .doOnError((exception) ->
+                log.error(
+                    "[readDataFile()] Read {} file: {} failed!",
+                    fileName,
+                    getFileExtension(fileName),
+                    exception
+                )
+            )
+            .onErrorResume((exception) ->
+                Mono.error(new FileOperatorException(
+                    format(
+                        ERROR_MESSAGE_TEMPLATE,
+                        fileName, exception.getMessage()
+                    ), exception)
+                )
+            );
+    }
+
     private @NotNull Mono<Void>
     cleanAllFileUnderPath(Path filePath)
     {
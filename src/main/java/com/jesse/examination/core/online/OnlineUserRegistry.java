@@ -0,0 +1,420 @@
+package com.jesse.examination.core.online;
+
+import com.jesse.examination.core.properties.ProjectProperties;
+import com.jesse.examination.core.redis.script.RedisScriptRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.jetbrains.annotations.NotNull;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Range;
+import org.springframework.data.redis.connection.Limit;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.IntStream;
+
+import static com.jesse.examination.core.redis.errorhandle.RedisGenericErrorHandle.redisGenericErrorHandel;
+import static com.jesse.examination.core.redis.keys.ConcatRedisKey.dailyActiveKey;
+import static com.jesse.examination.core.redis.keys.ProjectRedisKey.*;
+import static com.jesse.examination.core.redis.script.ProjectRedisScript.ONLINE_CLAIM_IDLE;
+import static com.jesse.examination.core.redis.script.ProjectRedisScript.ONLINE_TOUCH;
+
+/**
+ * <p>在线用户登记处。</p>
+ *
+ * <p>
+ *     Redis 中用一个有序集合记录所有已登录的用户，分数为最后一次活动的时间戳（毫秒），
+ *     最后一次活动在 <code>app.online.active-window</code> 秒以内的用户视为在线。
+ *     分页列表与在线人数都是按分数范围查询（O(log n)），不需要扫描键空间。
+ *     每天有过活动的用户另外加入当天的 HyperLogLog（每个最多 12 KB），用来估算日活跃用户数。
+ * </p>
+ *
+ * <p>
+ *     登录与登出直接写 Redis；答题计数更新时只在内存中记下活动时间，
+ *     每隔 <code>app.online.flush-interval</code> 秒用一次脚本调用批量写入，
+ *     答题请求不会因此多一次 Redis 往返。
+ * </p>
+ *
+ * <p>
+ *     只有登录会把用户加入有序集合，批量写入的活动只更新仍在集合中的用户（ZADD XX GT），
+ *     与登出（或空闲回收）并发、迟到的活动不会把已经登出的用户重新加回来，
+ *     乱序到达的旧时间戳也不会覆盖更新的活动时间。
+ * </p>
+ */
+@Slf4j
+@Component
+public class OnlineUserRegistry
+{
+    /** 单次脚本调用最多写入多少个用户。*/
+    private static final int FLUSH_CHUNK_SIZE = 500;
+
+    /** 一个在线用户，以及他最后一次活动的时间戳（单位：毫秒）。*/
+    public record OnlineUser(String userName, long lastActiveTime) {}
+
+    @Autowired
+    private ReactiveStringRedisTemplate stringRedisTemplate;
+
+    @Autowired
+    private RedisScriptRegistry scriptRegistry;
+
+    @Autowired
+    private ProjectProperties projectProperties;
+
+    /** 还没有写入 Redis 的活动，用户名 -> 最后一次活动的时间戳。*/
+    private final Map<String, Long> pendingTouches = new ConcurrentHashMap<>();
+
+    /** 登录时没能写入 Redis 的用户，下一次批量写入时加入有序集合。*/
+    private final Set<String> pendingLogins = ConcurrentHashMap.newKeySet();
+
+    private Duration activeWindow = Duration.ofMinutes(30L);
+
+    private Duration dailyActiveRetention = Duration.ofDays(35L);
+
+    private Disposable flushTask;
+
+    @PostConstruct
+    void scheduleFlush()
+    {
+        this.activeWindow
+            = Duration.ofSeconds(
+                Math.max(1L, Long.parseLong(this.projectProperties.getOnlineActiveWindow())));
+        this.dailyActiveRetention
+            = Duration.ofDays(
+                Math.max(1L, Long.parseLong(this.projectProperties.getOnlineDailyActiveRetention())));
+
+        long interval
+            = Math.max(1L, Long.parseLong(this.projectProperties.getOnlineFlushInterval()));
+
+        this.flushTask
+            = Flux.interval(Duration.ofSeconds(interval))
+                  .onBackpressureDrop()
+                  .concatMap((ignore) -> this.flushTouches())
+                  .subscribe();
+    }
+
+    /** 停机前把内存中的活动写入 Redis。*/
+    @PreDestroy
+    void flushOnShutdown()
+    {
+        if (this.flushTask != null) {
+            this.flushTask.dispose();
+        }
+
+        try
+        {
+            this.flushTouches().block(Duration.ofSeconds(5L));
+        }
+        catch (RuntimeException exception)
+        {
+            log.warn(
+                "Flush online user activities on shutdown failed! Cause: {}",
+                exception.getMessage()
+            );
+        }
+    }
+
+    /** 记录某用户的一次活动（只写内存，由后台任务批量写入 Redis）。*/
+    public void touch(String userName)
+    {
+        if (userName != null && !userName.isEmpty()) {
+            this.pendingTouches.merge(userName, System.currentTimeMillis(), Math::max);
+        }
+    }
+
+    /**
+     * 立即把某用户记为在线（登录时调用）。
+     * 写入失败只记录日志，不影响登录，下一次活动时会再次写入。
+     */
+    public Mono<Void>
+    touchNow(String userName)
+    {
+        return Mono.defer(() -> {
+            this.touch(userName);
+
+            Long lastActiveTime = this.pendingTouches.remove(userName);
+
+            if (lastActiveTime == null) { return Mono.empty(); }
+
+            return this.writeTouches(Map.of(userName, lastActiveTime), true)
+                       .onErrorResume((exception) -> {
+                           this.pendingLogins.add(userName);
+                           this.pendingTouches.merge(userName, lastActiveTime, Math::max);
+
+                           log.warn(
+                               "Mark user: {} online failed, retry in next flush. Cause: {}",
+                               userName, exception.getMessage()
+                           );
+
+                           return Mono.empty();
+                       });
+        });
+    }
+
+    /** 把某用户从在线用户中移除（登出或删除用户时调用）。*/
+    public Mono<Void>
+    remove(String userName)
+    {
+        return Mono.defer(() -> {
+            this.pendingLogins.remove(userName);
+            this.pendingTouches.remove(userName);
+
+            return this.stringRedisTemplate
+                       .opsForZSet()
+                       .remove(ONLINE_USERS.toString(), userName)
+                       .timeout(Duration.ofSeconds(3L))
+                       .onErrorResume((exception) ->
+                           redisGenericErrorHandel(exception, 0L))
+                       .then();
+        });
+    }
+
+    /** 当前在线人数。*/
+    public Mono<Long>
+    onlineCount()
+    {
+        return this.stringRedisTemplate
+                   .opsForZSet()
+                   .count(ONLINE_USERS.toString(), this.activeRange())
+                   .timeout(Duration.ofSeconds(3L))
+                   .onErrorResume((exception) ->
+                       redisGenericErrorHandel(exception, null));
+    }
+
+    /**
+     * 按最后一次活动时间从近到远分页列出在线用户。
+     *
+     * @param page   页码（从 1 开始）
+     * @param amount 每页的用户数
+     */
+    public Flux<OnlineUser>
+    listOnline(int page, int amount)
+    {
+        return this.stringRedisTemplate
+                   .opsForZSet()
+                   .reverseRangeByScoreWithScores(
+                       ONLINE_USERS.toString(), this.activeRange(),
+                       Limit.limit().offset(Math.max(0, page - 1) * amount).count(amount)
+                   )
+                   .map((tuple) ->
+                       new OnlineUser(
+                           tuple.getValue(),
+                           Objects.requireNonNull(tuple.getScore()).longValue()
+                       ))
+                   .timeout(Duration.ofSeconds(3L))
+                   .onErrorResume((exception) ->
+                       redisGenericErrorHandel(exception, null));
+    }
+
+    /** 所有已登录（还没有登出）的用户名，包括已经不活跃的用户。*/
+    public Flux<String>
+    allUsers()
+    {
+        return this.stringRedisTemplate
+                   .opsForZSet()
+                   .range(ONLINE_USERS.toString(), Range.unbounded())
+                   .timeout(Duration.ofSeconds(3L))
+                   .onErrorResume((exception) ->
+                       redisGenericErrorHandel(exception, null));
+    }
+
+    /**
+     * 最近若干天（包括今天）的活跃用户数估计值（HyperLogLog 并集，标准误差约 0.81%）。
+     *
+     * @param days 天数，1 表示只统计今天
+     */
+    public Mono<Long>
+    activeUserCount(int days)
+    {
+        LocalDate today = LocalDate.now();
+
+        String[] keys
+            = IntStream.range(0, Math.max(1, days))
+                       .mapToObj((offset) -> dailyActiveKey(today.minusDays(offset)))
+                       .toArray(String[]::new);
+
+        return this.stringRedisTemplate
+                   .opsForHyperLogLog()
+                   .size(keys)
+                   .timeout(Duration.ofSeconds(3L))
+                   .onErrorResume((exception) ->
+                       redisGenericErrorHandel(exception, null));
+    }
+
+    /**
+     * 认领最后一次活动早于 idleBefore 的用户（最多 limit 个），
+     * 被认领的用户同时从有序集合中移除，多个节点同时认领时每个用户只会被一个节点认领到。
+     * 认领前先把本节点内存中的活动写入 Redis，以免认领到刚刚还有活动的用户。
+     *
+     * <p>
+     *     数据还在 Redis 中的用户在同一个脚本中登记登出（登出状态置为 pending 并加入待登出有序集合），
+     *     之后任何节点上的登录都能撤销它，不会出现认领之后、登记之前插入一次登录的情况，
+     *     任何节点的写回器都会认领并完成这些登出。
+     * </p>
+     *
+     * @param idleBefore 截止时间戳（单位：毫秒）
+     * @param limit      最多认领多少个用户
+     *
+     * @return 登记了登出的用户名列表
+     */
+    public Mono<List<String>>
+    claimIdleUsers(long idleBefore, int limit)
+    {
+        return this.flushTouches()
+                   .then(
+                       this.scriptRegistry
+                           .execute(
+                               ONLINE_CLAIM_IDLE,
+                               List.of(ONLINE_USERS.toString(), PENDING_LOGOUTS.toString()),
+                               List.of(
+                                   idleBefore, limit,
+                                   USER_INFO_ROOT_KEY, LOGOUT_STATE,
+                                   QUESTION_CORRECT_TIME, QUESTION_CORRECT_TIME_PACKED
+                               )
+                           )
+                           .next()
+                           .timeout(Duration.ofSeconds(3L))
+                   )
+                   .map((result) -> {
+                       List<String> userNames = new ArrayList<>(result.size());
+
+                       for (Object userName : result) {
+                           userNames.add(String.valueOf(userName));
+                       }
+
+                       return userNames;
+                   })
+                   .defaultIfEmpty(List.of())
+                   .onErrorResume((exception) ->
+                       redisGenericErrorHandel(exception, null));
+    }
+
+    /** 取走内存中所有还没有写入 Redis 的活动。*/
+    public Map<String, Long>
+    drainPendingTouches()
+    {
+        Map<String, Long> drained = new HashMap<>();
+
+        for (String userName : new ArrayList<>(this.pendingTouches.keySet()))
+        {
+            Long lastActiveTime = this.pendingTouches.remove(userName);
+
+            if (lastActiveTime != null) {
+                drained.put(userName, lastActiveTime);
+            }
+        }
+
+        return drained;
+    }
+
+    /** 按活动发生的日期分组（每天的活跃用户写入不同的 HyperLogLog）。*/
+    public static Map<LocalDate, Map<String, Long>>
+    groupByDay(@NotNull Map<String, Long> touches, ZoneId zone)
+    {
+        Map<LocalDate, Map<String, Long>> groups = new TreeMap<>();
+
+        touches.forEach((userName, lastActiveTime) ->
+            groups.computeIfAbsent(
+                      Instant.ofEpochMilli(lastActiveTime).atZone(zone).toLocalDate(),
+                      (ignore) -> new HashMap<>())
+                  .put(userName, lastActiveTime)
+        );
+
+        return groups;
+    }
+
+    /** 把内存中的活动批量写入 Redis，失败的活动放回内存，下一轮重试。*/
+    private Mono<Void> flushTouches()
+    {
+        return Mono.defer(() -> {
+            Map<String, Long> touches = this.drainPendingTouches();
+
+            if (touches.isEmpty()) { return Mono.empty(); }
+
+            // 登录时没能写入的用户单独写入（加入有序集合），其余的只更新仍然在线的用户
+            Map<String, Long> logins = new HashMap<>();
+
+            for (String userName : new ArrayList<>(touches.keySet()))
+            {
+                if (this.pendingLogins.remove(userName)) {
+                    logins.put(userName, touches.remove(userName));
+                }
+            }
+
+            return this.writeTouches(logins, true)
+                       .then(this.writeTouches(touches, false))
+                       .onErrorResume((exception) -> {
+                           this.pendingLogins.addAll(logins.keySet());
+
+                           logins.forEach((userName, lastActiveTime) ->
+                               this.pendingTouches.merge(userName, lastActiveTime, Math::max));
+                           touches.forEach((userName, lastActiveTime) ->
+                               this.pendingTouches.merge(userName, lastActiveTime, Math::max));
+
+                           log.warn(
+                               "Flush {} online user activities failed, retry in next round. Cause: {}",
+                               logins.size() + touches.size(), exception.getMessage()
+                           );
+
+                           return Mono.empty();
+                       });
+        });
+    }
+
+    /**
+     * 批量写入活动。
+     *
+     * @param touches 用户名 -> 最后一次活动的时间戳
+     * @param login   是否把不在有序集合中的用户加入（只有登录时为 true）
+     */
+    private @NotNull Mono<Void>
+    writeTouches(@NotNull Map<String, Long> touches, boolean login)
+    {
+        return Flux.fromIterable(groupByDay(touches, ZoneId.systemDefault()).entrySet())
+                   .concatMap((group) ->
+                       Flux.fromIterable(group.getValue().entrySet())
+                           .buffer(FLUSH_CHUNK_SIZE)
+                           .concatMap((chunk) -> {
+                               List<Object> args = new ArrayList<>(chunk.size() * 2 + 2);
+
+                               args.add(this.dailyActiveRetention.toSeconds());
+                               args.add((login) ? 1 : 0);
+
+                               for (Map.Entry<String, Long> touch : chunk)
+                               {
+                                   args.add(touch.getValue());
+                                   args.add(touch.getKey());
+                               }
+
+                               return this.scriptRegistry
+                                          .execute(
+                                              ONLINE_TOUCH,
+                                              List.of(
+                                                  ONLINE_USERS.toString(),
+                                                  dailyActiveKey(group.getKey())
+                                              ),
+                                              args
+                                          )
+                                          .timeout(Duration.ofSeconds(3L));
+                           }))
+                   .then();
+    }
+
+    /** 最后一次活动在活跃窗口以内的分数范围。*/
+    private @NotNull Range<Double>
+    activeRange()
+    {
+        long activeSince = System.currentTimeMillis() - this.activeWindow.toMillis();
+
+        return Range.rightUnbounded(Range.Bound.inclusive((double) activeSince));
+    }
+}
@@ -35,17 +35,185 @@ public class ProjectProperties
     @Value("${jwt.expiration}")
     private String jwtExpiration;
 
+    @Value("${jwt.key-id}")
+    private String jwtKeyId;
+
+    @ToString.Exclude
+    @Value("${jwt.previous-keys}")
+    private String jwtPreviousKeys;
+
+    @Value("${app.jwt.cache.maximum-size}")
+    private String jwtCacheMaximumSize;
+
+    @Value("${app.user-details-cache.maximum-size}")
+    private String userDetailsCacheMaximumSize;
+
+    @Value("${app.user-details-cache.expire-after-write}")
+    private String userDetailsCacheExpireAfterWrite;
+
     @Value("${app.redis.varify-code-expiration}")
     private String varifyCodeExpiration;
 
     @Value("${app.varify-code-length}")
     private String varifyCodeLength;
 
+    @Value("${app.varify-code-max-attempts}")
+    private String varifyCodeMaxAttempts;
+
+    @Value("${app.redis.correct-times-storage}")
+    private String correctTimesStorage;
+
+    @Value("${app.question.snapshot-refresh-interval}")
+    private String questionSnapshotRefreshInterval;
+
+    @Value("${app.count-cache.reconcile-interval}")
+    private String countCacheReconcileInterval;
+
+    @Value("${app.count-cache.local-maximum-size}")
+    private String countCacheLocalMaximumSize;
+
+    @Value("${app.count-cache.local-expire-after-write}")
+    private String countCacheLocalExpireAfterWrite;
+
+    @Value("${app.archive.storage}")
+    private String archiveStorage;
+
+    @Value("${app.archive.mapped.segment-file}")
+    private String mappedArchiveSegmentFile;
+
+    @Value("${app.archive.mapped.capacity}")
+    private String mappedArchiveCapacity;
+
+    @Value("${app.archive.mapped.force-interval}")
+    private String mappedArchiveForceInterval;
+
+    @Value("${app.archive.flush-interval}")
+    private String archiveFlushInterval;
+
+    @Value("${app.archive.flush-batch-size}")
+    private String archiveFlushBatchSize;
+
+    @Value("${app.archive.flush-concurrency}")
+    private String archiveFlushConcurrency;
+
+    @Value("${app.archive.logout-lease}")
+    private String archiveLogoutLease;
+
+    @Value("${app.password-hashing.threads}")
+    private String passwordHashingThreads;
+
+    @Value("${app.password-hashing.queue-capacity}")
+    private String passwordHashingQueueCapacity;
+
+    @Value("${app.email.smtp-pool.max-per-publisher}")
+    private String smtpPoolMaxPerPublisher;
+
+    @Value("${app.email.smtp-pool.max-idle-per-publisher}")
+    private String smtpPoolMaxIdlePerPublisher;
+
+    @Value("${app.email.smtp-pool.max-wait}")
+    private String smtpPoolMaxWait;
+
+    @Value("${app.email.smtp-pool.max-idle-time}")
+    private String smtpPoolMaxIdleTime;
+
+    @Value("${app.email.smtp-pool.eviction-interval}")
+    private String smtpPoolEvictionInterval;
+
+    @Value("${app.email-outbox.poll-interval}")
+    private String emailOutboxPollInterval;
+
+    @Value("${app.email-outbox.batch-size}")
+    private String emailOutboxBatchSize;
+
+    @Value("${app.email-outbox.concurrency}")
+    private String emailOutboxConcurrency;
+
+    @Value("${app.email-outbox.rate-per-second}")
+    private String emailOutboxRatePerSecond;
+
+    @Value("${app.email-outbox.max-attempts}")
+    private String emailOutboxMaxAttempts;
+
+    @Value("${app.email-outbox.retry-backoff}")
+    private String emailOutboxRetryBackoff;
+
+    @Value("${app.email-outbox.reclaim-interval}")
+    private String emailOutboxReclaimInterval;
+
+    @Value("${app.email-outbox.dead-letter-max-length}")
+    private String emailOutboxDeadLetterMaxLength;
+
+    @Value("${app.bulk-mail.page-size}")
+    private String bulkMailPageSize;
+
+    @Value("${app.bulk-mail.max-backlog}")
+    private String bulkMailMaxBacklog;
+
+    @Value("${app.bulk-mail.lease-time}")
+    private String bulkMailLeaseTime;
+
+    @Value("${app.rate-limit.enabled}")
+    private String rateLimitEnabled;
+
+    @Value("${app.rate-limit.local-maximum-size}")
+    private String rateLimitLocalMaximumSize;
+
+    @Value("${app.rate-limit.send-verify-code}")
+    private String rateLimitSendVerifyCode;
+
+    @Value("${app.rate-limit.login}")
+    private String rateLimitLogin;
+
+    @Value("${app.rate-limit.question-query}")
+    private String rateLimitQuestionQuery;
+
+    @Value("${app.online.active-window}")
+    private String onlineActiveWindow;
+
+    @Value("${app.online.flush-interval}")
+    private String onlineFlushInterval;
+
+    @Value("${app.online.daily-active-retention}")
+    private String onlineDailyActiveRetention;
+
+    @Value("${app.session-reaper.idle-timeout}")
+    private String sessionReaperIdleTimeout;
+
+    @Value("${app.session-reaper.interval}")
+    private String sessionReaperInterval;
+
+    @Value("${app.session-reaper.batch-size}")
+    private String sessionReaperBatchSize;
+
+    @Value("${app.session-reaper.max-batches}")
+    private String sessionReaperMaxBatches;
+
+    @Value("${app.file-cache.maximum-bytes}")
+    private String fileCacheMaximumBytes;
+
+    @Value("${app.file-cache.max-file-bytes}")
+    private String fileCacheMaxFileBytes;
+
+    @Value("${app.file-cache.expire-after-write}")
+    private String fileCacheExpireAfterWrite;
+
+    @Value("${app.avatar.max-upload-bytes}")
+    private String avatarMaxUploadBytes;
+
     @PostConstruct
     void showAllProperties() {
         log.info(this.toString());
     }
 
+    /**
+     * 用户问题答对次数在 Redis 中是否使用紧凑存储模式？
+     * （<code>app.redis.correct-times-storage=packed</code>）
+     */
+    public boolean isPackedCorrectTimesStorage() {
+        return "packed".equalsIgnoreCase(correctTimesStorage);
+    }
+
     /**
      * 获取本服务器根 URL，示例如下：</br>
      * <code>
@@ -0,0 +1,61 @@
+package com.jesse.examination.core.ratelimit;
+
+/**
+ * <p>本地令牌桶。</p>
+ *
+ * <p>
+ *     容量与恢复速率和对应的 {@link RateLimitPolicy} 相同，
+ *     单个节点不可能比整个集群放行更多请求，因此本地桶拒绝的请求可以直接返回 429，
+ *     不必再访问 Redis；本地桶放行的请求再由 Redis 中的 GCRA 脚本做全局判断。
+ * </p>
+ */
+public class LocalTokenBucket
+{
+    private final double capacity;
+
+    /** 每纳秒恢复多少个令牌。*/
+    private final double tokensPerNano;
+
+    private double tokens;
+
+    private long lastRefillNanos;
+
+    public LocalTokenBucket(long capacity, long periodNanos, long nowNanos)
+    {
+        this.capacity        = capacity;
+        this.tokensPerNano   = (double) capacity / periodNanos;
+        this.tokens          = capacity;
+        this.lastRefillNanos = nowNanos;
+    }
+
+    /**
+     * 尝试取走一个令牌。
+     *
+     * @param nowNanos 当前时刻（System.nanoTime()）
+     *
+     * @return 取到了返回 0，否则返回还要等待多少纳秒才有令牌
+     */
+    public synchronized long
+    tryAcquire(long nowNanos)
+    {
+        if (nowNanos > this.lastRefillNanos)
+        {
+            this.tokens
+                = Math.min(
+                    this.capacity,
+                    this.tokens + (nowNanos - this.lastRefillNanos) * this.tokensPerNano
+                );
+
+            this.lastRefillNanos = nowNanos;
+        }
+
+        if (this.tokens >= 1.0)
+        {
+            this.tokens -= 1.0;
+
+            return 0L;
+        }
+
+        return (long) Math.ceil((1.0 - this.tokens) / this.tokensPerNano);
+    }
+}
@@ -0,0 +1,90 @@
+package com.jesse.examination.core.ratelimit;
+
+import org.jetbrains.annotations.NotNull;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.server.PathContainer;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+import java.time.Duration;
+
+import static java.lang.String.format;
+
+/**
+ * <p>一条限流策略：某个路由上，每个请求方在一个周期内最多请求几次。</p>
+ *
+ * <p>
+ *     次数用完之后按 周期 / 次数 的速率恢复，
+ *     例如 <code>5/60</code> 表示最多连续请求 5 次，之后每 12 秒恢复一次。
+ * </p>
+ *
+ * @param name    策略名（Redis 键与监控指标的标签）
+ * @param method  请求方法
+ * @param pattern 路径模式
+ * @param keyBy   按什么区分请求方
+ * @param limit   一个周期内最多请求几次
+ * @param period  周期
+ */
+public record RateLimitPolicy(
+    String name, HttpMethod method, PathPattern pattern,
+    KeyBy keyBy, long limit, Duration period)
+{
+    /** 按什么区分请求方？*/
+    public enum KeyBy
+    {
+        /** 客户端 IP。*/
+        IP,
+
+        /** 已登录用户的用户名，未登录时退回到客户端 IP。*/
+        USER_OR_IP
+    }
+
+    /**
+     * 解析形如 <code>次数/周期秒数</code> 的限流配置。
+     *
+     * @throws IllegalArgumentException 配置格式错误时抛出
+     */
+    public static @NotNull RateLimitPolicy
+    of(String name, HttpMethod method, String path, KeyBy keyBy, @NotNull String spec)
+    {
+        String[] parts = spec.trim().split("/");
+
+        if (parts.length != 2) {
+            throw new IllegalArgumentException(
+                format("Rate limit of %s must be like limit/seconds, your value = %s.", name, spec)
+            );
+        }
+
+        long limit   = Long.parseLong(parts[0].trim());
+        long seconds = Long.parseLong(parts[1].trim());
+
+        if (limit <= 0 || seconds <= 0) {
+            throw new IllegalArgumentException(
+                format("Rate limit of %s must be positive, your value = %s.", name, spec)
+            );
+        }
+
+        return new RateLimitPolicy(
+            name, method,
+            PathPatternParser.defaultInstance.parse(path),
+            keyBy, limit, Duration.ofSeconds(seconds)
+        );
+    }
+
+    public boolean
+    matches(HttpMethod requestMethod, PathContainer path) {
+        return this.method.equals(requestMethod) && this.pattern.matches(path);
+    }
+
+    /** 相邻两次请求的平均间隔（单位：毫秒）。*/
+    public long
+    emissionIntervalMillis() {
+        return Math.max(1L, this.period.toMillis() / this.limit);
+    }
+
+    /** 突发容忍度：允许连续请求 limit 次（单位：毫秒）。*/
+    public long
+    toleranceMillis() {
+        return this.emissionIntervalMillis() * (this.limit - 1);
+    }
+}
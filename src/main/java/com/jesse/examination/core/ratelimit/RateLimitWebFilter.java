@@ -0,0 +1,142 @@
+package com.jesse.examination.core.ratelimit;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jesse.examination.core.respponse.ResponseBuilder;
+import org.jetbrains.annotations.NotNull;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.PathContainer;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+import java.net.InetSocketAddress;
+import java.security.Principal;
+import java.time.Duration;
+
+import static java.lang.String.format;
+
+/**
+ * <p>请求限流过滤器，挂在 SecurityWebFilterChain 的认证过滤器之后（此时已能拿到登录用户）。</p>
+ *
+ * <p>
+ *     不注册为 Spring Bean，否则 WebFlux 会把它再加入一次全局过滤器链，
+ *     由 WebSecurityConfig 构造后加入安全过滤器链。
+ * </p>
+ */
+public class RateLimitWebFilter implements WebFilter
+{
+    private final RequestRateLimiter rateLimiter;
+
+    private final ObjectMapper objectMapper;
+
+    public RateLimitWebFilter(RequestRateLimiter rateLimiter, ObjectMapper objectMapper)
+    {
+        this.rateLimiter  = rateLimiter;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public @NotNull Mono<Void>
+    filter(@NotNull ServerWebExchange exchange, @NotNull WebFilterChain chain)
+    {
+        if (!this.rateLimiter.isEnabled()) {
+            return chain.filter(exchange);
+        }
+
+        ServerHttpRequest request = exchange.getRequest();
+        PathContainer     path    = request.getPath().pathWithinApplication();
+
+        RateLimitPolicy policy
+            = this.rateLimiter.getPolicies()
+                              .stream()
+                              .filter((candidate) -> candidate.matches(request.getMethod(), path))
+                              .findFirst()
+                              .orElse(null);
+
+        if (policy == null) {
+            return chain.filter(exchange);
+        }
+
+        return this.resolveSubject(exchange, policy)
+                   .flatMap((subject) -> this.rateLimiter.check(policy, subject))
+                   .flatMap((decision) ->
+                       (decision.allowed())
+                           ? chain.filter(exchange)
+                           : this.reject(exchange.getResponse(), policy, decision.retryAfter())
+                   );
+    }
+
+    /** 请求方：已登录用户的用户名（策略允许时），否则为客户端 IP。*/
+    private Mono<String>
+    resolveSubject(@NotNull ServerWebExchange exchange, @NotNull RateLimitPolicy policy)
+    {
+        String clientAddress = clientAddress(exchange.getRequest());
+
+        if (policy.keyBy() == RateLimitPolicy.KeyBy.IP) {
+            return Mono.just(clientAddress);
+        }
+
+        return exchange.getPrincipal()
+                       .map(Principal::getName)
+                       .map((userName) -> "user:" + userName)
+                       .defaultIfEmpty(clientAddress);
+    }
+
+    /**
+     * 客户端 IP。这里取的是 TCP 连接的对端地址，
+     * 部署在反向代理之后时需要开启 server.forward-headers-strategy，才能拿到真实的客户端地址。
+     */
+    private static String
+    clientAddress(@NotNull ServerHttpRequest request)
+    {
+        InetSocketAddress remoteAddress = request.getRemoteAddress();
+
+        if (remoteAddress == null) {
+            return "unknown";
+        }
+
+        return (remoteAddress.getAddress() != null)
+            ? remoteAddress.getAddress().getHostAddress()
+            : remoteAddress.getHostString();
+    }
+
+    /** 返回 429，通过 Retry-After 响应头告诉客户端多少秒后再试。*/
+    private Mono<Void>
+    reject(
+        @NotNull ServerHttpResponse response,
+        @NotNull RateLimitPolicy policy, @NotNull Duration retryAfter)
+    {
+        long retryAfterSeconds
+            = Math.max(1L, (retryAfter.toMillis() + 999L) / 1000L);
+
+        ResponseBuilder.APIResponse<Object> body
+            = new ResponseBuilder.APIResponse<>(HttpStatus.TOO_MANY_REQUESTS);
+
+        body.setMessage(
+            format(
+                "Too many requests (%s)! Please retry after %d seconds.",
+                policy.name(), retryAfterSeconds
+            )
+        );
+
+        response.setStatusCode(HttpStatus.TOO_MANY_REQUESTS);
+        response.getHeaders().set(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+        response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+
+        try
+        {
+            byte[] bytes = this.objectMapper.writeValueAsBytes(body);
+
+            return response.writeWith(Mono.just(response.bufferFactory().wrap(bytes)));
+        }
+        catch (JsonProcessingException exception) {
+            return response.setComplete();
+        }
+    }
+}
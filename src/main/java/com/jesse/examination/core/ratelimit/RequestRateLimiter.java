@@ -0,0 +1,174 @@
+package com.jesse.examination.core.ratelimit;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.jesse.examination.core.properties.ProjectProperties;
+import com.jesse.examination.core.redis.script.RedisScriptRegistry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.jetbrains.annotations.NotNull;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpMethod;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+
+import static com.jesse.examination.core.ratelimit.RateLimitPolicy.KeyBy;
+import static com.jesse.examination.core.redis.keys.ConcatRedisKey.rateLimitKey;
+import static com.jesse.examination.core.redis.script.ProjectRedisScript.GCRA_RATE_LIMIT;
+import static com.jesse.examination.question.route.QuestionServiceURL.QUESTION_PAGINATION_QUERY_URI;
+import static com.jesse.examination.user.route.UserServiceURL.SEND_VARIFY_EMAIL;
+import static com.jesse.examination.user.route.UserServiceURL.USER_LOGIN_URI;
+
+/**
+ * <p>请求限流器。</p>
+ *
+ * <p>
+ *     先查本地令牌桶（不访问网络），本地放行后再执行 Redis 中的 GCRA 脚本，
+ *     使整个集群对同一请求方共用一份额度。Redis 不可用时只按本地令牌桶限流，不拒绝请求。
+ * </p>
+ *
+ * <p>
+ *     监控指标 <code>http.rate.limit{policy, outcome}</code>，outcome 取值：
+ *     allowed、rejected_local、rejected_global、redis_unavailable。
+ * </p>
+ */
+@Slf4j
+@Component
+public class RequestRateLimiter
+{
+    /** 限流判断的结果。*/
+    public record Decision(boolean allowed, Duration retryAfter)
+    {
+        static final Decision ALLOWED = new Decision(true, Duration.ZERO);
+
+        static Decision
+        rejected(Duration retryAfter) {
+            return new Decision(false, retryAfter);
+        }
+    }
+
+    @Autowired
+    private RedisScriptRegistry scriptRegistry;
+
+    @Autowired
+    private ProjectProperties projectProperties;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private boolean enabled;
+
+    private List<RateLimitPolicy> policies;
+
+    /** 策略名:请求方 -> 本地令牌桶，长时间没有请求的条目自动移除。*/
+    private Cache<String, LocalTokenBucket> localBuckets;
+
+    @PostConstruct
+    void createPolicies()
+    {
+        this.enabled = Boolean.parseBoolean(this.projectProperties.getRateLimitEnabled());
+
+        // 验证码邮件（SMTP）、登录（BCrypt）、分页查询题目（联表聚合）的代价都很高
+        this.policies
+            = List.of(
+                RateLimitPolicy.of(
+                    "send-verify-code", HttpMethod.POST, SEND_VARIFY_EMAIL,
+                    KeyBy.IP, this.projectProperties.getRateLimitSendVerifyCode()),
+                RateLimitPolicy.of(
+                    "login", HttpMethod.POST, USER_LOGIN_URI,
+                    KeyBy.IP, this.projectProperties.getRateLimitLogin()),
+                RateLimitPolicy.of(
+                    "question-query", HttpMethod.GET, QUESTION_PAGINATION_QUERY_URI + "*",
+                    KeyBy.USER_OR_IP, this.projectProperties.getRateLimitQuestionQuery())
+            );
+
+        Duration longestPeriod
+            = this.policies.stream()
+                           .map(RateLimitPolicy::period)
+                           .max(Duration::compareTo)
+                           .orElse(Duration.ofMinutes(1L));
+
+        this.localBuckets
+            = Caffeine.newBuilder()
+                      .maximumSize(
+                          Long.parseLong(this.projectProperties.getRateLimitLocalMaximumSize()))
+                      .expireAfterAccess(longestPeriod)
+                      .build();
+    }
+
+    public boolean isEnabled() {
+        return this.enabled;
+    }
+
+    public List<RateLimitPolicy> getPolicies() {
+        return this.policies;
+    }
+
+    /**
+     * 判断某个请求方能否再请求一次。
+     *
+     * @param policy  命中的限流策略
+     * @param subject 请求方（用户名或 IP）
+     */
+    public Mono<Decision>
+    check(@NotNull RateLimitPolicy policy, @NotNull String subject)
+    {
+        String key = rateLimitKey(policy.name(), subject);
+
+        LocalTokenBucket bucket
+            = this.localBuckets.get(key, (ignore) ->
+                new LocalTokenBucket(policy.limit(), policy.period().toNanos(), System.nanoTime()));
+
+        long localWait = bucket.tryAcquire(System.nanoTime());
+
+        if (localWait > 0L)
+        {
+            this.count(policy, "rejected_local");
+
+            return Mono.just(Decision.rejected(Duration.ofNanos(localWait)));
+        }
+
+        return this.scriptRegistry
+                   .execute(
+                       GCRA_RATE_LIMIT, List.of(key),
+                       List.of(policy.emissionIntervalMillis(), policy.toleranceMillis())
+                   )
+                   .next()
+                   .timeout(Duration.ofMillis(500L))
+                   .map((result) -> {
+                       boolean allowed = ((Number) result.get(0)).longValue() == 1L;
+
+                       this.count(policy, allowed ? "allowed" : "rejected_global");
+
+                       return allowed
+                           ? Decision.ALLOWED
+                           : Decision.rejected(
+                               Duration.ofMillis(((Number) result.get(1)).longValue()));
+                   })
+                   .onErrorResume((exception) -> {
+                       log.warn(
+                           "Rate limit check of {} fall back to local bucket. Cause: {}",
+                           key, exception.getMessage()
+                       );
+
+                       this.count(policy, "redis_unavailable");
+
+                       return Mono.just(Decision.ALLOWED);
+                   });
+    }
+
+    private void
+    count(@NotNull RateLimitPolicy policy, String outcome)
+    {
+        Counter.builder("http.rate.limit")
+               .tag("policy", policy.name())
+               .tag("outcome", outcome)
+               .register(this.meterRegistry)
+               .increment();
+    }
+}
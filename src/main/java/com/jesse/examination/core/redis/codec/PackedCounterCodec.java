@@ -0,0 +1,129 @@
+package com.jesse.examination.core.redis.codec;
+
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+import org.jetbrains.annotations.NotNull;
+
+import java.nio.ByteBuffer;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static java.lang.String.format;
+
+/**
+ * <p>紧凑计数数组的编解码工具类。</p>
+ *
+ * <p>
+ *     问题 ID 基本是连续的整数，所以所有问题的答对次数可以存放在一个定长数组里：
+ *     每个问题占一个 32 位无符号大端整数（u32）槽，问题 ID 1 对应第 0 个槽，
+ *     即问题 ID 为 n 的计数位于字节偏移 <code>(n - 1) * 4</code> 处。
+ * </p>
+ *
+ * <p>
+ *     这个布局与 Redis <code>BITFIELD key INCRBY u32 #(n - 1) 1</code> 完全一致，
+ *     所以编码后的数组可以直接存为一个 Redis 字符串并在服务端原地修改。
+ *     相比每个问题一个哈希表字段，每个问题只需 4 个字节。
+ * </p>
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+final public class PackedCounterCodec
+{
+    /** 每个计数槽占几个字节？*/
+    public static final int COUNTER_BYTES = Integer.BYTES;
+
+    /** 计数的最大值（u32 上限），编码时超过的部分会被截断为这个值。*/
+    public static final long MAX_COUNTER = 0xFFFFFFFFL;
+
+    /**
+     * 将 问题 ID -> 答对次数 的映射编码为紧凑计数数组，
+     * 映射中没有出现的问题 ID（ID 的空洞）计数为 0。
+     *
+     * @param counters 问题 ID（字符串形式）-> 答对次数
+     *
+     * @throws IllegalArgumentException 问题 ID 不是正整数时抛出
+     *
+     * @return 编码后的数组，长度为 最大问题 ID * 4
+     */
+    public static byte @NotNull []
+    encode(@NotNull Map<String, Long> counters)
+    {
+        int maxId = 0;
+
+        for (String questionId : counters.keySet()) {
+            maxId = Math.max(maxId, parseQuestionId(questionId));
+        }
+
+        ByteBuffer packed = ByteBuffer.allocate(maxId * COUNTER_BYTES);
+
+        counters.forEach((questionId, count) -> {
+            long value
+                = (count == null) ? 0L : Math.clamp(count, 0L, MAX_COUNTER);
+
+            packed.putInt(offsetOf(parseQuestionId(questionId)), (int) value);
+        });
+
+        return packed.array();
+    }
+
+    /**
+     * 将紧凑计数数组解码为按问题 ID 升序排列的 问题 ID -> 答对次数 映射。
+     *
+     * @param packed 紧凑计数数组
+     *
+     * @throws IllegalArgumentException 数组长度不是 4 的倍数时抛出
+     *
+     * @return 问题 ID（字符串形式）-> 答对次数
+     */
+    public static @NotNull Map<String, Long>
+    decode(byte @NotNull [] packed)
+    {
+        if (packed.length % COUNTER_BYTES != 0)
+        {
+            throw new IllegalArgumentException(
+                format("Packed counter length %d is not a multiple of %d!", packed.length, COUNTER_BYTES)
+            );
+        }
+
+        ByteBuffer buffer = ByteBuffer.wrap(packed);
+
+        int slots = packed.length / COUNTER_BYTES;
+
+        Map<String, Long> counters = LinkedHashMap.newLinkedHashMap(slots);
+
+        for (int index = 0; index < slots; ++index)
+        {
+            counters.put(
+                String.valueOf(index + 1),
+                Integer.toUnsignedLong(buffer.getInt(index * COUNTER_BYTES))
+            );
+        }
+
+        return counters;
+    }
+
+    /** 问题 ID 对应的计数槽在数组中的字节偏移。*/
+    public static int offsetOf(int questionId) {
+        return (questionId - 1) * COUNTER_BYTES;
+    }
+
+    private static int parseQuestionId(String questionId)
+    {
+        int id;
+
+        try {
+            id = Integer.parseInt(questionId);
+        }
+        catch (NumberFormatException exception) {
+            id = 0;
+        }
+
+        if (id < 1)
+        {
+            throw new IllegalArgumentException(
+                format("Question id %s is not a positive integer!", questionId)
+            );
+        }
+
+        return id;
+    }
+}
@@ -13,6 +13,7 @@ import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
 import org.springframework.data.redis.connection.lettuce.LettuceClientConfiguration;
 import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
 import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
 import org.springframework.data.redis.serializer.*;
 
 import java.nio.charset.Charset;
@@ -111,6 +112,33 @@ public class ReactiveRedisConfig
         return new ReactiveRedisTemplate<>(factory, context);
     }
 
+    /**
+     * 值为原始字节数组的 Redis 响应式模板，
+     * 用于存取不需要 JSON 序列化的二进制数据（比如紧凑存储的问题答对次数）。
+     */
+    @Bean
+    public ReactiveRedisTemplate<String, byte[]>
+    reactiveBinaryRedisTemplate(ReactiveRedisConnectionFactory factory)
+    {
+        RedisSerializationContext<String, byte[]> context
+            = RedisSerializationContext
+                .<String, byte[]>newSerializationContext(new StringRedisSerializer())
+                .value(RedisSerializer.byteArray())
+                .build();
+
+        return new ReactiveRedisTemplate<>(factory, context);
+    }
+
+    /**
+     * 键、值全部按字符串序列化的 Redis 响应式模板，
+     * 用于 Redis Stream（流中每条消息的字段和值都是字符串）。
+     */
+    @Bean
+    public ReactiveStringRedisTemplate
+    reactiveStringRedisTemplate(ReactiveRedisConnectionFactory factory) {
+        return new ReactiveStringRedisTemplate(factory);
+    }
+
     /** 配置 Long 类型的序列化与反序列化。 */
     static class LongRedisSerializer implements RedisSerializer<Long>
     {
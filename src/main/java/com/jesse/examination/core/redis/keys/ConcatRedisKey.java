@@ -1,5 +1,8 @@
 package com.jesse.examination.core.redis.keys;
 
+import java.time.LocalDate;
+import java.util.List;
+
 import static com.jesse.examination.core.redis.keys.ProjectRedisKey.*;
 import static java.lang.String.format;
 
@@ -25,6 +28,25 @@ public class ConcatRedisKey
         );
     }
 
+    /**
+     * <p>谁的所有问题答对次数紧凑数组？（紧凑存储模式） </p>
+     *
+     * <p>
+     *     示例：
+     *     <code>user:Jesse:ques-correct-times-packed</code>
+     * </p>
+     *
+     */
+    public static String
+    packedCorrectTimesKey(String userName)
+    {
+        return format(
+            "%s:%s:%s",
+            USER_INFO_ROOT_KEY,
+            userName, QUESTION_CORRECT_TIME_PACKED
+        );
+    }
+
     /**
      * <p>谁的验证码？ </p>
      *
@@ -45,33 +67,145 @@ public class ConcatRedisKey
     }
 
     /**
-     * <p>获取某个用户下所有键的通配符。</p>
+     * <p>谁的成绩总数？ </p>
+     *
+     * <p>
+     *     示例：
+     *     <code>user:Jesse:score-amount</code>
+     * </p>
+     *
+     */
+    public static String
+    userScoreAmountKey(String userName)
+    {
+        return format(
+            "%s:%s:%s",
+            USER_INFO_ROOT_KEY,
+            userName, USER_SCORE_AMOUNT
+        );
+    }
+
+    /**
+     * <p>谁的登出状态？ </p>
      *
      * <p>
      *     示例：
-     *     <code>user:Jesse:*</code>
+     *     <code>user:Jesse:logout-state</code>
      * </p>
+     *
      */
     public static String
-    allKeysOfUserPattern(String userName)
+    logoutStateKey(String userName)
     {
         return format(
-            "%s:%s:*",
-            USER_INFO_ROOT_KEY, userName
+            "%s:%s:%s",
+            USER_INFO_ROOT_KEY,
+            userName, LOGOUT_STATE
         );
     }
 
     /**
-     * <p>获取所有用户的通配符。</p>
+     * <p>哪张表的总行数？ </p>
      *
      * <p>
      *     示例：
-     *     <code>user:*</code>
+     *     <code>count:score_record</code>
      * </p>
+     *
      */
     public static String
-    allUserPatten() {
-        return USER_INFO_ROOT_KEY + ":*";
+    tableCountKey(String tableName)
+    {
+        return format("%s:%s", TABLE_COUNT_ROOT_KEY, tableName);
+    }
+
+    /** 某个键是否是 {@link #tableCountKey(String)} 生成的表总行数键？*/
+    public static boolean
+    isTableCountKey(String key) {
+        return key.startsWith(TABLE_COUNT_ROOT_KEY + ":");
+    }
+
+    /**
+     * 用户根键下的所有子键。
+     * 新增一种用户数据时必须同时加入这里，否则用户登出或被删除时不会清理它。
+     */
+    private static final List<ProjectRedisKey> USER_SUB_KEYS
+        = List.of(
+            QUESTION_CORRECT_TIME, QUESTION_CORRECT_TIME_PACKED,
+            VARIFY_CODE, USER_SCORE_AMOUNT, LOGOUT_STATE
+        );
+
+    /**
+     * <p>获取某个用户下所有可能存在的键（用于一次 UNLINK 清理，无需 SCAN 整个键空间）。</p>
+     *
+     * <p>
+     *     示例：
+     *     <code>[user:Jesse:ques-correct-times, user:Jesse:ques-correct-times-packed, ...]</code>
+     * </p>
+     */
+    public static List<String>
+    allKeysOfUser(String userName)
+    {
+        return USER_SUB_KEYS.stream()
+                            .map((subKey) ->
+                                format("%s:%s:%s", USER_INFO_ROOT_KEY, userName, subKey))
+                            .toList();
+    }
+
+    /**
+     * <p>获取批量邮件任务状态的键。</p>
+     *
+     * <p>
+     *     示例：
+     *     <code>bulk-mail:job:5f0c...</code>
+     * </p>
+     */
+    public static String
+    bulkMailJobKey(String jobId)
+    {
+        return format("%s:%s", BULK_MAIL_JOB_ROOT_KEY, jobId);
+    }
+
+    /**
+     * <p>获取批量邮件任务租约的键（同名任务同一时刻只能有一个在执行）。</p>
+     *
+     * <p>
+     *     示例：
+     *     <code>bulk-mail:job:score-report:lease</code>
+     * </p>
+     */
+    public static String
+    bulkMailJobLeaseKey(String jobName)
+    {
+        return format("%s:%s:lease", BULK_MAIL_JOB_ROOT_KEY, jobName);
+    }
+
+    /**
+     * <p>获取某个限流策略下某个请求方（用户名或 IP）的限流键。</p>
+     *
+     * <p>
+     *     示例：
+     *     <code>rate-limit:login:127.0.0.1</code>
+     * </p>
+     */
+    public static String
+    rateLimitKey(String policyName, String subject)
+    {
+        return format("%s:%s:%s", RATE_LIMIT_ROOT_KEY, policyName, subject);
+    }
+
+    /**
+     * <p>获取某一天的活跃用户 HyperLogLog 的键。</p>
+     *
+     * <p>
+     *     示例：
+     *     <code>daily-active:2025-07-01</code>
+     * </p>
+     */
+    public static String
+    dailyActiveKey(LocalDate day)
+    {
+        return format("%s:%s", DAILY_ACTIVE_ROOT_KEY, day);
     }
 
     /* 陆续按需添加拼合方法。*/
@@ -12,13 +12,13 @@ public enum ProjectRedisKey implements CharSequence
      * <code><pre>
      * user
      *   |—— Jesse
-     *   |      |—— verify_code (String)
+     *   |      |—— verify_code (HashMap)
      *   |      |—— ques_correct_times (HashMap)
      *   |—— Peter
-     *   |      |—— verify_code (String)
+     *   |      |—— verify_code (HashMap)
      *   |      |—— ques_correct_times (HashMap)
      *   |—— Mike
-     *   |      |—— verify_code (String)
+     *   |      |—— verify_code (HashMap)
      *   |      |—— ques_correct_times (HashMap)
      *   |
      *   ......
@@ -34,32 +34,128 @@ public enum ProjectRedisKey implements CharSequence
     /** 用户问题答对次数哈希表子键。 */
     QUESTION_CORRECT_TIME("ques-correct-times"),
 
+    /** 用户问题答对次数紧凑数组子键（紧凑存储模式下使用）。 */
+    QUESTION_CORRECT_TIME_PACKED("ques-correct-times-packed"),
+
     /** 用户验证码子键。 */
     VARIFY_CODE("verify-code"),
 
+    /** 用户成绩总数子键。 */
+    USER_SCORE_AMOUNT("score-amount"),
+
+    /**
+     * 用户登出状态子键（pending / flushing / cancelled），
+     * 协调不同节点上的登出写回与重新登录。
+     */
+    LOGOUT_STATE("logout-state"),
+
     /**
-     * <p>验证码发起者邮箱 Redis 键。</p>
+     * <p>数据表总行数缓存根键。</p>
      * <p>
      *     格式为：
      *     <pre>
-     *         K: ENTERPRISE_EMAIL_ADDRESS
-     *         V: String
+     *         K: count:{表名}
+     *         V: Long
      *     </pre>
      * </p>
      */
-    ENTERPRISE_EMAIL_ADDRESS("ENTERPRISE_EMAIL_ADDRESS"),
+    TABLE_COUNT_ROOT_KEY("count"),
 
     /**
-     * <p>来自邮箱服务提供的授权码键。</p>
+     * <p>用户验证信息缓存失效通知的发布/订阅频道。</p>
+     * <p>
+     *     某个节点修改或删除了用户后，向该频道发布用户名，
+     *     所有节点（包括自己）收到后从本地缓存中删除该用户。
+     * </p>
+     */
+    USER_DETAILS_INVALIDATE_CHANNEL("channel:user-details-invalidate"),
+
+    /**
+     * <p>邮件发件箱（Redis Stream）。</p>
      * <p>
      *     格式为：
      *     <pre>
-     *         K: SERVICE_AUTH_CODE
-     *         V: String
+     *         K: email-outbox:verify (验证码邮件，优先投递)
+     *         K: email-outbox:bulk   (批量邮件)
+     *         K: email-outbox:dead   (多次投递失败的死信)
+     *         V: Stream
      *     </pre>
      * </p>
      */
-    SERVICE_AUTH_CODE("SERVICE_AUTH_CODE");
+    EMAIL_OUTBOX_VERIFY("email-outbox:verify"),
+
+    EMAIL_OUTBOX_BULK("email-outbox:bulk"),
+
+    EMAIL_OUTBOX_DEAD("email-outbox:dead"),
+
+    /**
+     * <p>批量邮件任务根键。</p>
+     * <p>
+     *     格式为：
+     *     <pre>
+     *         K: bulk-mail:job:{任务 ID}       V: HashMap（任务状态、断点与进度）
+     *         K: bulk-mail:job:{任务名}:lease  V: String（正在执行的同名任务 ID，带过期时间）
+     *     </pre>
+     * </p>
+     */
+    BULK_MAIL_JOB_ROOT_KEY("bulk-mail:job"),
+
+    /**
+     * <p>请求限流根键。</p>
+     * <p>
+     *     格式为：
+     *     <pre>
+     *         K: rate-limit:{策略名}:{用户名或 IP}
+     *         V: Long（GCRA 理论到达时间，单位：毫秒，带过期时间）
+     *     </pre>
+     * </p>
+     */
+    RATE_LIMIT_ROOT_KEY("rate-limit"),
+
+    /**
+     * <p>在线用户有序集合。</p>
+     * <p>
+     *     格式为：
+     *     <pre>
+     *         K: online-users
+     *         V: ZSet（成员为用户名，分数为最后一次活动的时间戳，单位：毫秒）
+     *     </pre>
+     * </p>
+     */
+    ONLINE_USERS("online-users"),
+
+    /**
+     * <p>待登出用户有序集合（登出请求与写回租约，节点崩溃后由其他节点接手）。</p>
+     * <p>
+     *     格式为：
+     *     <pre>
+     *         K: pending-logouts
+     *         V: ZSet（成员为用户名，分数为最早可以被认领的时间戳，单位：毫秒）
+     *     </pre>
+     * </p>
+     */
+    PENDING_LOGOUTS("pending-logouts"),
+
+    /**
+     * <p>每日活跃用户根键。</p>
+     * <p>
+     *     格式为：
+     *     <pre>
+     *         K: daily-active:{yyyy-MM-dd}
+     *         V: HyperLogLog（当天有过活动的用户名，带过期时间）
+     *     </pre>
+     * </p>
+     */
+    DAILY_ACTIVE_ROOT_KEY("daily-active"),
+
+    /**
+     * <p>发件人账号刷新通知的发布/订阅频道。</p>
+     * <p>
+     *     修改 email_auth_table 后向该频道发布任意消息，
+     *     所有节点收到后重新读取发件人账号列表。
+     * </p>
+     */
+    EMAIL_PUBLISHER_REFRESH_CHANNEL("channel:email-publisher-refresh");
 
     final String keyName;
 
@@ -0,0 +1,147 @@
+package com.jesse.examination.core.redis.script;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.util.List;
+
+/**
+ * <p>项目中需要用到的所有 Redis Lua 脚本。</p>
+ *
+ * <p>
+ *     脚本文件统一存放在 <code>classpath:redis/scripts/</code> 下，
+ *     每个常量持有一个计算好 SHA1 的 {@link RedisScript}，
+ *     由 {@link RedisScriptRegistry} 在启动时预加载并通过 EVALSHA 执行。
+ * </p>
+ *
+ * @param <T> 脚本的返回值类型
+ */
+@Getter
+@RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+final public class ProjectRedisScript<T>
+{
+    /** 哈希表字段存在时才执行 HINCRBY，返回增加后的值，不存在返回 nil。*/
+    public static final ProjectRedisScript<Long> HINCRBY_IF_EXISTS
+        = of("hincrby-if-exists.lua", Long.class);
+
+    /** 哈希表字段存在时才执行 HSET，返回设置后的值，不存在返回 nil。*/
+    public static final ProjectRedisScript<Long> HSET_IF_EXISTS
+        = of("hset-if-exists.lua", Long.class);
+
+    /** 将哈希表中的一批字段各 + 1，依次返回 字段，增加后的值 ...。*/
+    @SuppressWarnings("rawtypes")
+    public static final ProjectRedisScript<List> HINCRBY_BATCH
+        = of("hincrby-batch.lua", List.class);
+
+    /** 将哈希表中所有字段的值都设为 0，返回被清零的字段数，哈希表不存在返回 nil。*/
+    public static final ProjectRedisScript<Long> HRESET_ALL
+        = of("hreset-all.lua", Long.class);
+
+    /** 紧凑存储模式下，计数槽存在时才执行 BITFIELD INCRBY，返回增加后的值，不存在返回 nil。*/
+    public static final ProjectRedisScript<Long> PACKED_INCRBY_IF_EXISTS
+        = of("packed-incrby-if-exists.lua", Long.class);
+
+    /** 紧凑存储模式下，计数槽存在时才执行 BITFIELD SET，返回设置后的值，不存在返回 nil。*/
+    public static final ProjectRedisScript<Long> PACKED_SET_IF_EXISTS
+        = of("packed-set-if-exists.lua", Long.class);
+
+    /** 紧凑存储模式下，将一批问题的计数各 + 1，依次返回 问题 ID，增加后的值 ...。*/
+    @SuppressWarnings("rawtypes")
+    public static final ProjectRedisScript<List> PACKED_INCRBY_BATCH
+        = of("packed-incrby-batch.lua", List.class);
+
+    /** 紧凑存储模式下，将所有计数清零，返回计数槽数，键不存在返回 nil。*/
+    public static final ProjectRedisScript<Long> PACKED_RESET_ALL
+        = of("packed-reset-all.lua", Long.class);
+
+    /** 键存在时才执行 INCRBY，返回增加后的值，不存在返回 nil。*/
+    public static final ProjectRedisScript<Long> INCRBY_IF_EXISTS
+        = of("incrby-if-exists.lua", Long.class);
+
+    /** 当前值与期望值（空字符串表示键不存在）相同时才设置计数，返回 1 表示已设置，0 表示未设置。*/
+    public static final ProjectRedisScript<Long> COUNT_COMPARE_AND_SET
+        = of("count-compare-and-set.lua", Long.class);
+
+    /** 保存验证码并设置有效期，重置输错次数，返回 1。*/
+    public static final ProjectRedisScript<Long> VERIFY_CODE_SAVE
+        = of("verify-code-save.lua", Long.class);
+
+    /** 校验一次性验证码，返回 1 匹配，0 不匹配，-1 不存在或已过期，-2 输错次数过多。*/
+    public static final ProjectRedisScript<Long> VERIFY_CODE_CONSUME
+        = of("verify-code-consume.lua", Long.class);
+
+    /** GCRA 限流，返回 {是否放行（1 / 0），需要等待的毫秒数}。*/
+    @SuppressWarnings("rawtypes")
+    public static final ProjectRedisScript<List> GCRA_RATE_LIMIT
+        = of("gcra-rate-limit.lua", List.class);
+
+    /** 批量记录用户活动（在线用户有序集合与当天的活跃用户 HyperLogLog，非登录时只更新仍在线的用户），返回写入的用户数。*/
+    public static final ProjectRedisScript<Long> ONLINE_TOUCH
+        = of("online-touch.lua", Long.class);
+
+    /** 认领长时间没有活动的用户（同时从在线用户有序集合中移除并登记登出），返回登记了登出的用户名列表。*/
+    @SuppressWarnings("rawtypes")
+    public static final ProjectRedisScript<List> ONLINE_CLAIM_IDLE
+        = of("online-claim-idle.lua", List.class);
+
+    /** 统计若干个键占用的内存，返回总字节数。*/
+    public static final ProjectRedisScript<Long> MEMORY_USAGE
+        = of("memory-usage.lua", Long.class);
+
+    /** 用户登出：数据还在 Redis 中时把登出状态设为 pending，返回 1 表示已登记，0 表示无需写回。*/
+    public static final ProjectRedisScript<Long> LOGOUT_REQUEST
+        = of("logout-request.lua", Long.class);
+
+    /** 用户登录：撤销尚未完成的登出，返回 1 表示撤销成功（数据仍在 Redis 中），0 表示没有待撤销的登出。*/
+    public static final ProjectRedisScript<Long> LOGOUT_CANCEL
+        = of("logout-cancel.lua", Long.class);
+
+    /** 认领一批到期的待登出用户（pending 或租约到期的 flushing），返回认领到的用户名列表。*/
+    @SuppressWarnings("rawtypes")
+    public static final ProjectRedisScript<List> LOGOUT_CLAIM
+        = of("logout-claim.lua", List.class);
+
+    /** 认领的登出写回结束后调用，仍未被撤销且写回成功时删除用户的数据，返回 1 表示已删除。*/
+    public static final ProjectRedisScript<Long> LOGOUT_COMPLETE
+        = of("logout-complete.lua", Long.class);
+
+    /** 键的当前值与期望值相同时才重新设置过期时间（续租），返回 1 表示已续期，0 表示持有者不同。*/
+    public static final ProjectRedisScript<Long> COMPARE_AND_EXPIRE
+        = of("compare-and-expire.lua", Long.class);
+
+    /** 键的当前值与期望值相同时才删除（释放租约），返回 1 表示已删除，0 表示持有者不同。*/
+    public static final ProjectRedisScript<Long> COMPARE_AND_DELETE
+        = of("compare-and-delete.lua", Long.class);
+
+    /** 所有脚本（启动时预加载用）。*/
+    static final List<ProjectRedisScript<?>> ALL_SCRIPTS
+        = List.of(
+            HINCRBY_IF_EXISTS, HSET_IF_EXISTS, HINCRBY_BATCH, HRESET_ALL,
+            PACKED_INCRBY_IF_EXISTS, PACKED_SET_IF_EXISTS, PACKED_INCRBY_BATCH, PACKED_RESET_ALL,
+            INCRBY_IF_EXISTS, COUNT_COMPARE_AND_SET, VERIFY_CODE_SAVE, VERIFY_CODE_CONSUME,
+            GCRA_RATE_LIMIT, ONLINE_TOUCH, ONLINE_CLAIM_IDLE, MEMORY_USAGE,
+            LOGOUT_REQUEST, LOGOUT_CANCEL, LOGOUT_CLAIM, LOGOUT_COMPLETE,
+            COMPARE_AND_EXPIRE, COMPARE_AND_DELETE
+        );
+
+    /** 脚本文件名。*/
+    private final String fileName;
+
+    /** 可以直接交给 ReactiveRedisTemplate 执行的脚本。*/
+    private final RedisScript<T> script;
+
+    private static <T> ProjectRedisScript<T>
+    of(String fileName, Class<T> resultType)
+    {
+        DefaultRedisScript<T> script = new DefaultRedisScript<>();
+
+        script.setLocation(new ClassPathResource("redis/scripts/" + fileName));
+        script.setResultType(resultType);
+
+        return new ProjectRedisScript<>(fileName, script);
+    }
+}
@@ -0,0 +1,98 @@
+package com.jesse.examination.core.redis.script;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.data.redis.serializer.GenericToStringSerializer;
+import org.springframework.data.redis.serializer.RedisElementReader;
+import org.springframework.data.redis.serializer.RedisElementWriter;
+import org.springframework.data.redis.serializer.StringRedisSerializer;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * <p>Redis Lua 脚本注册表。</p>
+ *
+ * <p>
+ *     启动时通过 SCRIPT LOAD 把 {@link ProjectRedisScript} 中的所有脚本预加载到 Redis，
+ *     之后的调用都通过 EVALSHA 只传输脚本的 SHA1，
+ *     （Redis 重启导致脚本缓存丢失时，模板会自动回退到 EVAL 并重新缓存）。
+ * </p>
+ *
+ * <p>
+ *     脚本参数统一序列化为普通字符串（而不是模板默认的 JSON），
+ *     这样 Lua 中拿到的 ARGV 就是 <code>12</code> 而不是 <code>"12"</code>。
+ * </p>
+ */
+@Slf4j
+@Component
+public class RedisScriptRegistry
+{
+    @Autowired
+    private ReactiveRedisTemplate<String, Object> redisTemplate;
+
+    /** 脚本参数的序列化器：任意对象转为字符串。*/
+    private static final RedisElementWriter<Object> ARGS_WRITER
+        = RedisElementWriter.from(new GenericToStringSerializer<>(Object.class));
+
+    /** 脚本批量返回值（bulk string）的反序列化器。*/
+    private static final RedisElementReader<String> RESULT_READER
+        = RedisElementReader.from(StringRedisSerializer.UTF_8);
+
+    /** 在依赖注入完成后，预加载所有脚本（失败不影响启动，执行时会回退到 EVAL）。*/
+    @PostConstruct
+    void preloadScripts()
+    {
+        Flux.fromIterable(ProjectRedisScript.ALL_SCRIPTS)
+            .flatMap((script) ->
+                this.redisTemplate.execute((connection) ->
+                        connection.scriptingCommands()
+                                  .scriptLoad(
+                                      ByteBuffer.wrap(
+                                          script.getScript()
+                                                .getScriptAsString()
+                                                .getBytes(StandardCharsets.UTF_8)
+                                      )
+                                  ))
+                    .timeout(Duration.ofSeconds(3L))
+                    .doOnNext((sha) ->
+                        log.info("Redis script {} loaded, SHA1 = {}", script.getFileName(), sha))
+                    .onErrorResume((exception) -> {
+                        log.warn(
+                            "Preload redis script {} failed! Cause: {}",
+                            script.getFileName(), exception.getMessage()
+                        );
+
+                        return Flux.empty();
+                    })
+            )
+            .subscribe();
+    }
+
+    /**
+     * 执行某个脚本（EVALSHA）。
+     *
+     * @param <T> 脚本的返回值类型
+     *
+     * @param script 要执行的脚本
+     * @param keys   KEYS 列表
+     * @param args   ARGV 列表，每个参数都会转为字符串
+     *
+     * @return 承载了脚本返回值的 Flux，脚本返回 nil 时为空
+     */
+    @SuppressWarnings("unchecked")
+    public <T> Flux<T>
+    execute(ProjectRedisScript<T> script, List<String> keys, List<?> args)
+    {
+        return this.redisTemplate.execute(
+            script.getScript(), keys, args,
+            ARGS_WRITER, (RedisElementReader<T>) RESULT_READER
+        );
+    }
+}
@@ -532,5 +532,46 @@ final public class ResponseBuilder
         );
     }
 
+    /** CONFLICT 响应的预设构建，用于请求与资源的当前状态冲突（比如同名任务正在执行）。*/
+    public @NotNull Mono<ServerResponse>
+    CONFLICT(String message, Throwable exception)
+    {
+        return this.buildError(
+            HttpStatus.CONFLICT, message,
+            exception,
+            headers ->
+                headers.setContentType(MediaType.APPLICATION_JSON)
+        );
+    }
+
+    /**
+     * SERVICE_UNAVAILABLE 响应的预设构建，
+     * 用于服务暂时过载时的快速拒绝，通过 Retry-After 响应头提示客户端稍后重试。
+     */
+    public @NotNull Mono<ServerResponse>
+    SERVICE_UNAVAILABLE(String message, Throwable exception)
+    {
+        return this.buildError(
+            HttpStatus.SERVICE_UNAVAILABLE, message,
+            exception,
+            headers -> {
+                headers.setContentType(MediaType.APPLICATION_JSON);
+                headers.set(HttpHeaders.RETRY_AFTER, "1");
+            }
+        );
+    }
+
+    /** PAYLOAD TOO LARGE（413）响应的预设构建，用于上传的数据超过大小限制时。*/
+    public @NotNull Mono<ServerResponse>
+    PAYLOAD_TOO_LARGE(String message, Throwable exception)
+    {
+        return this.buildError(
+            HttpStatus.PAYLOAD_TOO_LARGE, message,
+            exception,
+            headers ->
+                headers.setContentType(MediaType.APPLICATION_JSON)
+        );
+    }
+
     /* 后续的可以继续补充响应的预设构建。*/
 }
\ No newline at end of file
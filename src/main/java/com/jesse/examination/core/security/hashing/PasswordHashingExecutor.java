@@ -0,0 +1,215 @@
+package com.jesse.examination.core.security.hashing;
+
+import com.jesse.examination.core.properties.ProjectProperties;
+import com.jesse.examination.core.security.hashing.exception.PasswordHashingBusyException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static java.lang.String.format;
+
+/**
+ * <p>密码哈希（BCrypt）专用执行器。</p>
+ *
+ * <p>
+ *     BCrypt 是刻意设计得很慢的 CPU 密集型运算，
+ *     放在 Netty 事件循环线程上执行会阻塞所有其他请求，
+ *     放在 boundedElastic 上又会在登录高峰时开出远超 CPU 核心数的线程互相争抢。
+ *     这里使用一个与 CPU 核心数等大的固定线程池，配合有界的等待队列，
+ *     队列满时立即以 {@link PasswordHashingBusyException} 拒绝，由上层返回 503。
+ * </p>
+ *
+ * <p>暴露的指标：</p>
+ *
+ * <ul>
+ *     <li><code>password.hashing.queue.depth</code>  等待队列中的任务数</li>
+ *     <li><code>password.hashing.active</code>       正在执行的任务数</li>
+ *     <li><code>password.hashing.latency</code>      单次哈希的执行耗时（按 operation 区分 encode / matches）</li>
+ *     <li><code>password.hashing.wait</code>         任务在队列中的等待时间</li>
+ *     <li><code>password.hashing.rejected</code>     因队列已满被拒绝的任务数</li>
+ * </ul>
+ */
+@Slf4j
+@Component
+public class PasswordHashingExecutor
+{
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private ProjectProperties projectProperties;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private ThreadPoolExecutor executor;
+
+    private Timer encodeTimer;
+    private Timer matchesTimer;
+    private Timer waitTimer;
+    private Counter rejectedCounter;
+
+    @PostConstruct
+    void createExecutor()
+    {
+        int threads
+            = Integer.parseInt(this.projectProperties.getPasswordHashingThreads());
+        int queueCapacity
+            = Integer.parseInt(this.projectProperties.getPasswordHashingQueueCapacity());
+
+        if (threads <= 0) {
+            threads = Runtime.getRuntime().availableProcessors();
+        }
+
+        AtomicInteger threadNumber = new AtomicInteger(0);
+
+        this.executor = new ThreadPoolExecutor(
+            threads, threads, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(Math.max(1, queueCapacity)),
+            (runnable) -> {
+                Thread thread
+                    = new Thread(runnable, "password-hashing-" + threadNumber.incrementAndGet());
+
+                thread.setDaemon(true);
+
+                return thread;
+            },
+            new ThreadPoolExecutor.AbortPolicy()
+        );
+
+        Gauge.builder("password.hashing.queue.depth", this.executor, (pool) -> pool.getQueue().size())
+             .description("Tasks waiting for a password hashing thread")
+             .register(this.meterRegistry);
+
+        Gauge.builder("password.hashing.active", this.executor, ThreadPoolExecutor::getActiveCount)
+             .description("Password hashing tasks currently running")
+             .register(this.meterRegistry);
+
+        this.encodeTimer
+            = Timer.builder("password.hashing.latency")
+                   .tag("operation", "encode")
+                   .register(this.meterRegistry);
+
+        this.matchesTimer
+            = Timer.builder("password.hashing.latency")
+                   .tag("operation", "matches")
+                   .register(this.meterRegistry);
+
+        this.waitTimer
+            = Timer.builder("password.hashing.wait")
+                   .description("Time a password hashing task spent in the queue")
+                   .register(this.meterRegistry);
+
+        this.rejectedCounter
+            = Counter.builder("password.hashing.rejected")
+                     .description("Password hashing tasks rejected because the queue was full")
+                     .register(this.meterRegistry);
+
+        log.info(
+            "Password hashing executor ready. (threads: {}, queue capacity: {})",
+            threads, queueCapacity
+        );
+    }
+
+    @PreDestroy
+    void shutdownExecutor() {
+        this.executor.shutdown();
+    }
+
+    /**
+     * 将一次哈希运算提交到专用线程池，
+     * 结果在线程池的线程上发布，队列已满时立即失败。
+     */
+    private <T> Mono<T>
+    submit(Timer latencyTimer, Supplier<T> hashing)
+    {
+        return Mono.create((sink) -> {
+            long enqueueTime = System.nanoTime();
+
+            try
+            {
+                FutureTask<Void> task = new FutureTask<>(() -> {
+                    this.waitTimer.record(System.nanoTime() - enqueueTime, TimeUnit.NANOSECONDS);
+
+                    try {
+                        sink.success(latencyTimer.record(hashing));
+                    }
+                    catch (RuntimeException exception) {
+                        sink.error(exception);
+                    }
+                }, null);
+
+                this.executor.execute(task);
+
+                // 请求被取消（比如超时）时，尚未开始执行的任务直接从队列中移除，
+                // 只调用 cancel 的话任务仍会占着队列的位置，直到被某个线程取出后才丢弃
+                sink.onCancel(() -> {
+                    task.cancel(false);
+                    this.executor.remove(task);
+                });
+            }
+            catch (RejectedExecutionException exception)
+            {
+                this.rejectedCounter.increment();
+
+                sink.error(
+                    new PasswordHashingBusyException(
+                        format(
+                            "Password hashing is busy! (queue depth: %d) Please try again later.",
+                            this.executor.getQueue().size()
+                        )
+                    )
+                );
+            }
+        });
+    }
+
+    /**
+     * 对明文密码进行哈希。
+     *
+     * @param rawPassword 明文密码
+     *
+     * @throws PasswordHashingBusyException 线程池已满时抛出
+     *
+     * @return 哈希后的密码
+     */
+    public Mono<String>
+    encode(String rawPassword)
+    {
+        return this.submit(
+            this.encodeTimer,
+            () -> this.passwordEncoder.encode(rawPassword)
+        );
+    }
+
+    /**
+     * 校验明文密码与哈希后的密码是否匹配。
+     *
+     * @param rawPassword     明文密码
+     * @param encodedPassword 哈希后的密码
+     *
+     * @throws PasswordHashingBusyException 线程池已满时抛出
+     *
+     * @return 是否匹配？
+     */
+    public Mono<Boolean>
+    matches(String rawPassword, String encodedPassword)
+    {
+        return this.submit(
+            this.matchesTimer,
+            () -> this.passwordEncoder.matches(rawPassword, encodedPassword)
+        );
+    }
+}
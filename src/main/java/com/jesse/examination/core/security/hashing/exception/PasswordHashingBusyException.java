@@ -0,0 +1,12 @@
+package com.jesse.examination.core.security.hashing.exception;
+
+/**
+ * 密码哈希线程池已满（线程全忙且等待队列已满）时抛出，
+ * 请求应当被立即拒绝（503 Service Unavailable），由客户端稍后重试。
+ */
+public class PasswordHashingBusyException extends RuntimeException
+{
+    public PasswordHashingBusyException(String message) {
+        super(message);
+    }
+}
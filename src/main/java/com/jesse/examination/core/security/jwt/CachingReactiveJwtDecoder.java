@@ -0,0 +1,209 @@
+package com.jesse.examination.core.security.jwt;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.jetbrains.annotations.NotNull;
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.security.authentication.AbstractAuthenticationToken;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtException;
+import org.springframework.security.oauth2.jwt.ReactiveJwtDecoder;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * <p>带缓存的响应式 JWT 解码器。</p>
+ *
+ * <p>
+ *     同一次练习中，前端会带着同一个令牌发起成百上千次请求，
+ *     每次都重新解析令牌、重新计算 HMAC、重新解析权限是完全没必要的。
+ *     这里在真正的解码器前加一层有界缓存：
+ * </p>
+ *
+ * <ul>
+ *     <li>键：令牌的 SHA-256 摘要（不在内存中按原文索引令牌）</li>
+ *     <li>值：验证通过的 {@link Jwt} 以及从中解析出的权限列表</li>
+ *     <li>每个条目在令牌的 exp 时刻被淘汰，过期令牌不会从缓存中被放行</li>
+ * </ul>
+ *
+ * <p>只有验证成功的令牌才会被缓存，验证失败的令牌每次都会交给真正的解码器。</p>
+ */
+public class CachingReactiveJwtDecoder implements ReactiveJwtDecoder, MeterBinder
+{
+    /** 一个验证通过的令牌，以及从中解析出的权限列表。*/
+    private record VerifiedJwt(Jwt jwt, Collection<GrantedAuthority> authorities) {}
+
+    /** 真正执行解析和验签的解码器。*/
+    private final ReactiveJwtDecoder delegate;
+
+    /** 从令牌中解析权限的转换器。*/
+    private final Converter<Jwt, Collection<GrantedAuthority>> authoritiesConverter;
+
+    private final Cache<String, VerifiedJwt> cache;
+
+    /**
+     * @param delegate             真正执行解析和验签的解码器
+     * @param authoritiesConverter 从令牌中解析权限的转换器
+     * @param maximumSize          缓存的最大条目数
+     */
+    public CachingReactiveJwtDecoder(
+        @NotNull ReactiveJwtDecoder delegate,
+        @NotNull Converter<Jwt, Collection<GrantedAuthority>> authoritiesConverter,
+        long maximumSize
+    )
+    {
+        this.delegate             = delegate;
+        this.authoritiesConverter = authoritiesConverter;
+        this.cache
+            = Caffeine.newBuilder()
+                      .maximumSize(maximumSize)
+                      .expireAfter(new ExpireAtTokenExpiration())
+                      .recordStats()
+                      .build();
+    }
+
+    /** 令牌在其 exp 时刻过期，没有 exp 的令牌不缓存（立即过期）。*/
+    private static final class ExpireAtTokenExpiration
+        implements Expiry<String, VerifiedJwt>
+    {
+        @Override
+        public long
+        expireAfterCreate(String key, @NotNull VerifiedJwt value, long currentTime)
+        {
+            Instant expiresAt = value.jwt().getExpiresAt();
+
+            if (expiresAt == null) { return 0L; }
+
+            return Math.max(0L, Duration.between(Instant.now(), expiresAt).toNanos());
+        }
+
+        @Override
+        public long
+        expireAfterUpdate(
+            String key, @NotNull VerifiedJwt value,
+            long currentTime, long currentDuration
+        ) {
+            return this.expireAfterCreate(key, value, currentTime);
+        }
+
+        @Override
+        public long
+        expireAfterRead(
+            String key, VerifiedJwt value,
+            long currentTime, long currentDuration
+        ) {
+            return currentDuration;
+        }
+    }
+
+    /** 计算令牌的 SHA-256 摘要（十六进制字符串）。*/
+    private static @NotNull String
+    tokenDigest(@NotNull String token)
+    {
+        try
+        {
+            return HexFormat.of().formatHex(
+                MessageDigest.getInstance("SHA-256")
+                             .digest(token.getBytes(StandardCharsets.UTF_8))
+            );
+        }
+        catch (NoSuchAlgorithmException exception) {
+            // 所有 Java 平台都必须支持 SHA-256
+            throw new IllegalStateException(exception);
+        }
+    }
+
+    @Override
+    public Mono<Jwt>
+    decode(String token) throws JwtException
+    {
+        String      digest = tokenDigest(token);
+        VerifiedJwt cached = this.cache.getIfPresent(digest);
+
+        if (cached != null && cached.jwt().getTokenValue().equals(token)) {
+            return Mono.just(cached.jwt());
+        }
+
+        return this.delegate
+                   .decode(token)
+                   .doOnNext((jwt) ->
+                       this.cache.put(
+                           digest,
+                           new VerifiedJwt(jwt, this.resolveAuthorities(jwt))
+                       )
+                   );
+    }
+
+    private @NotNull Collection<GrantedAuthority>
+    resolveAuthorities(Jwt jwt)
+    {
+        Collection<GrantedAuthority> authorities
+            = this.authoritiesConverter.convert(jwt);
+
+        return (authorities == null) ? List.of() : List.copyOf(authorities);
+    }
+
+    /**
+     * 获取令牌的权限列表，优先使用解码时缓存的结果。
+     *
+     * @param jwt 已经验证通过的令牌
+     */
+    public Collection<GrantedAuthority>
+    authoritiesOf(@NotNull Jwt jwt)
+    {
+        VerifiedJwt cached
+            = this.cache.getIfPresent(tokenDigest(jwt.getTokenValue()));
+
+        return (cached != null && cached.jwt().getTokenValue().equals(jwt.getTokenValue()))
+            ? cached.authorities()
+            : this.resolveAuthorities(jwt);
+    }
+
+    /**
+     * 构建使用缓存权限的认证转换器，
+     * 交给 <code>oauth2ResourceServer().jwt().jwtAuthenticationConverter()</code> 使用。
+     */
+    public Converter<Jwt, Mono<AbstractAuthenticationToken>>
+    authenticationConverter()
+    {
+        return (jwt) ->
+            Mono.just(new JwtAuthenticationToken(jwt, this.authoritiesOf(jwt)));
+    }
+
+    /** 当前缓存的条目数（估计值）。*/
+    public long estimatedSize() {
+        return this.cache.estimatedSize();
+    }
+
+    /**
+     * 注册缓存指标：<code>cache.*{cache=jwt.verified}</code>（命中、未命中、淘汰等）
+     * 以及 <code>jwt.verified.cache.hit.ratio</code>（命中率）。
+     */
+    @Override
+    public void bindTo(@NotNull MeterRegistry registry)
+    {
+        CaffeineCacheMetrics.monitor(registry, this.cache, "jwt.verified");
+
+        Gauge.builder(
+                "jwt.verified.cache.hit.ratio",
+                this.cache, (cache) -> cache.stats().hitRate())
+             .description("Hit ratio of the verified JWT cache")
+             .register(Objects.requireNonNull(registry));
+    }
+}
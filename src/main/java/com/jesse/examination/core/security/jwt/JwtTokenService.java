@@ -0,0 +1,266 @@
+package com.jesse.examination.core.security.jwt;
+
+import com.fasterxml.jackson.core.io.JsonStringEncoder;
+import com.jesse.examination.core.properties.ProjectProperties;
+import com.nimbusds.jose.JWSObject;
+import jakarta.annotation.PostConstruct;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.jetbrains.annotations.NotNull;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.oauth2.jose.jws.MacAlgorithm;
+import org.springframework.security.oauth2.jwt.*;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import javax.crypto.Mac;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.text.ParseException;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static java.lang.String.format;
+
+/**
+ * <p>JWT 令牌服务，签发与验证令牌的唯一来源。</p>
+ *
+ * <ul>
+ *     <li>
+ *         密钥只在启动时派生一次，签名统一使用 HS256，
+ *         令牌头中写入当前密钥的 kid（<code>jwt.key-id</code>）
+ *     </li>
+ *     <li>
+ *         密钥轮换：旧密钥以 <code>kid:secret</code> 的形式配置在 <code>jwt.previous-keys</code> 中，
+ *         验证时按令牌头的 kid 选择密钥，没有 kid 的令牌使用当前密钥验证
+ *     </li>
+ *     <li>
+ *         签发时令牌头、签发者、常见角色组合的 JSON 都是预先渲染好的，
+ *         每个线程复用一个已经初始化好的 {@link Mac}，签发一个令牌只需拼接一次字符串并计算一次 HMAC
+ *     </li>
+ * </ul>
+ */
+@Slf4j
+@Component
+public class JwtTokenService
+{
+    /** 令牌签发者。*/
+    public static final String ISSUER = "JesseZ332623";
+
+    /** 签名算法。*/
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+
+    /** 最多预渲染多少种角色组合？（超出后现场渲染）*/
+    private static final int MAX_CACHED_ROLE_SETS = 64;
+
+    private static final Base64.Encoder BASE64_URL
+        = Base64.getUrlEncoder().withoutPadding();
+
+    @Autowired
+    private ProjectProperties projectProperties;
+
+    /** 当前签名密钥的 ID。*/
+    @Getter
+    private String currentKeyId;
+
+    /** 令牌有效期（单位：秒）。*/
+    @Getter
+    private long expirationSeconds;
+
+    /** 当前签名密钥。*/
+    private SecretKey signingKey;
+
+    /** 预渲染的令牌头（已经 Base64URL 编码，并带上了分隔符 "."）。*/
+    private String encodedHeaderWithDot;
+
+    /** 预渲染的签发者字段。*/
+    private String issuerFragment;
+
+    /** 角色组合 -> 预渲染的 roles JSON 数组。*/
+    private final Map<List<String>, String> rolesJsonCache = new ConcurrentHashMap<>();
+
+    /** 每个线程一个已经用当前密钥初始化好的 Mac。*/
+    private ThreadLocal<Mac> threadMac;
+
+    /** kid -> 对应密钥的解码器。*/
+    private final Map<String, ReactiveJwtDecoder> decoders = new HashMap<>();
+
+    /** 按 kid 选择密钥的解码器。*/
+    @Getter
+    private ReactiveJwtDecoder decoder;
+
+    @PostConstruct
+    void deriveKeys()
+    {
+        this.currentKeyId      = this.projectProperties.getJwtKeyId().trim();
+        this.expirationSeconds = Long.parseLong(this.projectProperties.getJwtExpiration());
+        this.signingKey        = deriveKey(this.projectProperties.getJwtSecretKey());
+
+        this.decoders.put(this.currentKeyId, buildDecoder(this.signingKey));
+
+        String previousKeys = this.projectProperties.getJwtPreviousKeys();
+
+        if (previousKeys != null && !previousKeys.isBlank())
+        {
+            for (String entry : previousKeys.split(","))
+            {
+                int separator = entry.indexOf(':');
+
+                if (separator <= 0) {
+                    throw new IllegalArgumentException(
+                        "jwt.previous-keys must be in the form of kid:secret[,kid:secret...]!"
+                    );
+                }
+
+                this.decoders.putIfAbsent(
+                    entry.substring(0, separator).trim(),
+                    buildDecoder(deriveKey(entry.substring(separator + 1).trim()))
+                );
+            }
+        }
+
+        this.encodedHeaderWithDot
+            = BASE64_URL.encodeToString(
+                format(
+                    "{\"alg\":\"HS256\",\"kid\":\"%s\",\"typ\":\"JWT\"}",
+                    new String(JsonStringEncoder.getInstance().quoteAsString(this.currentKeyId))
+                ).getBytes(StandardCharsets.UTF_8)
+            ) + ".";
+
+        this.issuerFragment = ",\"iss\":\"" + ISSUER + "\"";
+
+        this.threadMac = ThreadLocal.withInitial(() -> {
+            try
+            {
+                Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+                mac.init(this.signingKey);
+
+                return mac;
+            }
+            catch (GeneralSecurityException exception) {
+                throw new IllegalStateException(exception);
+            }
+        });
+
+        this.decoder = this::decodeByKeyId;
+
+        log.info(
+            "JWT token service ready. (current kid: {}, verification keys: {})",
+            this.currentKeyId, this.decoders.keySet()
+        );
+    }
+
+    /** 从配置的密钥字符串派生 HS256 密钥（至少 256 位）。*/
+    private static @NotNull SecretKey
+    deriveKey(@NotNull String secret)
+    {
+        byte[] keyBytes = secret.getBytes(StandardCharsets.UTF_8);
+
+        if (keyBytes.length < 32) {
+            throw new IllegalArgumentException("JWT secret key must be at least 256 bits!");
+        }
+
+        return new SecretKeySpec(keyBytes, HMAC_ALGORITHM);
+    }
+
+    private static @NotNull ReactiveJwtDecoder
+    buildDecoder(SecretKey key)
+    {
+        NimbusReactiveJwtDecoder decoder
+            = NimbusReactiveJwtDecoder.withSecretKey(key)
+                                      .macAlgorithm(MacAlgorithm.HS256)
+                                      .build();
+
+        decoder.setJwtValidator(JwtValidators.createDefaultWithIssuer(ISSUER));
+
+        return decoder;
+    }
+
+    /** 按令牌头的 kid 选择解码器，没有 kid 时使用当前密钥。*/
+    private Mono<Jwt>
+    decodeByKeyId(String token)
+    {
+        String keyId;
+
+        try {
+            keyId = JWSObject.parse(token).getHeader().getKeyID();
+        }
+        catch (ParseException exception)
+        {
+            return Mono.error(
+                new BadJwtException(
+                    format("Malformed token! Cause: %s", exception.getMessage()), exception
+                )
+            );
+        }
+
+        ReactiveJwtDecoder decoder
+            = this.decoders.get((keyId == null) ? this.currentKeyId : keyId);
+
+        return (decoder == null)
+            ? Mono.error(new BadJwtException(format("Unknown key id: %s!", keyId)))
+            : decoder.decode(token);
+    }
+
+    /** 渲染（或从缓存中获取）角色组合的 JSON 数组。*/
+    private String
+    rolesJson(@NotNull List<String> roles)
+    {
+        String cached = this.rolesJsonCache.get(roles);
+
+        if (cached != null) { return cached; }
+
+        StringJoiner joiner = new StringJoiner(",", "[", "]");
+
+        for (String role : roles) {
+            joiner.add("\"" + new String(JsonStringEncoder.getInstance().quoteAsString(role)) + "\"");
+        }
+
+        String rendered = joiner.toString();
+
+        if (this.rolesJsonCache.size() < MAX_CACHED_ROLE_SETS) {
+            this.rolesJsonCache.putIfAbsent(List.copyOf(roles), rendered);
+        }
+
+        return rendered;
+    }
+
+    /**
+     * 签发令牌。
+     *
+     * @param subject 令牌主体（用户名）
+     * @param roles   角色列表（不带 ROLE_ 前缀）
+     *
+     * @return 紧凑格式的 JWT
+     */
+    public @NotNull String
+    issue(@NotNull String subject, @NotNull List<String> roles)
+    {
+        long issuedAt = Instant.now().getEpochSecond();
+
+        String payload
+            = new StringBuilder(128)
+                  .append("{\"sub\":\"")
+                  .append(JsonStringEncoder.getInstance().quoteAsString(subject))
+                  .append("\",\"roles\":")
+                  .append(this.rolesJson(roles))
+                  .append(",\"iat\":").append(issuedAt)
+                  .append(this.issuerFragment)
+                  .append(",\"exp\":").append(issuedAt + this.expirationSeconds)
+                  .append('}')
+                  .toString();
+
+        String signingInput
+            = this.encodedHeaderWithDot
+            + BASE64_URL.encodeToString(payload.getBytes(StandardCharsets.UTF_8));
+
+        byte[] signature
+            = this.threadMac.get()
+                            .doFinal(signingInput.getBytes(StandardCharsets.US_ASCII));
+
+        return signingInput + "." + BASE64_URL.encodeToString(signature);
+    }
+}
@@ -1,32 +1,28 @@
 package com.jesse.examination.core.security.websecurity;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.jesse.examination.core.properties.ProjectProperties;
-import io.jsonwebtoken.security.Keys;
+import com.jesse.examination.core.ratelimit.RateLimitWebFilter;
+import com.jesse.examination.core.ratelimit.RequestRateLimiter;
+import com.jesse.examination.core.security.jwt.CachingReactiveJwtDecoder;
+import com.jesse.examination.core.security.jwt.JwtTokenService;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.jetbrains.annotations.NotNull;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.core.convert.converter.Converter;
 import org.springframework.http.HttpStatus;
-import org.springframework.security.authentication.AbstractAuthenticationToken;
 import org.springframework.security.config.annotation.method.configuration.EnableReactiveMethodSecurity;
 import org.springframework.security.config.annotation.web.reactive.EnableWebFluxSecurity;
+import org.springframework.security.config.web.server.SecurityWebFiltersOrder;
 import org.springframework.security.config.web.server.ServerHttpSecurity;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
-import org.springframework.security.oauth2.jwt.Jwt;
-import org.springframework.security.oauth2.jwt.NimbusReactiveJwtDecoder;
-import org.springframework.security.oauth2.jwt.ReactiveJwtDecoder;
 import org.springframework.security.oauth2.server.resource.authentication.JwtGrantedAuthoritiesConverter;
-import org.springframework.security.oauth2.server.resource.authentication.ReactiveJwtAuthenticationConverter;
 import org.springframework.security.web.server.SecurityWebFilterChain;
 import org.springframework.security.web.server.authentication.HttpStatusServerEntryPoint;
 import org.springframework.security.web.server.authorization.HttpStatusServerAccessDeniedHandler;
-import reactor.core.publisher.Flux;
-import reactor.core.publisher.Mono;
 
-import javax.crypto.SecretKey;
-import java.nio.charset.StandardCharsets;
 
 /** 一个纯 Restful 响应式服务器的 Web Security 配置类。*/
 @Configuration
@@ -41,8 +37,21 @@ public class WebSecurityConfig
     @Autowired
     private ProjectProperties projectProperties;
 
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private JwtTokenService jwtTokenService;
+
+    @Autowired
+    private RequestRateLimiter requestRateLimiter;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
 
-    private @NotNull Converter<Jwt, Mono<AbstractAuthenticationToken>>
+    /** 从 JWT 的 roles 声明中解析权限（加上 ROLE_ 前缀）。*/
+    private @NotNull JwtGrantedAuthoritiesConverter
     grantedAuthoritiesConverter()
     {
         JwtGrantedAuthoritiesConverter authoritiesConverter
@@ -51,16 +60,7 @@ public class WebSecurityConfig
         authoritiesConverter.setAuthorityPrefix("ROLE_");
         authoritiesConverter.setAuthoritiesClaimName("roles");
 
-        ReactiveJwtAuthenticationConverter converter
-            = new ReactiveJwtAuthenticationConverter();
-
-        converter.setJwtGrantedAuthoritiesConverter(
-            (jwt) ->
-                Mono.justOrEmpty(authoritiesConverter.convert(jwt))
-                    .flatMapMany(Flux::fromIterable)
-        );
-
-         return converter;
+        return authoritiesConverter;
     }
 
     /** 密码加密器的构建。*/
@@ -69,21 +69,32 @@ public class WebSecurityConfig
         return new BCryptPasswordEncoder();
     }
 
-    /** 响应式 JWT（Json Web Token）的解码器构建。*/
+    /**
+     * 响应式 JWT（Json Web Token）的解码器构建，
+     * 密钥与验签由 {@link JwtTokenService} 统一提供（与签发共用同一份密钥），
+     * 外面再加一层已验证令牌的缓存，同一个令牌只需验签一次。
+     */
     @Bean
-    public ReactiveJwtDecoder reactiveJwtDecoder()
+    public CachingReactiveJwtDecoder reactiveJwtDecoder()
     {
-        SecretKey key = Keys.hmacShaKeyFor(
-            this.projectProperties
-                .getJwtSecretKey().getBytes(StandardCharsets.UTF_8)
-        );
+        CachingReactiveJwtDecoder decoder
+            = new CachingReactiveJwtDecoder(
+                this.jwtTokenService.getDecoder(),
+                this.grantedAuthoritiesConverter(),
+                Long.parseLong(this.projectProperties.getJwtCacheMaximumSize())
+            );
+
+        decoder.bindTo(this.meterRegistry);
 
-        return NimbusReactiveJwtDecoder.withSecretKey(key).build();
+        return decoder;
     }
 
     @Bean
     public SecurityWebFilterChain
-    securityWebFilterChain(@NotNull ServerHttpSecurity httpSecurity)
+    securityWebFilterChain(
+        @NotNull ServerHttpSecurity        httpSecurity,
+        @NotNull CachingReactiveJwtDecoder jwtDecoder
+    )
     {
         return httpSecurity
             .csrf(ServerHttpSecurity.CsrfSpec::disable)             // 禁用 CSRF 跨站请求伪造防护
@@ -115,10 +126,16 @@ public class WebSecurityConfig
             )
             .oauth2ResourceServer((oauth2) ->
                 oauth2.jwt(
-                    jwt -> jwt.jwtAuthenticationConverter(
-                        grantedAuthoritiesConverter()
-                    )
+                    jwt -> jwt.jwtDecoder(jwtDecoder)
+                              .jwtAuthenticationConverter(
+                                  jwtDecoder.authenticationConverter()
+                              )
                 )
+            )
+            /* 限流放在认证之后，按用户限流的路由才能拿到登录用户。*/
+            .addFilterAfter(
+                new RateLimitWebFilter(this.requestRateLimiter, this.objectMapper),
+                SecurityWebFiltersOrder.AUTHENTICATION
             ).build();
     }
 }
@@ -2,6 +2,9 @@ package com.jesse.examination.question.redis;
 
 import reactor.core.publisher.Mono;
 
+import java.util.List;
+import java.util.Map;
+
 /** 问题数据统计 Redis 服务接口。*/
 public interface QuestionRedisService
 {
@@ -32,6 +35,19 @@ public interface QuestionRedisService
        String userName, Long questionId, Long specifiedVal
    );
 
+   /**
+    * 用户提交了一批答对的题目，在一次 Redis 调用内将这些题的答对次数各 + 1。
+    *
+    * @param userName    用户名
+    * @param questionIds 答对的问题 ID 列表（同一个 ID 出现几次就加几次）
+    *
+    * @return 问题 ID 与增加后答对次数的映射（不存在的问题值为 -1）
+    */
+   Mono<Map<Long, Long>>
+   incrementUserQuestionCorrectTimes(
+       String userName, List<Long> questionIds
+   );
+
    /**
     * 将某用户所有问题的答对次数清空为 0。
     *
@@ -1,21 +1,26 @@
 package com.jesse.examination.question.redis.impl;
 
+import com.jesse.examination.core.archive.DirtyUserTracker;
+import com.jesse.examination.core.online.OnlineUserRegistry;
+import com.jesse.examination.core.properties.ProjectProperties;
+import com.jesse.examination.core.redis.script.ProjectRedisScript;
+import com.jesse.examination.core.redis.script.RedisScriptRegistry;
 import com.jesse.examination.question.redis.QuestionRedisService;
-import jakarta.annotation.PostConstruct;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.redis.core.ReactiveHashOperations;
-import org.springframework.data.redis.core.ReactiveRedisTemplate;
 import org.springframework.stereotype.Component;
 import reactor.core.publisher.Mono;
 
 import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.Objects;
-import java.util.stream.Collectors;
 
 import static com.jesse.examination.core.redis.errorhandle.RedisGenericErrorHandle.redisGenericErrorHandel;
+import static com.jesse.examination.core.redis.codec.PackedCounterCodec.MAX_COUNTER;
 import static com.jesse.examination.core.redis.keys.ConcatRedisKey.correctTimesHashKey;
+import static com.jesse.examination.core.redis.keys.ConcatRedisKey.packedCorrectTimesKey;
+import static com.jesse.examination.core.redis.script.ProjectRedisScript.*;
 import static java.lang.String.format;
 
 /** 问题数据统计 Redis 服务实现类。*/
@@ -23,33 +28,49 @@ import static java.lang.String.format;
 @Component
 public class QuestionRedisServiceImpl implements QuestionRedisService
 {
-    /** 响应式 Redis 模板。*/
+    /** Redis Lua 脚本注册表。*/
     @Autowired
-    private ReactiveRedisTemplate<String, Object> redisTemplate;
+    private RedisScriptRegistry scriptRegistry;
+
+    @Autowired
+    private ProjectProperties projectProperties;
+
+    /** 答对次数被修改后标记脏用户，由后台任务写回存档。*/
+    @Autowired
+    private DirtyUserTracker dirtyUserTracker;
+
+    /** 答对次数被修改视为用户的一次活动。*/
+    @Autowired
+    private OnlineUserRegistry onlineUserRegistry;
 
     /**
-     * <p>
-     *     从模板中获取的 Redis 哈希数据操作器。
-     *     他的 3 个类型参数需要我说明一下：
-     * </p>
-     *
-     * <code><pre>
-     * ReactiveHashOperations{@literal <H, HK, HV>}
-     * H:  整个 Hash 结构的键类型
-     * HK: 哈希结构内部的键类型
-     * HV: 哈希结构内部的值类型
-     * </pre></code>
+     * 按照当前的存储模式（<code>app.redis.correct-times-storage</code>），
+     * 获取某用户答对次数的 Redis 键。
      */
-    private
-    ReactiveHashOperations<String, String, Long> hashOperations;
+    private String correctTimesKey(String userName)
+    {
+        return (this.projectProperties.isPackedCorrectTimesStorage())
+            ? packedCorrectTimesKey(userName)
+            : correctTimesHashKey(userName);
+    }
 
-    /** 在依赖注入完成后，获取哈希数据操作器。*/
-    @PostConstruct
-    private void setHashOperator()
+    /** 某用户的答对次数被修改后：标记为脏用户，并记录一次活动（都只写内存）。*/
+    private void recordUpdate(String userName)
     {
-        this.hashOperations
-            = Objects.requireNonNull(this.redisTemplate)
-                     .opsForHash();
+        this.dirtyUserTracker.markDirty(userName);
+        this.onlineUserRegistry.touch(userName);
+    }
+
+    /**
+     * 按照当前的存储模式选择脚本，
+     * 两种模式下对应脚本的 KEYS 和 ARGV 格式完全相同。
+     */
+    private <T> ProjectRedisScript<T>
+    chooseScript(ProjectRedisScript<T> hashScript, ProjectRedisScript<T> packedScript)
+    {
+        return (this.projectProperties.isPackedCorrectTimesStorage())
+            ? packedScript
+            : hashScript;
     }
 
     /**
@@ -66,24 +87,77 @@ public class QuestionRedisServiceImpl implements QuestionRedisService
         String userName, Long questionId
     )
     {
-        String key = correctTimesHashKey(userName);
-
-        return this.hashOperations.hasKey(key, String.valueOf(questionId))
-                   .flatMap(
-                       (isExist) ->
-                           (isExist)
-                               ? this.hashOperations
-                                     .increment(
-                                         key, String.valueOf(questionId), 1L)
-                                    .timeout(Duration.ofSeconds(3L))
-                                    .onErrorResume((exception) ->
-                                        redisGenericErrorHandel(exception, -1L)
-                                   )
-                               : redisGenericErrorHandel(
-                                   new IllegalArgumentException(
-                                       format("Key: %s not exist!", key + ":" + questionId)
-                                   ), null
-                           )
+        String key = this.correctTimesKey(userName);
+
+        // 检查字段是否存在和增加在同一个脚本内完成，只需一次往返，也不会与并发的提交交错
+        return this.scriptRegistry
+                   .execute(
+                       this.chooseScript(HINCRBY_IF_EXISTS, PACKED_INCRBY_IF_EXISTS),
+                       List.of(key), List.of(questionId, 1L)
+                   )
+                   .next()
+                   .timeout(Duration.ofSeconds(3L))
+                   .doOnNext((ignore) -> this.recordUpdate(userName))
+                   .onErrorResume((exception) ->
+                       redisGenericErrorHandel(exception, -1L)
+                   )
+                   .switchIfEmpty(
+                       redisGenericErrorHandel(
+                           new IllegalArgumentException(
+                               format("Key: %s not exist!", key + ":" + questionId)
+                           ), null
+                       )
+                   );
+    }
+
+    /**
+     * <p>用户提交了一批答对的题目，在一次 Redis 调用内将这些题的答对次数各 + 1。</p>
+     *
+     * <p>
+     *     原先每道题都需要一次 HEXISTS + 一次 HINCRBY，
+     *     这里把所有题目交给一个 Lua 脚本在服务端原子的执行，只需一次往返。
+     * </p>
+     *
+     * @param userName    用户名
+     * @param questionIds 答对的问题 ID 列表（同一个 ID 出现几次就加几次）
+     *
+     * @return 问题 ID 与增加后答对次数的映射（不存在的问题值为 -1）
+     */
+    @Override
+    public Mono<Map<Long, Long>>
+    incrementUserQuestionCorrectTimes(
+        String userName, List<Long> questionIds
+    )
+    {
+        String key = this.correctTimesKey(userName);
+
+        return this.scriptRegistry
+                   .execute(
+                       this.chooseScript(HINCRBY_BATCH, PACKED_INCRBY_BATCH),
+                       List.of(key), List.copyOf(questionIds)
+                   )
+                   .next()
+                   .timeout(Duration.ofSeconds(3L))
+                   .doOnNext((ignore) -> this.recordUpdate(userName))
+                   .map((result) -> {
+                       Map<Long, Long> newValues = new LinkedHashMap<>();
+
+                       for (int index = 0; index + 1 < result.size(); index += 2)
+                       {
+                           newValues.put(
+                               ((Number) result.get(index)).longValue(),
+                               ((Number) result.get(index + 1)).longValue()
+                           );
+                       }
+
+                       return newValues;
+                   })
+                   .switchIfEmpty(
+                       redisGenericErrorHandel(
+                           new IllegalArgumentException(
+                               format("Key: %s not exist!", key)
+                           ), null
+                       )
                    );
     }
 
@@ -102,33 +176,49 @@ public class QuestionRedisServiceImpl implements QuestionRedisService
         String userName, Long questionId, Long specifiedVal
     )
     {
-        String key = correctTimesHashKey(userName);
-
-        return this.hashOperations.hasKey(key, String.valueOf(questionId))
-                .flatMap((isExist) ->
-                    (!isExist)
-                        ? redisGenericErrorHandel(
-                            new IllegalArgumentException(
-                                format("Key: %s not exist!", key + ":" + questionId)
-                            ), null)
-                        : this.hashOperations
-                              .put(key, String.valueOf(questionId), specifiedVal)
-                              .timeout(Duration.ofSeconds(3L))
-                        .flatMap((isSuccess) ->
-                            (isSuccess)
-                                ? Mono.just(specifiedVal)
-                                : Mono.just(-1L)
-                        ).onErrorResume((exception) ->
-                            redisGenericErrorHandel(exception, -1L)
-                        )
-                );
+        String key = this.correctTimesKey(userName);
+
+        // 两种模式下答对次数都不能为负数，紧凑存储模式下还不能超过 u32 的上限
+        long maxValue
+            = (this.projectProperties.isPackedCorrectTimesStorage())
+                ? MAX_COUNTER : Long.MAX_VALUE;
+
+        if (specifiedVal < 0 || specifiedVal > maxValue)
+        {
+            // 参数错误，不是 Redis 操作失败，直接交给上层按 400 处理
+            return Mono.error(
+                new IllegalArgumentException(
+                    format("Value %d is out of range (0 ~ %d)!", specifiedVal, maxValue)
+                )
+            );
+        }
+
+        return this.scriptRegistry
+                   .execute(
+                       this.chooseScript(HSET_IF_EXISTS, PACKED_SET_IF_EXISTS),
+                       List.of(key), List.of(questionId, specifiedVal)
+                   )
+                   .next()
+                   .timeout(Duration.ofSeconds(3L))
+                   .doOnNext((ignore) -> this.recordUpdate(userName))
+                   .onErrorResume((exception) ->
+                       redisGenericErrorHandel(exception, -1L)
+                   )
+                   .switchIfEmpty(
+                       redisGenericErrorHandel(
+                           new IllegalArgumentException(
+                               format("Key: %s not exist!", key + ":" + questionId)
+                           ), null
+                       )
+                   );
     }
 
     /**
+     * <p>将某用户所有问题的答对次数清空为 0。</p>
+     *
      * <p>
-     *     将某用户所有问题的答对次数清空为 0。</br>
-     *     思路很简单，从 Redis 中获取键，
-     *     再把每个键的值设成 0L，把这一整个 Map 提交给 Redis。
+     *     清零操作由一个 Lua 脚本在 Redis 服务端完成，
+     *     无论题库有多大，网络上传输的都只有键名和返回的字段数。
      * </p>
      *
      * @param userName  用户名
@@ -139,40 +229,25 @@ public class QuestionRedisServiceImpl implements QuestionRedisService
     public Mono<Boolean>
     clearUserQuestionCorrectTime(String userName)
     {
-        String key = correctTimesHashKey(userName);
-
-        return this.redisTemplate.hasKey(key)
-                   .flatMap((isExist) ->
-                       (isExist)
-                           ? this.hashOperations
-                                 .keys(key)
-                                 .timeout(Duration.ofSeconds(3L))
-                                 .onErrorResume((exception) ->
-                                     redisGenericErrorHandel(exception, null))
-                                 .collectList()
-                                 .flatMap((keys) ->
-                                 {
-                                     if (keys.isEmpty()) { return Mono.just(true); }
-
-                                     Map<String, Long> clearedMap
-                                         = keys.stream()
-                                               .collect(
-                                                   Collectors.toMap(
-                                                       k -> k, v -> 0L
-                                                   )
-                                               );
-
-                                     return this.hashOperations
-                                                .putAll(key, clearedMap)
-                                                .timeout(Duration.ofSeconds(3L))
-                                                .onErrorResume((exception) ->
-                                                    redisGenericErrorHandel(exception, false)
-                                                );
-                               })
-                           : redisGenericErrorHandel(
-                               new IllegalArgumentException(
-                                   format("Key: %s not exist!", key)
-                               ), null
+        String key = this.correctTimesKey(userName);
+
+        return this.scriptRegistry
+                   .execute(
+                       this.chooseScript(HRESET_ALL, PACKED_RESET_ALL),
+                       List.of(key), List.of()
+                   )
+                   .next()
+                   .timeout(Duration.ofSeconds(3L))
+                   .doOnNext((ignore) -> this.recordUpdate(userName))
+                   .map((clearedFields) -> true)
+                   .onErrorResume((exception) ->
+                       redisGenericErrorHandel(exception, false)
+                   )
+                   .switchIfEmpty(
+                       redisGenericErrorHandel(
+                           new IllegalArgumentException(
+                               format("Key: %s not exist!", key)
+                           ), null
                        )
                    );
     }
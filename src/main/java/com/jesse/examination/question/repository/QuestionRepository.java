@@ -85,4 +85,77 @@ public interface QuestionRepository
         @Param(value = "limit")  int limit,
         @Param(value = "offset") int offset
     );
+
+    /**
+     * 以游标（上一页最后一条问题的 ID）的方式，分页的获取问题的 ID，内容，正确选项，正确答案，
+     * 直接在主键上定位起点，不需要像 OFFSET 那样扫描并丢弃前面的所有分组。
+     */
+    @Query(value = """
+        SELECT
+            questions.id      AS question_id,
+            questions.content AS question_content,
+            questions.answer  AS correct_answer,
+            options.content   AS answer_content
+        FROM questions
+        INNER JOIN options ON questions.id = options.question_id
+        WHERE questions.id > :afterId
+          AND options.option_key = questions.answer
+        GROUP BY questions.id
+        ORDER BY questions.id
+        LIMIT :limit
+        """
+    )
+    Flux<QuestionWithCorrectDTO>
+    findQuestionWithCorrectAnswerAfter(
+        @Param(value = "afterId") int afterId,
+        @Param(value = "limit")   int limit
+    );
+
+    /**
+     * 以游标（上一页最后一条问题的 ID）的方式，分页的获取问题的 ID，内容，正确选项，所有选项和内容，
+     * 直接在主键上定位起点，不需要像 OFFSET 那样扫描并丢弃前面的所有分组。
+     */
+    @Query(
+        value = """
+            SELECT
+                questions.id        AS question_id,
+                questions.content   AS question_content,
+                questions.answer    AS correct_answer,
+                JSON_OBJECTAGG(options.option_key, options.content) AS options
+            FROM
+                questions
+            INNER JOIN
+                options ON questions.id = options.question_id
+            WHERE questions.id > :afterId
+            GROUP BY questions.id
+            ORDER BY questions.id
+            LIMIT :limit
+            """
+    )
+    Flux<FullQuestionInfoDTO>
+    findQuestionWithAllOptionsAfter(
+        @Param(value = "afterId") int afterId,
+        @Param(value = "limit")   int limit
+    );
+
+    /**
+     * 按问题 ID 升序获取整个题库的所有问题和选项（构建题库快照时使用）。
+     */
+    @Query(
+        value = """
+            SELECT
+                questions.id        AS question_id,
+                questions.content   AS question_content,
+                questions.answer    AS correct_answer,
+                JSON_OBJECTAGG(options.option_key, options.content) AS options
+            FROM
+                questions
+            INNER JOIN
+                options ON questions.id = options.question_id
+            GROUP BY questions.id
+            ORDER BY questions.id
+            """
+    )
+    Flux<FullQuestionInfoDTO>
+    findAllQuestionWithAllOptions();
 }
\ No newline at end of file
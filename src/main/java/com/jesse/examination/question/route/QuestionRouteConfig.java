@@ -26,8 +26,10 @@ public class QuestionRouteConfig
             .GET(QUESTION_PAGINATION_QUERY_URI, this.questionService::getPaginatedQuestions)
             .GET(QUESTION_PAGINATION_QUERY_WITH_CORRECT_URI, this.questionService::getAllQuestionWithCorrectOption)
             .PUT(INCREMENT_USER_QUESTION_CORRECT_TIME_URI, this.questionService::incrementUserQuestionCorrectTime)
+            .PUT(BATCH_INCREMENT_USER_QUESTION_CORRECT_TIME_URI, this.questionService::incrementUserQuestionCorrectTimes)
             .PUT(SET_USER_QUESTION_CORRECT_TIME_URI, this.questionService::setUserQuestionCorrectTime)
             .PUT(CLEAR_USER_QUESTION_CORRECT_TIME_URI, this.questionService::clearUserQuestionCorrectTime)
+            .PUT(REFRESH_QUESTION_SNAPSHOT_URI, this.questionService::refreshQuestionSnapshot)
             .build();
     }
 }
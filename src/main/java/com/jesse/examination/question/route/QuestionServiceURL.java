@@ -27,6 +27,10 @@ final public class QuestionServiceURL
     final public static String INCREMENT_USER_QUESTION_CORRECT_TIME_URI
         = QUESTION_ROOT_URI + "/increment_ques_correct_time";
 
+    /** 用户提交一批答对的题目，这些题的答对次数各 + 1 URI。*/
+    final public static String BATCH_INCREMENT_USER_QUESTION_CORRECT_TIME_URI
+        = QUESTION_ROOT_URI + "/increment_ques_correct_time_batch";
+
     /** 将某用户的某道问题的答对次数设为 value URI。*/
     final public static String SET_USER_QUESTION_CORRECT_TIME_URI
         = QUESTION_ROOT_URI + "/set_ques_correct_time";
@@ -34,4 +38,8 @@ final public class QuestionServiceURL
     /** 将某用户所有问题的答对次数清空为 0 URI。*/
     final public static String CLEAR_USER_QUESTION_CORRECT_TIME_URI
         = QUESTION_ROOT_URI + "/clear_ques_correct_time";
+
+    /** 手动刷新题库快照 URI（管理员使用）。*/
+    final public static String REFRESH_QUESTION_SNAPSHOT_URI
+        = QUESTION_ROOT_URI + "/refresh_snapshot";
 }
@@ -22,6 +22,10 @@ public interface QuestionService
     Mono<ServerResponse>
     incrementUserQuestionCorrectTime(ServerRequest request);
 
+    /** 用户提交一批答对的题目，这些题的答对次数各 + 1。 */
+    Mono<ServerResponse>
+    incrementUserQuestionCorrectTimes(ServerRequest request);
+
     /** 将某用户的某道问题的答对次数设为 value。 */
     Mono<ServerResponse>
     setUserQuestionCorrectTime(ServerRequest request);
@@ -29,4 +33,8 @@ public interface QuestionService
     /** 将某用户所有问题的答对次数清空为 0。 */
     Mono<ServerResponse>
     clearUserQuestionCorrectTime(ServerRequest request);
+
+    /** 手动刷新题库快照。*/
+    Mono<ServerResponse>
+    refreshQuestionSnapshot(ServerRequest request);
 }
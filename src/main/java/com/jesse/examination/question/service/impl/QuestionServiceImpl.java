@@ -1,5 +1,6 @@
 package com.jesse.examination.question.service.impl;
 
+import com.jesse.examination.core.count.TotalCountCache;
 import com.jesse.examination.core.exception.PaginationOffsetOutOfRangeException;
 import com.jesse.examination.core.respponse.Link;
 import com.jesse.examination.core.respponse.ResponseBuilder;
@@ -9,11 +10,13 @@ import com.jesse.examination.question.dto.QuestionWithCorrectDTO;
 import com.jesse.examination.question.redis.impl.QuestionRedisServiceImpl;
 import com.jesse.examination.question.repository.QuestionRepository;
 import com.jesse.examination.question.service.QuestionService;
+import com.jesse.examination.question.snapshot.QuestionBankSnapshotHolder;
 import io.netty.handler.timeout.TimeoutException;
 import jakarta.annotation.PostConstruct;
 import lombok.extern.slf4j.Slf4j;
 import org.jetbrains.annotations.NotNull;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.dao.DataAccessResourceFailureException;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
@@ -21,15 +24,19 @@ import org.springframework.http.MediaType;
 import org.springframework.stereotype.Component;
 import org.springframework.web.reactive.function.server.ServerRequest;
 import org.springframework.web.reactive.function.server.ServerResponse;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.util.function.Tuple3;
 
 import java.time.Duration;
 import java.util.*;
 
+import static com.jesse.examination.core.redis.keys.ConcatRedisKey.tableCountKey;
 import static com.jesse.examination.core.respponse.ResponseBuilder.APIResponse;
 import static com.jesse.examination.core.respponse.URLParamPrase.praseNumberRequestParam;
 import static com.jesse.examination.core.respponse.URLParamPrase.praseRequestParam;
 import static com.jesse.examination.question.route.QuestionServiceURL.QUESTION_PAGINATION_QUERY_URI;
+import static com.jesse.examination.question.route.QuestionServiceURL.QUESTION_PAGINATION_QUERY_WITH_CORRECT_URI;
 import static com.jesse.examination.question.route.QuestionServiceURL.QUESTION_SINGLE_QUERY_URI;
 import static java.lang.String.format;
 
@@ -47,6 +54,15 @@ public class QuestionServiceImpl implements QuestionService
     @Autowired
     private QuestionRedisServiceImpl questionRedisService;
 
+    @Autowired
+    private QuestionBankSnapshotHolder snapshotHolder;
+
+    @Autowired
+    private TotalCountCache countCache;
+
+    /** 批量增加答对次数时，一次请求最多提交几道题？*/
+    private static final int MAX_BATCH_INCREMENT_SIZE = 500;
+
     /**
      * 连接池预热操作，
      * 旨在检查数据库是否可达或者相关配置是否有误。
@@ -85,6 +101,65 @@ public class QuestionServiceImpl implements QuestionService
         );
     }
 
+    /**
+     * 获取题库的问题总数，
+     * 题库快照已加载时直接使用快照的大小，否则回退到计数缓存。
+     */
+    private Mono<Long> questionAmount()
+    {
+        return (this.snapshotHolder.isLoaded())
+            ? Mono.just((long) this.snapshotHolder.current().size())
+            : this.countCache.get(tableCountKey("questions"), this.questionRepository::count);
+    }
+
+    /**
+     * 查询单条问题和其所有选项，
+     * 题库快照已加载时直接从内存中读取，否则回退到数据库查询。
+     */
+    private Mono<FullQuestionInfoDTO>
+    findQuestionWithOptions(Integer questionId)
+    {
+        return (this.snapshotHolder.isLoaded())
+            ? Mono.justOrEmpty(this.snapshotHolder.current().findById(questionId))
+            : this.questionRepository.findOneQuestionWithAllOptions(questionId);
+    }
+
+    /**
+     * 分页查询问题和其所有选项，
+     * 题库快照已加载时直接从内存中读取，否则回退到数据库查询。
+     */
+    private Flux<FullQuestionInfoDTO>
+    findQuestionsWithOptions(int limit, int offset)
+    {
+        return (this.snapshotHolder.isLoaded())
+            ? Flux.fromIterable(this.snapshotHolder.current().page(limit, offset))
+            : this.questionRepository.findAllQuestionWithAllOptions(limit, offset);
+    }
+
+    /**
+     * 以游标的方式分页查询问题和其所有选项，
+     * 题库快照已加载时直接从内存中读取，否则回退到数据库查询。
+     */
+    private Flux<FullQuestionInfoDTO>
+    findQuestionsWithOptionsAfter(int afterId, int limit)
+    {
+        return (this.snapshotHolder.isLoaded())
+            ? Flux.fromIterable(this.snapshotHolder.current().pageAfter(afterId, limit))
+            : this.questionRepository.findQuestionWithAllOptionsAfter(afterId, limit);
+    }
+
+    /**
+     * 解析可选的游标参数 <code>after_id</code>（上一页最后一条问题的 ID），
+     * 请求中不带这个参数时，分页查询退回到 LIMIT / OFFSET 模式。
+     */
+    private static Mono<Optional<Integer>>
+    praseCursorParam(@NotNull ServerRequest request)
+    {
+        return (request.queryParam("after_id").isPresent())
+            ? praseNumberRequestParam(request, "after_id", Integer::parseInt).map(Optional::of)
+            : Mono.just(Optional.empty());
+    }
+
     /**
      * 在单条查询问题数据的时候，
      * 拼装响应体的 HATEOAS 元数据。
@@ -96,8 +171,8 @@ public class QuestionServiceImpl implements QuestionService
     private Mono<Set<Link>>
     getQuestionQueryLink(Integer questionId)
     {
-        return this.questionRepository
-            .count().map(
+        return this.questionAmount()
+            .map(
                 (count) -> {
                     Set<Link> links = new HashSet<>();
 
@@ -156,7 +231,7 @@ public class QuestionServiceImpl implements QuestionService
             = praseNumberRequestParam(request, "id", Integer::parseInt)
             .flatMap(
                 (id) ->
-                    this.questionRepository.findOneQuestionWithAllOptions(id)
+                    this.findQuestionWithOptions(id)
                         .timeout(Duration.ofSeconds(5))
                         .switchIfEmpty(
                             Mono.error(
@@ -184,36 +259,68 @@ public class QuestionServiceImpl implements QuestionService
     }
 
     /**
-     * 在分页查询问题完整信息时，组装响应体的 HATEOAS 元数据。
+     * 校验分页参数，page 与 amount 都必须大于 0
+     * （amount 为 0 时总页数的计算会除以 0，page 不大于 0 时偏移量为负数）。
+     */
+    private static Mono<Tuple3<Integer, Integer, Optional<Integer>>>
+    checkPaginationParams(@NotNull Tuple3<Integer, Integer, Optional<Integer>> params)
+    {
+        if (params.getT1() <= 0 || params.getT2() <= 0)
+        {
+            return Mono.error(
+                new IllegalArgumentException(
+                    format(
+                        "Pagination params must be positive! (page = %d, amount = %d)",
+                        params.getT1(), params.getT2()
+                    )
+                )
+            );
+        }
+
+        return Mono.just(params);
+    }
+
+    /**
+     * <p>在分页查询问题完整信息时，组装响应体的 HATEOAS 元数据。</p>
+     *
+     * <p>
+     *     next_page 链接会携带游标 <code>after_id</code>（本页最后一条问题的 ID），
+     *     客户端沿着 next_page 翻页时，查询会直接在主键上定位，深分页的延迟不会随题库增长。
+     * </p>
      *
+     * @param uri       分页查询的 URI
      * @param page      第几页？
      * @param amount    一页几条数据？
      * @param totalItem 一共有几条数据？
+     * @param lastId    本页最后一条问题的 ID
      *
      * @return 承载了本次响应完整 HATEOAS 元数据的 Mono
      */
     private Mono<Set<Link>>
-    getQuestionPaginationQueryLink(int page, int amount, long totalItem)
+    getQuestionPaginationQueryLink(
+        String uri, int page, int amount, long totalItem, int lastId)
     {
         return Mono.fromCallable(
             () -> {
                 int totalPage
-                    = (int) Math.ceil((double) (totalItem / amount));
+                    = (int) Math.ceil((double) totalItem / amount);
 
                 Set<Link> links = new HashSet<>();
 
                 links.add(
                     new Link("next_page",
-                        QUESTION_PAGINATION_QUERY_URI +
-                            "?page=" + ((page + 1 > totalPage) ? page : page + 1) +
-                            "&amount=" + amount,
+                        (page + 1 > totalPage)
+                            ? uri + "?page=" + page + "&amount=" + amount
+                            : uri + "?page=" + (page + 1) +
+                              "&amount=" + amount +
+                              "&after_id=" + lastId,
                         HttpMethod.GET
                     )
                 );
 
                 links.add(
                     new Link("prev_page",
-                        QUESTION_PAGINATION_QUERY_URI +
+                        uri +
                             "?page=" + Math.max(page - 1, 1) +
                             "&amount=" + amount,
                         HttpMethod.GET
@@ -222,7 +329,7 @@ public class QuestionServiceImpl implements QuestionService
 
                 links.add(
                     new Link("first_page",
-                        QUESTION_PAGINATION_QUERY_URI +
+                        uri +
                             "?page=1" +
                             "&amount=" + amount,
                         HttpMethod.GET
@@ -231,7 +338,7 @@ public class QuestionServiceImpl implements QuestionService
 
                 links.add(
                     new Link("last_page",
-                        QUESTION_PAGINATION_QUERY_URI +
+                        uri +
                             "?page=" + totalPage +
                             "&amount=" + amount,
                         HttpMethod.GET
@@ -263,9 +370,11 @@ public class QuestionServiceImpl implements QuestionService
         Mono<ServerResponse> responseMono
             = Mono.zip(
                 praseNumberRequestParam(request, "page", Integer::parseInt),
-                praseNumberRequestParam(request, "amount", Integer::parseInt)
-            ).flatMap((params) ->
-                this.questionRepository.count().flatMap(
+                praseNumberRequestParam(request, "amount", Integer::parseInt),
+                praseCursorParam(request)
+            ).flatMap(QuestionServiceImpl::checkPaginationParams)
+             .flatMap((params) ->
+                this.questionAmount().flatMap(
                     (count) ->
                     {
                         int page   = params.getT1();
@@ -273,7 +382,9 @@ public class QuestionServiceImpl implements QuestionService
 
                         int offset = (page - 1) * amount;  // 计算这一页对应的偏移量
 
-                        if (offset > count)
+                        Optional<Integer> afterId = params.getT3();
+
+                        if (afterId.isEmpty() && offset > count)
                         {
                             return Mono.error(
                                 new PaginationOffsetOutOfRangeException(
@@ -284,8 +395,11 @@ public class QuestionServiceImpl implements QuestionService
                             );
                         }
 
-                        return this.questionRepository
-                            .findAllQuestionWithAllOptions(amount, offset)
+                        Flux<FullQuestionInfoDTO> questionFlux
+                            = afterId.map((id) -> this.findQuestionsWithOptionsAfter(id, amount))
+                                     .orElseGet(() -> this.findQuestionsWithOptions(amount, offset));
+
+                        return questionFlux
                             .timeout(Duration.ofSeconds(5))
                             .switchIfEmpty(
                                 Mono.error(
@@ -299,8 +413,10 @@ public class QuestionServiceImpl implements QuestionService
                             )
                             .collectList()
                             .flatMap((questions) ->
-                                this.getQuestionPaginationQueryLink(page, amount, count)
-                                    .flatMap(
+                                this.getQuestionPaginationQueryLink(
+                                    QUESTION_PAGINATION_QUERY_URI, page, amount, count,
+                                    questions.getLast().getQuestionId()
+                                ).flatMap(
                                         (links) ->
                                         {
                                             APIResponse<List<FullQuestionInfoDTO>>
@@ -360,9 +476,11 @@ public class QuestionServiceImpl implements QuestionService
         Mono<ServerResponse> responseMono
             = Mono.zip(
                 praseNumberRequestParam(request, "page", Integer::parseInt),
-                praseNumberRequestParam(request, "amount", Integer::parseInt)
-            ).flatMap((params) ->
-                this.questionRepository.count().flatMap(
+                praseNumberRequestParam(request, "amount", Integer::parseInt),
+                praseCursorParam(request)
+            ).flatMap(QuestionServiceImpl::checkPaginationParams)
+             .flatMap((params) ->
+                this.questionAmount().flatMap(
                     (count) ->
                     {
                         int page   = params.getT1();
@@ -370,7 +488,9 @@ public class QuestionServiceImpl implements QuestionService
 
                         int offset = (page - 1) * params.getT2();                       // 计算这一页对应的偏移量
 
-                        if (offset > count)
+                        Optional<Integer> afterId = params.getT3();
+
+                        if (afterId.isEmpty() && offset > count)
                         {
                             return Mono.error(
                                 new PaginationOffsetOutOfRangeException(
@@ -381,8 +501,13 @@ public class QuestionServiceImpl implements QuestionService
                             );
                         }
 
-                        return this.questionRepository
-                            .findAllQuestionWithCorrectAnswer(amount, offset)
+                        Flux<QuestionWithCorrectDTO> questionFlux
+                            = afterId.map((id) ->
+                                    this.questionRepository.findQuestionWithCorrectAnswerAfter(id, amount))
+                                     .orElseGet(() ->
+                                    this.questionRepository.findAllQuestionWithCorrectAnswer(amount, offset));
+
+                        return questionFlux
                             .timeout(Duration.ofSeconds(5))
                             .switchIfEmpty(
                                 Mono.error(
@@ -396,8 +521,10 @@ public class QuestionServiceImpl implements QuestionService
                             )
                             .collectList()
                             .flatMap((questions) ->
-                                this.getQuestionPaginationQueryLink(page, amount, count)
-                                    .flatMap(
+                                this.getQuestionPaginationQueryLink(
+                                    QUESTION_PAGINATION_QUERY_WITH_CORRECT_URI, page, amount, count,
+                                    questions.getLast().getQuestionId()
+                                ).flatMap(
                                         (links) ->
                                         {
                                             APIResponse<List<QuestionWithCorrectDTO>>
@@ -485,6 +612,65 @@ public class QuestionServiceImpl implements QuestionService
         return this.genericErrorHandle(responseMono);
     }
 
+    /**
+     * <p>用户提交一批答对的题目，这些题的答对次数各 + 1。</p>
+     *
+     * <p>
+     *     请求参数 <code>name</code> 为用户名，
+     *     请求体为答对的问题 ID 列表（JSON 数组，如 <code>[1, 5, 12]</code>），
+     *     所有的增加操作在一次 Redis 调用内完成，响应体返回每道题增加后的答对次数。
+     * </p>
+     */
+    @Override
+    public Mono<ServerResponse>
+    incrementUserQuestionCorrectTimes(ServerRequest request)
+    {
+        Mono<String> userNameMono
+            = praseRequestParam(request, "name");
+
+        Mono<List<Long>> questionIdsMono
+            = request.bodyToMono(new ParameterizedTypeReference<List<Long>>() {})
+                     .filter((questionIds) -> !questionIds.isEmpty())
+                     .switchIfEmpty(
+                         Mono.error(
+                             new IllegalArgumentException("Question id list not be empty!")
+                         )
+                     )
+                     .flatMap((questionIds) ->
+                         (questionIds.size() > MAX_BATCH_INCREMENT_SIZE || questionIds.contains(null))
+                             ? Mono.error(
+                                 new IllegalArgumentException(
+                                     format(
+                                         "Question id list must not contain null and not more than %d items!",
+                                         MAX_BATCH_INCREMENT_SIZE
+                                     )
+                                 ))
+                             : Mono.just(questionIds)
+                     );
+
+        Mono<ServerResponse> responseMono
+            = Mono.zip(userNameMono, questionIdsMono)
+            .flatMap((params) ->
+            {
+                String     userName    = params.getT1();
+                List<Long> questionIds = params.getT2();
+
+                return this.questionRedisService
+                           .incrementUserQuestionCorrectTimes(userName, questionIds)
+                           .flatMap((newValues) ->
+                               this.responseBuilder.OK(
+                                   newValues, format(
+                                       "Increment user: %s correct times of %d questions complete!",
+                                       userName, questionIds.size()
+                                   ),
+                                   null, null
+                               )
+                           );
+            });
+
+        return this.genericErrorHandle(responseMono);
+    }
+
     /** 将某用户的某道问题的答对次数设为 value。*/
     public Mono<ServerResponse>
     setUserQuestionCorrectTime(ServerRequest request)
@@ -567,4 +753,25 @@ public class QuestionServiceImpl implements QuestionService
 
         return this.genericErrorHandle(responseMono);
     }
+
+    /** 手动刷新题库快照（管理员在修改题库后调用）。*/
+    @Override
+    public Mono<ServerResponse>
+    refreshQuestionSnapshot(ServerRequest request)
+    {
+        Mono<ServerResponse> responseMono
+            = this.snapshotHolder.refresh()
+                  .flatMap((snapshot) ->
+                      this.responseBuilder.OK(
+                          snapshot.size(),
+                          format(
+                              "Refresh question bank snapshot complete! (%d questions loaded)",
+                              snapshot.size()
+                          ),
+                          null, null
+                      )
+                  );
+
+        return this.genericErrorHandle(responseMono);
+    }
 }
@@ -0,0 +1,187 @@
+package com.jesse.examination.question.snapshot;
+
+import com.jesse.examination.question.dto.FullQuestionInfoDTO;
+import com.jesse.examination.question.entity.option.AnswerOption;
+import lombok.Getter;
+import org.jetbrains.annotations.NotNull;
+
+import java.time.Instant;
+import java.util.*;
+
+/**
+ * <p>题库的不可变快照。</p>
+ *
+ * <p>
+ *     所有问题按 ID 升序存放在一个数组中（供分页使用），
+ *     同时按 <code>问题 ID - 最小问题 ID</code> 建立一个直接寻址数组（供单条查询使用），
+ *     题库 ID 基本是连续的，所以这个数组几乎没有空洞。
+ * </p>
+ *
+ * <p>
+ *     快照一经构建便不再修改，选项表也在构建时就转换成了不可修改的 EnumMap，
+ *     因此可以被任意多个请求线程无锁地并发读取。
+ * </p>
+ */
+final public class QuestionBankSnapshot
+{
+    /**
+     * 题库尚未加载时使用的空快照（哨兵对象，按引用比较），
+     * 从空题库构建出的快照是另一个实例。
+     */
+    public static final QuestionBankSnapshot EMPTY
+        = new QuestionBankSnapshot(new FullQuestionInfoDTO[0], Instant.EPOCH);
+
+    /** 按问题 ID 升序排列的所有问题。*/
+    private final FullQuestionInfoDTO[] ordered;
+
+    /** 直接寻址数组，下标为 问题 ID - baseId，空洞处为 null。*/
+    private final FullQuestionInfoDTO[] slots;
+
+    /** 最小的问题 ID。*/
+    private final int baseId;
+
+    /** 快照的构建时间。*/
+    @Getter
+    private final Instant loadedAt;
+
+    private QuestionBankSnapshot(FullQuestionInfoDTO @NotNull [] ordered, Instant loadedAt)
+    {
+        this.ordered  = ordered;
+        this.loadedAt = loadedAt;
+
+        if (ordered.length == 0)
+        {
+            this.baseId = 0;
+            this.slots  = ordered;
+
+            return;
+        }
+
+        this.baseId = ordered[0].getQuestionId();
+
+        int maxId = ordered[ordered.length - 1].getQuestionId();
+
+        this.slots = new FullQuestionInfoDTO[maxId - this.baseId + 1];
+
+        for (FullQuestionInfoDTO question : ordered) {
+            this.slots[question.getQuestionId() - this.baseId] = question;
+        }
+    }
+
+    /**
+     * 从数据库查询出的问题列表构建快照，
+     * 每个问题都会被复制一份，并将选项表转换为不可修改的 EnumMap。
+     *
+     * @param questions 从数据库中读出的所有问题
+     *
+     * @return 构建好的快照
+     */
+    public static @NotNull QuestionBankSnapshot
+    of(@NotNull List<FullQuestionInfoDTO> questions)
+    {
+        FullQuestionInfoDTO[] ordered
+            = questions.stream()
+                       .map(QuestionBankSnapshot::freeze)
+                       .sorted(Comparator.comparing(FullQuestionInfoDTO::getQuestionId))
+                       .toArray(FullQuestionInfoDTO[]::new);
+
+        return new QuestionBankSnapshot(ordered, Instant.now());
+    }
+
+    /** 复制一个问题，并把它的选项表冻结。*/
+    private static @NotNull FullQuestionInfoDTO
+    freeze(@NotNull FullQuestionInfoDTO question)
+    {
+        Map<AnswerOption, String> options
+            = new EnumMap<>(AnswerOption.class);
+
+        if (question.getOptions() != null) {
+            options.putAll(question.getOptions());
+        }
+
+        return new FullQuestionInfoDTO(
+            question.getQuestionId(),
+            question.getQuestionContent(),
+            question.getCorrectAnswer(),
+            Collections.unmodifiableMap(options)
+        );
+    }
+
+    /** 快照中的问题总数。*/
+    public int size() { return this.ordered.length; }
+
+    /** 快照是否为空（题库尚未加载或题库本身为空）？*/
+    public boolean isEmpty() { return this.ordered.length == 0; }
+
+    /**
+     * 按问题 ID 查询单条问题。
+     *
+     * @param questionId 问题 ID
+     *
+     * @return 对应的问题，不存在则返回 Optional.empty()
+     */
+    public Optional<FullQuestionInfoDTO>
+    findById(int questionId)
+    {
+        int index = questionId - this.baseId;
+
+        if (index < 0 || index >= this.slots.length) {
+            return Optional.empty();
+        }
+
+        return Optional.ofNullable(this.slots[index]);
+    }
+
+    /**
+     * 按偏移量分页获取问题（语义与 LIMIT :limit OFFSET :offset 相同）。
+     *
+     * @param limit  一页几条数据？
+     * @param offset 偏移量
+     *
+     * @return 这一页的问题（不可修改的视图，不会复制数组）
+     */
+    public List<FullQuestionInfoDTO>
+    page(int limit, int offset)
+    {
+        if (limit <= 0 || offset < 0 || offset >= this.ordered.length) {
+            return List.of();
+        }
+
+        int to = (int) Math.min((long) offset + limit, this.ordered.length);
+
+        return Collections.unmodifiableList(
+            Arrays.asList(this.ordered).subList(offset, to)
+        );
+    }
+
+    /**
+     * 按游标分页获取问题（语义与 WHERE id > :afterId ORDER BY id LIMIT :limit 相同），
+     * 通过二分查找定位起点。
+     *
+     * @param afterId 上一页最后一条问题的 ID
+     * @param limit   一页几条数据？
+     *
+     * @return 这一页的问题（不可修改的视图，不会复制数组）
+     */
+    public List<FullQuestionInfoDTO>
+    pageAfter(int afterId, int limit)
+    {
+        int low  = 0;
+        int high = this.ordered.length;
+
+        // 找到第一个 ID 大于 afterId 的位置
+        while (low < high)
+        {
+            int middle = (low + high) >>> 1;
+
+            if (this.ordered[middle].getQuestionId() <= afterId) {
+                low = middle + 1;
+            }
+            else {
+                high = middle;
+            }
+        }
+
+        return this.page(limit, low);
+    }
+}
@@ -0,0 +1,118 @@
+package com.jesse.examination.question.snapshot;
+
+import com.jesse.examination.core.properties.ProjectProperties;
+import com.jesse.examination.question.repository.QuestionRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * <p>题库快照的持有者。</p>
+ *
+ * <p>
+ *     启动时从数据库加载一次完整题库，之后按
+ *     <code>app.question.snapshot-refresh-interval</code>（单位：秒）定时刷新，
+ *     管理员也可以通过接口手动触发刷新。
+ *     新快照构建完成后通过 AtomicReference 原子地替换旧快照，
+ *     读请求永远只会看到某一个完整的快照。
+ * </p>
+ */
+@Slf4j
+@Component
+public class QuestionBankSnapshotHolder
+{
+    @Autowired
+    private QuestionRepository questionRepository;
+
+    @Autowired
+    private ProjectProperties projectProperties;
+
+    /** 当前生效的快照。*/
+    private final AtomicReference<QuestionBankSnapshot> current
+        = new AtomicReference<>(QuestionBankSnapshot.EMPTY);
+
+    /** 定时刷新任务。*/
+    private Disposable refreshTask;
+
+    /**
+     * 在依赖注入完成后，加载题库并启动定时刷新任务，
+     * 刷新间隔不大于 0 时只在启动时加载一次。
+     */
+    @PostConstruct
+    void scheduleRefresh()
+    {
+        long interval
+            = Long.parseLong(this.projectProperties.getQuestionSnapshotRefreshInterval());
+
+        Flux<Long> ticks
+            = (interval > 0)
+                ? Flux.interval(Duration.ZERO, Duration.ofSeconds(interval))
+                : Flux.just(0L);
+
+        this.refreshTask
+            = ticks.onBackpressureDrop()
+                   .concatMap((ignore) ->
+                       this.refresh()
+                           .onErrorResume((exception) -> {
+                               log.error(
+                                   "Refresh question bank snapshot failed! Cause: {}",
+                                   exception.getMessage(), exception
+                               );
+
+                               return Mono.empty();
+                           })
+                   ).subscribe();
+    }
+
+    @PreDestroy
+    void cancelRefresh()
+    {
+        if (this.refreshTask != null) {
+            this.refreshTask.dispose();
+        }
+    }
+
+    /** 获取当前的题库快照（可能是空快照）。*/
+    public QuestionBankSnapshot current() {
+        return this.current.get();
+    }
+
+    /**
+     * 题库快照是否已经加载？未加载时调用方应当回退到数据库查询。
+     * 是否加载与题库是否为空无关：空题库加载后得到的是另一个空快照实例，
+     * 之后的查询直接由这个空快照回答，不会一直回退到数据库。
+     */
+    public boolean isLoaded() {
+        return this.current.get() != QuestionBankSnapshot.EMPTY;
+    }
+
+    /**
+     * 从数据库重新读取完整题库并原子地替换当前快照。
+     *
+     * @return 承载了新快照的 Mono
+     */
+    public Mono<QuestionBankSnapshot> refresh()
+    {
+        return this.questionRepository
+                   .findAllQuestionWithAllOptions()
+                   .timeout(Duration.ofSeconds(30L))
+                   .collectList()
+                   .map(QuestionBankSnapshot::of)
+                   .doOnNext((snapshot) -> {
+                       this.current.set(snapshot);
+
+                       log.info(
+                           "Question bank snapshot refreshed, {} questions loaded.",
+                           snapshot.size()
+                       );
+                   });
+    }
+}
@@ -0,0 +1,39 @@
+package com.jesse.examination.score.dto;
+
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/** 成绩报告邮件的收件人：用户信息与该用户最新的一条成绩。*/
+@Data
+@ToString
+@NoArgsConstructor
+@AllArgsConstructor
+public class ScoreReportRecipientDTO
+{
+    private Long userId;
+
+    private String userName;
+
+    private String email;
+
+    private Integer scoreId;
+
+    private LocalDateTime submitDate;
+
+    private Integer correctCount;
+
+    private Integer errorCount;
+
+    private Integer noAnswerCount;
+
+    /** 取出其中的成绩部分。*/
+    public ScoreRecordQueryDTO
+    toScoreRecord()
+    {
+        return new ScoreRecordQueryDTO(
+            this.scoreId, this.userName, this.submitDate,
+            this.correctCount, this.errorCount, this.noAnswerCount
+        );
+    }
+}
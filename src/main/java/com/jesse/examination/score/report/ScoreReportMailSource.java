@@ -0,0 +1,88 @@
+package com.jesse.examination.score.report;
+
+import com.jesse.examination.core.email.bulk.BulkMailItem;
+import com.jesse.examination.core.email.bulk.BulkMailSource;
+import com.jesse.examination.core.email.dto.EmailContent;
+import com.jesse.examination.score.dto.ScoreRecordQueryDTO;
+import com.jesse.examination.score.dto.ScoreReportRecipientDTO;
+import com.jesse.examination.user.repository.UserRepository;
+import org.jetbrains.annotations.NotNull;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.format.DateTimeFormatter;
+
+import static java.lang.String.format;
+
+/** 成绩报告邮件的数据源：每个有成绩的用户一封，内容是该用户最新的一条成绩。*/
+@Component
+public class ScoreReportMailSource implements BulkMailSource
+{
+    /** 任务名（同一时刻只能有一个成绩报告任务在执行）。*/
+    public static final String JOB_NAME = "score-report";
+
+    private static final DateTimeFormatter SUBMIT_DATE_FORMAT
+        = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Override
+    public String getJobName() {
+        return JOB_NAME;
+    }
+
+    @Override
+    public Mono<Long>
+    count()
+    {
+        return this.userRepository
+                   .countScoreReportRecipients()
+                   .timeout(Duration.ofSeconds(5L));
+    }
+
+    /** 游标即用户 ID。*/
+    @Override
+    public Flux<BulkMailItem>
+    fetchAfter(long cursor, int limit)
+    {
+        return this.userRepository
+                   .findScoreReportRecipientsAfter(cursor, limit)
+                   .timeout(Duration.ofSeconds(30L))
+                   .map((recipient) ->
+                       new BulkMailItem(recipient.getUserId(), render(recipient)));
+    }
+
+    /** 将收件人最新的一条成绩渲染成邮件内容。*/
+    public static @NotNull EmailContent
+    render(@NotNull ScoreReportRecipientDTO recipient)
+    {
+        ScoreRecordQueryDTO score = recipient.toScoreRecord();
+
+        int correct  = score.getCorrectCount();
+        int error    = score.getErrorCount();
+        int noAnswer = score.getNoAnswerCount();
+        int amount   = correct + error + noAnswer;
+
+        return EmailContent.of(
+            recipient.getEmail(),
+            "用户：" + score.getUserName() + " 您的最新成绩报告",
+            format(
+                "用户：%s 您好！%n%n" +
+                "您最近一次提交（%s）的成绩如下：%n" +
+                "  答对：%d 题%n" +
+                "  答错：%d 题%n" +
+                "  未作答：%d 题%n" +
+                "  正确率：%.1f%%%n",
+                score.getUserName(),
+                SUBMIT_DATE_FORMAT.format(score.getSubmitDate()),
+                correct, error, noAnswer,
+                (amount == 0) ? 0.0 : correct * 100.0 / amount
+            ),
+            null
+        );
+    }
+}
@@ -29,6 +29,10 @@ public class ScoreRouteConfig
             .POST(INSERT_NEW_SCORE_URI,     scoreRecordService::insertNewScoreRecordByUserId)
             .DELETE(DELETE_SCORE_URI,       scoreRecordService::deleteAllScoreRecordByUserName)
             .DELETE(TRUNCATE_SCORE_URI,     scoreRecordService::truncateScoreRecordTable)
+            .POST(START_SCORE_REPORT_MAIL_URI,   scoreRecordService::startScoreReportMail)
+            .POST(RESUME_SCORE_REPORT_MAIL_URI,  scoreRecordService::resumeScoreReportMail)
+            .POST(CANCEL_SCORE_REPORT_MAIL_URI,  scoreRecordService::cancelScoreReportMail)
+            .GET(SCORE_REPORT_MAIL_PROGRESS_URI, scoreRecordService::queryScoreReportMailProgress)
             .build();
     }
 }
@@ -33,4 +33,24 @@ final public class ScoreServiceURL
     /** 清空成绩表。*/
     final public static String TRUNCATE_SCORE_URI
         = SCORE_RECORD_ROOT_URI + "/truncate";
+
+    /** 向所有有成绩的用户发送成绩报告邮件（批量邮件任务）根 URI。*/
+    final public static String SCORE_REPORT_MAIL_URI
+        = SCORE_RECORD_ROOT_URI + "/report_mail";
+
+    /** 启动成绩报告邮件任务 URI。*/
+    final public static String START_SCORE_REPORT_MAIL_URI
+        = SCORE_REPORT_MAIL_URI + "/start";
+
+    /** 从断点恢复成绩报告邮件任务 URI。*/
+    final public static String RESUME_SCORE_REPORT_MAIL_URI
+        = SCORE_REPORT_MAIL_URI + "/resume";
+
+    /** 取消成绩报告邮件任务 URI。*/
+    final public static String CANCEL_SCORE_REPORT_MAIL_URI
+        = SCORE_REPORT_MAIL_URI + "/cancel";
+
+    /** 查询成绩报告邮件任务进度 URI。*/
+    final public static String SCORE_REPORT_MAIL_PROGRESS_URI
+        = SCORE_REPORT_MAIL_URI + "/progress";
 }
@@ -30,4 +30,20 @@ public interface ScoreRecordService
     /** 清空 score_record 表。*/
     Mono<ServerResponse>
     truncateScoreRecordTable(ServerRequest request);
+
+    /** 启动向所有有成绩的用户发送成绩报告邮件的任务。*/
+    Mono<ServerResponse>
+    startScoreReportMail(ServerRequest request);
+
+    /** 从断点恢复一个中断或失败的成绩报告邮件任务。*/
+    Mono<ServerResponse>
+    resumeScoreReportMail(ServerRequest request);
+
+    /** 取消一个成绩报告邮件任务。*/
+    Mono<ServerResponse>
+    cancelScoreReportMail(ServerRequest request);
+
+    /** 查询成绩报告邮件任务的进度。*/
+    Mono<ServerResponse>
+    queryScoreReportMailProgress(ServerRequest request);
 }
@@ -1,5 +1,8 @@
 package com.jesse.examination.score.service.impl;
 
+import com.jesse.examination.core.count.TotalCountCache;
+import com.jesse.examination.core.email.bulk.BulkMailJobRunner;
+import com.jesse.examination.core.email.bulk.exception.BulkMailJobConflictException;
 import com.jesse.examination.core.exception.PaginationOffsetOutOfRangeException;
 import com.jesse.examination.core.exception.ResourceNotFoundException;
 import com.jesse.examination.core.respponse.Link;
@@ -7,6 +10,7 @@ import com.jesse.examination.core.respponse.ResponseBuilder;
 import com.jesse.examination.score.dto.ScoreRecordQueryDTO;
 import com.jesse.examination.score.entity.ScoreRecord;
 import com.jesse.examination.score.repository.ScoreRecordRepository;
+import com.jesse.examination.score.report.ScoreReportMailSource;
 import com.jesse.examination.score.service.ScoreRecordService;
 import com.jesse.examination.user.repository.UserRepository;
 import io.netty.handler.timeout.TimeoutException;
@@ -29,6 +33,8 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 
+import static com.jesse.examination.core.redis.keys.ConcatRedisKey.tableCountKey;
+import static com.jesse.examination.core.redis.keys.ConcatRedisKey.userScoreAmountKey;
 import static com.jesse.examination.core.respponse.URLParamPrase.praseNumberRequestParam;
 import static com.jesse.examination.core.respponse.URLParamPrase.praseRequestParam;
 import static com.jesse.examination.score.route.ScoreServiceURL.*;
@@ -51,6 +57,19 @@ public class ScoreRecordServiceImpl implements ScoreRecordService
     @Autowired
     private TransactionalOperator transactionalOperator;
 
+    @Autowired
+    private TotalCountCache countCache;
+
+    @Autowired
+    private BulkMailJobRunner bulkMailJobRunner;
+
+    @Autowired
+    private ScoreReportMailSource scoreReportMailSource;
+
+    /** 成绩表总行数在计数缓存中的键。*/
+    private static final String SCORE_TABLE_COUNT_KEY
+        = tableCountKey("score_record");
+
     /**
      * 本服务实现通用的错误处理类，
      * 按照不同的异常返回不同的响应体。
@@ -73,6 +92,9 @@ public class ScoreRecordServiceImpl implements ScoreRecordService
         ).onErrorResume(DataAccessResourceFailureException.class,
             (exception) ->
                 this.responseBuilder.INTERNAL_SERVER_ERROR(exception.getMessage(), exception)
+        ).onErrorResume(BulkMailJobConflictException.class,
+            (exception) ->
+                this.responseBuilder.CONFLICT(exception.getMessage(), exception)
         );
     }
 
@@ -144,11 +166,25 @@ public class ScoreRecordServiceImpl implements ScoreRecordService
         );
     }
 
+    /** 成绩报告邮件任务相关操作的 HATEOAS 元数据。*/
+    private @NotNull Set<Link>
+    getScoreReportMailLinks(String jobId)
+    {
+        Set<Link> links = new HashSet<>();
+
+        links.add(new Link("progress", SCORE_REPORT_MAIL_PROGRESS_URI + "?id=" + jobId, HttpMethod.GET));
+        links.add(new Link("cancel",   CANCEL_SCORE_REPORT_MAIL_URI + "?id=" + jobId,   HttpMethod.POST));
+        links.add(new Link("resume",   RESUME_SCORE_REPORT_MAIL_URI + "?id=" + jobId,   HttpMethod.POST));
+
+        return links;
+    }
+
     private @NotNull Mono<Set<Link>>
     getSingleScoreQueryLink(Integer scoreId)
     {
-        return this.scoreRecordRepository
-            .count().map(
+        return this.countCache
+            .get(SCORE_TABLE_COUNT_KEY, this.scoreRecordRepository::count)
+            .map(
                 (totalItem) -> {
                     Set<Link> links = new HashSet<>();
 
@@ -187,6 +223,28 @@ public class ScoreRecordServiceImpl implements ScoreRecordService
             );
     }
 
+    /** 插入一条新成绩后，增量的更新成绩表和该用户的成绩总数。*/
+    private @NotNull Mono<Void>
+    countScoreInserted(@NotNull ScoreRecord newScore)
+    {
+        return this.countCache.increment(SCORE_TABLE_COUNT_KEY, 1L)
+                   .then(
+                       this.userRepository
+                           .findUserNameById(newScore.getUserId())
+                           .timeout(Duration.ofSeconds(5L))
+                           .flatMap((userName) ->
+                               this.countCache.increment(userScoreAmountKey(userName), 1L))
+                   );
+    }
+
+    /** 删除某用户的所有成绩后，增量的更新成绩表总数，并清零该用户的成绩总数。*/
+    private @NotNull Mono<Void>
+    countScoreDeleted(String userName, int deletedRows)
+    {
+        return this.countCache.increment(SCORE_TABLE_COUNT_KEY, -deletedRows)
+                   .then(this.countCache.invalidate(userScoreAmountKey(userName)));
+    }
+
     @Override
     public Mono<ServerResponse>
     findScoreRecordById(ServerRequest request)
@@ -234,11 +292,15 @@ public class ScoreRecordServiceImpl implements ScoreRecordService
             .flatMap((params) ->
             {
                 final String name = params.getT1();
-                
-                return this.transactionalOperator.transactional(
-                    this.scoreRecordRepository
-                        .findScoreAmountByUserName(name)
-                        .timeout(Duration.ofSeconds(10L))
+
+                // 成绩总数来自计数缓存，本次请求只需要执行一次分页查询
+                return this.countCache
+                        .get(
+                            userScoreAmountKey(name),
+                            () -> this.scoreRecordRepository
+                                      .findScoreAmountByUserName(name)
+                                      .timeout(Duration.ofSeconds(10L))
+                        )
                         .flatMap((totalItem) ->
                         {
                             final Integer page   = params.getT2();
@@ -307,8 +369,7 @@ public class ScoreRecordServiceImpl implements ScoreRecordService
                                             );
                                         }
                                     ));
-                        })
-                );
+                        });
             })
             .onErrorResume(
                 PaginationOffsetOutOfRangeException.class,
@@ -357,6 +418,9 @@ public class ScoreRecordServiceImpl implements ScoreRecordService
                                  this.scoreRecordRepository
                                      .save(newScore)
                                      .timeout(Duration.ofSeconds(5L)))
+                             .flatMap((scoreAfterInsert) ->
+                                 this.countScoreInserted(scoreAfterInsert)
+                                     .thenReturn(scoreAfterInsert))
                              .flatMap((scoreAfterInsert) -> {
                                  String locationStr
                                      = SINGLE_SCORE_QUERY_URI + "?id=" + scoreAfterInsert.getScoreId();
@@ -402,6 +466,9 @@ public class ScoreRecordServiceImpl implements ScoreRecordService
                               this.scoreRecordRepository
                                   .deleteAllScoreRecordByUserName(userId)
                                   .timeout(Duration.ofSeconds(5)))
+                          .flatMap((deletedRows) ->
+                              this.countScoreDeleted(userName, deletedRows)
+                                  .thenReturn(deletedRows))
                           .flatMap((deletedRows) -> {
                                   if (deletedRows.equals(0))
                                   {
@@ -440,4 +507,83 @@ public class ScoreRecordServiceImpl implements ScoreRecordService
                        )
                    );
     }
+
+    @Override
+    public Mono<ServerResponse>
+    startScoreReportMail(ServerRequest request)
+    {
+        return this.genericErrorHandle(
+            this.bulkMailJobRunner
+                .start(this.scoreReportMailSource)
+                .flatMap((job) ->
+                    this.responseBuilder.OK(
+                        job,
+                        format(
+                            "Score report mail job %s started! (%d recipients)",
+                            job.getJobId(), job.getTotal()
+                        ), null,
+                        this.getScoreReportMailLinks(job.getJobId())
+                    )
+                )
+        );
+    }
+
+    @Override
+    public Mono<ServerResponse>
+    resumeScoreReportMail(ServerRequest request)
+    {
+        return this.genericErrorHandle(
+            praseRequestParam(request, "id")
+                .flatMap((jobId) ->
+                    this.bulkMailJobRunner.resume(jobId, this.scoreReportMailSource))
+                .flatMap((job) ->
+                    this.responseBuilder.OK(
+                        job,
+                        format(
+                            "Score report mail job %s resumed from checkpoint %d!",
+                            job.getJobId(), job.getCheckpoint()
+                        ), null,
+                        this.getScoreReportMailLinks(job.getJobId())
+                    )
+                )
+        );
+    }
+
+    @Override
+    public Mono<ServerResponse>
+    cancelScoreReportMail(ServerRequest request)
+    {
+        return this.genericErrorHandle(
+            praseRequestParam(request, "id")
+                .flatMap(this.bulkMailJobRunner::cancel)
+                .flatMap((job) ->
+                    this.responseBuilder.OK(
+                        job,
+                        format("Score report mail job %s cancelled!", job.getJobId()),
+                        null, null
+                    )
+                )
+        );
+    }
+
+    @Override
+    public Mono<ServerResponse>
+    queryScoreReportMailProgress(ServerRequest request)
+    {
+        return this.genericErrorHandle(
+            praseRequestParam(request, "id")
+                .flatMap(this.bulkMailJobRunner::progress)
+                .flatMap((job) ->
+                    this.responseBuilder.OK(
+                        job,
+                        format(
+                            "Score report mail job %s: %s, delivered %d / %d.",
+                            job.getJobId(), job.getStatus(),
+                            job.getDelivered(), job.getTotal()
+                        ), null,
+                        this.getScoreReportMailLinks(job.getJobId())
+                    )
+                )
+        );
+    }
 }
@@ -0,0 +1,35 @@
+package com.jesse.examination.user.entity;
+
+import lombok.*;
+import org.springframework.data.relational.core.mapping.Column;
+
+import java.util.Arrays;
+
+/** 用户验证信息（用户名、密码以及逗号拼接的所有角色名），用于登录验证。*/
+@Data
+@NoArgsConstructor
+@EqualsAndHashCode
+@ToString
+public class UserAuthInfo
+{
+    @Column(value = "user_name")
+    private String userName;
+
+    @ToString.Exclude
+    @Column(value = "password")
+    private String password;
+
+    /** 所有角色名，以逗号拼接，没有任何角色时为 null。*/
+    @Column(value = "roles")
+    private String roles;
+
+    /** 将拼接的角色名拆分成数组。*/
+    public String[] splitRoles()
+    {
+        return (this.roles == null || this.roles.isBlank())
+            ? new String[0]
+            : Arrays.stream(this.roles.split(","))
+                    .map(String::trim)
+                    .toArray(String[]::new);
+    }
+}
@@ -8,7 +8,6 @@ import org.jetbrains.annotations.NotNull;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.relational.core.mapping.Column;
 import org.springframework.data.relational.core.mapping.Table;
-import org.springframework.security.crypto.password.PasswordEncoder;
 
 import java.time.LocalDateTime;
 
@@ -62,7 +61,7 @@ public class UserEntity
     fromUserModifier(
         @NotNull UserEntity      oldUserInfo,
         @NotNull UserModifyDTO   userModifyDTO,
-        @NotNull PasswordEncoder passwordEncoder
+        @NotNull String          encodedNewPassword
     )
     {
         UserEntity modifiedUser = new UserEntity();
@@ -74,7 +73,7 @@ public class UserEntity
         modifiedUser
             .setUserName(userModifyDTO.getNewUserName())
             .setFullName(userModifyDTO.getNewFullName())
-            .setPassword(passwordEncoder.encode(userModifyDTO.getNewPassword()))
+            .setPassword(encodedNewPassword)
             .setTelephoneNumber(userModifyDTO.getNewTelephoneNumber())
             .setEmail(userModifyDTO.getNewEmail());
 
@@ -16,9 +16,11 @@ public interface UserRedisService
      *
      * <code><pre>
      * [Key]    user:[userName]:verify-code
-     * [Value]  (Numeric String)
+     * [Value]  (Hash Map) code -> 验证码，attempts -> 输错次数
      * </pre></code>
      *
+     * <p>重发验证码时覆盖旧的验证码，并重新计算有效期与输错次数。</p>
+     *
      * @param userName   用户名
      * @param varifyCode 验证码
      *
@@ -27,9 +29,17 @@ public interface UserRedisService
     Mono<Boolean>
     saveUserVerifyCode(String userName, String varifyCode);
 
-    /** 当用户登录的验证码匹配时，删除 Redis 中对应的验证码。*/
-    Mono<Boolean>
-    deleteUserVerifyCode(String userName);
+    /**
+     * 校验用户输入的验证码（一次 Redis 调用）。
+     * 匹配时验证码作废；不匹配时输错次数 + 1，达到上限后验证码作废。
+     *
+     * @param userName            用户名
+     * @param varifyCodeFromInput 用户输入的验证码
+     *
+     * @return 校验结果
+     */
+    Mono<VerifyCodeCheckResult>
+    consumeUserVerifyCode(String userName, String varifyCodeFromInput);
 
     /**
      * <p>
@@ -57,7 +67,7 @@ public interface UserRedisService
     );
 
     /**
-     * <p>读取指定用户的验证码。</p>
+     * <p>读取指定用户的验证码（只读，不计入输错次数，不作废验证码）。</p>
      *
      * <code><pre>
      * [Key]    user:[userName]:varify-code
@@ -88,6 +98,18 @@ public interface UserRedisService
     Mono<Map<String, Long>>
     getUserQuestionCorrectTimes(String userName);
 
+    /**
+     * 读取指定用户的所有问题答对次数（按问题 ID 升序排列），
+     * 与 {@link #getUserQuestionCorrectTimes(String)} 不同，读取后不会删除 Redis 中的数据，
+     * 用于用户仍然在线时的后台存档写回。
+     *
+     * @param userName 用户名
+     *
+     * @return 从 Redis 中读取的所有问题答对次数数据哈希表
+     */
+    Mono<Map<String, Long>>
+    peekUserQuestionCorrectTimes(String userName);
+
     /**
      * 将某个用户下的所有数据删除。
      *
@@ -99,7 +121,7 @@ public interface UserRedisService
     deleteUserInfo(String userName);
 
     /**
-     * 获取所有的用户名。
+     * 获取所有已登录（还没有登出）的用户名，每个用户只出现一次。
      *
      * @return 承载了所有用户名的 Flux
      */
@@ -0,0 +1,34 @@
+package com.jesse.examination.user.redis;
+
+import org.jetbrains.annotations.NotNull;
+
+/** 一次验证码校验的结果（对应 verify-code-consume.lua 的返回值）。*/
+public enum VerifyCodeCheckResult
+{
+    /** 匹配，验证码已作废。*/
+    MATCHED,
+
+    /** 不匹配，输错次数 + 1。*/
+    MISMATCHED,
+
+    /** 验证码不存在或已过期。*/
+    NOT_EXIST,
+
+    /** 输错次数过多，验证码已作废。*/
+    TOO_MANY_ATTEMPTS;
+
+    public static @NotNull VerifyCodeCheckResult
+    fromScriptResult(long result)
+    {
+        return switch ((int) result)
+        {
+            case 1  -> MATCHED;
+            case 0  -> MISMATCHED;
+            case -1 -> NOT_EXIST;
+            case -2 -> TOO_MANY_ATTEMPTS;
+            default ->
+                throw new IllegalStateException(
+                    "Unexpected verify code script result: " + result);
+        };
+    }
+}
@@ -1,13 +1,17 @@
 package com.jesse.examination.user.redis.impl;
 
+import com.jesse.examination.core.online.OnlineUserRegistry;
 import com.jesse.examination.core.properties.ProjectProperties;
+import com.jesse.examination.core.redis.codec.PackedCounterCodec;
+import com.jesse.examination.core.redis.script.RedisScriptRegistry;
 import com.jesse.examination.user.redis.UserRedisService;
+import com.jesse.examination.user.redis.VerifyCodeCheckResult;
 import jakarta.annotation.PostConstruct;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.redis.core.ReactiveHashOperations;
 import org.springframework.data.redis.core.ReactiveRedisTemplate;
-import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
 import org.springframework.stereotype.Component;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
@@ -17,6 +21,8 @@ import java.util.*;
 
 import static com.jesse.examination.core.redis.errorhandle.RedisGenericErrorHandle.redisGenericErrorHandel;
 import static com.jesse.examination.core.redis.keys.ConcatRedisKey.*;
+import static com.jesse.examination.core.redis.script.ProjectRedisScript.VERIFY_CODE_CONSUME;
+import static com.jesse.examination.core.redis.script.ProjectRedisScript.VERIFY_CODE_SAVE;
 import static java.lang.String.format;
 
 /** 用户模块 Redis 服务实现类。*/
@@ -28,9 +34,23 @@ public class UserRedisServiceImpl implements UserRedisService
     @Autowired
     private ReactiveRedisTemplate<String, Object> redisTemplate;
 
+    /** 值为原始字节数组的响应式 Redis 模板（紧凑存储模式使用）。*/
+    @Autowired
+    private ReactiveRedisTemplate<String, byte[]> binaryRedisTemplate;
+
+    /** 值为普通字符串的响应式 Redis 模板（读取验证码使用）。*/
+    @Autowired
+    private ReactiveStringRedisTemplate stringRedisTemplate;
+
+    @Autowired
+    private RedisScriptRegistry scriptRegistry;
+
     @Autowired
     private ProjectProperties projectProperties;
 
+    @Autowired
+    private OnlineUserRegistry onlineUserRegistry;
+
     private
     ReactiveHashOperations<String, String, Long> hashOperations;
 
@@ -64,41 +84,24 @@ public class UserRedisServiceImpl implements UserRedisService
             );
         }
 
-        String varifyCodeKey = varifyCodeKey(userName);
-
-        return this.redisTemplate.hasKey(varifyCodeKey)
-                   .flatMap((isExist) ->
-                       (!isExist)
-                        ? this.redisTemplate.opsForValue()
-                              .set(
-                                  varifyCodeKey, varifyCode,
-                                  Duration.ofSeconds(
-                                      Long.parseLong(projectProperties.getVarifyCodeExpiration())
-                                  )
-                              )
-                              .timeout(Duration.ofSeconds(3L))
-                              .onErrorResume((exception) ->
-                                  redisGenericErrorHandel(exception, null)
-                              )
-                        : this.redisTemplate.delete(varifyCodeKey)
-                              .timeout(Duration.ofSeconds(3L))
-                              .onErrorResume((exception) ->
-                                  redisGenericErrorHandel(exception, null)
-                              )
-                              .flatMap((ignore) ->
-                                  this.redisTemplate.opsForValue()
-                                      .set(varifyCodeKey, varifyCode)
-                                      .timeout(Duration.ofSeconds(3L))
-                                      .onErrorResume((exception) ->
-                                          redisGenericErrorHandel(exception, null)
-                                      )
-                              )
-                  );
+        // 覆盖旧验证码、重置输错次数、设置有效期在同一个脚本内完成，重发的验证码同样会过期
+        return this.scriptRegistry
+                   .execute(
+                       VERIFY_CODE_SAVE,
+                       List.of(varifyCodeKey(userName)),
+                       List.of(varifyCode, this.projectProperties.getVarifyCodeExpiration())
+                   )
+                   .next()
+                   .map((result) -> result == 1L)
+                   .timeout(Duration.ofSeconds(3L))
+                   .onErrorResume((exception) ->
+                       redisGenericErrorHandel(exception, null)
+                   );
     }
 
     @Override
-    public Mono<Boolean>
-    deleteUserVerifyCode(String userName)
+    public Mono<VerifyCodeCheckResult>
+    consumeUserVerifyCode(String userName, String varifyCodeFromInput)
     {
         if (userName == null || userName.isEmpty())
         {
@@ -109,26 +112,22 @@ public class UserRedisServiceImpl implements UserRedisService
             );
         }
 
-        String varifyCodeKey = varifyCodeKey(userName);
-
-        return this.redisTemplate.hasKey(varifyCodeKey)
-            .flatMap((isExist) ->
-                (isExist)
-                    ? this.redisTemplate.opsForValue()
-                          .delete(varifyCodeKey)
-                          .timeout(Duration.ofSeconds(3L))
-                          .onErrorResume((exception) ->
-                              redisGenericErrorHandel(exception, null)
-                          )
-                    : redisGenericErrorHandel(
-                        new IllegalArgumentException(
-                        format(
-                            "Delete verify code for %s failed! Cause: Key: %s not exist!",
-                            userName, varifyCodeKey
-                        )
-                    ), null
-                )
-            );
+        if (varifyCodeFromInput == null || varifyCodeFromInput.isEmpty()) {
+            return Mono.just(VerifyCodeCheckResult.MISMATCHED);
+        }
+
+        return this.scriptRegistry
+                   .execute(
+                       VERIFY_CODE_CONSUME,
+                       List.of(varifyCodeKey(userName)),
+                       List.of(varifyCodeFromInput, this.projectProperties.getVarifyCodeMaxAttempts())
+                   )
+                   .next()
+                   .map(VerifyCodeCheckResult::fromScriptResult)
+                   .timeout(Duration.ofSeconds(3L))
+                   .onErrorResume((exception) ->
+                       redisGenericErrorHandel(exception, null)
+                   );
     }
 
     @Override
@@ -144,24 +143,17 @@ public class UserRedisServiceImpl implements UserRedisService
             );
         }
 
-        String varifyCodeKey = varifyCodeKey(userName);
-
-        return this.redisTemplate.hasKey(varifyCodeKey)
-                    .timeout(Duration.ofSeconds(3L))
-                    .onErrorResume((exception) ->
-                        redisGenericErrorHandel(exception, null))
-                    .flatMap((isExist) ->
-                       (!isExist)
-                        ? redisGenericErrorHandel(
-                            new IllegalArgumentException(
-                                format("Varify code of user: %s not exist or expired!", userName)
-                            ), null)
-                        : this.redisTemplate.opsForValue()
-                              .get(varifyCodeKey)
-                              .map((res) -> (String) res)
-                              .timeout(Duration.ofSeconds(3L))
-                              .onErrorResume((exception) ->
-                                  redisGenericErrorHandel(exception, null))
+        return this.stringRedisTemplate
+                   .<String, String>opsForHash()
+                   .get(varifyCodeKey(userName), "code")
+                   .timeout(Duration.ofSeconds(3L))
+                   .onErrorResume((exception) ->
+                       redisGenericErrorHandel(exception, null))
+                   .switchIfEmpty(
+                       redisGenericErrorHandel(
+                           new IllegalArgumentException(
+                               format("Varify code of user: %s not exist or expired!", userName)
+                           ), null)
                    );
     }
 
@@ -199,6 +191,20 @@ public class UserRedisServiceImpl implements UserRedisService
             );
         }
 
+        if (this.projectProperties.isPackedCorrectTimesStorage())
+        {
+            // 紧凑存储模式下，整个存档编码成一个字符串，一次 SET 即可
+            return Mono.fromCallable(() -> PackedCounterCodec.encode(quesCorrectTimesMap))
+                       .flatMap((packed) ->
+                           this.binaryRedisTemplate.opsForValue()
+                               .set(packedCorrectTimesKey(userName), packed)
+                               .timeout(Duration.ofSeconds(3L)))
+                       .onErrorResume(
+                           (exception) ->
+                               redisGenericErrorHandel(exception, false)
+                       );
+        }
+
         return this.hashOperations
             .putAll(
                 correctTimesHashKey(userName),
@@ -222,7 +228,24 @@ public class UserRedisServiceImpl implements UserRedisService
      */
     @Override
     public Mono<Map<String, Long>>
-    getUserQuestionCorrectTimes(String userName)
+    getUserQuestionCorrectTimes(String userName) {
+        return this.readQuestionCorrectTimes(userName, true);
+    }
+
+    @Override
+    public Mono<Map<String, Long>>
+    peekUserQuestionCorrectTimes(String userName) {
+        return this.readQuestionCorrectTimes(userName, false);
+    }
+
+    /**
+     * 读取某用户的所有问题答对次数。
+     *
+     * @param userName 用户名
+     * @param consume  读取后是否删除 Redis 中的数据？
+     */
+    private Mono<Map<String, Long>>
+    readQuestionCorrectTimes(String userName, boolean consume)
     {
         if (userName == null || userName.isEmpty())
         {
@@ -233,6 +256,10 @@ public class UserRedisServiceImpl implements UserRedisService
             );
         }
 
+        if (this.projectProperties.isPackedCorrectTimesStorage()) {
+            return this.getPackedQuestionCorrectTimes(userName, consume);
+        }
+
         String key = correctTimesHashKey(userName);
 
         return this.redisTemplate.hasKey(key)
@@ -257,12 +284,14 @@ public class UserRedisServiceImpl implements UserRedisService
 
                                  return sortedMap;
                            }).flatMap((sortedMap) ->
-                                this.redisTemplate.delete(key)
-                                    .timeout(Duration.ofSeconds(3L))
-                                    .onErrorResume((exception) ->
-                                        redisGenericErrorHandel(exception, -1L)
-                                    )
-                                    .thenReturn(sortedMap)
+                                (consume)
+                                    ? this.redisTemplate.delete(key)
+                                          .timeout(Duration.ofSeconds(3L))
+                                          .onErrorResume((exception) ->
+                                              redisGenericErrorHandel(exception, -1L)
+                                          )
+                                          .thenReturn(sortedMap)
+                                    : Mono.just(sortedMap)
                            )
                        : redisGenericErrorHandel(
                            new IllegalArgumentException(format("Key: %s is not exist!", key)),
@@ -271,6 +300,31 @@ public class UserRedisServiceImpl implements UserRedisService
                    );
     }
 
+    /**
+     * 紧凑存储模式下，读取某用户的答对次数数组（consume 为 true 时使用 GETDEL），
+     * 解码后的映射本身就是按问题 ID 升序排列的，不需要再排序。
+     */
+    private Mono<Map<String, Long>>
+    getPackedQuestionCorrectTimes(String userName, boolean consume)
+    {
+        String key = packedCorrectTimesKey(userName);
+
+        return ((consume)
+                    ? this.binaryRedisTemplate.opsForValue().getAndDelete(key)
+                    : this.binaryRedisTemplate.opsForValue().get(key))
+                   .timeout(Duration.ofSeconds(3L))
+                   .onErrorResume((exception) ->
+                       redisGenericErrorHandel(exception, null)
+                   )
+                   .map(PackedCounterCodec::decode)
+                   .switchIfEmpty(
+                       redisGenericErrorHandel(
+                           new IllegalArgumentException(format("Key: %s is not exist!", key)),
+                           null
+                       )
+                   );
+    }
+
     /**
      * 将某个用户下的所有数据删除。
      *
@@ -291,44 +345,18 @@ public class UserRedisServiceImpl implements UserRedisService
             );
         }
 
-        return this.redisTemplate.scan(
-            ScanOptions.scanOptions()
-                       .match(allKeysOfUserPattern(userName))
-                       .build()
-            )
-            .timeout(Duration.ofSeconds(3L))
-            .onErrorResume((exception) ->
-                redisGenericErrorHandel(exception, null)
-            )
-            .flatMap((key) ->
-                this.redisTemplate.delete(key)
-                    .timeout(Duration.ofSeconds(3L))
-                    .onErrorResume((exception) ->
-                        redisGenericErrorHandel(exception, null)
-                    )
-            )
-            .then(Mono.just(true));
+        // 用户的所有键都是已知的，一次 UNLINK 即可（后台线程回收内存），耗时与键空间大小无关
+        return this.redisTemplate
+                   .unlink(allKeysOfUser(userName).toArray(String[]::new))
+                   .timeout(Duration.ofSeconds(3L))
+                   .onErrorResume((exception) ->
+                       redisGenericErrorHandel(exception, null)
+                   )
+                   .thenReturn(true);
     }
 
     @Override
-    public Flux<String> getAllUsers()
-    {
-        return this.redisTemplate.scan(
-            ScanOptions.scanOptions()
-                       .match(allUserPatten())
-                       .build()
-        )
-        .timeout(Duration.ofSeconds(3L))
-        .onErrorResume((exception) ->
-            redisGenericErrorHandel(exception, null)
-        )
-        .map((key) -> {
-                String[] subStr = key.split(":");
-
-                log.info("{}", Arrays.toString(subStr));
-
-                return subStr[1];
-            }
-        );
+    public Flux<String> getAllUsers() {
+        return this.onlineUserRegistry.allUsers();
     }
 }
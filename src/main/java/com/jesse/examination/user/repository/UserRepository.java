@@ -1,5 +1,7 @@
 package com.jesse.examination.user.repository;
 
+import com.jesse.examination.score.dto.ScoreReportRecipientDTO;
+import com.jesse.examination.user.entity.UserAuthInfo;
 import com.jesse.examination.user.entity.UserEntity;
 import org.springframework.data.r2dbc.repository.Modifying;
 import org.springframework.data.r2dbc.repository.Query;
@@ -33,6 +35,16 @@ public interface UserRepository
         @Param("userName") String userName
     );
 
+    /** 根据用户 ID 查询对应的用户名。*/
+    @Query("""
+            SELECT user_name FROM users
+            WHERE user_id = :userId
+        """)
+    Mono<String>
+    findUserNameById(
+        @Param("userId") Long userId
+    );
+
     /** 根据用户名查询对应的用户邮箱。*/
     @Query("""
             SELECT email FROM users
@@ -53,6 +65,56 @@ public interface UserRepository
         @Param("userName") String userName
     );
 
+    /**
+     * 根据用户名，在一次查询内同时查出用户的验证信息与所有角色名
+     * （角色名由 GROUP_CONCAT 以逗号拼接）。
+     */
+    @Query("""
+            SELECT users.user_name, users.password,
+                   GROUP_CONCAT(user_roles.role_name) AS roles
+            FROM users
+            LEFT JOIN user_role_relation USING(user_id)
+            LEFT JOIN user_roles
+            ON user_role_relation.role_id = user_roles.id
+            WHERE users.user_name = :userName
+            GROUP BY users.user_id
+        """)
+    Mono<UserAuthInfo>
+    findAuthInfoByUserName(
+        @Param("userName") String userName
+    );
+
+    /** 有成绩记录的用户数（即成绩报告邮件的收件人数）。*/
+    @Query("SELECT COUNT(DISTINCT user_id) FROM score_record")
+    Mono<Long> countScoreReportRecipients();
+
+    /**
+     * 按用户 ID 升序，分批查出 ID 大于 afterUserId 的用户及其最新的一条成绩
+     * （没有成绩记录的用户不在其中），用于批量发送成绩报告邮件。
+     */
+    @Query("""
+            SELECT users.user_id, users.user_name, users.email,
+                   score_record.score_id, score_record.submit_date,
+                   score_record.correct_count, score_record.error_count,
+                   score_record.no_answer_count
+            FROM users
+            INNER JOIN score_record
+            ON score_record.score_id = (
+                SELECT latest.score_id FROM score_record AS latest
+                WHERE latest.user_id = users.user_id
+                ORDER BY latest.submit_date DESC, latest.score_id DESC
+                LIMIT 1
+            )
+            WHERE users.user_id > :afterUserId
+            ORDER BY users.user_id
+            LIMIT :limit
+        """)
+    Flux<ScoreReportRecipientDTO>
+    findScoreReportRecipientsAfter(
+        @Param("afterUserId") Long    afterUserId,
+        @Param("limit")       Integer limit
+    );
+
     /** 检查指定用户名是否存在。*/
     @Query("""
             SELECT EXISTS(
@@ -23,6 +23,8 @@ public class UserServiceRouteConfig
     {
         return RouterFunctions.route()
                 .GET(GET_AVATAR_IMAGE,   this.userService::getUserAvatarImage)
+                .GET(ONLINE_USERS_URI,      this.userService::findPaginatedOnlineUsers)
+                .GET(ACTIVE_STATISTICS_URI, this.userService::getActiveUserStatistics)
                 .POST(USER_REGISTER_URI, this.userService::userRegister)
                 .POST(USER_LOGIN_URI,    this.userService::userLogin)
                 .POST(USER_LOGOUT_URI,   this.userService::userLogout)
@@ -33,4 +33,10 @@ final public class UserServiceURL
 
     public static final String SET_AVTAR_IMAGE
         = USER_SERVICE_ROOT_URI + "/set_avatar";
+
+    public static final String ONLINE_USERS_URI
+        = USER_SERVICE_ROOT_URI + "/online_users";
+
+    public static final String ACTIVE_STATISTICS_URI
+        = USER_SERVICE_ROOT_URI + "/active_statistics";
 }
@@ -38,4 +38,12 @@ public interface UserService
     /** 设置指定用户的头像数据。*/
     Mono<ServerResponse>
     setUserAvatarImage(ServerRequest request);
+
+    /** 按最后一次活动时间从近到远分页查询在线用户。*/
+    Mono<ServerResponse>
+    findPaginatedOnlineUsers(ServerRequest request);
+
+    /** 查询在线人数与最近若干天的活跃用户数。*/
+    Mono<ServerResponse>
+    getActiveUserStatistics(ServerRequest request);
 }
@@ -1,12 +1,21 @@
 package com.jesse.examination.user.service.impl;
 
+import com.jesse.examination.core.count.TotalCountCache;
 import com.jesse.examination.core.email.dto.EmailContent;
 import com.jesse.examination.core.email.exception.EmailException;
-import com.jesse.examination.core.email.service.EmailSenderInterface;
+import com.jesse.examination.core.email.outbox.EmailLane;
+import com.jesse.examination.core.email.outbox.EmailOutbox;
 import com.jesse.examination.core.email.utils.EmailFormatVerifier;
+import com.jesse.examination.core.exception.PaginationOffsetOutOfRangeException;
+import com.jesse.examination.core.file.cache.CachedFile;
+import com.jesse.examination.core.file.exception.FileTooLargeException;
+import com.jesse.examination.core.file.exception.InvalidFileContentException;
 import com.jesse.examination.core.exception.ResourceNotFoundException;
+import com.jesse.examination.core.online.OnlineUserRegistry;
 import com.jesse.examination.core.properties.ProjectProperties;
 import com.jesse.examination.core.redis.exception.ProjectRedisOperatorException;
+import com.jesse.examination.core.security.hashing.PasswordHashingExecutor;
+import com.jesse.examination.core.security.hashing.exception.PasswordHashingBusyException;
 import com.jesse.examination.core.respponse.ResponseBuilder;
 import com.jesse.examination.score.repository.ScoreRecordRepository;
 import com.jesse.examination.user.dto.UserLoginDTO;
@@ -23,30 +32,41 @@ import com.jesse.examination.user.repository.UserRepository;
 import com.jesse.examination.user.service.UserService;
 import com.jesse.examination.user.utils.AuthService;
 import com.jesse.examination.user.utils.LoginAuthService;
+import com.jesse.examination.user.utils.UserArchiveFlusher;
 import com.jesse.examination.user.utils.UserArchiveManager;
-import com.jesse.examination.user.utils.dto.AvatarImageData;
+import com.jesse.examination.user.utils.impl.UserDetailsService;
 import com.jesse.examination.user.utils.exception.UserLoginFailedException;
+import com.jesse.examination.user.utils.exception.VarifyCodeMismatchException;
+import io.netty.buffer.ByteBufAllocator;
 import io.netty.handler.timeout.TimeoutException;
 import lombok.extern.slf4j.Slf4j;
 import org.jetbrains.annotations.NotNull;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.io.FileSystemResource;
 import org.springframework.core.io.buffer.DataBuffer;
 import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.NettyDataBufferFactory;
 import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.reactive.TransactionalOperator;
+import org.springframework.web.reactive.function.BodyInserters;
 import org.springframework.web.reactive.function.server.ServerRequest;
 import org.springframework.web.reactive.function.server.ServerResponse;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
-import reactor.core.scheduler.Schedulers;
 
 import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 import static com.jesse.examination.core.email.utils.VerifyCodeGenerator.generateVerifyCode;
+import static com.jesse.examination.core.redis.keys.ConcatRedisKey.tableCountKey;
+import static com.jesse.examination.core.redis.keys.ConcatRedisKey.userScoreAmountKey;
+import static com.jesse.examination.core.respponse.URLParamPrase.praseNumberRequestParam;
 import static com.jesse.examination.core.respponse.URLParamPrase.praseRequestParam;
 import static com.jesse.examination.user.entity.RoleID.ROLE_USER;
 import static java.lang.String.format;
@@ -56,6 +76,13 @@ import static java.lang.String.format;
 @Component
 public class UserServiceImpl implements UserService
 {
+    /** 把缓存中的直接内存包装成 DataBuffer（不复制）。*/
+    private static final NettyDataBufferFactory AVATAR_BUFFER_FACTORY
+        = new NettyDataBufferFactory(ByteBufAllocator.DEFAULT);
+
+    /** 缓存条目刚好被淘汰、改为从磁盘读取头像时每块的大小（单位：字节）。*/
+    private static final int AVATAR_READ_BUFFER_SIZE = 8192;
+
     @Autowired
     private UserRepository userRepository;
 
@@ -74,15 +101,23 @@ public class UserServiceImpl implements UserService
     @Autowired
     private UserArchiveManager userArchiveManager;
 
+    @Autowired
+    private UserArchiveFlusher userArchiveFlusher;
+
+    /** 用户验证信息缓存，用户或角色变化后需要使其失效。*/
+    @Autowired
+    private UserDetailsService userDetailsService;
+
     @Autowired
     private UserRedisService userRedisService;
 
+    /** BCrypt 运算交给专用线程池，不占用事件循环线程。*/
     @Autowired
-    private PasswordEncoder passwordEncoder;
+    private PasswordHashingExecutor passwordHashing;
 
+    /** 验证码邮件写入发件箱后立即返回，由后台投递。*/
     @Autowired
-    @Qualifier(value = "createEmailSender")
-    private EmailSenderInterface emailSender;
+    private EmailOutbox emailOutbox;
 
     @Autowired
     private ResponseBuilder responseBuilder;
@@ -93,6 +128,12 @@ public class UserServiceImpl implements UserService
     @Autowired
     private ProjectProperties projectProperties;
 
+    @Autowired
+    private TotalCountCache countCache;
+
+    @Autowired
+    private OnlineUserRegistry onlineUserRegistry;
+
     /**
      * <p>在正式将数据写入之前，要对名字进行是否已经存在的校验。</p>
      *
@@ -149,6 +190,13 @@ public class UserServiceImpl implements UserService
                         resourceNotFoundException
                     );
 
+            case VarifyCodeMismatchException varifyCodeMismatchException ->
+                this.responseBuilder
+                    .BAD_REQUEST(
+                        varifyCodeMismatchException.getMessage(),
+                        varifyCodeMismatchException
+                    );
+
             case UserLoginFailedException userLoginFailedException ->
                 this.responseBuilder
                     .BAD_REQUEST(
@@ -162,6 +210,27 @@ public class UserServiceImpl implements UserService
                     userArchiveOperatorFailedException
                 );
 
+            case FileTooLargeException fileTooLargeException ->
+                this.responseBuilder
+                    .PAYLOAD_TOO_LARGE(
+                        fileTooLargeException.getMessage(),
+                        fileTooLargeException
+                    );
+
+            case InvalidFileContentException invalidFileContentException ->
+                this.responseBuilder
+                    .BAD_REQUEST(
+                        invalidFileContentException.getMessage(),
+                        invalidFileContentException
+                    );
+
+            case PasswordHashingBusyException passwordHashingBusyException ->
+                this.responseBuilder
+                    .SERVICE_UNAVAILABLE(
+                        passwordHashingBusyException.getMessage(),
+                        passwordHashingBusyException
+                    );
+
             case ProjectRedisOperatorException projectRedisOperatorException ->
                 this.responseBuilder
                     .INTERNAL_SERVER_ERROR(
@@ -253,9 +322,8 @@ public class UserServiceImpl implements UserService
 
                 /* 2. 创建新用户实体和对应角色并存入数据库。*/
                 Mono<Void> createNewUser
-                    = Mono.fromCallable(() ->
-                        this.passwordEncoder.encode(registerInfo.getPassword()))
-                    .subscribeOn(Schedulers.boundedElastic()) // 加密过程非常耗时，丢给线程池去调度
+                    = this.passwordHashing
+                    .encode(registerInfo.getPassword()) // 加密过程非常耗时，丢给专用线程池去调度
                     .flatMap(
                         (encodedPassword) -> {
                             registerInfo.setPassword(encodedPassword); // 设置完成加密的密码
@@ -266,7 +334,8 @@ public class UserServiceImpl implements UserService
                                 .flatMap((newUser) ->
                                     this.rolesRepository
                                         .addNewRole(newUser.getUserId(), ROLE_USER.getRoleId())
-                                );
+                                )
+                                .then(this.userDetailsService.evictUser(registerInfo.getUserName()));
                         }).then();
 
                 /* 创建新用户存档。*/
@@ -341,13 +410,23 @@ public class UserServiceImpl implements UserService
             .flatMap((loginInfo) ->
                 this.loginAuthService.userLoginVerifier(loginInfo)
                     .flatMap((jwt) -> {
-                        // 加载用户存档
+                        // 先记为在线，之后空闲回收便不会再认领该用户
+                        Mono<Void> markOnline
+                            = this.onlineUserRegistry.touchNow(loginInfo.getUserName());
+
+                        // 加载用户存档（若登出请求还没有被后台执行，数据仍在 Redis 中，撤销登出即可）
                         Mono<Void> readArchive
-                            = this.userArchiveManager
-                            .readUserArchive(loginInfo.getUserName());
+                            = this.userArchiveFlusher
+                                  .cancelLogout(loginInfo.getUserName())
+                                  .flatMap((isCancelled) ->
+                                      (isCancelled)
+                                          ? Mono.empty()
+                                          : this.userArchiveManager
+                                                .readUserArchive(loginInfo.getUserName())
+                                  );
 
                         return this.transactionalOperator.transactional(
-                            readArchive.then(
+                            markOnline.then(readArchive).then(
                                 this.responseBuilder.OK(
                                     jwt,
                                     format("User: %s login success!", loginInfo.getUserName()),
@@ -363,7 +442,8 @@ public class UserServiceImpl implements UserService
     /**
      * 用户登出服务。
      * 要做的也很简单，从请求中获取用户名参数，
-     * 检查该用户名是否存在后，再进行登出操作（将 Redis 中的用户存档存回文件系统）。
+     * 检查该用户名是否存在后，再进行登出操作
+     * （将登出请求交给后台写回器，由它将 Redis 中的用户存档存回文件系统）。
      */
     @Override
     public Mono<ServerResponse>
@@ -375,13 +455,9 @@ public class UserServiceImpl implements UserService
                         .map(res -> res != 0)
                         .flatMap((isExist) ->
                             (isExist)
-                                ? this.userArchiveManager
-                                      .saveUserArchive(userName)
-                                      .then(
-                                          this.userRedisService
-                                              .deleteUserInfo(userName)
-                                              .timeout(Duration.ofSeconds(3L))
-                                      )
+                                ? this.userArchiveFlusher
+                                      .enqueueLogout(userName)
+                                      .then(this.onlineUserRegistry.remove(userName))
                                       .then(
                                           this.responseBuilder
                                               .OK(null,
@@ -451,18 +527,24 @@ public class UserServiceImpl implements UserService
 
         /* 往数据库写入新的用户信息。*/
         Mono<Void> saveUserData
-            = this.userRepository
-                  .save(
-                      UserEntity.fromUserModifier(
-                          oldUserInfo, modifyInfo,
-                          this.passwordEncoder
-                      )
+            = this.passwordHashing
+                  .encode(modifyInfo.getNewPassword())
+                  .flatMap((encodedNewPassword) ->
+                      this.userRepository
+                          .save(
+                              UserEntity.fromUserModifier(
+                                  oldUserInfo, modifyInfo,
+                                  encodedNewPassword
+                              )
+                          )
                   ).then();
 
-        /* 存档用户数据。*/
+        /* 存档用户数据（先等待后台正在进行的写回完成）。*/
         Mono<Void> saveArchive
-            = this.userArchiveManager
-            .saveUserArchive(modifyInfo.getOldUserName());
+            = this.userArchiveFlusher
+                  .awaitFlush(modifyInfo.getOldUserName())
+                  .then(this.userArchiveManager
+                            .saveUserArchive(modifyInfo.getOldUserName()));
 
         /* 修改用户存档名。*/
         Mono<Void> renameUserArchive
@@ -476,6 +558,8 @@ public class UserServiceImpl implements UserService
                 .then(checkFullName)
                 .then(checkPassword)
                 .then(saveUserData)
+                .then(this.userDetailsService.evictUser(
+                    oldUserInfo.getUserName(), modifyInfo.getNewUserName()))
                 .then(saveArchive)
                 .then(renameUserArchive);
     }
@@ -530,8 +614,8 @@ public class UserServiceImpl implements UserService
         Mono<Void> checkPassword
             = this.userRepository
             .findUserByUserName(deleteInfo.getUserName())
-            .map((user) ->
-                this.passwordEncoder
+            .flatMap((user) ->
+                this.passwordHashing
                     .matches(deleteInfo.getPassword(), user.getPassword())
             )
             .flatMap((isMatch) -> {
@@ -548,32 +632,22 @@ public class UserServiceImpl implements UserService
             });
 
         Mono<Void> checkVarifyCode
-            = this.userRedisService
-                  .getUserVarifyCode(deleteInfo.getUserName())
-                  .map((varifyCodeFromRedis) ->
-                      varifyCodeFromRedis.equals(deleteInfo.getVarifyCode()))
-                  .flatMap((isMatch) -> {
-                      if (!isMatch) {
-                          return Mono.error(
-                              new IllegalArgumentException("Varify code mismatch! Please try again!")
-                          );
-                      }
-
-                      return Mono.empty();
-                  });
+            = this.authService
+                  .verifyCodeCheck(deleteInfo.getUserName(), deleteInfo.getVarifyCode());
 
         Mono<Void> deleteUserArchive
-            = this.userArchiveManager
-                  .deleteUserArchive(deleteInfo.getUserName());
+            = this.userArchiveFlusher
+                  .awaitFlush(deleteInfo.getUserName())
+                  .then(this.userArchiveManager
+                            .deleteUserArchive(deleteInfo.getUserName()));
 
         Mono<Void> deleteUserFromDataBase
             = this.userRepository
                   .findIdByUserName(deleteInfo.getUserName())
                   .flatMap((userId) -> {
-                      Mono<Void> deleteAllScoreForUser
+                      Mono<Integer> deleteAllScoreForUser
                           = this.scoreRecordRepository
-                                .deleteAllScoreRecordByUserName(userId)
-                                .then();
+                                .deleteAllScoreRecordByUserName(userId);
 
                       Mono<Void> deleteRolesForUser
                           = this.rolesRepository
@@ -586,9 +660,18 @@ public class UserServiceImpl implements UserService
                       return this.transactionalOperator
                           .transactional(
                               deleteAllScoreForUser
-                                  .then(deleteRolesForUser)
-                                  .then(deleteUser)
-                          );
+                                  .flatMap((deletedRows) ->
+                                      deleteRolesForUser
+                                          .then(deleteUser)
+                                          .thenReturn(deletedRows))
+                          )
+                          .flatMap((deletedRows) ->
+                              this.countCache
+                                  .increment(tableCountKey("score_record"), -deletedRows)
+                                  .then(this.countCache.invalidate(
+                                      userScoreAmountKey(deleteInfo.getUserName())))
+                                  .then(this.userDetailsService.evictUser(deleteInfo.getUserName()))
+                                  .then(this.onlineUserRegistry.remove(deleteInfo.getUserName())));
                   });
 
         return checkPassword.then(checkVarifyCode)
@@ -660,12 +743,13 @@ public class UserServiceImpl implements UserService
 
     /**
      * sendVarifyCodeEmail() 的辅助方法，
-     * 在 findUserEmail() 之后，向指定用户发送验证码邮件。
+     * 在 findUserEmail() 之后，把发给指定用户的验证码邮件写入发件箱的验证码通道（优先投递），
+     * 不等待邮件真正发出。
      *
      * @param userName  用户名
      * @param userEmail 用户邮箱
      *
-     * @throws EmailException 在发送邮件操作中出现的任何错误都会抛该异常
+     * @throws EmailException 用户邮箱格式错误时抛出
      *
      * @return 返回验证码字符串，下游的 Redis 操作需要进行存储。
      */
@@ -682,10 +766,12 @@ public class UserServiceImpl implements UserService
                     Long.parseLong(this.projectProperties.getVarifyCodeExpiration()) / 60
                 );
 
-            return this.emailSender
-                       .sendEmail(EmailContent.fromVarify(
-                           userName, userEmail,
-                           varifyCode, expiration))
+            return this.emailOutbox
+                       .enqueue(
+                           EmailContent.fromVarify(
+                               userName, userEmail,
+                               varifyCode, expiration),
+                           EmailLane.VERIFY)
                        .then(Mono.just(varifyCode));
         });
     }
@@ -747,87 +833,243 @@ public class UserServiceImpl implements UserService
             });
     }
 
-    /** 从前端请求中解析用户名，获取该用户的头像数据。*/
+    /**
+     * 从前端请求中解析用户名，获取该用户的头像数据。
+     * 响应带有 ETag 与 Last-Modified，客户端携带的条件请求头匹配时直接返回 304；
+     * 头像内容在热点缓存中时把直接内存交给 Netty 写出，否则从磁盘零拷贝发送。
+     */
     @Override
     public Mono<ServerResponse>
     getUserAvatarImage(ServerRequest request)
     {
         return praseRequestParam(request, "name")
-            .flatMap((userName) ->
-                this.userArchiveManager
-                    .getAvatarImageByUserName(userName)
-                    .flatMap((avatar) ->
-                        ServerResponse.status(HttpStatus.OK)
-                                      .headers((headers) ->
-                                          headers.setContentType(MediaType.IMAGE_PNG))
-                                      .bodyValue(avatar.getAvatarBytes())
-                    )
+            .flatMap(this.userArchiveManager::getAvatarImageFile)
+            .flatMap((avatar) ->
+                request.checkNotModified(avatar.lastModified(), avatar.eTag())
+                       .switchIfEmpty(Mono.defer(() -> this.avatarResponse(avatar)))
             )
             .onErrorResume(this::genericErrorHandle);
     }
 
+    /** getUserAvatarImage() 的辅助方法，构建携带头像内容的 200 响应。*/
+    private @NotNull Mono<ServerResponse>
+    avatarResponse(@NotNull CachedFile avatar)
+    {
+        ServerResponse.BodyBuilder builder
+            = ServerResponse.ok()
+                            .contentType(MediaType.IMAGE_PNG)
+                            .contentLength(avatar.length())
+                            .eTag(avatar.eTag())
+                            .lastModified(avatar.lastModified())
+                            .cacheControl(CacheControl.noCache());
+
+        if (avatar.content() == null)
+        {
+            return builder.body(
+                BodyInserters.fromResource(new FileSystemResource(avatar.path())));
+        }
+
+        // 写出响应体时才取得内容的引用，响应体没有被写出（比如连接已断开）时不会占着直接内存，
+        // 取得之后又被丢弃的内容由 doOnDiscard 释放；条目刚好被淘汰时从磁盘读取
+        Flux<DataBuffer> content
+            = Mono.fromSupplier(avatar::retainedContent)
+                  .<DataBuffer>map(AVATAR_BUFFER_FACTORY::wrap)
+                  .flux()
+                  .switchIfEmpty(Flux.defer(() ->
+                      DataBufferUtils.read(
+                          new FileSystemResource(avatar.path()),
+                          AVATAR_BUFFER_FACTORY, AVATAR_READ_BUFFER_SIZE
+                      )))
+                  .doOnDiscard(DataBuffer.class, DataBufferUtils::release);
+
+        return builder.body(BodyInserters.fromDataBuffers(content));
+    }
+
     /**
-     * setUserAvatarImage() 的辅助方法，
-     * 读取前端传来的的二进制数据，将其映射成 AvatarImageData 后返回。
-     *
-     * @param buffer 前端传来的二进制数据
+     * <p>从前端请求中解析用户名，把请求体中的新头像以流的形式写入该用户的存档。</p>
      *
-     * @return 承载了 AvatarImageData 实例的 Mono
+     * <p>
+     *     请求体不会被聚合到内存中：数据块边到达边写入临时文件，每次上传占用的内存只与数据块大小有关。
+     *     请求头声明的长度超过 <code>app.avatar.max-upload-bytes</code> 时不读取请求体直接拒绝，
+     *     没有声明长度（分块传输）时，实际接收的字节数一旦超出也会立即中止。
+     * </p>
      */
-    private @NotNull Mono<AvatarImageData>
-    readAvatarFromBinary(@NotNull DataBuffer buffer)
+    @Override
+    public Mono<ServerResponse>
+    setUserAvatarImage(@NotNull ServerRequest request)
     {
-        byte[] bytes = new byte[buffer.readableByteCount()];
+        return praseRequestParam(request, "name")
+            .flatMap((userName) -> {
+                long maxBytes
+                    = Long.parseLong(this.projectProperties.getAvatarMaxUploadBytes());
+                long contentLength
+                    = request.headers().contentLength().orElse(-1L);
 
-        buffer.read(bytes);
-        DataBufferUtils.release(buffer);
+                if (contentLength == 0L)
+                {
+                    return Mono.error(
+                        new EmptyRequestDataException("Avatar image data not be empty!"));
+                }
 
-        return Mono.just(
-            AvatarImageData.fromBytes(bytes)
-        );
+                if (contentLength > maxBytes)
+                {
+                    return Mono.error(
+                        new FileTooLargeException(
+                            format(
+                                "Avatar image too large! (%d bytes, limit: %d bytes)",
+                                contentLength, maxBytes
+                            )
+                        )
+                    );
+                }
+
+                return this.userRepository.existsByUserName(userName)
+                    .map((res) -> res != 0)
+                    .flatMap((isExist) ->
+                        (isExist)
+                            ? this.userArchiveManager
+                                  .uploadUserAvatarImage(
+                                      userName, request.bodyToFlux(DataBuffer.class))
+                                  .then(
+                                    this.responseBuilder.OK(
+                                        null,
+                                        format("Set new avatar for user: %s success!", userName),
+                                        null, null
+                                    )
+                                  )
+                            : Mono.error(
+                                new ResourceNotFoundException(
+                                    format(
+                                        "Set avatar image for user %s failed! Cause: User %s not exist!",
+                                        userName, userName
+                                    )
+                                )
+                            )
+                    );
+            })
+            .onErrorResume(this::genericErrorHandle);
     }
 
     /**
-     * 从前端请求中解析用户名和新头像字节数据，
-     * 设置该用户的头像数据。
+     * 按最后一次活动时间从近到远分页查询在线用户，
+     * 在线人数与分页都是对有序集合的范围查询，考试期间管理端可以频繁轮询。
      */
     @Override
     public Mono<ServerResponse>
-    setUserAvatarImage(@NotNull ServerRequest request)
+    findPaginatedOnlineUsers(ServerRequest request)
     {
-        return request.bodyToMono(DataBuffer.class)
-            .switchIfEmpty(
-                Mono.error(new EmptyRequestDataException("Avatar image data not be empty!")))
-            .flatMap((buffer) ->
-                this.readAvatarFromBinary(buffer)
-                    .flatMap((avatar) ->
-                        praseRequestParam(request, "name")
-                            .flatMap((userName) ->
-                                this.userRepository.existsByUserName(userName)
-                                    .map((res) -> res != 0)
-                                    .flatMap((isExist) ->
-                                        (isExist)
-                                            ? this.userArchiveManager
-                                                  .setUserAvatarImage(userName, avatar)
-                                                  .then(
-                                                    this.responseBuilder.OK(
-                                                        null,
-                                                        format("Set new avatar for user: %s success!", userName),
-                                                        null, null
-                                                    )
-                                                  )
-                                            : Mono.error(
-                                                new ResourceNotFoundException(
-                                                    format(
-                                                        "Set avatar image for user %s failed! Cause: User %s not exist!",
-                                                        userName, userName
-                                                    )
-                                                )
-                                            )
-                                        )
-                                    )
-                            )
+        Mono<Integer> pageMono
+            = praseNumberRequestParam(request, "page", Integer::parseInt);
+        Mono<Integer> amountMono
+            = praseNumberRequestParam(request, "amount", Integer::parseInt);
+
+        return Mono.zip(pageMono, amountMono)
+            .flatMap((params) ->
+            {
+                final int page   = params.getT1();
+                final int amount = params.getT2();
+
+                if (page < 1 || amount < 1)
+                {
+                    return Mono.error(
+                        new IllegalArgumentException(
+                            format("Page and amount must be positive! Your param: (page = %d, amount = %d)",
+                                page, amount)
                         )
+                    );
+                }
+
+                return this.onlineUserRegistry
+                    .onlineCount()
+                    .flatMap((totalItem) ->
+                    {
+                        long offset = (long) (page - 1) * amount;
+
+                        if (offset > 0 && offset >= totalItem)
+                        {
+                            return Mono.error(
+                                new PaginationOffsetOutOfRangeException(
+                                    format("Input page (which is: %d) param is to large!", page)
+                                )
+                            );
+                        }
+
+                        return this.onlineUserRegistry
+                            .listOnline(page, amount)
+                            .collectList()
+                            .flatMap((users) ->
+                            {
+                                ResponseBuilder.APIResponse<List<OnlineUserRegistry.OnlineUser>>
+                                    response = new ResponseBuilder.APIResponse<>(HttpStatus.OK);
+
+                                response.withPagination(page, amount, totalItem);
+                                response.setData(users);
+                                response.setMessage(
+                                    format(
+                                        "Query online users (Page = %d, Amount = %d) complete!",
+                                        page, amount
+                                    )
+                                );
+
+                                return this.responseBuilder.build(
+                                    (headers) ->
+                                        headers.setContentType(MediaType.APPLICATION_JSON),
+                                    response
+                                );
+                            });
+                    });
+            })
+            .onErrorResume(
+                PaginationOffsetOutOfRangeException.class,
+                (exception) ->
+                    this.responseBuilder.BAD_REQUEST(exception.getMessage(), exception)
+            )
+            .timeout(Duration.ofSeconds(10L))
+            .onErrorResume(this::genericErrorHandle);
+    }
+
+    /**
+     * 查询在线人数，以及最近 days 天（默认只统计今天）的活跃用户数。
+     * 活跃用户数是 HyperLogLog 的估计值，标准误差约 0.81%。
+     */
+    @Override
+    public Mono<ServerResponse>
+    getActiveUserStatistics(ServerRequest request)
+    {
+        long retention
+            = Long.parseLong(this.projectProperties.getOnlineDailyActiveRetention());
+
+        Mono<Integer> daysMono
+            = (request.queryParam("days").isPresent())
+                ? praseNumberRequestParam(request, "days", Integer::parseInt)
+                : Mono.just(1);
+
+        return daysMono
+            .flatMap((days) ->
+                (days < 1 || days > retention)
+                    ? Mono.error(
+                        new IllegalArgumentException(
+                            format("Parameter: [days] must between 1 and %d!", retention)))
+                    : Mono.zip(
+                        this.onlineUserRegistry.onlineCount(),
+                        this.onlineUserRegistry.activeUserCount(1),
+                        this.onlineUserRegistry.activeUserCount(days)
+                    )
+                    .flatMap((counts) -> {
+                        Map<String, Long> statistics = new LinkedHashMap<>();
+
+                        statistics.put("online",       counts.getT1());
+                        statistics.put("activeToday",  counts.getT2());
+                        statistics.put("activeInDays", counts.getT3());
+                        statistics.put("days",         days.longValue());
+
+                        return this.responseBuilder.OK(
+                            statistics,
+                            format("Query active user statistics of last %d days complete!", days),
+                            null, null
+                        );
+                    }))
+            .timeout(Duration.ofSeconds(10L))
             .onErrorResume(this::genericErrorHandle);
     }
-}
\ No newline at end of file
+}
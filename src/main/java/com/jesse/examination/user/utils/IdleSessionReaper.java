@@ -0,0 +1,32 @@
+package com.jesse.examination.user.utils;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * 空闲会话回收器接口，
+ * 定期找出长时间没有活动（也没有登出）的用户，
+ * 把他们交给存档写回器写回存档并删除 Redis 中的数据，
+ * 使 Redis 中只保留活跃用户的数据。
+ */
+public interface IdleSessionReaper
+{
+    /**
+     * 一轮回收的结果。
+     *
+     * @param users          回收的用户数
+     * @param reclaimedBytes 这些用户的数据在 Redis 中占用的内存（估计值，单位：字节）
+     */
+    record ReapResult(int users, long reclaimedBytes)
+    {
+        public static final ReapResult NONE = new ReapResult(0, 0L);
+
+        public ReapResult
+        plus(ReapResult other) {
+            return new ReapResult(this.users + other.users, this.reclaimedBytes + other.reclaimedBytes);
+        }
+    }
+
+    /** 立即执行一轮回收（后台任务也是调用本方法）。*/
+    Mono<ReapResult>
+    reapIdleUsers();
+}
@@ -0,0 +1,31 @@
+package com.jesse.examination.user.utils;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * 用户存档后台写回器接口，
+ * 定期将数据被修改过的用户（脏用户）的 Redis 数据批量写回存档，
+ * 并异步的完成用户登出时的存档与清理工作。
+ */
+public interface UserArchiveFlusher
+{
+    /**
+     * 用户登出时调用，只在 Redis 中登记登出请求后立即返回，
+     * 存档写回和 Redis 数据的删除在下一轮后台写回时完成。
+     */
+    Mono<Void>
+    enqueueLogout(String userName);
+
+    /**
+     * 用户登录时调用，撤销该用户尚未完成的登出请求（对所有节点生效）。
+     * 没有可撤销的登出请求时，等待本节点上正在执行的写回完毕。
+     *
+     * @return 是否撤销成功？（为 true 时用户的数据仍然在 Redis 中，不需要再读取存档）
+     */
+    Mono<Boolean>
+    cancelLogout(String userName);
+
+    /** 等待该用户正在执行的写回完成（没有正在执行的写回时立即完成）。*/
+    Mono<Void>
+    awaitFlush(String userName);
+}
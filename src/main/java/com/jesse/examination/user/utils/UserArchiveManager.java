@@ -1,6 +1,9 @@
 package com.jesse.examination.user.utils;
 
+import com.jesse.examination.core.file.cache.CachedFile;
 import com.jesse.examination.user.utils.dto.AvatarImageData;
+import org.springframework.core.io.buffer.DataBuffer;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 /** 用户存档管理器接口。*/
@@ -10,14 +13,24 @@ public interface UserArchiveManager
     Mono<AvatarImageData>
     getDefaultAvatarImage();
 
-    /** 获取指定用户头像数据。*/
-    Mono<AvatarImageData>
-    getAvatarImageByUserName(String userName);
+    /**
+     * 获取指定用户的头像文件（元数据与热点缓存中的内容），
+     * 命中缓存时不读取磁盘。
+     */
+    Mono<CachedFile>
+    getAvatarImageFile(String userName);
 
     /** 设置指定用户头像数据。*/
     Mono<Void>
     setUserAvatarImage(String userName, AvatarImageData avatar);
 
+    /**
+     * 以流的形式上传指定用户的头像（边接收边写入临时文件，校验通过后原子替换旧头像），
+     * 超过大小限制或者不是 PNG 图片时分别发出 FileTooLargeException、InvalidFileContentException。
+     */
+    Mono<Void>
+    uploadUserAvatarImage(String userName, Flux<DataBuffer> imageData);
+
     /**
      * 用户更改自己用户数据时，若更改了用户名，
      * 则将已经存在的旧存档名 oldUserName 修改成存档名 newUserName。
@@ -37,6 +50,13 @@ public interface UserArchiveManager
     Mono<Void>
     saveUserArchive(String userName);
 
+    /**
+     * 将用户当前在 Redis 中的数据写回存档，但不删除 Redis 中的数据
+     * （供后台写回任务在用户仍然在线时使用）。
+     */
+    Mono<Void>
+    flushUserArchive(String userName);
+
     /** 删除用户时，对应的存档、数据库记录也应该一并删除。*/
     Mono<Void>
     deleteUserArchive(String userName);
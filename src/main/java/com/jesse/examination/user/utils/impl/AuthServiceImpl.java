@@ -1,5 +1,6 @@
 package com.jesse.examination.user.utils.impl;
 
+import com.jesse.examination.core.security.hashing.PasswordHashingExecutor;
 import com.jesse.examination.user.redis.UserRedisService;
 import com.jesse.examination.user.utils.AuthService;
 import com.jesse.examination.user.utils.exception.PasswordMissmatchException;
@@ -8,7 +9,6 @@ import lombok.extern.slf4j.Slf4j;
 import org.jetbrains.annotations.NotNull;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.authentication.InsufficientAuthenticationException;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Component;
 import reactor.core.publisher.Mono;
 
@@ -24,43 +24,52 @@ final public class AuthServiceImpl implements AuthService
     @Autowired
     private UserRedisService userRedisService;
 
+    /** BCrypt 运算交给专用线程池，不占用事件循环线程。*/
     @Autowired
-    private PasswordEncoder passwordEncoder;
+    private PasswordHashingExecutor passwordHashing;
 
     public @NotNull Mono<Void>
     passwordVerifier(String rawPassword, String encodedPassword)
     {
-        return Mono.fromRunnable(
-            () -> {
-                if (!this.passwordEncoder.matches(rawPassword, encodedPassword))
-                {
-                    throw new PasswordMissmatchException(
-                        "Incorrect password! Please try again!"
-                    );
-                }
-            }
-        );
+        return this.passwordHashing
+                   .matches(rawPassword, encodedPassword)
+                   .flatMap((isMatch) ->
+                       (isMatch)
+                           ? Mono.empty()
+                           : Mono.error(
+                               new PasswordMissmatchException(
+                                   "Incorrect password! Please try again!"
+                               )
+                           )
+                   );
     }
 
     public @NotNull Mono<Void>
     verifyCodeCheck(String userName, String varifyCodeFromInput)
     {
-        return this.userRedisService.getUserVarifyCode(userName)
-            .switchIfEmpty(
-                Mono.error(
-                    new VarifyCodeMismatchException(
-                        format("Verify code of user: %s not exist or expired!", userName)
-                    )
-                )
-            )
-            .flatMap((varifyCode) ->
-                (!varifyCode.equals(varifyCodeFromInput))
-                    ? Mono.error(
-                    new VarifyCodeMismatchException("Incorrect verify code! Please try again!"))
-                    : this.userRedisService
-                    .deleteUserVerifyCode(userName)
-                    .then()
-            );
+        return this.userRedisService
+                   .consumeUserVerifyCode(userName, varifyCodeFromInput)
+                   .flatMap((result) ->
+                       switch (result)
+                       {
+                           case MATCHED -> Mono.empty();
+
+                           case MISMATCHED ->
+                               Mono.error(
+                                   new VarifyCodeMismatchException(
+                                       "Incorrect verify code! Please try again!"));
+
+                           case NOT_EXIST ->
+                               Mono.error(
+                                   new VarifyCodeMismatchException(
+                                       format("Verify code of user: %s not exist or expired!", userName)));
+
+                           case TOO_MANY_ATTEMPTS ->
+                               Mono.error(
+                                   new VarifyCodeMismatchException(
+                                       "Too many incorrect verify code attempts! Please request a new one!"));
+                       }
+                   );
     }
 
     public @NotNull Mono<Void>
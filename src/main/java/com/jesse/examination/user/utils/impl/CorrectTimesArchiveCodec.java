@@ -0,0 +1,125 @@
+package com.jesse.examination.user.utils.impl;
+
+import com.jesse.examination.core.redis.codec.PackedCounterCodec;
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+import org.jetbrains.annotations.NotNull;
+
+import java.nio.ByteBuffer;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static com.jesse.examination.core.redis.codec.PackedCounterCodec.COUNTER_BYTES;
+import static java.lang.String.format;
+
+/**
+ * <p>用户问题答对次数二进制存档（<code>correct_times.bin</code>）的编解码工具类。</p>
+ *
+ * <p>文件格式如下（所有整数均为大端）：</p>
+ *
+ * <code><pre>
+ * 偏移  长度  内容
+ * 0     4     魔数 "QCT1"
+ * 4     2     格式版本号（当前为 1）
+ * 6     2     保留，写 0
+ * 8     4     计数槽的个数 n（即最大问题 ID）
+ * 12    4n    计数数组，问题 ID 为 i 的答对次数位于 12 + (i - 1) * 4 处（u32）
+ * </pre></code>
+ *
+ * <p>
+ *     计数数组部分与 {@link PackedCounterCodec} 的布局完全相同，
+ *     读取时只需一次 NIO 读入 ByteBuffer，再顺序解码，不需要任何文本解析。
+ * </p>
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+final public class CorrectTimesArchiveCodec
+{
+    /** 文件魔数 "QCT1"。*/
+    public static final int MAGIC = 0x51435431;
+
+    /** 当前的格式版本号。*/
+    public static final short VERSION = 1;
+
+    /** 文件头长度。*/
+    public static final int HEADER_BYTES = 12;
+
+    /**
+     * 将 问题 ID -> 答对次数 的映射编码为二进制存档。
+     *
+     * @param counters 问题 ID（字符串形式）-> 答对次数
+     *
+     * @return 完整的存档文件内容
+     */
+    public static byte @NotNull []
+    encode(@NotNull Map<String, Long> counters)
+    {
+        byte[] packed = PackedCounterCodec.encode(counters);
+
+        return ByteBuffer.allocate(HEADER_BYTES + packed.length)
+                         .putInt(MAGIC)
+                         .putShort(VERSION)
+                         .putShort((short) 0)
+                         .putInt(packed.length / COUNTER_BYTES)
+                         .put(packed)
+                         .array();
+    }
+
+    /**
+     * 将二进制存档解码为按问题 ID 升序排列的 问题 ID -> 答对次数 映射。
+     *
+     * @param archive 存档文件的全部内容
+     *
+     * @throws IllegalArgumentException 魔数、版本号或长度不正确时抛出
+     *
+     * @return 问题 ID（字符串形式）-> 答对次数
+     */
+    public static @NotNull Map<String, Long>
+    decode(@NotNull ByteBuffer archive)
+    {
+        if (archive.remaining() < HEADER_BYTES) {
+            throw new IllegalArgumentException(
+                format("Archive too short! (%d bytes)", archive.remaining())
+            );
+        }
+
+        int   magic   = archive.getInt();
+        short version = archive.getShort();
+
+        archive.getShort(); // 保留字段
+
+        int slots = archive.getInt();
+
+        if (magic != MAGIC) {
+            throw new IllegalArgumentException(
+                format("Bad archive magic: 0x%08X!", magic)
+            );
+        }
+
+        if (version != VERSION) {
+            throw new IllegalArgumentException(
+                format("Unsupported archive version: %d!", version)
+            );
+        }
+
+        if (slots < 0 || (long) slots * COUNTER_BYTES != archive.remaining()) {
+            throw new IllegalArgumentException(
+                format(
+                    "Archive length mismatch! (slots: %d, body: %d bytes)",
+                    slots, archive.remaining()
+                )
+            );
+        }
+
+        Map<String, Long> counters = LinkedHashMap.newLinkedHashMap(slots);
+
+        for (int index = 0; index < slots; ++index)
+        {
+            counters.put(
+                String.valueOf(index + 1),
+                Integer.toUnsignedLong(archive.getInt())
+            );
+        }
+
+        return counters;
+    }
+}
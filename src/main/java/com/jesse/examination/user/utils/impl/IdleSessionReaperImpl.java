@@ -0,0 +1,207 @@
+package com.jesse.examination.user.utils.impl;
+
+import com.jesse.examination.core.online.OnlineUserRegistry;
+import com.jesse.examination.core.properties.ProjectProperties;
+import com.jesse.examination.core.redis.script.RedisScriptRegistry;
+import com.jesse.examination.user.utils.IdleSessionReaper;
+import com.jesse.examination.user.utils.UserArchiveFlusher;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.jetbrains.annotations.NotNull;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+
+import static com.jesse.examination.core.redis.keys.ConcatRedisKey.allKeysOfUser;
+import static com.jesse.examination.core.redis.script.ProjectRedisScript.MEMORY_USAGE;
+
+/**
+ * <p>空闲会话回收器实现。</p>
+ *
+ * <p>
+ *     每隔 <code>app.session-reaper.interval</code> 秒，
+ *     从在线用户有序集合中按批（每批 <code>app.session-reaper.batch-size</code> 个，
+ *     每轮最多 <code>app.session-reaper.max-batches</code> 批）认领
+ *     超过 <code>app.session-reaper.idle-timeout</code> 秒没有活动的用户，
+ *     认领的同时在 Redis 中为他们登记登出（加入待登出有序集合），统计他们的数据占用的内存，
+ *     由任意节点上的 {@link UserArchiveFlusher} 在下一轮后台写回时认领、写回存档，再删除 Redis 中的数据，
+ *     本节点在此之前崩溃也不会遗漏。
+ * </p>
+ *
+ * <p>
+ *     空闲超时不会短于令牌的有效期（<code>jwt.expiration</code>），
+ *     否则仍持有有效令牌的用户回来时 Redis 中已经没有他的数据（只有登录时才会读取存档）。
+ *     复用登出流程，被回收的用户在写回完成前重新登录时，同样只需撤销登出，不会丢失数据。
+ *     监控指标：<code>user.session.reaped</code>（回收的用户数）、
+ *     <code>user.session.reclaimed</code>（回收的内存估计值，单位：字节）。
+ * </p>
+ */
+@Slf4j
+@Component
+public class IdleSessionReaperImpl implements IdleSessionReaper
+{
+    @Autowired
+    private OnlineUserRegistry onlineUserRegistry;
+
+    @Autowired
+    private RedisScriptRegistry scriptRegistry;
+
+    @Autowired
+    private ProjectProperties projectProperties;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Duration idleTimeout;
+
+    private int batchSize;
+
+    private int maxBatches;
+
+    private Counter reapedUsers;
+
+    private Counter reclaimedBytes;
+
+    private Disposable reapTask;
+
+    @PostConstruct
+    void scheduleReap()
+    {
+        long idleTimeout
+            = Long.parseLong(this.projectProperties.getSessionReaperIdleTimeout());
+        long jwtExpiration
+            = Long.parseLong(this.projectProperties.getJwtExpiration());
+
+        if (idleTimeout < jwtExpiration)
+        {
+            log.warn(
+                "Session reaper idle timeout ({}s) is shorter than jwt expiration ({}s), use {}s instead.",
+                idleTimeout, jwtExpiration, jwtExpiration
+            );
+
+            idleTimeout = jwtExpiration;
+        }
+
+        this.idleTimeout = Duration.ofSeconds(Math.max(1L, idleTimeout));
+        this.batchSize
+            = Math.max(1, Integer.parseInt(this.projectProperties.getSessionReaperBatchSize()));
+        this.maxBatches
+            = Math.max(1, Integer.parseInt(this.projectProperties.getSessionReaperMaxBatches()));
+
+        this.reapedUsers
+            = Counter.builder("user.session.reaped")
+                     .description("Idle users whose redis data was archived and removed")
+                     .register(this.meterRegistry);
+        this.reclaimedBytes
+            = Counter.builder("user.session.reclaimed")
+                     .baseUnit("bytes")
+                     .description("Estimated redis memory used by reaped idle users")
+                     .register(this.meterRegistry);
+
+        long interval
+            = Long.parseLong(this.projectProperties.getSessionReaperInterval());
+
+        if (interval <= 0) { return; }
+
+        this.reapTask
+            = Flux.interval(Duration.ofSeconds(interval))
+                  .onBackpressureDrop()
+                  .concatMap((ignore) ->
+                      this.reapIdleUsers()
+                          .onErrorResume((exception) -> {
+                              log.error(
+                                  "Reap idle users failed, retry in next round. Cause: {}",
+                                  exception.getMessage()
+                              );
+
+                              return Mono.empty();
+                          }))
+                  .subscribe();
+    }
+
+    @PreDestroy
+    void cancelReap()
+    {
+        if (this.reapTask != null) {
+            this.reapTask.dispose();
+        }
+    }
+
+    @Override
+    public Mono<ReapResult>
+    reapIdleUsers()
+    {
+        return Mono.defer(() -> {
+            long idleBefore = System.currentTimeMillis() - this.idleTimeout.toMillis();
+
+            return Flux.range(0, this.maxBatches)
+                       .concatMap((ignore) -> this.reapBatch(idleBefore))
+                       .takeUntil((result) -> result.users() < this.batchSize)
+                       .reduce(ReapResult.NONE, ReapResult::plus)
+                       .doOnNext((result) -> {
+                           if (result.users() > 0)
+                           {
+                               log.info(
+                                   "Reaped {} idle users, about {} bytes of redis memory will be reclaimed.",
+                                   result.users(), result.reclaimedBytes()
+                               );
+                           }
+                       });
+        });
+    }
+
+    /** 认领一批空闲用户（认领时已在 Redis 中登记登出，由后台写回完成），统计内存。*/
+    private @NotNull Mono<ReapResult>
+    reapBatch(long idleBefore)
+    {
+        return this.onlineUserRegistry
+                   .claimIdleUsers(idleBefore, this.batchSize)
+                   .flatMap((userNames) ->
+                       (userNames.isEmpty())
+                           ? Mono.just(ReapResult.NONE)
+                           : this.measureMemory(userNames)
+                                 .flatMap((bytes) ->
+                                     Mono.fromSupplier(() -> {
+                                         this.reapedUsers.increment(userNames.size());
+                                         this.reclaimedBytes.increment(bytes);
+
+                                         return new ReapResult(userNames.size(), bytes);
+                                     }))
+                   );
+    }
+
+    /**
+     * 统计一批用户的所有键占用的内存。
+     * 统计失败不影响回收（用户已经被认领并在 Redis 中登记了登出），只是计为 0。
+     */
+    private @NotNull Mono<Long>
+    measureMemory(@NotNull List<String> userNames)
+    {
+        List<String> keys
+            = userNames.stream()
+                       .flatMap((userName) -> allKeysOfUser(userName).stream())
+                       .toList();
+
+        return this.scriptRegistry
+                   .execute(MEMORY_USAGE, keys, List.of())
+                   .next()
+                   .timeout(Duration.ofSeconds(3L))
+                   .defaultIfEmpty(0L)
+                   .onErrorResume((exception) -> {
+                       log.warn(
+                           "Measure memory of {} idle users failed. Cause: {}",
+                           userNames.size(), exception.getMessage()
+                       );
+
+                       return Mono.just(0L);
+                   });
+    }
+}
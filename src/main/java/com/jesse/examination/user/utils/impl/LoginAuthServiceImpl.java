@@ -1,11 +1,10 @@
 package com.jesse.examination.user.utils.impl;
 
-import com.jesse.examination.core.properties.ProjectProperties;
+import com.jesse.examination.core.security.hashing.exception.PasswordHashingBusyException;
+import com.jesse.examination.core.security.jwt.JwtTokenService;
 import com.jesse.examination.user.dto.UserLoginDTO;
 import com.jesse.examination.user.utils.LoginAuthService;
 import com.jesse.examination.user.utils.exception.UserLoginFailedException;
-import io.jsonwebtoken.Jwts;
-import io.jsonwebtoken.security.Keys;
 import lombok.extern.slf4j.Slf4j;
 import org.jetbrains.annotations.NotNull;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -14,11 +13,7 @@ import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
 import reactor.core.publisher.Mono;
 
-import javax.crypto.SecretKey;
 import java.time.Duration;
-import java.time.Instant;
-import java.util.*;
-import java.util.stream.Collectors;
 
 import static java.lang.String.format;
 
@@ -34,7 +29,7 @@ public class LoginAuthServiceImpl implements LoginAuthService
     private AuthServiceImpl authService;
 
     @Autowired
-    private ProjectProperties projectProperties;
+    private JwtTokenService jwtTokenService;
 
     @Override
     public Mono<String>
@@ -72,51 +67,41 @@ public class LoginAuthServiceImpl implements LoginAuthService
 
         return checkVarifyCode.then(checkPasswordAndGenerateJWTToken)
                     .timeout(Duration.ofSeconds(5L))
-                    .onErrorResume((exception) -> {
-                        log.error(
-                            "User: {} login failed! Cause: {}",
-                            userLoginDTO.getUserName(),
-                            exception.getMessage(), exception
-                        );
-
-                        return Mono.error(new UserLoginFailedException(
-                            format(
-                                "User: %s login failed! Cause: %s",
-                                userLoginDTO.getUserName(), exception.getMessage()
-                            )
-                        ));
-                    });
+                    .onErrorResume(
+                        // 密码哈希线程池繁忙不是登录数据的问题，原样抛出交给上层返回 503
+                        (exception) -> !(exception instanceof PasswordHashingBusyException),
+                        (exception) -> {
+                            log.error(
+                                "User: {} login failed! Cause: {}",
+                                userLoginDTO.getUserName(),
+                                exception.getMessage(), exception
+                            );
+
+                            return Mono.error(new UserLoginFailedException(
+                                format(
+                                    "User: %s login failed! Cause: %s",
+                                    userLoginDTO.getUserName(), exception.getMessage()
+                                )
+                            ));
+                        });
     }
 
     /**
      * 当其他验证都完毕后，
-     * 为这个登录用户生成一个 JWT。
+     * 为这个登录用户生成一个 JWT（密钥与静态声明都由 {@link JwtTokenService} 预先准备好）。
      */
     private @NotNull Mono<String>
     generateJWTToken(@NotNull UserDetails user)
     {
-        SecretKey key
-            = Keys.hmacShaKeyFor(projectProperties.getJwtSecretKey().getBytes());
-
-        long expirationSeconds =
-            Long.parseLong(this.projectProperties.getJwtExpiration());
-
-       List<String> claims =
-            user.getAuthorities()
-                .stream()
-                .map(a ->
-                    a.getAuthority().replaceFirst("^ROLE_", ""))
-                .collect(Collectors.toList());
-
-        return Mono.just(
-                Jwts.builder()
-                    .subject(user.getUsername())
-                    .claim("roles", claims)
-                    .issuedAt(Date.from(Instant.now()))
-                    .issuer("JesseZ332623")
-                    .expiration(Date.from(Instant.now().plusSeconds(expirationSeconds)))
-                    .signWith(key)
-                    .compact()
+        return Mono.fromCallable(() ->
+            this.jwtTokenService.issue(
+                user.getUsername(),
+                user.getAuthorities()
+                    .stream()
+                    .map(a ->
+                        a.getAuthority().replaceFirst("^ROLE_", ""))
+                    .toList()
+            )
         );
     }
 }
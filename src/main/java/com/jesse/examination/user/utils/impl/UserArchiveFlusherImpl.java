@@ -0,0 +1,330 @@
+package com.jesse.examination.user.utils.impl;
+
+import com.jesse.examination.core.archive.DirtyUserTracker;
+import com.jesse.examination.core.properties.ProjectProperties;
+import com.jesse.examination.core.redis.script.RedisScriptRegistry;
+import com.jesse.examination.user.utils.UserArchiveFlusher;
+import com.jesse.examination.user.utils.UserArchiveManager;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static com.jesse.examination.core.redis.keys.ConcatRedisKey.*;
+import static com.jesse.examination.core.redis.keys.ProjectRedisKey.*;
+import static com.jesse.examination.core.redis.script.ProjectRedisScript.*;
+
+/**
+ * <p>用户存档后台写回器实现。</p>
+ *
+ * <p>
+ *     每隔 <code>app.archive.flush-interval</code> 秒，在一个有界调度器上按批次并发写回：
+ * </p>
+ *
+ * <ul>
+ *     <li>
+ *         有登出请求的用户：从 Redis 的待登出用户有序集合
+ *         （{@link com.jesse.examination.core.redis.keys.ProjectRedisKey#PENDING_LOGOUTS}）中认领，
+ *         写回存档后删除他在 Redis 中的所有数据
+ *     </li>
+ *     <li>
+ *         {@link DirtyUserTracker} 中的其他脏用户：只写回存档（不删除 Redis 中的数据），
+ *         保证数据在间隔内持久化
+ *     </li>
+ * </ul>
+ *
+ * <p>
+ *     登录与登出请求之间的竞争（可能发生在不同的节点上）
+ *     通过 Redis 中的登出状态键（{@link com.jesse.examination.core.redis.keys.ConcatRedisKey#logoutStateKey}）协调，
+ *     状态的每一次转换都在 Lua 脚本中原子的完成：
+ * </p>
+ *
+ * <ul>
+ *     <li>登出：数据还在 Redis 中时置为 pending，并登记到待登出集合</li>
+ *     <li>写回任务认领：pending -> flushing，只有一个节点能认领成功，认领时持有 <code>app.archive.logout-lease</code> 秒的租约</li>
+ *     <li>登录撤销：pending -> 删除，flushing -> cancelled</li>
+ *     <li>写回结束：仍是 flushing 且写回成功才删除用户的数据；cancelled 时保留数据；写回失败退回 pending</li>
+ * </ul>
+ *
+ * <p>
+ *     所以登录时只要撤销成功，用户的数据就不会被删除；
+ *     撤销失败则说明没有待执行的登出，数据要么已经写回存档后删除，要么从未被删除。
+ *     登出请求只记录在 Redis 中，节点崩溃或停机写回超时后，租约到期的登出会被其他节点重新认领。
+ * </p>
+ */
+@Slf4j
+@Component
+public class UserArchiveFlusherImpl implements UserArchiveFlusher
+{
+    @Autowired
+    private DirtyUserTracker dirtyUserTracker;
+
+    @Autowired
+    private UserArchiveManager userArchiveManager;
+
+    @Autowired
+    private RedisScriptRegistry scriptRegistry;
+
+    @Autowired
+    private ProjectProperties projectProperties;
+
+    /** 正在执行的写回任务，用户名 -> 写回任务。*/
+    private final Map<String, Mono<Void>> inFlight = new ConcurrentHashMap<>();
+
+    /** 执行写回的有界调度器。*/
+    private Scheduler flushScheduler;
+
+    private Disposable flushTask;
+
+    private int batchSize;
+
+    private int concurrency;
+
+    /** 登出写回租约（单位：毫秒）。*/
+    private long logoutLease;
+
+    /** 写回间隔（单位：毫秒），也是写回失败的登出多久后重试。*/
+    private long flushInterval;
+
+    @PostConstruct
+    void scheduleFlush()
+    {
+        this.batchSize
+            = Math.max(1, Integer.parseInt(this.projectProperties.getArchiveFlushBatchSize()));
+        this.concurrency
+            = Math.max(1, Integer.parseInt(this.projectProperties.getArchiveFlushConcurrency()));
+        this.logoutLease
+            = Duration.ofSeconds(
+                Math.max(1L, Long.parseLong(this.projectProperties.getArchiveLogoutLease()))
+            ).toMillis();
+
+        this.flushScheduler
+            = Schedulers.newBoundedElastic(
+                this.concurrency, 1024, "archive-flush"
+            );
+
+        long interval
+            = Math.max(1L, Long.parseLong(this.projectProperties.getArchiveFlushInterval()));
+
+        this.flushInterval = Duration.ofSeconds(interval).toMillis();
+
+        this.flushTask
+            = Flux.interval(Duration.ofSeconds(interval), this.flushScheduler)
+                  .onBackpressureDrop()
+                  .concatMap((ignore) -> this.flushRound())
+                  .subscribe();
+    }
+
+    /** 停机前把所有脏数据写回，再释放调度器（没来得及完成的登出留在 Redis 中，由其他节点认领）。*/
+    @PreDestroy
+    void flushOnShutdown()
+    {
+        if (this.flushTask != null) {
+            this.flushTask.dispose();
+        }
+
+        try
+        {
+            this.flushRound().block(Duration.ofSeconds(30L));
+        }
+        catch (RuntimeException exception)
+        {
+            log.error(
+                "Flush archives on shutdown failed! Cause: {}",
+                exception.getMessage(), exception
+            );
+        }
+        finally {
+            this.flushScheduler.dispose();
+        }
+    }
+
+    @Override
+    public Mono<Void>
+    enqueueLogout(String userName)
+    {
+        return this.scriptRegistry
+                   .execute(
+                       LOGOUT_REQUEST,
+                       List.of(
+                           PENDING_LOGOUTS.toString(),
+                           logoutStateKey(userName),
+                           correctTimesHashKey(userName),
+                           packedCorrectTimesKey(userName)
+                       ),
+                       List.of(userName)
+                   )
+                   .then();
+    }
+
+    @Override
+    public Mono<Boolean>
+    cancelLogout(String userName)
+    {
+        return this.scriptRegistry
+                   .execute(
+                       LOGOUT_CANCEL,
+                       List.of(PENDING_LOGOUTS.toString(), logoutStateKey(userName)),
+                       List.of(userName)
+                   )
+                   .next()
+                   .map((cancelled) -> cancelled == 1L)
+                   .defaultIfEmpty(false)
+                   .flatMap((cancelled) ->
+                       (cancelled)
+                           ? Mono.just(true)
+                           : this.awaitFlush(userName).thenReturn(false)
+                   );
+    }
+
+    @Override
+    public Mono<Void>
+    awaitFlush(String userName)
+    {
+        return Mono.defer(() ->
+            this.inFlight.getOrDefault(userName, Mono.empty())
+                .onErrorResume((exception) -> Mono.empty())
+        );
+    }
+
+    /** 一轮写回：先完成 Redis 中登记的登出，再写回其余的脏用户。*/
+    private Mono<Void> flushRound()
+    {
+        return this.flushPendingLogouts()
+                   .onErrorResume((exception) -> {
+                       log.error(
+                           "Claim pending logouts failed, retry in next round. Cause: {}",
+                           exception.getMessage()
+                       );
+
+                       return Mono.empty();
+                   })
+                   .then(this.flushDirtyUsers());
+    }
+
+    /** 按批次认领到期的登出并写回，直到认领到的用户不足一批。*/
+    private Mono<Void> flushPendingLogouts()
+    {
+        return Mono.defer(this::claimLogouts)
+                   .flatMap((batch) ->
+                       Flux.fromIterable(batch)
+                           .flatMap((userName) -> this.flushUser(userName, true), this.concurrency)
+                           .then()
+                           .thenReturn(batch.size())
+                   )
+                   .repeat()
+                   .takeUntil((claimed) -> claimed < this.batchSize)
+                   .then();
+    }
+
+    /** 取走所有的脏用户，按批次写回（不删除 Redis 中的数据）。*/
+    private Mono<Void> flushDirtyUsers()
+    {
+        return Mono.defer(() -> {
+            List<String> dirtyUsers = this.dirtyUserTracker.drain();
+
+            if (dirtyUsers.isEmpty()) { return Mono.empty(); }
+
+            log.debug("Flush archives of {} users.", dirtyUsers.size());
+
+            return Flux.fromIterable(dirtyUsers)
+                       .buffer(this.batchSize)
+                       .concatMap((batch) ->
+                           Flux.fromIterable(batch)
+                               .flatMap((userName) -> this.flushUser(userName, false), this.concurrency)
+                               .then()
+                       )
+                       .then();
+        });
+    }
+
+    /** 从待登出集合中认领一批到期的登出（pending，或租约已到期的 flushing -> flushing）。*/
+    private Mono<List<String>> claimLogouts()
+    {
+        return this.scriptRegistry
+                   .execute(
+                       LOGOUT_CLAIM, List.of(PENDING_LOGOUTS.toString()),
+                       List.of(
+                           this.logoutLease, this.batchSize,
+                           USER_INFO_ROOT_KEY, LOGOUT_STATE
+                       )
+                   )
+                   .next()
+                   .map((result) -> {
+                       List<String> userNames = new ArrayList<>(result.size());
+
+                       for (Object userName : result) {
+                           userNames.add(String.valueOf(userName));
+                       }
+
+                       return userNames;
+                   })
+                   .defaultIfEmpty(List.of());
+    }
+
+    /**
+     * 结束认领的登出：写回成功且期间没有被撤销时删除用户的所有数据，
+     * 写回失败时退回 pending 等待下一轮重试（同一轮内不会再被认领）。
+     */
+    private Mono<Void>
+    completeLogout(String userName, boolean flushed)
+    {
+        List<String> keys = new ArrayList<>();
+
+        keys.add(PENDING_LOGOUTS.toString());
+        keys.add(logoutStateKey(userName));
+        keys.addAll(allKeysOfUser(userName));
+
+        return this.scriptRegistry
+                   .execute(
+                       LOGOUT_COMPLETE, keys,
+                       List.of(userName, (flushed) ? 1 : 0, this.flushInterval)
+                   )
+                   .then();
+    }
+
+    /** 写回单个用户（isLogout 为 true 时是已认领的登出），失败时重新标记为脏用户，下一轮重试。*/
+    private Mono<Void>
+    flushUser(String userName, boolean isLogout)
+    {
+        Mono<Void> flush
+            = (isLogout)
+                ? this.userArchiveManager
+                      .flushUserArchive(userName)
+                      .then(this.completeLogout(userName, true))
+                      // 登出写回失败时把状态退回 pending
+                      .onErrorResume((exception) ->
+                          this.completeLogout(userName, false)
+                              .then(Mono.error(exception)))
+                : this.userArchiveManager.flushUserArchive(userName);
+
+        Mono<Void> task
+            = flush.doOnError((exception) -> {
+                       log.error(
+                           "Flush archive of user: {} failed, retry in next round. Cause: {}",
+                           userName, exception.getMessage()
+                       );
+
+                       this.dirtyUserTracker.markDirty(userName);
+                   })
+                   .subscribeOn(this.flushScheduler)
+                   .doFinally((signal) -> this.inFlight.remove(userName))
+                   .cache();
+
+        this.inFlight.put(userName, task);
+
+        return task.onErrorResume((exception) -> Mono.empty());
+    }
+}
@@ -3,19 +3,29 @@ package com.jesse.examination.user.utils.impl;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jesse.examination.core.file.cache.CachedFile;
+import com.jesse.examination.core.file.cache.HotFileCache;
 import com.jesse.examination.core.file.exception.FileOperatorException;
+import com.jesse.examination.core.file.exception.FileTooLargeException;
+import com.jesse.examination.core.file.exception.InvalidFileContentException;
+import com.jesse.examination.core.file.mapped.MappedCounterStore;
 import com.jesse.examination.core.file.service.FileTransferService;
 import com.jesse.examination.core.properties.ProjectProperties;
+import com.jesse.examination.core.redis.exception.ProjectRedisOperatorException;
 import com.jesse.examination.question.repository.QuestionRepository;
 import com.jesse.examination.user.exception.UserArchiveOperatorFailedException;
 import com.jesse.examination.user.redis.UserRedisService;
+import com.jesse.examination.user.repository.UserRepository;
 import com.jesse.examination.user.utils.UserArchiveManager;
 import com.jesse.examination.user.utils.dto.AvatarImageData;
 import jakarta.annotation.PostConstruct;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.buffer.DataBuffer;
 import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
 import java.io.FileNotFoundException;
 import java.io.IOException;
@@ -23,7 +33,6 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.*;
-import java.util.stream.Collectors;
 import java.util.stream.LongStream;
 
 import static java.lang.String.format;
@@ -42,20 +51,38 @@ public class UserArchiveManagerImpl implements UserArchiveManager
     @Autowired
     private QuestionRepository questionRepository;
 
+    @Autowired
+    private UserRepository userRepository;
+
     @Autowired
     private ProjectProperties projectProperties;
 
+    /** 头像文件的热点缓存，修改或删除头像后需要使其失效。*/
+    @Autowired
+    private HotFileCache hotFileCache;
+
+    /**
+     * 问题答对次数的内存映射段文件存储（以用户 ID 为记录 ID），
+     * 只有 <code>app.archive.storage=mapped</code> 时才存在，否则为 null。
+     */
+    @Autowired(required = false)
+    private MappedCounterStore correctTimesCounterStore;
+
     private final ObjectMapper objectMapper = new ObjectMapper();
 
     private static final String AVATAR_FILE_NAME        = "avatar.png";
-    private static final String CORRECT_TIMES_FILE_NAME = "correct_times.json";
+    private static final String CORRECT_TIMES_FILE_NAME = "correct_times.bin";
+
+    /** 旧版本的 JSON 格式存档，读取到时会自动迁移成二进制存档。*/
+    private static final String LEGACY_CORRECT_TIMES_FILE_NAME = "correct_times.json";
+
+    /** PNG 文件头（魔数），上传的头像必须以此开头。*/
+    private static final byte[] PNG_SIGNATURE
+        = { (byte) 0x89, 'P', 'N', 'G', 0x0D, 0x0A, 0x1A, 0x0A };
 
     private static AvatarImageData   DEFAULT_AVATAR;
     private static Map<String, Long> DEFAULT_CORRECT_MAP;
 
-    private record
-    QuestionCorrectTimes(String question_id, Long correct_times) {}
-
     @PostConstruct
     void setDefaultData()
     {
@@ -67,7 +94,7 @@ public class UserArchiveManagerImpl implements UserArchiveManager
             Long questionAmount
                 = Objects.requireNonNull(questionRepository.count().block());
 
-            LongStream.range(0L, questionAmount)
+            LongStream.rangeClosed(1L, questionAmount)
                 .forEach((questionId) ->
                     DEFAULT_CORRECT_MAP.put(String.valueOf(questionId), 0L)
                 );
@@ -111,43 +138,30 @@ public class UserArchiveManagerImpl implements UserArchiveManager
     }
 
     @Override
-    public Mono<AvatarImageData>
-    getAvatarImageByUserName(String userName)
+    public Mono<CachedFile>
+    getAvatarImageFile(String userName)
     {
-        return Mono.fromCallable(() -> {
-            Path avatarImageLocation
-                = Path.of(this.projectProperties.getUserArchivePath())
-                      .resolve(userName)
-                      .resolve(AVATAR_FILE_NAME).normalize();
-
-            if (!Files.exists(avatarImageLocation))
-            {
-                throw new FileNotFoundException(
-                    format(
-                        "avatar image location: %s not exist!",
-                        avatarImageLocation
-                    )
-                );
-            }
-
-            System.out.println("Avatar location: " + avatarImageLocation);
-
-            return AvatarImageData.fromBytes(
-                Files.readAllBytes(avatarImageLocation)
-            );
-        }).onErrorResume((exception) -> {
-
-            log.error(
-                "Can't get avatar image by user: {}, Cause: {}",
-                userName, exception.getMessage(), exception
-            );
+        return Mono.defer(() -> this.hotFileCache.get(this.avatarImagePath(userName)))
+                   .onErrorResume((exception) -> {
+                       log.error(
+                           "Can't get avatar image by user: {}, Cause: {}",
+                           userName, exception.getMessage()
+                       );
+
+                       return Mono.error(
+                           new UserArchiveOperatorFailedException(
+                               format("Can't get avatar image by user: %s.", userName)
+                           )
+                       );
+                   });
+    }
 
-            return Mono.error(
-                new UserArchiveOperatorFailedException(
-                    format("Can't get avatar image by user: %s.", userName)
-                )
-            );
-        });
+    /** 某用户的头像文件路径。*/
+    private Path avatarImagePath(String userName)
+    {
+        return Path.of(this.projectProperties.getUserArchivePath())
+                   .resolve(userName)
+                   .resolve(AVATAR_FILE_NAME).normalize();
     }
 
     @Override
@@ -163,7 +177,9 @@ public class UserArchiveManagerImpl implements UserArchiveManager
                 .saveDataFile(
                     avatarImageLocation, AVATAR_FILE_NAME,
                     avatar.getAvatarBytes()
-                );
+                )
+                .doFinally((signal) ->
+                    this.hotFileCache.invalidate(this.avatarImagePath(userName)));
         }).onErrorResume((exception) -> {
             log.error(
                 "Can't set avatar for user: {}! Cause: {}",
@@ -178,6 +194,42 @@ public class UserArchiveManagerImpl implements UserArchiveManager
         });
     }
 
+    @Override
+    public Mono<Void>
+    uploadUserAvatarImage(String userName, Flux<DataBuffer> imageData)
+    {
+        return Mono.defer(() -> {
+            Path avatarImageLocation
+                = Path.of(this.projectProperties.getUserArchivePath())
+                .resolve(userName).normalize();
+
+            return this.fileTransferService
+                .saveDataStream(
+                    avatarImageLocation, AVATAR_FILE_NAME, imageData,
+                    Long.parseLong(this.projectProperties.getAvatarMaxUploadBytes()),
+                    PNG_SIGNATURE
+                )
+                .doFinally((signal) ->
+                    this.hotFileCache.invalidate(this.avatarImagePath(userName)));
+        }).onErrorResume(
+            (exception) ->
+                !(exception instanceof FileTooLargeException)
+             && !(exception instanceof InvalidFileContentException),
+            (exception) -> {
+                log.error(
+                    "Can't upload avatar for user: {}! Cause: {}",
+                    userName, exception.getMessage(), exception
+                );
+
+                return Mono.error(
+                    new UserArchiveOperatorFailedException(
+                        format("Can't upload avatar for user: %s!", userName)
+                    )
+                );
+            }
+        ).then();
+    }
+
     @Override
     public Mono<Void>
     renameUserArchiveDir(String oldUserName, String newUserName)
@@ -195,7 +247,10 @@ public class UserArchiveManagerImpl implements UserArchiveManager
 
             return this.fileTransferService.renameDirectory(
                 oldArchivePath, newArchivePath
-            ).onErrorResume((exception) ->
+            ).doFinally((signal) -> {
+                this.hotFileCache.invalidate(this.avatarImagePath(oldUserName));
+                this.hotFileCache.invalidate(this.avatarImagePath(newUserName));
+            }).onErrorResume((exception) ->
                 Mono.error(
                     new UserArchiveOperatorFailedException(
                         exception.getMessage()
@@ -214,13 +269,6 @@ public class UserArchiveManagerImpl implements UserArchiveManager
                 = Path.of(this.projectProperties.getUserArchivePath())
                       .resolve(newUserName).normalize();
 
-            List<QuestionCorrectTimes> quesCorrectTimes
-                = DEFAULT_CORRECT_MAP.entrySet()
-                .stream()
-                .map((entry) ->
-                    new QuestionCorrectTimes(entry.getKey(), entry.getValue())
-                ).toList();
-
             Mono<Void> setDefaultUserAvatar
                 = this.setUserAvatarImage(newUserName, DEFAULT_AVATAR)
                       .onErrorResume((exception) -> {
@@ -239,9 +287,9 @@ public class UserArchiveManagerImpl implements UserArchiveManager
 
             Mono<Void> setDefaultCorrectTimes
                 = this.fileTransferService
-                      .saveTextFile(
+                      .saveDataFile(
                           newArchivePath, CORRECT_TIMES_FILE_NAME,
-                          this.objectMapper.writeValueAsString(quesCorrectTimes)
+                          CorrectTimesArchiveCodec.encode(DEFAULT_CORRECT_MAP)
                       ).onErrorResume(
                     FileOperatorException.class,
                     (exception) -> {
@@ -257,6 +305,195 @@ public class UserArchiveManagerImpl implements UserArchiveManager
         }).flatMap(mono -> mono);
     }
 
+    /**
+     * 解析旧版本的 JSON 格式存档，
+     * 非正整数的问题 ID（早期默认存档中的 "0"）会被丢弃。
+     */
+    private Mono<Map<String, Long>>
+    readLegacyCorrectTimes(Path archivePath)
+    {
+        return this.fileTransferService
+                   .readTextFile(archivePath, LEGACY_CORRECT_TIMES_FILE_NAME)
+                   .flatMap((json) -> {
+                       try
+                       {
+                           List<Map<String, Object>> data
+                               = this.objectMapper.readValue(
+                                   json, new TypeReference<>() {}
+                               );
+
+                           Map<String, Long> correctTimes
+                               = new TreeMap<>(Comparator.comparing(Long::parseLong));
+
+                           for (Map<String, Object> item : data)
+                           {
+                               String questionId = item.get("question_id").toString();
+
+                               if (Long.parseLong(questionId) < 1L) { continue; }
+
+                               correctTimes.put(
+                                   questionId,
+                                   Long.parseLong(item.get("correct_times").toString())
+                               );
+                           }
+
+                           return Mono.just(correctTimes);
+                       }
+                       catch (JsonProcessingException | NumberFormatException exception)
+                       {
+                           log.error(
+                               "Process json failed! Cause: {}",
+                               exception.getMessage(), exception
+                           );
+
+                           return Mono.error(
+                               new UserArchiveOperatorFailedException(
+                                   format(
+                                       "Process json failed! Cause: %s",
+                                       exception.getMessage()
+                                   )
+                               )
+                           );
+                       }
+                   });
+    }
+
+    /**
+     * 将旧版本的 JSON 存档迁移成二进制存档，迁移成功后删除 JSON 存档，
+     * 迁移失败不影响本次登录，下一次登录时会重试。
+     */
+    private Mono<Void>
+    migrateLegacyArchive(Path archivePath, Map<String, Long> correctTimes)
+    {
+        return Mono.fromCallable(() -> CorrectTimesArchiveCodec.encode(correctTimes))
+                   .flatMap((archive) ->
+                       this.fileTransferService
+                           .saveDataFile(archivePath, CORRECT_TIMES_FILE_NAME, archive))
+                   .then(
+                       this.fileTransferService
+                           .deleteFile(archivePath, LEGACY_CORRECT_TIMES_FILE_NAME))
+                   .doOnSuccess((ignore) ->
+                       log.info("Migrate legacy archive {} to binary complete.", archivePath))
+                   .onErrorResume((exception) -> {
+                       log.warn(
+                           "Migrate legacy archive {} failed! Cause: {}",
+                           archivePath, exception.getMessage()
+                       );
+
+                       return Mono.empty();
+                   });
+    }
+
+    /**
+     * 读取用户的问题答对次数存档，
+     * 优先读取二进制存档，不存在时回退到旧版本的 JSON 存档并将其迁移。
+     */
+    private Mono<Map<String, Long>>
+    readCorrectTimes(Path archivePath)
+    {
+        return Mono.fromCallable(() ->
+                       Files.exists(archivePath.resolve(CORRECT_TIMES_FILE_NAME)))
+                   .subscribeOn(Schedulers.boundedElastic())
+                   .flatMap((binaryExists) ->
+                       (binaryExists)
+                           ? this.fileTransferService
+                                 .readDataFile(archivePath, CORRECT_TIMES_FILE_NAME)
+                                 .map(CorrectTimesArchiveCodec::decode)
+                                 .onErrorMap(
+                                     IllegalArgumentException.class,
+                                     (exception) ->
+                                         new UserArchiveOperatorFailedException(
+                                             format(
+                                                 "Broken archive %s! Cause: %s",
+                                                 archivePath, exception.getMessage()
+                                             )
+                                         )
+                                 )
+                           : this.readLegacyCorrectTimes(archivePath)
+                                 .flatMap((correctTimes) ->
+                                     this.migrateLegacyArchive(archivePath, correctTimes)
+                                         .thenReturn(correctTimes))
+                   );
+    }
+
+    /** 将 问题 ID -> 答对次数 映射转换成计数向量（问题 ID 为 i 的计数位于 i - 1 处）。*/
+    private static long[]
+    toCounterVector(Map<String, Long> correctTimes)
+    {
+        int slots = correctTimes.keySet().stream()
+                                .mapToInt(Integer::parseInt)
+                                .max().orElse(0);
+
+        long[] counters = new long[slots];
+
+        correctTimes.forEach((questionId, times) -> {
+            int index = Integer.parseInt(questionId) - 1;
+
+            if (index >= 0) {
+                counters[index] = (times == null) ? 0L : times;
+            }
+        });
+
+        return counters;
+    }
+
+    /** 将计数向量转换回按问题 ID 升序排列的 问题 ID -> 答对次数 映射。*/
+    private static Map<String, Long>
+    fromCounterVector(long[] counters)
+    {
+        Map<String, Long> correctTimes
+            = LinkedHashMap.newLinkedHashMap(counters.length);
+
+        for (int index = 0; index < counters.length; ++index) {
+            correctTimes.put(String.valueOf(index + 1), counters[index]);
+        }
+
+        return correctTimes;
+    }
+
+    /** 查询用户 ID（内存映射段文件以用户 ID 为记录 ID）。*/
+    private Mono<Long>
+    findUserId(String userName)
+    {
+        return this.userRepository
+                   .findIdByUserName(userName)
+                   .switchIfEmpty(
+                       Mono.error(
+                           new UserArchiveOperatorFailedException(
+                               format("User: %s not exist!", userName)
+                           )
+                       )
+                   );
+    }
+
+    /**
+     * 从内存映射段文件中读取用户的问题答对次数，
+     * 段文件中还没有该用户的记录时，回退到用户目录下的存档文件，并将其写入段文件。
+     */
+    private Mono<Map<String, Long>>
+    readMappedCorrectTimes(String userName, Path archivePath)
+    {
+        return this.findUserId(userName)
+                   .flatMap((userId) ->
+                       Mono.fromCallable(() -> this.correctTimesCounterStore.read(userId))
+                           .subscribeOn(Schedulers.boundedElastic())
+                           .flatMap((counters) ->
+                               counters.map((vector) -> Mono.just(fromCounterVector(vector)))
+                                       .orElseGet(() ->
+                                           this.readCorrectTimes(archivePath)
+                                               .flatMap((correctTimes) ->
+                                                   Mono.fromCallable(() -> {
+                                                       this.correctTimesCounterStore
+                                                           .write(userId, toCounterVector(correctTimes));
+
+                                                       return correctTimes;
+                                                   }).subscribeOn(Schedulers.boundedElastic())
+                                               )
+                                       )
+                           )
+                   );
+    }
+
     @Override
     public Mono<Void>
     readUserArchive(String userName)
@@ -269,110 +506,109 @@ public class UserArchiveManagerImpl implements UserArchiveManager
 
             log.info("Archive path: {}", archivePath);
 
-            return this.fileTransferService
-                       .readTextFile(archivePath, CORRECT_TIMES_FILE_NAME)
-                       .flatMap((json) -> {
-                            try {
-                                List<Map<String, Object>> data
-                                    = this.objectMapper.readValue(
-                                        json, new TypeReference<>() {}
-                                    );
-
-                                Map<String, Long> finalData
-                                    = data.stream().collect(
-                                        Collectors.toMap(
-                                            (item) ->
-                                                item.get("question_id").toString(),
-                                            (item) ->
-                                                Long.parseLong(item.get("correct_times").toString()))
-                                    );
-
-                                log.info("Data: will save to redis:\n{}", finalData);
-
-                                return this.userRedisService
-                                    .loadUserQuestionCorrectTimes(userName, finalData)
-                                    .filter((isSuccess) -> !isSuccess)
-                                    .flatMap((ignore) ->
-                                        Mono.error(new UserArchiveOperatorFailedException(
-                                            "Sava correct times map to redis failed!")
-                                        )
-                                    );
-                            }
-                            catch (JsonProcessingException exception)
-                            {
-                                log.error(
-                                    "Process json failed! Cause: {}",
-                                    exception.getMessage(), exception
-                                );
-
-                                return Mono.error(
-                                    new UserArchiveOperatorFailedException(
-                                        format(
-                                            "Process json failed! Cause: %s",
-                                            exception.getMessage()
-                                        )
-                                    )
-                                );
-                            }
-                       });
+            Mono<Map<String, Long>> correctTimesMono
+                = (this.correctTimesCounterStore != null)
+                    ? this.readMappedCorrectTimes(userName, archivePath)
+                    : this.readCorrectTimes(archivePath);
+
+            return correctTimesMono
+                       .flatMap((correctTimes) ->
+                           this.userRedisService
+                               .loadUserQuestionCorrectTimes(userName, correctTimes)
+                               .filter((isSuccess) -> !isSuccess)
+                               .flatMap((ignore) ->
+                                   Mono.error(new UserArchiveOperatorFailedException(
+                                       "Sava correct times map to redis failed!")
+                                   )
+                               )
+                       );
         });
     }
 
+    /**
+     * 将用户的问题答对次数写入内存映射段文件，
+     * 只有值发生变化的计数槽会被写入，脏页由段文件的定时任务写回磁盘。
+     */
+    private Mono<Void>
+    saveMappedCorrectTimes(String userName, Map<String, Long> correctTimes)
+    {
+        return this.findUserId(userName)
+                   .flatMap((userId) ->
+                       Mono.fromCallable(() ->
+                               this.correctTimesCounterStore
+                                   .write(userId, toCounterVector(correctTimes)))
+                           .subscribeOn(Schedulers.boundedElastic()))
+                   .doOnNext((changed) ->
+                       log.debug("Archive {} changed counters of user: {}.", changed, userName))
+                   .then();
+    }
+
     @Override
     public Mono<Void>
     saveUserArchive(String userName)
     {
-        return Mono.fromCallable(() -> {
-            this.userRedisService
-                .getUserQuestionCorrectTimes(userName)
-                .flatMap((correctTimeMap) ->
-                {
-                    List<QuestionCorrectTimes> questionCorrectTimes
-                        = correctTimeMap.entrySet()
-                        .stream()
-                        .map((entry) ->
-                            new QuestionCorrectTimes(entry.getKey(), entry.getValue()))
-                        .toList();
-                    try
-                    {
-                        return this.fileTransferService.saveTextFile(
-                            Path.of(this.projectProperties.getUserArchivePath()),
-                            userName,
-                            this.objectMapper.writeValueAsString(questionCorrectTimes)
-                        ).onErrorResume((exception) -> {
-                            log.error(
-                                "Save user archive failed! Cause: {}",
-                                exception.getMessage(), exception
-                            );
-
-                            return Mono.error(new UserArchiveOperatorFailedException(
-                                format(
-                                    "Save user archive failed! Cause: %s",
-                                    exception.getMessage()
-                                )
-                            ));
-                        });
-                    }
-                    catch (JsonProcessingException exception)
-                    {
-                        log.error(
-                            "Process json failed! Cause: {}",
-                            exception.getMessage(), exception
-                        );
+        return this.writeUserArchive(
+            userName, this.userRedisService.getUserQuestionCorrectTimes(userName)
+        );
+    }
 
-                        return Mono.error(
-                            new UserArchiveOperatorFailedException(
-                                format(
-                                    "Process json failed! Cause: %s",
-                                    exception.getMessage()
-                                )
-                            )
-                        );
-                    }
-                });
+    @Override
+    public Mono<Void>
+    flushUserArchive(String userName)
+    {
+        return this.writeUserArchive(
+            userName, this.userRedisService.peekUserQuestionCorrectTimes(userName)
+        );
+    }
 
-            return null;
-        }).then();
+    /**
+     * 将从 Redis 读出的问题答对次数写入存档。
+     *
+     * @param userName      用户名
+     * @param correctTimes  从 Redis 读取数据的 Mono（决定了读取后是否删除 Redis 中的数据）
+     */
+    private Mono<Void>
+    writeUserArchive(String userName, Mono<Map<String, Long>> correctTimes)
+    {
+        Path archivePath
+            = Path.of(this.projectProperties.getUserArchivePath())
+                  .resolve(userName).normalize();
+
+        return correctTimes
+                   .onErrorResume(
+                       ProjectRedisOperatorException.class,
+                       (exception) -> {
+                           // 用户没有登录（Redis 中没有数据），没有需要存档的内容
+                           log.warn(
+                               "No correct times of user: {} to archive. Cause: {}",
+                               userName, exception.getMessage()
+                           );
+
+                           return Mono.empty();
+                       })
+                   .flatMap((correctTimeMap) ->
+                       (this.correctTimesCounterStore != null)
+                           ? this.saveMappedCorrectTimes(userName, correctTimeMap)
+                           : Mono.fromCallable(() -> CorrectTimesArchiveCodec.encode(correctTimeMap))
+                                 .flatMap((archive) ->
+                                     this.fileTransferService
+                                         .saveDataFile(archivePath, CORRECT_TIMES_FILE_NAME, archive))
+                   )
+                   .onErrorResume(
+                       (exception) -> !(exception instanceof UserArchiveOperatorFailedException),
+                       (exception) -> {
+                           log.error(
+                               "Save user archive failed! Cause: {}",
+                               exception.getMessage(), exception
+                           );
+
+                           return Mono.error(new UserArchiveOperatorFailedException(
+                               format(
+                                   "Save user archive failed! Cause: %s",
+                                   exception.getMessage()
+                               )
+                           ));
+                       });
     }
 
     @Override
@@ -386,6 +622,8 @@ public class UserArchiveManagerImpl implements UserArchiveManager
                         .resolve(userName).normalize(),
                     "*"
                 )
+                .doFinally((signal) ->
+                    this.hotFileCache.invalidate(this.avatarImagePath(userName)))
                 .onErrorResume((exception) -> {
                     log.error(
                         "Delete archive for {} failed! Cause: {}",
@@ -422,6 +660,31 @@ public class UserArchiveManagerImpl implements UserArchiveManager
                     );
                 });
 
-        return archiveFilesDelete.then(deleteUserInfo);
+        Mono<Void> deleteMappedRecord
+            = (this.correctTimesCounterStore == null)
+                ? Mono.empty()
+                : this.userRepository
+                      .findIdByUserName(userName)
+                      .flatMap((userId) ->
+                          Mono.fromRunnable(() -> this.correctTimesCounterStore.delete(userId))
+                              .subscribeOn(Schedulers.boundedElastic()))
+                      .then()
+                      .onErrorResume((exception) -> {
+                          log.error(
+                              "Delete mapped archive record for {} failed! Cause: {}",
+                              userName, exception.getMessage(), exception
+                          );
+
+                          return Mono.error(
+                              new UserArchiveOperatorFailedException(
+                                  format(
+                                      "Delete archive for %s failed! Cause: %s",
+                                      userName, exception.getMessage()
+                                  )
+                              )
+                          );
+                      });
+
+        return archiveFilesDelete.then(deleteMappedRecord).then(deleteUserInfo);
     }
 }
@@ -1,19 +1,46 @@
 package com.jesse.examination.user.utils.impl;
 
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import com.jesse.examination.core.exception.ResourceNotFoundException;
-import com.jesse.examination.user.repository.RolesRepository;
+import com.jesse.examination.core.properties.ProjectProperties;
 import com.jesse.examination.user.repository.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
 import org.springframework.security.core.userdetails.ReactiveUserDetailsService;
 import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
 
+import java.time.Duration;
+import java.util.Arrays;
+
+import static com.jesse.examination.core.redis.keys.ProjectRedisKey.USER_DETAILS_INVALIDATE_CHANNEL;
 import static java.lang.String.format;
 
-/** 用户验证信息服务实现。（响应式）*/
+/**
+ * <p>用户验证信息服务实现。（响应式）</p>
+ *
+ * <p>
+ *     用户信息与角色在一次查询内查出，结果存放在一个有界的本地缓存中。
+ *     用户被修改、删除或角色发生变化时，调用 {@link #evictUser(String...)}，
+ *     通过 Redis 发布/订阅通知所有节点删除各自缓存中的该用户。
+ * </p>
+ *
+ * <p>
+ *     缓存中存放的是查询任务本身（{@link AsyncCache}），同一个用户的并发查询只访问一次数据库；
+ *     查询进行中该用户被删除时，删除的是这个任务，查出的旧数据不会再被写回缓存。
+ * </p>
+ */
 @Slf4j
 @Service
 public class UserDetailsService implements ReactiveUserDetailsService
@@ -22,7 +49,62 @@ public class UserDetailsService implements ReactiveUserDetailsService
     private UserRepository userRepository;
 
     @Autowired
-    private RolesRepository rolesRepository;
+    private ReactiveRedisTemplate<String, Object> redisTemplate;
+
+    @Autowired
+    private ProjectProperties projectProperties;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    /** 用户名 -> 用户验证信息。*/
+    private AsyncCache<String, UserDetails> userDetailsCache;
+
+    /** 失效通知的订阅。*/
+    private Disposable invalidateSubscription;
+
+    @PostConstruct
+    void createCacheAndSubscribe()
+    {
+        this.userDetailsCache
+            = Caffeine.newBuilder()
+                      .maximumSize(
+                          Long.parseLong(this.projectProperties.getUserDetailsCacheMaximumSize()))
+                      .expireAfterWrite(
+                          Duration.ofSeconds(
+                              Long.parseLong(this.projectProperties.getUserDetailsCacheExpireAfterWrite())))
+                      .recordStats()
+                      .buildAsync();
+
+        CaffeineCacheMetrics.monitor(this.meterRegistry, this.userDetailsCache, "user.details");
+
+        // 订阅断开时，先清空整个本地缓存（期间可能错过了失效通知），再重新订阅
+        this.invalidateSubscription
+            = Flux.defer(() ->
+                      this.redisTemplate
+                          .listenToChannel(USER_DETAILS_INVALIDATE_CHANNEL.toString()))
+                  .doOnError((exception) -> {
+                      log.warn(
+                          "User details invalidate subscription lost, resubscribe. Cause: {}",
+                          exception.getMessage()
+                      );
+
+                      this.userDetailsCache.synchronous().invalidateAll();
+                  })
+                  .retryWhen(Retry.backoff(Long.MAX_VALUE, Duration.ofSeconds(1L))
+                                  .maxBackoff(Duration.ofSeconds(30L)))
+                  .subscribe((message) ->
+                      this.userDetailsCache.synchronous().invalidate(String.valueOf(message.getMessage()))
+                  );
+    }
+
+    @PreDestroy
+    void cancelSubscription()
+    {
+        if (this.invalidateSubscription != null) {
+            this.invalidateSubscription.dispose();
+        }
+    }
 
     /**
      * Find the {@link UserDetails} by username.
@@ -33,7 +115,12 @@ public class UserDetailsService implements ReactiveUserDetailsService
     @Override
     public Mono<UserDetails> findByUsername(String username)
     {
-        return this.userRepository.findUserByUserName(username)
+        // 取消订阅时不取消缓存中的查询任务（可能还有其他请求在等待它）
+        return Mono.fromFuture(
+                       () -> this.userDetailsCache.get(
+                           username, (key, executor) -> this.loadUserDetails(key).toFuture()),
+                       true
+                   )
                    .switchIfEmpty(
                        Mono.error(
                            new ResourceNotFoundException(
@@ -41,23 +128,64 @@ public class UserDetailsService implements ReactiveUserDetailsService
                            )
                        )
                    )
-                   .flatMap((userEntity) ->
-                       rolesRepository.findRolesByUserId(userEntity.getUserId())
-                           .switchIfEmpty(
-                               Mono.error(
-                                   new ResourceNotFoundException(
-                                       format("Roles of user: %s not exist!", username)
-                                   )
+                   .flatMap((userDetails) -> {
+                       if (userDetails.getAuthorities().isEmpty())
+                       {
+                           return Mono.error(
+                               new ResourceNotFoundException(
+                                   format("Roles of user: %s not exist!", username)
                                )
-                           )
-                           .collectList()
-                           .map((roles) ->
-                               User.withUsername(userEntity.getUserName())
-                                   .password(userEntity.getPassword())
-                                   .disabled(false)
-                                   .authorities(roles.toArray(new String[0]))
-                                   .build()
-                           )
+                           );
+                       }
+
+                       // 返回副本，调用方擦除凭据（eraseCredentials）不会影响缓存
+                       return Mono.just(User.withUserDetails(userDetails).build());
+                   });
+    }
+
+    /**
+     * 从数据库中查出用户信息与角色，用户不存在时为空（不会被缓存）。
+     * 这里不以异常结束，缓存会把异步加载失败的异常连同堆栈记录到日志中。
+     */
+    private Mono<UserDetails>
+    loadUserDetails(String username)
+    {
+        return this.userRepository.findAuthInfoByUserName(username)
+                   .map((authInfo) ->
+                       User.withUsername(authInfo.getUserName())
+                           .password(authInfo.getPassword())
+                           .disabled(false)
+                           .authorities(authInfo.splitRoles())
+                           .build()
                    );
     }
+
+    /**
+     * 用户被修改、删除或角色发生变化后调用，
+     * 删除本节点缓存中的这些用户，并通知其他节点也删除。
+     * 发布通知失败不影响调用方（缓存条目最终也会过期）。
+     *
+     * @param userNames 用户名（们）
+     */
+    public Mono<Void>
+    evictUser(String... userNames)
+    {
+        return Flux.fromArray(userNames)
+                   .distinct()
+                   .doOnNext(this.userDetailsCache.synchronous()::invalidate)
+                   .flatMap((userName) ->
+                       this.redisTemplate
+                           .convertAndSend(USER_DETAILS_INVALIDATE_CHANNEL.toString(), userName)
+                           .timeout(Duration.ofSeconds(3L))
+                   )
+                   .onErrorResume((exception) -> {
+                       log.warn(
+                           "Publish user details invalidation of {} failed! Cause: {}",
+                           Arrays.toString(userNames), exception.getMessage()
+                       );
+
+                       return Mono.empty();
+                   })
+                   .then();
+    }
 }
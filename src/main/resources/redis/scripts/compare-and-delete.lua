@@ -0,0 +1,9 @@
+-- 键的当前值与期望值相同时才删除（释放租约时使用，不会删除其他持有者的租约）。
+-- KEYS[1]: 租约键
+-- ARGV[1]: 期望的持有者
+-- 返回 1 表示已删除，0 表示键不存在或持有者不同。
+if redis.call('GET', KEYS[1]) == ARGV[1] then
+    return redis.call('DEL', KEYS[1])
+end
+
+return 0
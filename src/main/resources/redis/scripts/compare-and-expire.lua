@@ -0,0 +1,10 @@
+-- 键的当前值与期望值相同时才重新设置过期时间（续租时使用，租约已被其他持有者拿走时不续期）。
+-- KEYS[1]: 租约键
+-- ARGV[1]: 期望的持有者
+-- ARGV[2]: 新的过期时间（单位：毫秒）
+-- 返回 1 表示已续期，0 表示键不存在或持有者不同。
+if redis.call('GET', KEYS[1]) == ARGV[1] then
+    return redis.call('PEXPIRE', KEYS[1], ARGV[2])
+end
+
+return 0
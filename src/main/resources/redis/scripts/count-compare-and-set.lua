@@ -0,0 +1,19 @@
+-- 当前值与期望值相同时才设置计数（用数据库中的计数写入缓存时使用，避免覆盖期间发生的增量）。
+-- KEYS[1]: 计数键
+-- ARGV[1]: 期望的当前值（空字符串表示期望键不存在）
+-- ARGV[2]: 新的计数
+-- ARGV[3]: 过期时间（单位：秒，不大于 0 表示不过期）
+-- 返回 1 表示已设置，0 表示当前值与期望值不同（期间计数被修改过）。
+local current = redis.call('GET', KEYS[1])
+
+if (current == false and ARGV[1] == '') or current == ARGV[1] then
+    if tonumber(ARGV[3]) > 0 then
+        redis.call('SET', KEYS[1], ARGV[2], 'EX', ARGV[3])
+    else
+        redis.call('SET', KEYS[1], ARGV[2])
+    end
+
+    return 1
+end
+
+return 0
@@ -0,0 +1,25 @@
+-- GCRA（通用信元速率算法）限流，时间取 Redis 服务器时间，各节点无需时钟同步。
+-- KEYS[1]: 限流键（存放理论到达时间 TAT，单位：毫秒）
+-- ARGV[1]: 发射间隔（周期 / 次数，单位：毫秒），ARGV[2]: 突发容忍度（单位：毫秒）
+-- 返回 {是否放行（1 / 0），需要等待的毫秒数}。
+local interval  = tonumber(ARGV[1])
+local tolerance = tonumber(ARGV[2])
+
+local time = redis.call('TIME')
+local now  = tonumber(time[1]) * 1000 + math.floor(tonumber(time[2]) / 1000)
+
+local tat = tonumber(redis.call('GET', KEYS[1]) or 0)
+
+if tat < now then
+    tat = now
+end
+
+if tat - now > tolerance then
+    return { 0, tat - tolerance - now }
+end
+
+local newTat = tat + interval
+
+redis.call('SET', KEYS[1], newTat, 'PX', newTat - now)
+
+return { 1, 0 }
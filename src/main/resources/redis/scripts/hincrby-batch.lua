@@ -0,0 +1,22 @@
+-- 将哈希表中的一批字段各 + 1（同一个字段出现几次就加几次）。
+-- KEYS[1]: 哈希表键
+-- ARGV:    字段列表
+-- 哈希表不存在时返回 nil，
+-- 否则依次返回 字段，增加后的值 ...（不存在的字段返回 -1）。
+if redis.call('EXISTS', KEYS[1]) == 0 then
+    return nil
+end
+
+local result = {}
+
+for index, field in ipairs(ARGV) do
+    result[#result + 1] = tonumber(field)
+
+    if redis.call('HEXISTS', KEYS[1], field) == 1 then
+        result[#result + 1] = redis.call('HINCRBY', KEYS[1], field, 1)
+    else
+        result[#result + 1] = -1
+    end
+end
+
+return result
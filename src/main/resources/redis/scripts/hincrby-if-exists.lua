@@ -0,0 +1,9 @@
+-- 哈希表字段存在时才执行 HINCRBY。
+-- KEYS[1]: 哈希表键
+-- ARGV[1]: 字段，ARGV[2]: 增量
+-- 返回增加后的值，字段（或整个哈希表）不存在时返回 nil。
+if redis.call('HEXISTS', KEYS[1], ARGV[1]) == 0 then
+    return nil
+end
+
+return redis.call('HINCRBY', KEYS[1], ARGV[1], ARGV[2])
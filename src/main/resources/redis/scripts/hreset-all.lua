@@ -0,0 +1,26 @@
+-- 将哈希表中所有字段的值都设为 0（字段本身保留），全部在 Redis 服务端完成。
+-- KEYS[1]: 哈希表键
+-- 返回被清零的字段数，哈希表不存在时返回 nil。
+if redis.call('EXISTS', KEYS[1]) == 0 then
+    return nil
+end
+
+local fields = redis.call('HKEYS', KEYS[1])
+local batch  = {}
+
+-- 分批 HSET，避免 unpack 的参数个数超过 Lua 栈的限制
+for index, field in ipairs(fields) do
+    batch[#batch + 1] = field
+    batch[#batch + 1] = 0
+
+    if #batch >= 1000 then
+        redis.call('HSET', KEYS[1], unpack(batch))
+        batch = {}
+    end
+end
+
+if #batch > 0 then
+    redis.call('HSET', KEYS[1], unpack(batch))
+end
+
+return #fields
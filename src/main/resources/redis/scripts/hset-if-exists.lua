@@ -0,0 +1,11 @@
+-- 哈希表字段存在时才执行 HSET。
+-- KEYS[1]: 哈希表键
+-- ARGV[1]: 字段，ARGV[2]: 新值（整数）
+-- 返回设置后的值，字段（或整个哈希表）不存在时返回 nil。
+if redis.call('HEXISTS', KEYS[1], ARGV[1]) == 0 then
+    return nil
+end
+
+redis.call('HSET', KEYS[1], ARGV[1], ARGV[2])
+
+return tonumber(ARGV[2])
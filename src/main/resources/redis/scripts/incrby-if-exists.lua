@@ -0,0 +1,9 @@
+-- 键存在时才执行 INCRBY。
+-- KEYS[1]: 计数键
+-- ARGV[1]: 增量
+-- 返回增加后的值，键不存在时返回 nil。
+if redis.call('EXISTS', KEYS[1]) == 1 then
+    return redis.call('INCRBY', KEYS[1], ARGV[1])
+end
+
+return nil
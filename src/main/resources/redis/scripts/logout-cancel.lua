@@ -0,0 +1,30 @@
+-- 用户登录：撤销尚未完成的登出。
+-- KEYS[1]: 待登出用户有序集合键
+-- KEYS[2]: 登出状态键
+-- ARGV[1]: 用户名
+-- 返回 1 表示撤销成功（用户的数据仍然在 Redis 中，不需要读取存档），0 表示没有待撤销的登出。
+--
+-- pending   -- 还没有节点认领，直接删除状态并移出待登出集合
+-- flushing  -- 某个节点正在写回，改为 cancelled，写回完成时便不会删除用户的数据
+--              （保留在待登出集合中，该节点崩溃时租约到期后由其他节点清理状态）
+-- cancelled -- 已经被撤销过（写回尚未结束）
+local state = redis.call('GET', KEYS[2])
+
+if state == 'pending' then
+    redis.call('DEL', KEYS[2])
+    redis.call('ZREM', KEYS[1], ARGV[1])
+
+    return 1
+end
+
+if state == 'flushing' then
+    redis.call('SET', KEYS[2], 'cancelled')
+
+    return 1
+end
+
+if state == 'cancelled' then
+    return 1
+end
+
+return 0
@@ -0,0 +1,34 @@
+-- 认领一批到期的待登出用户（多个节点同时执行时，每个用户只会被一个节点认领到）。
+-- KEYS[1]: 待登出用户有序集合键（分数为最早可以被认领的时间戳，单位：毫秒）
+-- ARGV[1]: 写回租约（单位：毫秒），ARGV[2]: 最多认领多少个用户
+-- ARGV[3]: 用户数据根键，ARGV[4]: 登出状态子键
+-- 返回认领到的用户名列表（写回后需要删除这些用户的数据）。
+--
+-- pending   -- 置为 flushing，租约到期前其他节点不会再认领
+-- flushing  -- 租约已到期（认领它的节点崩溃或写回超时），重新认领
+-- cancelled -- 写回期间用户重新登录，但认领的节点没有结束写回就崩溃了，只删除状态
+-- 不存在    -- 登出已经结束，移出集合
+local time = redis.call('TIME')
+local now  = tonumber(time[1]) * 1000 + math.floor(tonumber(time[2]) / 1000)
+
+local dueUsers = redis.call('ZRANGEBYSCORE', KEYS[1], '-inf', now, 'LIMIT', 0, ARGV[2])
+local claimed  = {}
+
+for _, userName in ipairs(dueUsers) do
+    local stateKey = ARGV[3] .. ':' .. userName .. ':' .. ARGV[4]
+    local state    = redis.call('GET', stateKey)
+
+    if state == 'pending' or state == 'flushing' then
+        redis.call('SET', stateKey, 'flushing')
+        redis.call('ZADD', KEYS[1], now + tonumber(ARGV[1]), userName)
+        claimed[#claimed + 1] = userName
+    else
+        if state == 'cancelled' then
+            redis.call('DEL', stateKey)
+        end
+
+        redis.call('ZREM', KEYS[1], userName)
+    end
+end
+
+return claimed
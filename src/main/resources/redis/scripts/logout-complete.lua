@@ -0,0 +1,42 @@
+-- 认领的登出写回结束后调用。
+-- KEYS[1]: 待登出用户有序集合键
+-- KEYS[2]: 登出状态键
+-- KEYS[3...]: 用户的所有数据键
+-- ARGV[1]: 用户名，ARGV[2]: 写回是否成功（1 / 0），ARGV[3]: 写回失败后多久重试（单位：毫秒）
+-- 返回 1 表示已删除用户的数据，0 表示未删除。
+--
+-- 状态仍是 flushing：成功则 UNLINK 用户的数据、删除状态并移出集合，失败则退回 pending，ARGV[3] 毫秒后重试
+-- （不立即重试，否则同一轮写回会反复认领写回失败的用户）。
+-- 状态是 cancelled：期间用户重新登录了，保留数据，删除状态并移出集合。
+-- 状态是 pending：期间用户登录后又登出了，留给下一次认领（立即可认领）。
+-- 不存在：租约到期后其他节点已经完成了这次登出。
+local state = redis.call('GET', KEYS[2])
+
+local time = redis.call('TIME')
+local now  = tonumber(time[1]) * 1000 + math.floor(tonumber(time[2]) / 1000)
+
+if state == 'flushing' then
+    if ARGV[2] == '1' then
+        redis.call('UNLINK', unpack(KEYS, 3))
+        redis.call('DEL', KEYS[2])
+        redis.call('ZREM', KEYS[1], ARGV[1])
+
+        return 1
+    end
+
+    redis.call('SET', KEYS[2], 'pending')
+    redis.call('ZADD', KEYS[1], now + tonumber(ARGV[3]), ARGV[1])
+
+    return 0
+end
+
+if state == 'cancelled' then
+    redis.call('DEL', KEYS[2])
+    redis.call('ZREM', KEYS[1], ARGV[1])
+end
+
+if state == 'pending' then
+    redis.call('ZADD', KEYS[1], now, ARGV[1])
+end
+
+return 0
@@ -0,0 +1,20 @@
+-- 用户登出：用户的数据还在 Redis 中时，把登出状态设为 pending，并登记到待登出有序集合
+-- （等待某个节点认领，写回存档后删除，登记在 Redis 中，发起登出的节点崩溃也不会丢失）。
+-- KEYS[1]: 待登出用户有序集合键
+-- KEYS[2]: 登出状态键
+-- KEYS[3...]: 用户的数据键（任意一个存在即视为数据还在 Redis 中）
+-- ARGV[1]: 用户名
+-- 返回 1 表示已登记，0 表示用户的数据不在 Redis 中（无需写回）。
+if redis.call('EXISTS', unpack(KEYS, 3)) == 0 then
+    return 0
+end
+
+local time = redis.call('TIME')
+local now  = tonumber(time[1]) * 1000 + math.floor(tonumber(time[2]) / 1000)
+
+redis.call('SET', KEYS[2], 'pending')
+
+-- NX：用户已在集合中（例如另一个节点正持有写回租约）时不提前认领时间
+redis.call('ZADD', KEYS[1], 'NX', now, ARGV[1])
+
+return 1
@@ -0,0 +1,10 @@
+-- 统计若干个键占用的内存（MEMORY USAGE 的估计值）。
+-- KEYS: 要统计的键（不存在的键计为 0）
+-- 返回总字节数。
+local total = 0
+
+for _, key in ipairs(KEYS) do
+    total = total + (redis.call('MEMORY', 'USAGE', key) or 0)
+end
+
+return total
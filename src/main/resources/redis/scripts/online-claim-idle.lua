@@ -0,0 +1,36 @@
+-- 认领长时间没有活动的用户：取出最后一次活动不晚于截止时间的用户，从在线用户有序集合中移除，
+-- 并在同一个脚本中为数据还在 Redis 中的用户登记登出（登出状态置为 pending 并加入待登出有序集合，与 logout-request.lua 一致），
+-- 认领与登记之间不会插入其他节点上的登录，登记之后即使本节点崩溃，登出也会由任意节点的写回器完成。
+-- KEYS[1]: 在线用户有序集合键
+-- KEYS[2]: 待登出用户有序集合键
+-- ARGV[1]: 截止时间戳（单位：毫秒），ARGV[2]: 最多认领多少个用户
+-- ARGV[3]: 用户数据根键，ARGV[4]: 登出状态子键，ARGV[5...]: 用户数据子键（任意一个存在即视为数据还在 Redis 中）
+-- 返回登记了登出的用户名列表（多个节点同时执行时，每个用户只会被一个节点认领到）。
+local idleUsers = redis.call('ZRANGEBYSCORE', KEYS[1], '-inf', ARGV[1], 'LIMIT', 0, ARGV[2])
+
+if #idleUsers == 0 then
+    return idleUsers
+end
+
+redis.call('ZREM', KEYS[1], unpack(idleUsers))
+
+local time = redis.call('TIME')
+local now  = tonumber(time[1]) * 1000 + math.floor(tonumber(time[2]) / 1000)
+
+local loggedOut = {}
+
+for _, userName in ipairs(idleUsers) do
+    local dataKeys = {}
+
+    for index = 5, #ARGV do
+        dataKeys[#dataKeys + 1] = ARGV[3] .. ':' .. userName .. ':' .. ARGV[index]
+    end
+
+    if redis.call('EXISTS', unpack(dataKeys)) > 0 then
+        redis.call('SET', ARGV[3] .. ':' .. userName .. ':' .. ARGV[4], 'pending')
+        redis.call('ZADD', KEYS[2], 'NX', now, userName)
+        loggedOut[#loggedOut + 1] = userName
+    end
+end
+
+return loggedOut
@@ -0,0 +1,31 @@
+-- 批量记录用户活动：写入在线用户有序集合，并加入当天的活跃用户 HyperLogLog。
+-- KEYS[1]: 在线用户有序集合键，KEYS[2]: 当天的活跃用户 HyperLogLog 键
+-- ARGV[1]: HyperLogLog 的保留时长（单位：秒），
+-- ARGV[2]: 是否加入不在集合中的用户（1：登录时；0：答题等活动，只更新仍然在线的用户，
+--          已经登出或被回收的用户不会因为迟到的活动重新出现在集合中），
+-- ARGV[3], ARGV[4], ...: 成对出现的 最后活动时间戳（单位：毫秒）、用户名
+-- 返回写入的用户数。
+local scoreMembers = {}
+local members      = {}
+
+for index = 3, #ARGV, 2 do
+    scoreMembers[#scoreMembers + 1] = ARGV[index]
+    scoreMembers[#scoreMembers + 1] = ARGV[index + 1]
+    members[#members + 1]           = ARGV[index + 1]
+end
+
+if #members == 0 then
+    return 0
+end
+
+-- GT：乱序到达的旧时间戳不会覆盖更新的活动时间
+if ARGV[2] == '1' then
+    redis.call('ZADD', KEYS[1], 'GT', unpack(scoreMembers))
+else
+    redis.call('ZADD', KEYS[1], 'XX', 'GT', unpack(scoreMembers))
+end
+
+redis.call('PFADD', KEYS[2], unpack(members))
+redis.call('EXPIRE', KEYS[2], ARGV[1])
+
+return #members
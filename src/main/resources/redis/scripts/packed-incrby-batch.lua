@@ -0,0 +1,29 @@
+-- 紧凑存储模式下，将一批问题的计数各 + 1（同一个问题出现几次就加几次）。
+-- KEYS[1]: 紧凑计数字符串键
+-- ARGV:    问题 ID 列表
+-- 键不存在时返回 nil，
+-- 否则依次返回 问题 ID，增加后的值 ...（不存在的问题返回 -1）。
+local length = redis.call('STRLEN', KEYS[1])
+
+if length == 0 then
+    return nil
+end
+
+local result = {}
+
+for index, field in ipairs(ARGV) do
+    local questionId = tonumber(field)
+
+    result[#result + 1] = questionId
+
+    if questionId >= 1 and length >= questionId * 4 then
+        result[#result + 1] = redis.call(
+            'BITFIELD', KEYS[1], 'OVERFLOW', 'SAT',
+            'INCRBY', 'u32', '#' .. (questionId - 1), 1
+        )[1]
+    else
+        result[#result + 1] = -1
+    end
+end
+
+return result
@@ -0,0 +1,14 @@
+-- 紧凑存储模式下，问题的计数槽存在时才执行 BITFIELD INCRBY。
+-- KEYS[1]: 紧凑计数字符串键（每个问题占一个 u32 大端槽，问题 ID 1 对应第 0 个槽）
+-- ARGV[1]: 问题 ID，ARGV[2]: 增量
+-- 返回增加后的值（饱和于 u32 上限），计数槽（或整个键）不存在时返回 nil。
+local questionId = tonumber(ARGV[1])
+
+if questionId < 1 or redis.call('STRLEN', KEYS[1]) < questionId * 4 then
+    return nil
+end
+
+return redis.call(
+    'BITFIELD', KEYS[1], 'OVERFLOW', 'SAT',
+    'INCRBY', 'u32', '#' .. (questionId - 1), ARGV[2]
+)[1]
@@ -0,0 +1,12 @@
+-- 紧凑存储模式下，将所有问题的计数清零（长度保持不变）。
+-- KEYS[1]: 紧凑计数字符串键
+-- 返回被清零的计数槽数，键不存在时返回 nil。
+local length = redis.call('STRLEN', KEYS[1])
+
+if length == 0 then
+    return nil
+end
+
+redis.call('SET', KEYS[1], string.rep('\0', length), 'KEEPTTL')
+
+return length / 4
@@ -0,0 +1,14 @@
+-- 紧凑存储模式下，问题的计数槽存在时才执行 BITFIELD SET。
+-- KEYS[1]: 紧凑计数字符串键
+-- ARGV[1]: 问题 ID，ARGV[2]: 新值
+-- 返回设置后的值（由 BITFIELD GET 读回，而不是原样返回 ARGV[2]），计数槽（或整个键）不存在时返回 nil。
+local questionId = tonumber(ARGV[1])
+
+if questionId < 1 or redis.call('STRLEN', KEYS[1]) < questionId * 4 then
+    return nil
+end
+
+local slot = '#' .. (questionId - 1)
+
+-- SET 返回旧值，紧随其后的 GET 返回实际写入的值
+return redis.call('BITFIELD', KEYS[1], 'SET', 'u32', slot, ARGV[2], 'GET', 'u32', slot)[2]
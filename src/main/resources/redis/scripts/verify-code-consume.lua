@@ -0,0 +1,21 @@
+-- 校验一次性验证码，匹配或输错次数过多时删除验证码，输错时保留原有的过期时间。
+-- KEYS[1]: 验证码哈希表键
+-- ARGV[1]: 用户输入的验证码，ARGV[2]: 最多允许输错的次数
+-- 返回 1 匹配，0 不匹配，-1 不存在或已过期，-2 输错次数过多。
+local code = redis.call('HGET', KEYS[1], 'code')
+
+if not code then
+    return -1
+end
+
+if code == ARGV[1] then
+    redis.call('DEL', KEYS[1])
+    return 1
+end
+
+if redis.call('HINCRBY', KEYS[1], 'attempts', 1) >= tonumber(ARGV[2]) then
+    redis.call('DEL', KEYS[1])
+    return -2
+end
+
+return 0
@@ -0,0 +1,9 @@
+-- 保存验证码（覆盖旧的验证码，重新计算输错次数与过期时间）。
+-- KEYS[1]: 验证码哈希表键
+-- ARGV[1]: 验证码，ARGV[2]: 有效期（单位：秒）
+-- 返回 1。
+redis.call('DEL', KEYS[1])
+redis.call('HSET', KEYS[1], 'code', ARGV[1], 'attempts', 0)
+redis.call('EXPIRE', KEYS[1], ARGV[2])
+
+return 1
@@ -0,0 +1,105 @@
+package com.jesse.examination.core;
+
+import com.jesse.examination.core.security.jwt.CachingReactiveJwtDecoder;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.oauth2.jwt.BadJwtException;
+import org.springframework.security.oauth2.jwt.Jwt;
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/** 已验证 JWT 缓存解码器测试类（不依赖 Spring 上下文）。*/
+class CachingReactiveJwtDecoderTest
+{
+    private static Jwt jwtOf(String token, Instant expiresAt)
+    {
+        return Jwt.withTokenValue(token)
+                  .header("alg", "HS256")
+                  .subject("tester")
+                  .issuedAt(Instant.now().minusSeconds(10L))
+                  .expiresAt(expiresAt)
+                  .build();
+    }
+
+    @Test
+    public void TestCacheHitSkipsDelegate()
+    {
+        AtomicInteger decodeCalls    = new AtomicInteger();
+        AtomicInteger authorityCalls = new AtomicInteger();
+
+        CachingReactiveJwtDecoder decoder
+            = new CachingReactiveJwtDecoder(
+                (token) -> {
+                    decodeCalls.incrementAndGet();
+
+                    return Mono.just(jwtOf(token, Instant.now().plusSeconds(3600L)));
+                },
+                (jwt) -> {
+                    authorityCalls.incrementAndGet();
+
+                    return List.<GrantedAuthority>of(new SimpleGrantedAuthority("ROLE_USER"));
+                },
+                16L
+            );
+
+        for (int index = 0; index < 5; ++index)
+        {
+            Jwt jwt = decoder.decode("token-a").block();
+
+            Assertions.assertNotNull(jwt);
+
+            Collection<GrantedAuthority> authorities = decoder.authoritiesOf(jwt);
+
+            Assertions.assertEquals(
+                "ROLE_USER", authorities.iterator().next().getAuthority()
+            );
+        }
+
+        Assertions.assertEquals(1, decodeCalls.get());
+        Assertions.assertEquals(1, authorityCalls.get());
+
+        decoder.decode("token-b").block();
+
+        Assertions.assertEquals(2, decodeCalls.get());
+    }
+
+    @Test
+    public void TestExpiredAndInvalidTokensNotCached()
+    {
+        AtomicInteger decodeCalls = new AtomicInteger();
+
+        CachingReactiveJwtDecoder decoder
+            = new CachingReactiveJwtDecoder(
+                (token) -> {
+                    decodeCalls.incrementAndGet();
+
+                    return (token.equals("bad"))
+                        ? Mono.error(new BadJwtException("bad token"))
+                        : Mono.just(jwtOf(token, Instant.now().minusSeconds(1L)));
+                },
+                (jwt) -> List.of(),
+                16L
+            );
+
+        decoder.decode("expired").block();
+        decoder.decode("expired").block();
+
+        Assertions.assertEquals(2, decodeCalls.get());
+
+        for (int index = 0; index < 2; ++index)
+        {
+            Assertions.assertThrows(
+                BadJwtException.class,
+                () -> decoder.decode("bad").block()
+            );
+        }
+
+        Assertions.assertEquals(4, decodeCalls.get());
+    }
+}
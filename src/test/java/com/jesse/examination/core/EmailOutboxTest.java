@@ -0,0 +1,93 @@
+package com.jesse.examination.core;
+
+import com.jesse.examination.core.email.dto.EmailContent;
+import com.jesse.examination.core.email.outbox.EmailOutboxRecord;
+import com.jesse.examination.core.email.outbox.ProviderRateLimiter;
+import com.jesse.examination.core.redis.script.RedisScriptRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static com.jesse.examination.core.redis.keys.ConcatRedisKey.rateLimitKey;
+import static com.jesse.examination.core.redis.script.ProjectRedisScript.GCRA_RATE_LIMIT;
+
+/** 邮件发件箱测试类（不依赖 Spring 上下文）。*/
+class EmailOutboxTest
+{
+    @Test
+    public void TestRecordRoundTrip()
+    {
+        EmailContent content
+            = EmailContent.fromVarify("Jesse", "jesse@example.com", "123456", Duration.ofMinutes(5L));
+
+        Map<String, String> fields = EmailOutboxRecord.toFields(content, 1_700_000_000_000L);
+
+        Assertions.assertFalse(fields.containsKey(EmailOutboxRecord.ATTACHMENT_PATH));
+        Assertions.assertEquals(1_700_000_000_000L, EmailOutboxRecord.enqueuedAt(fields));
+        Assertions.assertEquals(content, EmailOutboxRecord.fromFields(fields));
+
+        EmailContent withAttachment
+            = EmailContent.of("jesse@example.com", "成绩报告", "见附件", "/tmp/report.pdf");
+
+        Assertions.assertEquals(
+            withAttachment,
+            EmailOutboxRecord.fromFields(EmailOutboxRecord.toFields(withAttachment, 0L))
+        );
+    }
+
+    @Test
+    public void TestProviderRateLimiter()
+    {
+        // 每秒 10 封，即每 100 ms 一封
+        ProviderRateLimiter limiter = new ProviderRateLimiter(10.0);
+
+        long now = 0L;
+
+        Assertions.assertEquals(Duration.ZERO, limiter.reserve("smtp.qq.com", now));
+        Assertions.assertEquals(Duration.ofMillis(100L), limiter.reserve("smtp.qq.com", now));
+        Assertions.assertEquals(Duration.ofMillis(200L), limiter.reserve("smtp.qq.com", now));
+
+        // 不同服务商互不影响
+        Assertions.assertEquals(Duration.ZERO, limiter.reserve("smtp.gmail.com", now));
+
+        // 空闲一段时间后不会积攒额度
+        long later = Duration.ofSeconds(10L).toNanos();
+
+        Assertions.assertEquals(Duration.ZERO, limiter.reserve("smtp.qq.com", later));
+        Assertions.assertEquals(Duration.ofMillis(100L), limiter.reserve("smtp.qq.com", later));
+    }
+
+    @Test
+    public void TestProviderRateLimiterCluster()
+    {
+        RedisScriptRegistry scriptRegistry = Mockito.mock(RedisScriptRegistry.class);
+
+        // 第一次被集群额度拒绝（需等待 50 ms），重试时放行
+        Mockito.when(scriptRegistry.execute(ArgumentMatchers.eq(GCRA_RATE_LIMIT), ArgumentMatchers.anyList(), ArgumentMatchers.anyList()))
+               .thenReturn(Flux.just(List.of(0L, 50L)), Flux.just(List.of(1L, 0L)));
+
+        ProviderRateLimiter limiter = new ProviderRateLimiter(10.0, scriptRegistry);
+
+        long start = System.nanoTime();
+
+        limiter.acquire("jesse@qq.com").block();
+
+        Assertions.assertTrue(System.nanoTime() - start >= Duration.ofMillis(50L).toNanos());
+
+        // 整个集群以发件人邮箱共用一份额度，间隔 100 ms，没有突发容忍
+        Mockito.verify(scriptRegistry, Mockito.times(2))
+               .execute(GCRA_RATE_LIMIT, List.of(rateLimitKey("email-provider", "jesse@qq.com")), List.of(100L, 0L));
+
+        // Redis 不可用时只按本地时间槽限流
+        Mockito.when(scriptRegistry.execute(ArgumentMatchers.eq(GCRA_RATE_LIMIT), ArgumentMatchers.anyList(), ArgumentMatchers.anyList()))
+               .thenReturn(Flux.error(new IllegalStateException("Redis unavailable")));
+
+        Assertions.assertDoesNotThrow(() -> limiter.acquire("peter@qq.com").block());
+    }
+}
@@ -0,0 +1,92 @@
+package com.jesse.examination.core;
+
+import com.jesse.examination.core.email.entity.EmailAuthTable;
+import com.jesse.examination.core.email.exception.EmailException;
+import com.jesse.examination.core.email.publisher.EmailPublisher;
+import com.jesse.examination.core.email.publisher.EmailPublisherRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+/** 发件人账号登记处测试类（不依赖 Spring 上下文）。*/
+class EmailPublisherRegistryTest
+{
+    private static List<EmailAuthTable>
+    rows(String... addresses)
+    {
+        return java.util.stream.IntStream
+                   .range(0, addresses.length)
+                   .mapToObj((index) ->
+                       new EmailAuthTable(index + 1, addresses[index], "code-" + index))
+                   .toList();
+    }
+
+    @Test
+    public void TestEmptyRegistry()
+    {
+        EmailPublisherRegistry registry = new EmailPublisherRegistry();
+
+        EmailException exception
+            = Assertions.assertThrows(EmailException.class, registry::select);
+
+        Assertions.assertEquals(
+            EmailException.ErrorType.CONFIG_MISSING, exception.getErrorType());
+    }
+
+    @Test
+    public void TestRoundRobinWhenIdle()
+    {
+        EmailPublisherRegistry registry = new EmailPublisherRegistry();
+
+        registry.replacePublishers(rows("a@example.com", "b@example.com", "c@example.com"));
+
+        for (int index = 0; index < 6; ++index)
+        {
+            EmailPublisher publisher = registry.select();
+
+            Assertions.assertEquals(
+                List.of("a@example.com", "b@example.com", "c@example.com").get(index % 3),
+                publisher.getAddress()
+            );
+
+            publisher.release();
+        }
+    }
+
+    @Test
+    public void TestLeastLoaded()
+    {
+        EmailPublisherRegistry registry = new EmailPublisherRegistry();
+
+        registry.replacePublishers(rows("a@example.com", "b@example.com"));
+
+        // 不释放：第三封邮件交给正在发送数更少的账号
+        EmailPublisher first  = registry.select();
+        EmailPublisher second = registry.select();
+
+        first.release();
+
+        Assertions.assertEquals(first.getAddress(), registry.select().getAddress());
+        Assertions.assertEquals(1, second.getInFlight());
+    }
+
+    @Test
+    public void TestRefreshKeepsInFlight()
+    {
+        EmailPublisherRegistry registry = new EmailPublisherRegistry();
+
+        registry.replacePublishers(rows("a@example.com"));
+
+        EmailPublisher sending = registry.select();
+
+        registry.replacePublishers(rows("a@example.com", "b@example.com"));
+
+        // a 仍有一封正在发送，新邮件交给 b
+        Assertions.assertEquals("b@example.com", registry.select().getAddress());
+
+        sending.release();
+
+        Assertions.assertEquals(0, registry.getPublishers().get(0).getInFlight());
+    }
+}
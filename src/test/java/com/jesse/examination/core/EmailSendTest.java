@@ -1,7 +1,7 @@
 package com.jesse.examination.core;
 
 import com.jesse.examination.core.email.dto.EmailContent;
-import com.jesse.examination.core.email.service.EmailAuthQueryService;
+import com.jesse.examination.core.email.publisher.EmailPublisherRegistry;
 import com.jesse.examination.core.email.service.EmailSenderInterface;
 import com.jesse.examination.core.email.utils.VerifyCodeGenerator;
 import com.jesse.examination.core.properties.ProjectProperties;
@@ -11,14 +11,11 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.boot.test.context.SpringBootTest;
-import org.springframework.data.redis.core.ReactiveRedisTemplate;
 import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
 
 import java.time.Duration;
 
-import static com.jesse.examination.core.redis.keys.ProjectRedisKey.ENTERPRISE_EMAIL_ADDRESS;
-import static com.jesse.examination.core.redis.keys.ProjectRedisKey.SERVICE_AUTH_CODE;
 import static com.jesse.examination.core.logmakers.LogMakers.EMAIL_SENDER;
 
 /** 邮件验证码发送测试类。*/
@@ -27,10 +24,7 @@ import static com.jesse.examination.core.logmakers.LogMakers.EMAIL_SENDER;
 public class EmailSendTest
 {
     @Autowired
-    private EmailAuthQueryService emailAuthQueryService;
-
-    @Autowired
-    private ReactiveRedisTemplate<String, Object> redisTemplate;
+    private EmailPublisherRegistry publisherRegistry;
 
     @Autowired
     @Qualifier(value = "createEmailSender")
@@ -39,33 +33,12 @@ public class EmailSendTest
     @Autowired
     private ProjectProperties projectProperties;
 
-    /**
-     * 在所以依赖注入都完成后，
-     * 将邮箱发送人的邮箱号和服务授权码读出，按指定 key 存入 Redis。
-     */
+    /** 在所以依赖注入都完成后，从数据库读取发件人账号。*/
     @PostConstruct
     private void readEmailPublisherInfo()
     {
-        Mono<Boolean> readPublisherInfo
-            = this.emailAuthQueryService
-            .findEmailPublisherInfoById(1)
-            .flatMap(
-                (publisherInfo) ->
-                    this.redisTemplate.opsForValue()
-                        .set(ENTERPRISE_EMAIL_ADDRESS.toString(), publisherInfo.getEmail())
-                        .then(
-                            this.redisTemplate.opsForValue()
-                                .set(SERVICE_AUTH_CODE.toString(), publisherInfo.getEmailAuthCode())
-                        )
-            ).doOnSuccess((isSuccess) ->
-                log.info(
-                    "Read email publisher info to redis complete! Result: {}",
-                    isSuccess
-                )
-            );
-
-        StepVerifier.create(readPublisherInfo)
-                    .expectNext(true)
+        StepVerifier.create(this.publisherRegistry.reload())
+                    .expectNextMatches((count) -> count > 0)
                     .verifyComplete();
     }
 
@@ -0,0 +1,200 @@
+package com.jesse.examination.core;
+
+import java.io.*;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * <p>进程内的 SMTP 服务器替身，只实现了 javax.mail 发信所需的最小命令集（明文，AUTH PLAIN）。</p>
+ *
+ * <p>用于在不连接真实邮件服务器的情况下测试 SMTP 连接池的复用、断线重连与登录失败。</p>
+ */
+public class FakeSmtpServer implements Closeable
+{
+    private final String userName;
+    private final String password;
+
+    private final ServerSocket serverSocket;
+
+    private final ExecutorService workers = Executors.newCachedThreadPool((runnable) -> {
+        Thread thread = new Thread(runnable, "fake-smtp");
+        thread.setDaemon(true);
+
+        return thread;
+    });
+
+    /** 当前打开着的客户端连接。*/
+    private final Set<Socket> openSockets = ConcurrentHashMap.newKeySet();
+
+    /** 累计接受的连接数。*/
+    private final AtomicInteger connectionCount = new AtomicInteger(0);
+
+    /** 累计收到的邮件数。*/
+    private final AtomicInteger messageCount = new AtomicInteger(0);
+
+    public FakeSmtpServer(String userName, String password) throws IOException
+    {
+        this.userName     = userName;
+        this.password     = password;
+        this.serverSocket = new ServerSocket(0, 64, InetAddress.getLoopbackAddress());
+
+        this.workers.execute(this::acceptLoop);
+    }
+
+    public int getPort() {
+        return this.serverSocket.getLocalPort();
+    }
+
+    public int getConnectionCount() {
+        return this.connectionCount.get();
+    }
+
+    public int getMessageCount() {
+        return this.messageCount.get();
+    }
+
+    /** 连接到本服务器所需的邮件配置属性。*/
+    public Properties mailProperties()
+    {
+        Properties properties = new Properties();
+
+        properties.put("mail.smtp.auth", "true");
+        properties.put("mail.smtp.host", "127.0.0.1");
+        properties.put("mail.smtp.port", String.valueOf(this.getPort()));
+        properties.put("mail.smtp.localhost", "localhost");
+        properties.put("mail.smtp.connectiontimeout", "2000");
+        properties.put("mail.smtp.timeout", "2000");
+
+        return properties;
+    }
+
+    /** 模拟服务器单方面断开所有连接（例如空闲超时）。*/
+    public void dropAllConnections()
+    {
+        for (Socket socket : this.openSockets)
+        {
+            try {
+                socket.close();
+            }
+            catch (IOException ignored) {}
+        }
+
+        this.openSockets.clear();
+    }
+
+    private void acceptLoop()
+    {
+        while (!this.serverSocket.isClosed())
+        {
+            try
+            {
+                Socket socket = this.serverSocket.accept();
+
+                this.connectionCount.incrementAndGet();
+                this.openSockets.add(socket);
+                this.workers.execute(() -> this.serve(socket));
+            }
+            catch (IOException exception) {
+                return;
+            }
+        }
+    }
+
+    private void serve(Socket socket)
+    {
+        try (socket)
+        {
+            BufferedReader reader
+                = new BufferedReader(
+                    new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+            Writer writer
+                = new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.US_ASCII);
+
+            reply(writer, "220 fake ESMTP ready");
+
+            String line;
+
+            while ((line = reader.readLine()) != null)
+            {
+                String command = line.toUpperCase();
+
+                if (command.startsWith("EHLO")) {
+                    reply(writer, "250-fake\r\n250-AUTH PLAIN\r\n250 OK");
+                }
+                else if (command.startsWith("AUTH PLAIN"))
+                {
+                    String response = line.substring("AUTH PLAIN".length()).trim();
+
+                    if (response.isEmpty())
+                    {
+                        reply(writer, "334 ");
+                        response = reader.readLine();
+                    }
+
+                    // authzid \0 authcid \0 password
+                    String[] fields
+                        = new String(Base64.getDecoder().decode(response), StandardCharsets.UTF_8)
+                              .split("\0", -1);
+
+                    boolean accepted
+                        = fields.length == 3
+                       && fields[1].equals(this.userName)
+                       && fields[2].equals(this.password);
+
+                    reply(writer, accepted ? "235 2.7.0 OK" : "535 5.7.8 Authentication failed");
+                }
+                else if (command.startsWith("DATA"))
+                {
+                    reply(writer, "354 End data with <CR><LF>.<CR><LF>");
+
+                    while ((line = reader.readLine()) != null && !line.equals(".")) {}
+
+                    this.messageCount.incrementAndGet();
+                    reply(writer, "250 OK queued");
+                }
+                else if (command.startsWith("QUIT"))
+                {
+                    reply(writer, "221 Bye");
+                    break;
+                }
+                else if (command.startsWith("MAIL") || command.startsWith("RCPT")
+                         || command.startsWith("NOOP") || command.startsWith("RSET")
+                         || command.startsWith("HELO")) {
+                    reply(writer, "250 OK");
+                }
+                else {
+                    reply(writer, "502 Command not implemented");
+                }
+            }
+        }
+        catch (IOException ignored) {}
+        finally {
+            this.openSockets.remove(socket);
+        }
+    }
+
+    private static void
+    reply(Writer writer, String response) throws IOException
+    {
+        writer.write(response);
+        writer.write("\r\n");
+        writer.flush();
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+        this.serverSocket.close();
+        this.dropAllConnections();
+        this.workers.shutdownNow();
+    }
+}
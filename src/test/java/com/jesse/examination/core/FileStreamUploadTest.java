@@ -0,0 +1,122 @@
+package com.jesse.examination.core;
+
+import com.jesse.examination.core.file.exception.FileTooLargeException;
+import com.jesse.examination.core.file.exception.InvalidFileContentException;
+import com.jesse.examination.core.file.service.FileTransferService;
+import com.jesse.examination.core.file.service.impl.FileTransferServiceImpl;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import reactor.core.publisher.Flux;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.stream.Stream;
+
+/** 文件流式上传测试类（不依赖 Spring 上下文）。*/
+class FileStreamUploadTest
+{
+    private static final byte[] HEADER = { (byte) 0x89, 'P', 'N', 'G' };
+
+    @TempDir
+    Path tempDir;
+
+    private final FileTransferService fileTransferService = new FileTransferServiceImpl();
+
+    /** 把数据按 chunkSize 切成若干数据块，模拟分块到达的请求体。*/
+    private static Flux<DataBuffer>
+    chunks(byte[] data, int chunkSize)
+    {
+        return Flux.range(0, (data.length + chunkSize - 1) / chunkSize)
+                   .map((index) ->
+                       DefaultDataBufferFactory.sharedInstance.wrap(
+                           Arrays.copyOfRange(
+                               data, index * chunkSize,
+                               Math.min(data.length, (index + 1) * chunkSize))));
+    }
+
+    private static byte[]
+    fileData(int length)
+    {
+        byte[] data = new byte[length];
+
+        for (int index = 0; index < length; ++index) {
+            data[index] = (byte) index;
+        }
+
+        System.arraycopy(HEADER, 0, data, 0, HEADER.length);
+
+        return data;
+    }
+
+    /** 目录下除目标文件外没有残留的临时文件。*/
+    private void assertNoTempFile() throws IOException
+    {
+        try (Stream<Path> files = Files.list(this.tempDir))
+        {
+            Assertions.assertTrue(
+                files.noneMatch((file) -> file.getFileName().toString().endsWith(".uploading")));
+        }
+    }
+
+    @Test
+    public void TestSaveMultiChunkStream() throws IOException
+    {
+        byte[] data = fileData(10000);
+
+        Long written
+            = this.fileTransferService
+                  .saveDataStream(this.tempDir, "avatar.png", chunks(data, 1024), 20000L, HEADER)
+                  .block();
+
+        Assertions.assertEquals(10000L, written);
+        Assertions.assertArrayEquals(data, Files.readAllBytes(this.tempDir.resolve("avatar.png")));
+        this.assertNoTempFile();
+    }
+
+    @Test
+    public void TestRejectTooLargeStream() throws IOException
+    {
+        Path target = Files.write(this.tempDir.resolve("avatar.png"), new byte[] { 1, 2, 3 });
+
+        Assertions.assertThrows(
+            FileTooLargeException.class,
+            () -> this.fileTransferService
+                      .saveDataStream(this.tempDir, "avatar.png", chunks(fileData(5000), 1024), 4096L, HEADER)
+                      .block()
+        );
+
+        // 旧文件保持不变
+        Assertions.assertArrayEquals(new byte[] { 1, 2, 3 }, Files.readAllBytes(target));
+        this.assertNoTempFile();
+    }
+
+    @Test
+    public void TestRejectInvalidHeader() throws IOException
+    {
+        byte[] data = fileData(2048);
+
+        data[1] = 'J';
+
+        Assertions.assertThrows(
+            InvalidFileContentException.class,
+            () -> this.fileTransferService
+                      .saveDataStream(this.tempDir, "avatar.png", chunks(data, 512), 4096L, HEADER)
+                      .block()
+        );
+
+        Assertions.assertThrows(
+            InvalidFileContentException.class,
+            () -> this.fileTransferService
+                      .saveDataStream(this.tempDir, "avatar.png", Flux.empty(), 4096L, HEADER)
+                      .block()
+        );
+
+        Assertions.assertFalse(Files.exists(this.tempDir.resolve("avatar.png")));
+        this.assertNoTempFile();
+    }
+}
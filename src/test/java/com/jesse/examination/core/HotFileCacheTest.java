@@ -0,0 +1,187 @@
+package com.jesse.examination.core;
+
+import com.jesse.examination.core.file.cache.CachedFile;
+import com.jesse.examination.core.file.cache.HotFileCache;
+import com.jesse.examination.core.properties.ProjectProperties;
+import com.jesse.examination.user.service.impl.UserServiceImpl;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mockito;
+import org.springframework.http.codec.HttpMessageWriter;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.reactive.function.server.HandlerStrategies;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import org.springframework.web.reactive.result.view.ViewResolver;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Objects;
+
+/** 热点文件缓存测试类（不依赖 Spring 上下文）。*/
+class HotFileCacheTest
+{
+    @TempDir
+    Path tempDir;
+
+    private static HotFileCache
+    fileCache(String maximumBytes, String maxFileBytes)
+    {
+        ProjectProperties properties = Mockito.mock(ProjectProperties.class);
+
+        Mockito.when(properties.getFileCacheMaximumBytes()).thenReturn(maximumBytes);
+        Mockito.when(properties.getFileCacheMaxFileBytes()).thenReturn(maxFileBytes);
+        Mockito.when(properties.getFileCacheExpireAfterWrite()).thenReturn("600");
+
+        HotFileCache cache = new HotFileCache();
+
+        ReflectionTestUtils.setField(cache, "projectProperties", properties);
+        ReflectionTestUtils.invokeMethod(cache, "createCache");
+
+        return cache;
+    }
+
+    @Test
+    public void TestLoadIntoDirectMemory() throws IOException
+    {
+        Path file = Files.write(this.tempDir.resolve("avatar.png"), new byte[] { 1, 2, 3, 4, 5 });
+
+        HotFileCache cache = fileCache("1048576", "1024");
+
+        CachedFile first = cache.get(file).block();
+
+        Assertions.assertNotNull(first);
+        Assertions.assertEquals(5L, first.length());
+        Assertions.assertNotNull(first.content());
+        Assertions.assertTrue(first.content().isDirect());
+
+        // 命中缓存时返回同一个条目
+        Assertions.assertSame(first, cache.get(file).block());
+
+        ByteBuf content = first.retainedContent();
+
+        Assertions.assertNotNull(content);
+        Assertions.assertArrayEquals(new byte[] { 1, 2, 3, 4, 5 }, ByteBufUtil.getBytes(content));
+
+        // 淘汰后正在发送的副本仍然可用，释放副本后内存才归还
+        cache.invalidate(file);
+
+        Assertions.assertEquals(1, content.refCnt());
+        content.release();
+        Assertions.assertEquals(0, first.content().refCnt());
+        Assertions.assertNull(first.retainedContent());
+    }
+
+    @Test
+    public void TestLargeFileKeepsMetadataOnly() throws IOException
+    {
+        Path file = Files.write(this.tempDir.resolve("large.png"), new byte[2048]);
+
+        CachedFile cached = fileCache("1048576", "1024").get(file).block();
+
+        Assertions.assertNotNull(cached);
+        Assertions.assertEquals(2048L, cached.length());
+        Assertions.assertNull(cached.content());
+        Assertions.assertNull(cached.retainedContent());
+    }
+
+    @Test
+    public void TestETagChangesAfterInvalidate() throws IOException
+    {
+        Path file = Files.write(this.tempDir.resolve("avatar.png"), new byte[] { 1 });
+
+        HotFileCache cache = fileCache("1048576", "1024");
+
+        CachedFile before = cache.get(file).block();
+
+        Files.write(file, new byte[] { 1, 2 });
+        cache.invalidate(file);
+
+        CachedFile after = cache.get(file).block();
+
+        Assertions.assertNotNull(before);
+        Assertions.assertNotNull(after);
+        Assertions.assertNotEquals(before.eTag(), after.eTag());
+        Assertions.assertEquals(2L, after.length());
+    }
+
+    @Test
+    public void TestMissingFile()
+    {
+        HotFileCache cache = fileCache("1048576", "1024");
+
+        Assertions.assertThrows(
+            Exception.class, () -> cache.get(this.tempDir.resolve("missing.png")).block());
+    }
+
+    /** 把头像响应写入一个模拟的响应，返回响应体。*/
+    private static byte[]
+    writeAvatarResponse(UserServiceImpl userService, CachedFile avatar)
+    {
+        Mono<ServerResponse> response
+            = ReflectionTestUtils.invokeMethod(userService, "avatarResponse", avatar);
+
+        Assertions.assertNotNull(response);
+
+        MockServerWebExchange exchange
+            = MockServerWebExchange.from(MockServerHttpRequest.get("/avatar"));
+
+        ServerResponse.Context context = new ServerResponse.Context()
+        {
+            @Override
+            public @NotNull List<HttpMessageWriter<?>> messageWriters() {
+                return HandlerStrategies.withDefaults().messageWriters();
+            }
+
+            @Override
+            public @NotNull List<ViewResolver> viewResolvers() {
+                return List.of();
+            }
+        };
+
+        Objects.requireNonNull(response.block()).writeTo(exchange, context).block();
+
+        return Objects.requireNonNull(
+            exchange.getResponse().getBodyAsString().block()).getBytes(StandardCharsets.ISO_8859_1);
+    }
+
+    @Test
+    public void TestAvatarContentRetainedLazily() throws IOException
+    {
+        byte[] bytes = new byte[] { 1, 2, 3, 4, 5 };
+        Path   file  = Files.write(this.tempDir.resolve("avatar.png"), bytes);
+
+        CachedFile avatar = fileCache("1048576", "1024").get(file).block();
+
+        Assertions.assertNotNull(avatar);
+        Assertions.assertNotNull(avatar.content());
+
+        UserServiceImpl userService = new UserServiceImpl();
+
+        // 只构建响应、没有写出响应体时不持有内容的引用
+        Mono<ServerResponse> unwritten
+            = ReflectionTestUtils.invokeMethod(userService, "avatarResponse", avatar);
+
+        Assertions.assertNotNull(unwritten);
+        Assertions.assertNotNull(unwritten.block());
+        Assertions.assertEquals(1, avatar.content().refCnt());
+
+        // 写出后引用被释放
+        Assertions.assertArrayEquals(bytes, writeAvatarResponse(userService, avatar));
+        Assertions.assertEquals(1, avatar.content().refCnt());
+
+        // 条目在构建响应之后、写出之前被淘汰时从磁盘读取
+        avatar.content().release();
+
+        Assertions.assertArrayEquals(bytes, writeAvatarResponse(userService, avatar));
+    }
+}
@@ -0,0 +1,113 @@
+package com.jesse.examination.core;
+
+import com.jesse.examination.core.security.jwt.CachingReactiveJwtDecoder;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.security.authentication.AbstractAuthenticationToken;
+import org.springframework.security.oauth2.jwt.NimbusReactiveJwtDecoder;
+import org.springframework.security.oauth2.jwt.ReactiveJwtDecoder;
+import org.springframework.security.oauth2.server.resource.authentication.JwtGrantedAuthoritiesConverter;
+import org.springframework.security.oauth2.server.resource.authentication.ReactiveJwtAuthenticationConverter;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>JWT 解码基准测试：Nimbus 解码器 vs 带已验证令牌缓存的解码器。</p>
+ *
+ * <p>
+ *     两者都完成一次请求认证的全部工作（解码验签 + 解析权限），
+ *     在 IDE 中直接运行 main 方法，或者先执行 <code>mvn test-compile</code> 后运行本类。
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtDecoderBenchmark
+{
+    private String token;
+
+    private ReactiveJwtDecoder plainDecoder;
+
+    private ReactiveJwtAuthenticationConverter plainConverter;
+
+    private CachingReactiveJwtDecoder cachingDecoder;
+
+    @Setup
+    public void setup()
+    {
+        SecretKey key = Keys.hmacShaKeyFor(
+            "42a84a380144e86000d7025f56c3db0e".getBytes(StandardCharsets.UTF_8)
+        );
+
+        this.token
+            = Jwts.builder()
+                  .subject("benchmark-user")
+                  .claim("roles", List.of("USER"))
+                  .issuedAt(new Date())
+                  .expiration(Date.from(Instant.now().plusSeconds(3600L)))
+                  .signWith(key, Jwts.SIG.HS256)
+                  .compact();
+
+        JwtGrantedAuthoritiesConverter authoritiesConverter
+            = new JwtGrantedAuthoritiesConverter();
+
+        authoritiesConverter.setAuthorityPrefix("ROLE_");
+        authoritiesConverter.setAuthoritiesClaimName("roles");
+
+        this.plainDecoder = NimbusReactiveJwtDecoder.withSecretKey(key).build();
+
+        this.plainConverter = new ReactiveJwtAuthenticationConverter();
+        this.plainConverter.setJwtGrantedAuthoritiesConverter(
+            (jwt) ->
+                Mono.justOrEmpty(authoritiesConverter.convert(jwt))
+                    .flatMapMany(Flux::fromIterable)
+        );
+
+        this.cachingDecoder
+            = new CachingReactiveJwtDecoder(
+                NimbusReactiveJwtDecoder.withSecretKey(key).build(),
+                authoritiesConverter, 10000L
+            );
+    }
+
+    @Benchmark
+    public AbstractAuthenticationToken plainDecoder()
+    {
+        return this.plainDecoder
+                   .decode(this.token)
+                   .flatMap(this.plainConverter::convert)
+                   .block();
+    }
+
+    @Benchmark
+    public AbstractAuthenticationToken cachingDecoder()
+    {
+        return this.cachingDecoder
+                   .decode(this.token)
+                   .flatMap(this.cachingDecoder.authenticationConverter()::convert)
+                   .block();
+    }
+
+    public static void main(String[] args) throws RunnerException
+    {
+        new Runner(
+            new OptionsBuilder()
+                .include(JwtDecoderBenchmark.class.getSimpleName())
+                .build()
+        ).run();
+    }
+}
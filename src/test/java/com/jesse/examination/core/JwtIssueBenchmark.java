@@ -0,0 +1,90 @@
+package com.jesse.examination.core;
+
+import com.jesse.examination.core.properties.ProjectProperties;
+import com.jesse.examination.core.security.jwt.JwtTokenService;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.crypto.SecretKey;
+import java.time.Instant;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>JWT 签发基准测试：原先登录时的 jjwt 签发方式 vs {@link JwtTokenService}。</p>
+ *
+ * <p>
+ *     原先的方式每次登录都要重新派生密钥、解析有效期、用 Jwts.builder() 构建令牌，
+ *     在 IDE 中直接运行 main 方法，或者先执行 <code>mvn test-compile</code> 后运行本类。
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtIssueBenchmark
+{
+    private static final String SECRET
+        = "42a84a380144e86000d7025f56c3db0ed199693fb585367a3bdb345b733c59e9";
+
+    private static final List<String> ROLES = List.of("USER");
+
+    private JwtTokenService tokenService;
+
+    @Setup
+    public void setup()
+    {
+        ProjectProperties properties = Mockito.mock(ProjectProperties.class);
+
+        Mockito.when(properties.getJwtSecretKey()).thenReturn(SECRET);
+        Mockito.when(properties.getJwtKeyId()).thenReturn("k1");
+        Mockito.when(properties.getJwtPreviousKeys()).thenReturn("");
+        Mockito.when(properties.getJwtExpiration()).thenReturn("86400");
+
+        this.tokenService = new JwtTokenService();
+
+        ReflectionTestUtils.setField(this.tokenService, "projectProperties", properties);
+        ReflectionTestUtils.invokeMethod(this.tokenService, "deriveKeys");
+    }
+
+    /** 与原先 LoginAuthServiceImpl.generateJWTToken 相同的签发方式。*/
+    @Benchmark
+    public String jjwtBuilder()
+    {
+        SecretKey key = Keys.hmacShaKeyFor(SECRET.getBytes());
+
+        long expirationSeconds = Long.parseLong("86400");
+
+        return Jwts.builder()
+                   .subject("benchmark-user")
+                   .claim("roles", ROLES)
+                   .issuedAt(Date.from(Instant.now()))
+                   .issuer("JesseZ332623")
+                   .expiration(Date.from(Instant.now().plusSeconds(expirationSeconds)))
+                   .signWith(key)
+                   .compact();
+    }
+
+    @Benchmark
+    public String tokenService() {
+        return this.tokenService.issue("benchmark-user", ROLES);
+    }
+
+    public static void main(String[] args) throws RunnerException
+    {
+        new Runner(
+            new OptionsBuilder()
+                .include(JwtIssueBenchmark.class.getSimpleName())
+                .build()
+        ).run();
+    }
+}
@@ -0,0 +1,99 @@
+package com.jesse.examination.core;
+
+import com.jesse.examination.core.properties.ProjectProperties;
+import com.jesse.examination.core.security.jwt.JwtTokenService;
+import com.nimbusds.jose.JWSObject;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.security.oauth2.jwt.BadJwtException;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.text.ParseException;
+import java.util.List;
+
+/** JWT 令牌服务测试类（不依赖 Spring 上下文）。*/
+class JwtTokenServiceTest
+{
+    private static final String OLD_SECRET = "0123456789abcdef0123456789abcdef";
+    private static final String NEW_SECRET = "fedcba9876543210fedcba9876543210";
+
+    private static JwtTokenService
+    tokenService(String secret, String keyId, String previousKeys)
+    {
+        ProjectProperties properties = Mockito.mock(ProjectProperties.class);
+
+        Mockito.when(properties.getJwtSecretKey()).thenReturn(secret);
+        Mockito.when(properties.getJwtKeyId()).thenReturn(keyId);
+        Mockito.when(properties.getJwtPreviousKeys()).thenReturn(previousKeys);
+        Mockito.when(properties.getJwtExpiration()).thenReturn("3600");
+
+        JwtTokenService service = new JwtTokenService();
+
+        ReflectionTestUtils.setField(service, "projectProperties", properties);
+        ReflectionTestUtils.invokeMethod(service, "deriveKeys");
+
+        return service;
+    }
+
+    @Test
+    public void TestIssueAndVerify() throws ParseException
+    {
+        JwtTokenService service = tokenService(OLD_SECRET, "k1", "");
+
+        String token = service.issue("Jesse \"Z\"", List.of("USER", "ADMIN"));
+
+        Assertions.assertEquals("k1", JWSObject.parse(token).getHeader().getKeyID());
+
+        Jwt jwt = service.getDecoder().decode(token).block();
+
+        Assertions.assertNotNull(jwt);
+        Assertions.assertEquals("Jesse \"Z\"", jwt.getSubject());
+        Assertions.assertEquals(List.of("USER", "ADMIN"), jwt.getClaimAsStringList("roles"));
+        Assertions.assertEquals(JwtTokenService.ISSUER, jwt.getClaimAsString("iss"));
+        Assertions.assertEquals(
+            3600L,
+            jwt.getExpiresAt().getEpochSecond() - jwt.getIssuedAt().getEpochSecond()
+        );
+
+        // 篡改签名
+        String tampered = token.substring(0, token.length() - 2) + "AA";
+
+        Assertions.assertThrows(
+            BadJwtException.class,
+            () -> service.getDecoder().decode(tampered).block()
+        );
+    }
+
+    @Test
+    public void TestKeyRotation()
+    {
+        String oldToken
+            = tokenService(OLD_SECRET, "k1", "").issue("tester", List.of("USER"));
+
+        JwtTokenService rotated
+            = tokenService(NEW_SECRET, "k2", "k1:" + OLD_SECRET);
+
+        // 旧密钥签发的令牌仍然可以验证
+        Assertions.assertEquals(
+            "tester",
+            rotated.getDecoder().decode(oldToken).block().getSubject()
+        );
+
+        // 未配置旧密钥时，旧令牌的 kid 无法识别
+        JwtTokenService withoutPrevious = tokenService(NEW_SECRET, "k2", "");
+
+        Assertions.assertThrows(
+            BadJwtException.class,
+            () -> withoutPrevious.getDecoder().decode(oldToken).block()
+        );
+
+        String newToken = rotated.issue("tester", List.of("USER"));
+
+        Assertions.assertEquals(
+            "tester",
+            withoutPrevious.getDecoder().decode(newToken).block().getSubject()
+        );
+    }
+}
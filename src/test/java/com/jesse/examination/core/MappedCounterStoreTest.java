@@ -0,0 +1,122 @@
+package com.jesse.examination.core;
+
+import com.jesse.examination.core.file.exception.FileOperatorException;
+import com.jesse.examination.core.file.mapped.MappedCounterStore;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/** 内存映射计数存储测试类（不依赖 Spring 上下文）。*/
+class MappedCounterStoreTest
+{
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void TestWriteOnlyChangedSlots() throws IOException
+    {
+        try (MappedCounterStore store
+                 = new MappedCounterStore(tempDir.resolve("test.seg"), 16, null))
+        {
+            Assertions.assertTrue(store.read(3L).isEmpty());
+
+            // 4 个计数槽中只有 2 个非 0，加上长度字段
+            Assertions.assertEquals(3, store.write(3L, new long[] {0L, 5L, 0L, 7L}));
+
+            // 没有变化时什么都不写
+            Assertions.assertEquals(0, store.write(3L, new long[] {0L, 5L, 0L, 7L}));
+
+            // 只修改了一个计数槽
+            Assertions.assertEquals(1, store.write(3L, new long[] {0L, 6L, 0L, 7L}));
+
+            Assertions.assertArrayEquals(
+                new long[] {0L, 6L, 0L, 7L}, store.read(3L).orElseThrow()
+            );
+
+            // 相邻的记录互不影响
+            Assertions.assertTrue(store.read(2L).isEmpty());
+            Assertions.assertTrue(store.read(4L).isEmpty());
+
+            // 截短时多出来的计数槽清零
+            store.write(3L, new long[] {1L});
+            store.write(3L, new long[] {1L, 0L, 0L, 0L});
+
+            Assertions.assertArrayEquals(
+                new long[] {1L, 0L, 0L, 0L}, store.read(3L).orElseThrow()
+            );
+
+            store.delete(3L);
+
+            Assertions.assertTrue(store.read(3L).isEmpty());
+        }
+    }
+
+    @Test
+    public void TestPersistAcrossReopen() throws IOException
+    {
+        Path segmentFile = tempDir.resolve("reopen.seg");
+
+        try (MappedCounterStore store = new MappedCounterStore(segmentFile, 8, null))
+        {
+            store.write(1L,    new long[] {1L, 2L, 0xFFFFFFFFL});
+            store.write(1000L, new long[] {4L, -1L, Long.MAX_VALUE});
+        }
+
+        try (MappedCounterStore store = new MappedCounterStore(segmentFile, 8, null))
+        {
+            Assertions.assertArrayEquals(
+                new long[] {1L, 2L, 0xFFFFFFFFL}, store.read(1L).orElseThrow()
+            );
+
+            // 超出 u32 范围的值被截断
+            Assertions.assertArrayEquals(
+                new long[] {4L, 0L, 0xFFFFFFFFL}, store.read(1000L).orElseThrow()
+            );
+        }
+
+        // 容量与已有文件不一致
+        Assertions.assertThrows(
+            FileOperatorException.class,
+            () -> new MappedCounterStore(segmentFile, 16, null)
+        );
+    }
+
+    @Test
+    public void TestDeleteUnwrittenRecord() throws IOException
+    {
+        Path segmentFile = tempDir.resolve("delete.seg");
+
+        try (MappedCounterStore store = new MappedCounterStore(segmentFile, 16, null))
+        {
+            long headerOnly = Files.size(segmentFile);
+
+            // 删除一条所在段从未写入过的记录，不应该把文件扩展一整个段
+            store.delete(100_000L);
+
+            Assertions.assertEquals(headerOnly, Files.size(segmentFile));
+            Assertions.assertTrue(store.read(100_000L).isEmpty());
+        }
+    }
+
+    @Test
+    public void TestIllegalArguments() throws IOException
+    {
+        try (MappedCounterStore store
+                 = new MappedCounterStore(tempDir.resolve("illegal.seg"), 2, null))
+        {
+            Assertions.assertThrows(
+                IllegalArgumentException.class,
+                () -> store.write(1L, new long[3])
+            );
+
+            Assertions.assertThrows(
+                IllegalArgumentException.class,
+                () -> store.read(0L)
+            );
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package com.jesse.examination.core;
+
+import com.jesse.examination.core.online.OnlineUserRegistry;
+import com.jesse.examination.core.redis.script.RedisScriptRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.core.ReactiveZSetOperations;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+
+import static com.jesse.examination.core.redis.keys.ConcatRedisKey.dailyActiveKey;
+import static com.jesse.examination.core.redis.script.ProjectRedisScript.ONLINE_TOUCH;
+
+/** 在线用户登记处测试类（不依赖 Spring 上下文）。*/
+class OnlineUserRegistryTest
+{
+    @Test
+    public void TestTouchCoalesced()
+    {
+        OnlineUserRegistry registry = new OnlineUserRegistry();
+
+        for (int index = 0; index < 100; ++index)
+        {
+            registry.touch("Jesse");
+            registry.touch("Peter");
+        }
+
+        registry.touch(null);
+        registry.touch("");
+
+        Map<String, Long> drained = registry.drainPendingTouches();
+
+        Assertions.assertEquals(2, drained.size());
+        Assertions.assertTrue(drained.containsKey("Jesse"));
+        Assertions.assertTrue(drained.containsKey("Peter"));
+
+        Assertions.assertTrue(registry.drainPendingTouches().isEmpty());
+    }
+
+    @Test
+    public void TestGroupByDay()
+    {
+        ZoneId zone = ZoneOffset.UTC;
+
+        long lateNight
+            = LocalDate.of(2025, 7, 1).atTime(23, 59, 59).atZone(zone).toInstant().toEpochMilli();
+        long earlyMorning
+            = LocalDate.of(2025, 7, 2).atTime(0, 0, 1).atZone(zone).toInstant().toEpochMilli();
+
+        Map<LocalDate, Map<String, Long>> groups
+            = OnlineUserRegistry.groupByDay(
+                Map.of("Jesse", lateNight, "Peter", earlyMorning, "Mike", earlyMorning), zone);
+
+        Assertions.assertEquals(2, groups.size());
+        Assertions.assertEquals(
+            Map.of("Jesse", lateNight), groups.get(LocalDate.of(2025, 7, 1)));
+        Assertions.assertEquals(
+            Map.of("Peter", earlyMorning, "Mike", earlyMorning), groups.get(LocalDate.of(2025, 7, 2)));
+
+        Assertions.assertEquals(
+            "daily-active:2025-07-01", dailyActiveKey(LocalDate.of(2025, 7, 1)));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void TestOnlyLoginAddsUser()
+    {
+        RedisScriptRegistry scriptRegistry = Mockito.mock(RedisScriptRegistry.class);
+
+        ReactiveStringRedisTemplate stringRedisTemplate = Mockito.mock(ReactiveStringRedisTemplate.class);
+        ReactiveZSetOperations<String, String> zSetOperations = Mockito.mock(ReactiveZSetOperations.class);
+
+        Mockito.when(stringRedisTemplate.opsForZSet()).thenReturn(zSetOperations);
+        Mockito.when(zSetOperations.remove(ArgumentMatchers.anyString(), ArgumentMatchers.any()))
+               .thenReturn(Mono.just(1L));
+
+        OnlineUserRegistry registry = new OnlineUserRegistry();
+
+        ReflectionTestUtils.setField(registry, "scriptRegistry", scriptRegistry);
+        ReflectionTestUtils.setField(registry, "stringRedisTemplate", stringRedisTemplate);
+
+        // Jesse 登录时写入失败，留到下一次批量写入
+        Mockito.when(scriptRegistry.execute(ArgumentMatchers.eq(ONLINE_TOUCH), ArgumentMatchers.anyList(), ArgumentMatchers.anyList()))
+               .thenReturn(Flux.error(new IllegalStateException("Redis unavailable")));
+
+        registry.touchNow("Jesse").block();
+
+        // Mike 登出前的活动随登出一起丢弃
+        registry.touch("Peter");
+        registry.touch("Mike");
+        registry.remove("Mike").block();
+
+        Mockito.when(scriptRegistry.execute(ArgumentMatchers.eq(ONLINE_TOUCH), ArgumentMatchers.anyList(), ArgumentMatchers.anyList()))
+               .thenReturn(Flux.just(1L));
+
+        Mono<Void> flush = ReflectionTestUtils.invokeMethod(registry, "flushTouches");
+
+        Assertions.assertNotNull(flush);
+        flush.block();
+
+        ArgumentCaptor<List<Object>> args = ArgumentCaptor.forClass(List.class);
+
+        Mockito.verify(scriptRegistry, Mockito.times(3))
+               .execute(ArgumentMatchers.eq(ONLINE_TOUCH), ArgumentMatchers.anyList(), args.capture());
+
+        // 第二个参数：1 表示加入集合（登录），0 表示只更新仍然在线的用户
+        List<Object> loginArgs = args.getAllValues().get(1);
+        List<Object> touchArgs = args.getAllValues().get(2);
+
+        Assertions.assertEquals(1, loginArgs.get(1));
+        Assertions.assertEquals("Jesse", loginArgs.get(3));
+        Assertions.assertEquals(4, loginArgs.size());
+
+        Assertions.assertEquals(0, touchArgs.get(1));
+        Assertions.assertEquals("Peter", touchArgs.get(3));
+        Assertions.assertEquals(4, touchArgs.size());
+
+        Assertions.assertTrue(registry.drainPendingTouches().isEmpty());
+    }
+}
@@ -0,0 +1,86 @@
+package com.jesse.examination.core;
+
+import com.jesse.examination.core.redis.codec.PackedCounterCodec;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static com.jesse.examination.core.redis.codec.PackedCounterCodec.MAX_COUNTER;
+
+/** 紧凑计数数组编解码测试类（不依赖 Spring 上下文）。*/
+class PackedCounterCodecTest
+{
+    @Test
+    public void TestRoundTrip()
+    {
+        Map<String, Long> counters = new TreeMap<>();
+
+        for (long id = 1; id <= 1000; ++id) {
+            counters.put(String.valueOf(id), id * 7 % 13);
+        }
+
+        byte[] packed = PackedCounterCodec.encode(counters);
+
+        Assertions.assertEquals(1000 * PackedCounterCodec.COUNTER_BYTES, packed.length);
+
+        Map<String, Long> decoded = PackedCounterCodec.decode(packed);
+
+        Assertions.assertEquals(counters, new TreeMap<>(decoded));
+
+        // 解码结果按问题 ID 升序排列
+        List<Long> ids = new ArrayList<>();
+        decoded.keySet().forEach((id) -> ids.add(Long.parseLong(id)));
+
+        Assertions.assertEquals(ids.stream().sorted().toList(), ids);
+    }
+
+    /** 布局必须与 BITFIELD u32 #(id - 1) 一致：大端，问题 ID 1 位于偏移 0。*/
+    @Test
+    public void TestBitfieldCompatibleLayout()
+    {
+        byte[] packed
+            = PackedCounterCodec.encode(Map.of("1", 1L, "3", 0x01020304L));
+
+        Assertions.assertArrayEquals(
+            new byte[] {0, 0, 0, 1,  0, 0, 0, 0,  1, 2, 3, 4},
+            packed
+        );
+    }
+
+    @Test
+    public void TestHolesAndSaturation()
+    {
+        Map<String, Long> decoded
+            = PackedCounterCodec.decode(
+                PackedCounterCodec.encode(Map.of("2", MAX_COUNTER + 100L, "4", -5L))
+            );
+
+        Assertions.assertEquals(
+            Map.of("1", 0L, "2", MAX_COUNTER, "3", 0L, "4", 0L),
+            decoded
+        );
+    }
+
+    @Test
+    public void TestInvalidInput()
+    {
+        Assertions.assertThrows(
+            IllegalArgumentException.class,
+            () -> PackedCounterCodec.encode(Map.of("0", 1L))
+        );
+
+        Assertions.assertThrows(
+            IllegalArgumentException.class,
+            () -> PackedCounterCodec.encode(Map.of("abc", 1L))
+        );
+
+        Assertions.assertThrows(
+            IllegalArgumentException.class,
+            () -> PackedCounterCodec.decode(new byte[5])
+        );
+    }
+}
@@ -0,0 +1,161 @@
+package com.jesse.examination.core;
+
+import com.jesse.examination.core.properties.ProjectProperties;
+import com.jesse.examination.core.respponse.ResponseBuilder;
+import com.jesse.examination.core.security.hashing.PasswordHashingExecutor;
+import com.jesse.examination.core.security.hashing.exception.PasswordHashingBusyException;
+import com.jesse.examination.user.service.impl.UserServiceImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+import org.springframework.beans.BeanUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/** 密码哈希执行器测试类（不依赖 Spring 上下文）。*/
+class PasswordHashingExecutorTest
+{
+    /** 第一个哈希任务开始执行。*/
+    private final CountDownLatch started = new CountDownLatch(1);
+
+    /** 放行所有阻塞中的哈希任务。*/
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    private PasswordEncoder passwordEncoder;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private PasswordHashingExecutor hashingExecutor;
+
+    @BeforeEach
+    void setUp()
+    {
+        this.passwordEncoder = Mockito.mock(PasswordEncoder.class);
+
+        // 阻塞的编码器，占住唯一的线程
+        Mockito.when(this.passwordEncoder.encode(ArgumentMatchers.any()))
+               .thenAnswer((invocation) -> {
+                   this.started.countDown();
+                   this.release.await();
+
+                   return "{noop}" + invocation.getArgument(0);
+               });
+
+        ProjectProperties properties = Mockito.mock(ProjectProperties.class);
+
+        // 1 个线程，等待队列只有 1 个位置
+        Mockito.when(properties.getPasswordHashingThreads()).thenReturn("1");
+        Mockito.when(properties.getPasswordHashingQueueCapacity()).thenReturn("1");
+
+        this.meterRegistry   = new SimpleMeterRegistry();
+        this.hashingExecutor = new PasswordHashingExecutor();
+
+        ReflectionTestUtils.setField(this.hashingExecutor, "passwordEncoder", this.passwordEncoder);
+        ReflectionTestUtils.setField(this.hashingExecutor, "projectProperties", properties);
+        ReflectionTestUtils.setField(this.hashingExecutor, "meterRegistry", this.meterRegistry);
+        ReflectionTestUtils.invokeMethod(this.hashingExecutor, "createExecutor");
+    }
+
+    @AfterEach
+    void tearDown()
+    {
+        this.release.countDown();
+        ReflectionTestUtils.invokeMethod(this.hashingExecutor, "shutdownExecutor");
+    }
+
+    private double queueDepth() {
+        return this.meterRegistry.get("password.hashing.queue.depth").gauge().value();
+    }
+
+    /** 提交第一个任务并等待它占住唯一的线程。*/
+    private CompletableFuture<String> occupyThread() throws InterruptedException
+    {
+        CompletableFuture<String> running = this.hashingExecutor.encode("running").toFuture();
+
+        Assertions.assertTrue(this.started.await(5L, TimeUnit.SECONDS));
+
+        return running;
+    }
+
+    @Test
+    public void TestQueueFullRejected() throws Exception
+    {
+        CompletableFuture<String> running = this.occupyThread();
+        CompletableFuture<String> queued  = this.hashingExecutor.encode("queued").toFuture();
+
+        Assertions.assertEquals(1.0, this.queueDepth());
+
+        PasswordHashingBusyException busy
+            = Assertions.assertThrows(
+                PasswordHashingBusyException.class,
+                () -> this.hashingExecutor.encode("rejected").block()
+            );
+
+        Assertions.assertEquals(
+            1.0, this.meterRegistry.get("password.hashing.rejected").counter().count());
+
+        // HTTP 层返回 503 并带上 Retry-After
+        UserServiceImpl userService = new UserServiceImpl();
+
+        ReflectionTestUtils.setField(
+            userService, "responseBuilder", BeanUtils.instantiateClass(ResponseBuilder.class));
+
+        Mono<ServerResponse> errorResponse
+            = ReflectionTestUtils.invokeMethod(userService, "genericErrorHandle", busy);
+
+        Assertions.assertNotNull(errorResponse);
+
+        ServerResponse response = errorResponse.block();
+
+        Assertions.assertNotNull(response);
+        Assertions.assertEquals(HttpStatus.SERVICE_UNAVAILABLE, response.statusCode());
+        Assertions.assertEquals("1", response.headers().getFirst(HttpHeaders.RETRY_AFTER));
+
+        // 放行后排队的任务正常完成，被拒绝的任务从未执行
+        this.release.countDown();
+
+        Assertions.assertEquals("{noop}running", running.get(5L, TimeUnit.SECONDS));
+        Assertions.assertEquals("{noop}queued", queued.get(5L, TimeUnit.SECONDS));
+        Mockito.verify(this.passwordEncoder, Mockito.never()).encode("rejected");
+    }
+
+    @Test
+    public void TestCancelledTaskRemovedFromQueue() throws Exception
+    {
+        CompletableFuture<String> running = this.occupyThread();
+
+        Disposable cancelled = this.hashingExecutor.encode("cancelled").subscribe();
+
+        Assertions.assertEquals(1.0, this.queueDepth());
+
+        // 取消订阅（比如请求超时）后立即让出队列的位置
+        cancelled.dispose();
+
+        Assertions.assertEquals(0.0, this.queueDepth());
+
+        CompletableFuture<String> accepted = this.hashingExecutor.encode("accepted").toFuture();
+
+        Assertions.assertEquals(1.0, this.queueDepth());
+        Assertions.assertEquals(
+            0.0, this.meterRegistry.get("password.hashing.rejected").counter().count());
+
+        this.release.countDown();
+
+        Assertions.assertEquals("{noop}running", running.get(5L, TimeUnit.SECONDS));
+        Assertions.assertEquals("{noop}accepted", accepted.get(5L, TimeUnit.SECONDS));
+        Mockito.verify(this.passwordEncoder, Mockito.never()).encode("cancelled");
+    }
+}
@@ -0,0 +1,76 @@
+package com.jesse.examination.core;
+
+import com.jesse.examination.core.ratelimit.LocalTokenBucket;
+import com.jesse.examination.core.ratelimit.RateLimitPolicy;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.server.PathContainer;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/** 请求限流测试类（不依赖 Spring 上下文）。*/
+class RateLimitTest
+{
+    @Test
+    public void TestTokenBucketBurstAndRefill()
+    {
+        final long period = TimeUnit.SECONDS.toNanos(60L);
+
+        LocalTokenBucket bucket = new LocalTokenBucket(3L, period, 0L);
+
+        // 最多连续请求 3 次
+        for (int index = 0; index < 3; ++index) {
+            Assertions.assertEquals(0L, bucket.tryAcquire(0L));
+        }
+
+        // 第 4 次需要等待 60 / 3 = 20 秒
+        long wait = bucket.tryAcquire(0L);
+
+        Assertions.assertEquals(TimeUnit.SECONDS.toNanos(20L), wait, 1_000L);
+
+        // 10 秒后仍然不够一个令牌，20 秒后恢复一个
+        Assertions.assertTrue(bucket.tryAcquire(TimeUnit.SECONDS.toNanos(10L)) > 0L);
+        Assertions.assertEquals(0L, bucket.tryAcquire(TimeUnit.SECONDS.toNanos(20L)));
+        Assertions.assertTrue(bucket.tryAcquire(TimeUnit.SECONDS.toNanos(20L)) > 0L);
+
+        // 空闲很久也不会超过容量
+        long later = TimeUnit.HOURS.toNanos(1L);
+
+        for (int index = 0; index < 3; ++index) {
+            Assertions.assertEquals(0L, bucket.tryAcquire(later));
+        }
+
+        Assertions.assertTrue(bucket.tryAcquire(later) > 0L);
+    }
+
+    @Test
+    public void TestPolicyParseAndMatch()
+    {
+        RateLimitPolicy policy
+            = RateLimitPolicy.of(
+                "question-query", HttpMethod.GET, "/api/question/paginated_query*",
+                RateLimitPolicy.KeyBy.USER_OR_IP, "60/30"
+            );
+
+        Assertions.assertEquals(60L, policy.limit());
+        Assertions.assertEquals(Duration.ofSeconds(30L), policy.period());
+        Assertions.assertEquals(500L, policy.emissionIntervalMillis());
+        Assertions.assertEquals(500L * 59, policy.toleranceMillis());
+
+        Assertions.assertTrue(
+            policy.matches(HttpMethod.GET, PathContainer.parsePath("/api/question/paginated_query")));
+        Assertions.assertTrue(
+            policy.matches(HttpMethod.GET, PathContainer.parsePath("/api/question/paginated_query_with_correct")));
+        Assertions.assertFalse(
+            policy.matches(HttpMethod.POST, PathContainer.parsePath("/api/question/paginated_query")));
+        Assertions.assertFalse(
+            policy.matches(HttpMethod.GET, PathContainer.parsePath("/api/question/single_query")));
+
+        Assertions.assertThrows(
+            IllegalArgumentException.class,
+            () -> RateLimitPolicy.of(
+                "login", HttpMethod.POST, "/api/user/login", RateLimitPolicy.KeyBy.IP, "10"));
+    }
+}
@@ -0,0 +1,98 @@
+package com.jesse.examination.core;
+
+import com.jesse.examination.core.email.transport.SmtpTransportPool;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import javax.mail.*;
+import javax.mail.internet.InternetAddress;
+import javax.mail.internet.MimeMessage;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>邮件发送吞吐量基准测试：原先每封邮件新建会话与连接的方式 vs {@link SmtpTransportPool}。</p>
+ *
+ * <p>
+ *     使用进程内的 SMTP 服务器替身（明文、本地回环），
+ *     真实环境中每次新建连接还要额外付出 TLS 握手与网络往返的开销，差距只会更大。
+ *     在 IDE 中直接运行 main 方法，或者先执行 <code>mvn test-compile</code> 后运行本类。
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(4)
+@Fork(1)
+public class SmtpTransportBenchmark
+{
+    private static final String PUBLISHER = "publisher@example.com";
+    private static final String AUTH_CODE = "auth-code";
+
+    private FakeSmtpServer server;
+
+    private SmtpTransportPool pool;
+
+    private SmtpTransportPool.Credential credential;
+
+    @Setup
+    public void setup() throws IOException
+    {
+        this.server     = new FakeSmtpServer(PUBLISHER, AUTH_CODE);
+        this.pool       = new SmtpTransportPool(this.server.mailProperties(), null);
+        this.credential = new SmtpTransportPool.Credential(PUBLISHER, AUTH_CODE);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException
+    {
+        this.pool.close();
+        this.server.close();
+    }
+
+    private static Message
+    message(Session session) throws MessagingException
+    {
+        MimeMessage message = new MimeMessage(session);
+
+        message.setFrom(new InternetAddress(PUBLISHER));
+        message.setRecipient(Message.RecipientType.TO, new InternetAddress("user@example.com"));
+        message.setSubject("验证码");
+        message.setText("123456");
+
+        return message;
+    }
+
+    /** 与原先 EmailSender.sendEmailReactive 相同：每封邮件新建会话，Transport.send() 连接、登录、发送、断开。*/
+    @Benchmark
+    public void perMessage() throws MessagingException
+    {
+        Session session
+            = Session.getInstance(this.server.mailProperties(), new Authenticator() {
+                @Override
+                protected PasswordAuthentication getPasswordAuthentication() {
+                    return new PasswordAuthentication(PUBLISHER, AUTH_CODE);
+                }
+            });
+
+        Transport.send(message(session));
+    }
+
+    @Benchmark
+    public void pooled() throws MessagingException {
+        this.pool.send(this.credential, message(this.pool.getSession()));
+    }
+
+    public static void main(String[] args) throws RunnerException
+    {
+        new Runner(
+            new OptionsBuilder()
+                .include(SmtpTransportBenchmark.class.getSimpleName())
+                .build()
+        ).run();
+    }
+}
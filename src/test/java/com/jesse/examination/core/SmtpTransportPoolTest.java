@@ -0,0 +1,100 @@
+package com.jesse.examination.core;
+
+import com.jesse.examination.core.email.transport.SmtpTransportPool;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.mail.AuthenticationFailedException;
+import javax.mail.Message;
+import javax.mail.MessagingException;
+import javax.mail.internet.InternetAddress;
+import javax.mail.internet.MimeMessage;
+import java.io.IOException;
+
+/** SMTP 连接池测试类（不依赖 Spring 上下文，使用进程内的 SMTP 服务器替身）。*/
+class SmtpTransportPoolTest
+{
+    private static final String PUBLISHER = "publisher@example.com";
+    private static final String AUTH_CODE = "auth-code";
+
+    private FakeSmtpServer server;
+    private SmtpTransportPool pool;
+
+    @BeforeEach
+    void startServer() throws IOException
+    {
+        this.server = new FakeSmtpServer(PUBLISHER, AUTH_CODE);
+        this.pool   = new SmtpTransportPool(this.server.mailProperties(), null);
+    }
+
+    @AfterEach
+    void stopServer() throws IOException
+    {
+        this.pool.close();
+        this.server.close();
+    }
+
+    private Message
+    message(String to) throws MessagingException
+    {
+        MimeMessage message = new MimeMessage(this.pool.getSession());
+
+        message.setFrom(new InternetAddress(PUBLISHER));
+        message.setRecipient(Message.RecipientType.TO, new InternetAddress(to));
+        message.setSubject("验证码");
+        message.setText("123456");
+
+        return message;
+    }
+
+    @Test
+    public void TestReuseConnection() throws MessagingException
+    {
+        SmtpTransportPool.Credential credential
+            = new SmtpTransportPool.Credential(PUBLISHER, AUTH_CODE);
+
+        for (int index = 0; index < 5; ++index) {
+            this.pool.send(credential, this.message("user" + index + "@example.com"));
+        }
+
+        Assertions.assertEquals(5, this.server.getMessageCount());
+        Assertions.assertEquals(1, this.server.getConnectionCount());
+        Assertions.assertEquals(1, this.pool.getNumIdle(credential));
+        Assertions.assertEquals(0, this.pool.getNumActive(credential));
+    }
+
+    @Test
+    public void TestReconnectAfterServerDrop() throws MessagingException
+    {
+        SmtpTransportPool.Credential credential
+            = new SmtpTransportPool.Credential(PUBLISHER, AUTH_CODE);
+
+        this.pool.send(credential, this.message("first@example.com"));
+
+        // 服务器单方面断开了池中的空闲连接
+        this.server.dropAllConnections();
+
+        this.pool.send(credential, this.message("second@example.com"));
+
+        Assertions.assertEquals(2, this.server.getMessageCount());
+        Assertions.assertEquals(2, this.server.getConnectionCount());
+        Assertions.assertEquals(1, this.pool.getNumIdle(credential));
+    }
+
+    @Test
+    public void TestAuthFailure()
+    {
+        SmtpTransportPool.Credential credential
+            = new SmtpTransportPool.Credential(PUBLISHER, "wrong-code");
+
+        Assertions.assertThrows(
+            AuthenticationFailedException.class,
+            () -> this.pool.send(credential, this.message("user@example.com"))
+        );
+
+        Assertions.assertEquals(0, this.server.getMessageCount());
+        Assertions.assertEquals(0, this.pool.getNumIdle(credential));
+    }
+}
@@ -0,0 +1,195 @@
+package com.jesse.examination.core;
+
+import com.jesse.examination.core.count.TotalCountCache;
+import com.jesse.examination.core.properties.ProjectProperties;
+import com.jesse.examination.core.redis.script.RedisScriptRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.data.redis.core.ReactiveValueOperations;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static com.jesse.examination.core.redis.keys.ConcatRedisKey.tableCountKey;
+import static com.jesse.examination.core.redis.keys.ConcatRedisKey.userScoreAmountKey;
+import static com.jesse.examination.core.redis.script.ProjectRedisScript.COUNT_COMPARE_AND_SET;
+import static com.jesse.examination.core.redis.script.ProjectRedisScript.INCRBY_IF_EXISTS;
+
+/** 数据总数缓存测试类（不依赖 Spring 上下文）。*/
+class TotalCountCacheTest
+{
+    private ReactiveValueOperations<String, Object> valueOperations;
+
+    private ReactiveRedisTemplate<String, Object> redisTemplate;
+
+    private RedisScriptRegistry scriptRegistry;
+
+    private TotalCountCache countCache;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp()
+    {
+        this.valueOperations = Mockito.mock(ReactiveValueOperations.class);
+        this.redisTemplate   = Mockito.mock(ReactiveRedisTemplate.class);
+        this.scriptRegistry  = Mockito.mock(RedisScriptRegistry.class);
+
+        Mockito.when(this.redisTemplate.opsForValue()).thenReturn(this.valueOperations);
+        Mockito.when(this.redisTemplate.delete(ArgumentMatchers.<String>any())).thenReturn(Mono.just(1L));
+        Mockito.when(this.scriptRegistry.execute(ArgumentMatchers.eq(COUNT_COMPARE_AND_SET), ArgumentMatchers.anyList(), ArgumentMatchers.anyList()))
+               .thenReturn(Flux.just(1L));
+
+        ProjectProperties properties = Mockito.mock(ProjectProperties.class);
+
+        // 校准间隔为 0：不启动定时任务，由测试手动触发
+        Mockito.when(properties.getCountCacheReconcileInterval()).thenReturn("0");
+        Mockito.when(properties.getCountCacheLocalMaximumSize()).thenReturn("100");
+        Mockito.when(properties.getCountCacheLocalExpireAfterWrite()).thenReturn("60");
+
+        this.countCache = new TotalCountCache();
+
+        ReflectionTestUtils.setField(this.countCache, "redisTemplate", this.redisTemplate);
+        ReflectionTestUtils.setField(this.countCache, "scriptRegistry", this.scriptRegistry);
+        ReflectionTestUtils.setField(this.countCache, "projectProperties", properties);
+        ReflectionTestUtils.invokeMethod(this.countCache, "scheduleReconcile");
+    }
+
+    /** 记录调用次数的数据库查询。*/
+    private static Supplier<Mono<Long>>
+    loader(AtomicInteger calls, long count)
+    {
+        return () -> Mono.fromSupplier(() -> {
+            calls.incrementAndGet();
+
+            return count;
+        });
+    }
+
+    @Test
+    public void TestGetLoadsThroughLayers()
+    {
+        String key = userScoreAmountKey("Jesse");
+
+        Mockito.when(this.valueOperations.get(key)).thenReturn(Mono.empty());
+
+        AtomicInteger calls = new AtomicInteger();
+
+        Assertions.assertEquals(10L, this.countCache.get(key, loader(calls, 10L)).block());
+        Assertions.assertEquals(10L, this.countCache.get(key, loader(calls, 10L)).block());
+
+        // 第二次命中本地缓存，不再访问 Redis 与数据库
+        Assertions.assertEquals(1, calls.get());
+        Mockito.verify(this.valueOperations, Mockito.times(1)).get(key);
+
+        // 只在键不存在时写入，非表级计数带过期时间（此处校准间隔为 0，即不过期）
+        Mockito.verify(this.scriptRegistry)
+               .execute(COUNT_COMPARE_AND_SET, List.of(key), List.of("", 10L, 0L));
+    }
+
+    @Test
+    public void TestGetPrefersRedis()
+    {
+        String key = tableCountKey("questions");
+
+        Mockito.when(this.valueOperations.get(key)).thenReturn(Mono.just(42));
+
+        AtomicInteger calls = new AtomicInteger();
+
+        Assertions.assertEquals(42L, this.countCache.get(key, loader(calls, 10L)).block());
+        Assertions.assertEquals(0, calls.get());
+    }
+
+    @Test
+    public void TestIncrement()
+    {
+        String cached   = tableCountKey("score_record");
+        String uncached = userScoreAmountKey("Peter");
+
+        Mockito.when(this.valueOperations.get(cached)).thenReturn(Mono.just(10));
+        Mockito.when(this.valueOperations.get(uncached)).thenReturn(Mono.just(3));
+        Mockito.when(this.scriptRegistry.execute(ArgumentMatchers.eq(INCRBY_IF_EXISTS), ArgumentMatchers.anyList(), ArgumentMatchers.anyList()))
+               .thenReturn(Flux.just(15L));
+
+        AtomicInteger calls = new AtomicInteger();
+
+        this.countCache.get(cached, loader(calls, 0L)).block();
+        this.countCache.increment(cached, 1L).block();
+
+        // 以 Redis 返回的计数为准（包含了其他实例的增量）
+        Assertions.assertEquals(15L, this.countCache.get(cached, loader(calls, 0L)).block());
+
+        // 未缓存的计数不会因为增量而被放进本地缓存
+        this.countCache.increment(uncached, 1L).block();
+
+        Assertions.assertEquals(3L, this.countCache.get(uncached, loader(calls, 0L)).block());
+        Mockito.verify(this.valueOperations, Mockito.times(1)).get(uncached);
+
+        // Redis 中的键不存在时（脚本返回 nil）本地计数照常累加
+        Mockito.when(this.scriptRegistry.execute(ArgumentMatchers.eq(INCRBY_IF_EXISTS), ArgumentMatchers.anyList(), ArgumentMatchers.anyList()))
+               .thenReturn(Flux.empty());
+
+        this.countCache.increment(cached, -2L).block();
+
+        Assertions.assertEquals(13L, this.countCache.get(cached, loader(calls, 0L)).block());
+    }
+
+    @Test
+    public void TestInvalidate()
+    {
+        String key = userScoreAmountKey("Mike");
+
+        Mockito.when(this.valueOperations.get(key)).thenReturn(Mono.just(5));
+
+        AtomicInteger calls = new AtomicInteger();
+
+        this.countCache.get(key, loader(calls, 0L)).block();
+        this.countCache.invalidate(key).block();
+
+        Mockito.verify(this.redisTemplate).delete(key);
+
+        // 失效后重新读取 Redis
+        Mockito.when(this.valueOperations.get(key)).thenReturn(Mono.empty());
+
+        Assertions.assertEquals(7L, this.countCache.get(key, loader(calls, 7L)).block());
+        Assertions.assertEquals(1, calls.get());
+    }
+
+    @Test
+    public void TestReconcileOnlyTableCounts()
+    {
+        String tableKey = tableCountKey("questions");
+        String userKey  = userScoreAmountKey("Jesse");
+
+        Mockito.when(this.valueOperations.get(tableKey)).thenReturn(Mono.empty());
+        Mockito.when(this.valueOperations.get(userKey)).thenReturn(Mono.empty());
+
+        AtomicInteger tableCalls = new AtomicInteger();
+        AtomicInteger userCalls  = new AtomicInteger();
+
+        this.countCache.get(tableKey, loader(tableCalls, 100L)).block();
+        this.countCache.get(userKey, loader(userCalls, 3L)).block();
+
+        // 校准时 Redis 中的计数为 100，数据库为 100（期间发生的增量由比较并设置兜底）
+        Mockito.when(this.valueOperations.get(tableKey)).thenReturn(Mono.just(100));
+
+        Mono<?> reconcile = ReflectionTestUtils.invokeMethod(this.countCache, "reconcile");
+
+        Assertions.assertNotNull(reconcile);
+        reconcile.block();
+
+        Assertions.assertEquals(2, tableCalls.get());
+        Assertions.assertEquals(1, userCalls.get());
+
+        // 表级计数不过期，且只在 Redis 中的计数仍然是读取时的值时才写入
+        Mockito.verify(this.scriptRegistry)
+               .execute(COUNT_COMPARE_AND_SET, List.of(tableKey), List.of("100", 100L, 0L));
+    }
+}
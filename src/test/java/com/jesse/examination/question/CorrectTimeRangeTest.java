@@ -0,0 +1,55 @@
+package com.jesse.examination.question;
+
+import com.jesse.examination.core.properties.ProjectProperties;
+import com.jesse.examination.core.redis.script.RedisScriptRegistry;
+import com.jesse.examination.question.redis.impl.QuestionRedisServiceImpl;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static com.jesse.examination.core.redis.codec.PackedCounterCodec.MAX_COUNTER;
+
+/** 设置答对次数时的取值范围校验测试类（不依赖 Spring 上下文）。*/
+class CorrectTimeRangeTest
+{
+    private static QuestionRedisServiceImpl
+    redisService(boolean packed, RedisScriptRegistry scriptRegistry)
+    {
+        ProjectProperties properties = Mockito.mock(ProjectProperties.class);
+
+        Mockito.when(properties.isPackedCorrectTimesStorage()).thenReturn(packed);
+
+        QuestionRedisServiceImpl service = new QuestionRedisServiceImpl();
+
+        ReflectionTestUtils.setField(service, "projectProperties", properties);
+        ReflectionTestUtils.setField(service, "scriptRegistry", scriptRegistry);
+
+        return service;
+    }
+
+    @Test
+    public void TestRejectOutOfRangeValue()
+    {
+        RedisScriptRegistry scriptRegistry = Mockito.mock(RedisScriptRegistry.class);
+
+        for (boolean packed : new boolean[] { true, false })
+        {
+            QuestionRedisServiceImpl service = redisService(packed, scriptRegistry);
+
+            Assertions.assertThrows(
+                IllegalArgumentException.class,
+                () -> service.setUserQuestionCorrectTime("Jesse", 1L, -1L).block()
+            );
+        }
+
+        Assertions.assertThrows(
+            IllegalArgumentException.class,
+            () -> redisService(true, scriptRegistry)
+                      .setUserQuestionCorrectTime("Jesse", 1L, MAX_COUNTER + 1).block()
+        );
+
+        // 超出范围的值不会被发送到 Redis
+        Mockito.verifyNoInteractions(scriptRegistry);
+    }
+}
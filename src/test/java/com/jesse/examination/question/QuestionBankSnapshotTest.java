@@ -0,0 +1,115 @@
+package com.jesse.examination.question;
+
+import com.jesse.examination.question.dto.FullQuestionInfoDTO;
+import com.jesse.examination.question.entity.option.AnswerOption;
+import com.jesse.examination.question.repository.QuestionRepository;
+import com.jesse.examination.question.snapshot.QuestionBankSnapshot;
+import com.jesse.examination.question.snapshot.QuestionBankSnapshotHolder;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.publisher.Flux;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+/** 题库快照测试类（不依赖 Spring 上下文）。*/
+class QuestionBankSnapshotTest
+{
+    private static FullQuestionInfoDTO
+    question(int questionId)
+    {
+        return new FullQuestionInfoDTO(
+            questionId, "Question " + questionId, AnswerOption.A,
+            Map.of(AnswerOption.A, "yes", AnswerOption.B, "no")
+        );
+    }
+
+    /** ID 为 1 ~ 10 以及 20 的问题，乱序给出。*/
+    private static QuestionBankSnapshot
+    snapshot()
+    {
+        List<FullQuestionInfoDTO> questions
+            = IntStream.of(20, 5, 3, 1, 2, 4, 6, 10, 9, 8, 7)
+                       .mapToObj(QuestionBankSnapshotTest::question)
+                       .toList();
+
+        return QuestionBankSnapshot.of(questions);
+    }
+
+    private static List<Integer>
+    ids(List<FullQuestionInfoDTO> questions)
+    {
+        return questions.stream().map(FullQuestionInfoDTO::getQuestionId).toList();
+    }
+
+    @Test
+    public void TestFindById()
+    {
+        QuestionBankSnapshot snapshot = snapshot();
+
+        Assertions.assertEquals(11, snapshot.size());
+        Assertions.assertEquals("Question 7", snapshot.findById(7).orElseThrow().getQuestionContent());
+        Assertions.assertTrue(snapshot.findById(20).isPresent());
+
+        // 空洞、越界
+        Assertions.assertTrue(snapshot.findById(15).isEmpty());
+        Assertions.assertTrue(snapshot.findById(0).isEmpty());
+        Assertions.assertTrue(snapshot.findById(21).isEmpty());
+
+        // 选项表被冻结
+        Assertions.assertThrows(
+            UnsupportedOperationException.class,
+            () -> snapshot.findById(1).orElseThrow().getOptions().put(AnswerOption.C, "maybe")
+        );
+    }
+
+    @Test
+    public void TestPage()
+    {
+        QuestionBankSnapshot snapshot = snapshot();
+
+        Assertions.assertEquals(List.of(1, 2, 3, 4),  ids(snapshot.page(4, 0)));
+        Assertions.assertEquals(List.of(9, 10, 20),   ids(snapshot.page(4, 8)));
+        Assertions.assertEquals(List.of(),            ids(snapshot.page(4, 11)));
+        Assertions.assertEquals(List.of(),            ids(snapshot.page(0, 0)));
+        Assertions.assertEquals(List.of(),            ids(snapshot.page(4, -1)));
+        Assertions.assertEquals(11,                   snapshot.page(Integer.MAX_VALUE, 0).size());
+    }
+
+    @Test
+    public void TestPageAfter()
+    {
+        QuestionBankSnapshot snapshot = snapshot();
+
+        Assertions.assertEquals(List.of(1, 2, 3),   ids(snapshot.pageAfter(0, 3)));
+        Assertions.assertEquals(List.of(4, 5, 6),   ids(snapshot.pageAfter(3, 3)));
+        Assertions.assertEquals(List.of(20),        ids(snapshot.pageAfter(10, 3)));
+        Assertions.assertEquals(List.of(20),        ids(snapshot.pageAfter(15, 3)));
+        Assertions.assertEquals(List.of(),          ids(snapshot.pageAfter(20, 3)));
+        Assertions.assertEquals(List.of(1, 2),      ids(snapshot.pageAfter(-5, 2)));
+    }
+
+    @Test
+    public void TestEmptyBankIsLoaded()
+    {
+        QuestionRepository repository = Mockito.mock(QuestionRepository.class);
+
+        Mockito.when(repository.findAllQuestionWithAllOptions()).thenReturn(Flux.empty());
+
+        QuestionBankSnapshotHolder holder = new QuestionBankSnapshotHolder();
+
+        ReflectionTestUtils.setField(holder, "questionRepository", repository);
+
+        Assertions.assertFalse(holder.isLoaded());
+
+        holder.refresh().block();
+
+        // 题库为空也算加载完成，不应一直回退到数据库
+        Assertions.assertTrue(holder.isLoaded());
+        Assertions.assertTrue(holder.current().isEmpty());
+        Assertions.assertTrue(holder.current().pageAfter(0, 10).isEmpty());
+    }
+}
@@ -0,0 +1,177 @@
+package com.jesse.examination.question;
+
+import com.jesse.examination.core.count.TotalCountCache;
+import com.jesse.examination.core.respponse.ResponseBuilder;
+import com.jesse.examination.question.dto.FullQuestionInfoDTO;
+import com.jesse.examination.question.dto.QuestionWithCorrectDTO;
+import com.jesse.examination.question.entity.option.AnswerOption;
+import com.jesse.examination.question.repository.QuestionRepository;
+import com.jesse.examination.question.service.impl.QuestionServiceImpl;
+import com.jesse.examination.question.snapshot.QuestionBankSnapshotHolder;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+import org.springframework.beans.BeanUtils;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.reactive.function.server.MockServerRequest;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.reactive.function.server.EntityResponse;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import static com.jesse.examination.core.respponse.ResponseBuilder.APIResponse;
+
+/** 问题分页查询（偏移量 / 游标两种模式）测试类（不依赖 Spring 上下文）。*/
+class QuestionPaginationTest
+{
+    private QuestionRepository questionRepository;
+
+    private QuestionBankSnapshotHolder snapshotHolder;
+
+    private QuestionServiceImpl questionService;
+
+    @BeforeEach
+    void setUp()
+    {
+        this.questionRepository = Mockito.mock(QuestionRepository.class);
+        this.snapshotHolder     = new QuestionBankSnapshotHolder();
+
+        ReflectionTestUtils.setField(this.snapshotHolder, "questionRepository", this.questionRepository);
+
+        TotalCountCache countCache = Mockito.mock(TotalCountCache.class);
+
+        Mockito.when(countCache.get(ArgumentMatchers.anyString(), ArgumentMatchers.any()))
+               .thenReturn(Mono.just(10L));
+
+        this.questionService = new QuestionServiceImpl();
+
+        ReflectionTestUtils.setField(this.questionService, "questionRepository", this.questionRepository);
+        ReflectionTestUtils.setField(this.questionService, "snapshotHolder", this.snapshotHolder);
+        ReflectionTestUtils.setField(this.questionService, "countCache", countCache);
+        ReflectionTestUtils.setField(
+            this.questionService, "responseBuilder", BeanUtils.instantiateClass(ResponseBuilder.class));
+    }
+
+    private static MockServerRequest
+    request(String page, String amount, String afterId)
+    {
+        MockServerRequest.Builder builder
+            = MockServerRequest.builder()
+                               .queryParam("page", page)
+                               .queryParam("amount", amount);
+
+        if (afterId != null) {
+            builder.queryParam("after_id", afterId);
+        }
+
+        return builder.build();
+    }
+
+    private static FullQuestionInfoDTO
+    question(int questionId)
+    {
+        return new FullQuestionInfoDTO(
+            questionId, "Question " + questionId, AnswerOption.A, Map.of(AnswerOption.A, "yes")
+        );
+    }
+
+    private static QuestionWithCorrectDTO
+    questionWithCorrect(int questionId)
+    {
+        return new QuestionWithCorrectDTO(questionId, "Question " + questionId, AnswerOption.A, "yes");
+    }
+
+    /** 取出响应体中的问题 ID。*/
+    @SuppressWarnings("unchecked")
+    private static List<Integer>
+    questionIds(ServerResponse response)
+    {
+        APIResponse<List<FullQuestionInfoDTO>> body
+            = (APIResponse<List<FullQuestionInfoDTO>>) ((EntityResponse<?>) response).entity();
+
+        return body.getData().stream().map(FullQuestionInfoDTO::getQuestionId).toList();
+    }
+
+    @Test
+    public void TestRejectNonPositiveParams()
+    {
+        for (String[] params : new String[][] { { "1", "0" }, { "1", "-3" }, { "0", "5" } })
+        {
+            ServerResponse response
+                = this.questionService
+                      .getPaginatedQuestions(request(params[0], params[1], null))
+                      .block();
+
+            Assertions.assertNotNull(response);
+            Assertions.assertEquals(HttpStatus.BAD_REQUEST, response.statusCode());
+        }
+
+        Mockito.verifyNoInteractions(this.questionRepository);
+    }
+
+    @Test
+    public void TestSnapshotOffsetAndKeyset()
+    {
+        Mockito.when(this.questionRepository.findAllQuestionWithAllOptions())
+               .thenReturn(Flux.fromStream(IntStream.rangeClosed(1, 10).mapToObj(QuestionPaginationTest::question)));
+
+        this.snapshotHolder.refresh().block();
+
+        ServerResponse offsetPage
+            = this.questionService.getPaginatedQuestions(request("2", "3", null)).block();
+
+        Assertions.assertNotNull(offsetPage);
+        Assertions.assertEquals(HttpStatus.OK, offsetPage.statusCode());
+        Assertions.assertEquals(List.of(4, 5, 6), questionIds(offsetPage));
+
+        // 游标模式只看 after_id，不受 page 影响
+        ServerResponse keysetPage
+            = this.questionService.getPaginatedQuestions(request("3", "3", "6")).block();
+
+        Assertions.assertNotNull(keysetPage);
+        Assertions.assertEquals(List.of(7, 8, 9), questionIds(keysetPage));
+
+        ServerResponse lastPage
+            = this.questionService.getPaginatedQuestions(request("5", "3", "10")).block();
+
+        Assertions.assertNotNull(lastPage);
+        Assertions.assertEquals(HttpStatus.NOT_FOUND, lastPage.statusCode());
+    }
+
+    @Test
+    public void TestDatabaseOffsetAndKeyset()
+    {
+        Mockito.when(this.questionRepository.findAllQuestionWithCorrectAnswer(3, 3))
+               .thenReturn(Flux.just(questionWithCorrect(4), questionWithCorrect(5), questionWithCorrect(6)));
+        Mockito.when(this.questionRepository.findQuestionWithCorrectAnswerAfter(6, 3))
+               .thenReturn(Flux.just(questionWithCorrect(7), questionWithCorrect(8), questionWithCorrect(9)));
+
+        ServerResponse offsetPage
+            = this.questionService.getAllQuestionWithCorrectOption(request("2", "3", null)).block();
+
+        Assertions.assertNotNull(offsetPage);
+        Assertions.assertEquals(HttpStatus.OK, offsetPage.statusCode());
+        Mockito.verify(this.questionRepository).findAllQuestionWithCorrectAnswer(3, 3);
+
+        ServerResponse keysetPage
+            = this.questionService.getAllQuestionWithCorrectOption(request("3", "3", "6")).block();
+
+        Assertions.assertNotNull(keysetPage);
+        Assertions.assertEquals(HttpStatus.OK, keysetPage.statusCode());
+        Mockito.verify(this.questionRepository).findQuestionWithCorrectAnswerAfter(6, 3);
+
+        // 偏移量超出总数
+        ServerResponse outOfRange
+            = this.questionService.getAllQuestionWithCorrectOption(request("20", "3", null)).block();
+
+        Assertions.assertNotNull(outOfRange);
+        Assertions.assertEquals(HttpStatus.BAD_REQUEST, outOfRange.statusCode());
+    }
+}
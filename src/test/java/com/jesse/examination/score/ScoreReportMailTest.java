@@ -0,0 +1,65 @@
+package com.jesse.examination.score;
+
+import com.jesse.examination.core.email.bulk.BulkMailJob;
+import com.jesse.examination.core.email.dto.EmailContent;
+import com.jesse.examination.score.dto.ScoreReportRecipientDTO;
+import com.jesse.examination.score.report.ScoreReportMailSource;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+/** 成绩报告邮件测试类（不依赖 Spring 上下文）。*/
+class ScoreReportMailTest
+{
+    @Test
+    public void TestRenderScoreReport()
+    {
+        ScoreReportRecipientDTO recipient
+            = new ScoreReportRecipientDTO(
+                7L, "Jesse", "jesse@example.com", 42,
+                LocalDateTime.of(2025, 6, 1, 20, 30, 0),
+                60, 30, 10
+            );
+
+        EmailContent content = ScoreReportMailSource.render(recipient);
+
+        Assertions.assertEquals("jesse@example.com", content.getTo());
+        Assertions.assertNull(content.getAttachmentPath());
+        Assertions.assertTrue(content.getSubject().contains("Jesse"));
+        Assertions.assertTrue(content.getTextBody().contains("2025-06-01 20:30:00"));
+        Assertions.assertTrue(content.getTextBody().contains("答对：60 题"));
+        Assertions.assertTrue(content.getTextBody().contains("正确率：60.0%"));
+    }
+
+    @Test
+    public void TestJobProgressFromHash()
+    {
+        BulkMailJob job
+            = BulkMailJob.fromHash(
+                "job-1",
+                Map.of(
+                    BulkMailJob.NAME, ScoreReportMailSource.JOB_NAME,
+                    BulkMailJob.STATUS, BulkMailJob.Status.ENQUEUED.name(),
+                    BulkMailJob.TOTAL, "100",
+                    BulkMailJob.ENQUEUED, "98",
+                    BulkMailJob.DELIVERED, "95",
+                    BulkMailJob.FAILED, "2",
+                    BulkMailJob.CHECKPOINT, "310"
+                )
+            );
+
+        Assertions.assertEquals(310L, job.getCheckpoint());
+        Assertions.assertFalse(job.isResumable());
+        Assertions.assertFalse(job.isFinished());
+
+        job.setDelivered(96L);
+
+        Assertions.assertTrue(job.isFinished());
+
+        job.setStatus(BulkMailJob.Status.INTERRUPTED);
+
+        Assertions.assertTrue(job.isResumable());
+    }
+}
@@ -0,0 +1,84 @@
+package com.jesse.examination.user;
+
+import com.jesse.examination.user.utils.impl.CorrectTimesArchiveCodec;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Map;
+import java.util.TreeMap;
+
+/** 用户问题答对次数二进制存档编解码测试类（不依赖 Spring 上下文）。*/
+class CorrectTimesArchiveCodecTest
+{
+    @Test
+    public void TestRoundTrip()
+    {
+        Map<String, Long> correctTimes = new TreeMap<>();
+
+        for (long id = 1; id <= 500; ++id) {
+            correctTimes.put(String.valueOf(id), id % 5);
+        }
+
+        byte[] archive = CorrectTimesArchiveCodec.encode(correctTimes);
+
+        Assertions.assertEquals(
+            CorrectTimesArchiveCodec.HEADER_BYTES + 500 * 4, archive.length
+        );
+
+        Assertions.assertEquals(
+            correctTimes,
+            new TreeMap<>(CorrectTimesArchiveCodec.decode(ByteBuffer.wrap(archive)))
+        );
+    }
+
+    @Test
+    public void TestHeaderLayout()
+    {
+        ByteBuffer archive
+            = ByteBuffer.wrap(CorrectTimesArchiveCodec.encode(Map.of("2", 9L)));
+
+        Assertions.assertEquals('Q', archive.get(0));
+        Assertions.assertEquals('C', archive.get(1));
+        Assertions.assertEquals('T', archive.get(2));
+        Assertions.assertEquals('1', archive.get(3));
+        Assertions.assertEquals(1,   archive.getShort(4));
+        Assertions.assertEquals(2,   archive.getInt(8));
+        Assertions.assertEquals(9,   archive.getInt(16));
+    }
+
+    @Test
+    public void TestBrokenArchive()
+    {
+        byte[] archive = CorrectTimesArchiveCodec.encode(Map.of("3", 1L));
+
+        // 截断
+        Assertions.assertThrows(
+            IllegalArgumentException.class,
+            () -> CorrectTimesArchiveCodec.decode(ByteBuffer.wrap(archive, 0, archive.length - 1))
+        );
+
+        // 魔数错误
+        byte[] badMagic = archive.clone();
+        badMagic[0] = 'X';
+
+        Assertions.assertThrows(
+            IllegalArgumentException.class,
+            () -> CorrectTimesArchiveCodec.decode(ByteBuffer.wrap(badMagic))
+        );
+
+        // 版本号错误
+        byte[] badVersion = archive.clone();
+        badVersion[5] = 2;
+
+        Assertions.assertThrows(
+            IllegalArgumentException.class,
+            () -> CorrectTimesArchiveCodec.decode(ByteBuffer.wrap(badVersion))
+        );
+
+        Assertions.assertThrows(
+            IllegalArgumentException.class,
+            () -> CorrectTimesArchiveCodec.decode(ByteBuffer.allocate(3))
+        );
+    }
+}
@@ -0,0 +1,276 @@
+package com.jesse.examination.user;
+
+import com.jesse.examination.core.online.OnlineUserRegistry;
+import com.jesse.examination.core.properties.ProjectProperties;
+import com.jesse.examination.core.redis.script.ProjectRedisScript;
+import com.jesse.examination.core.redis.script.RedisScriptRegistry;
+import com.jesse.examination.user.utils.IdleSessionReaper.ReapResult;
+import com.jesse.examination.user.utils.impl.IdleSessionReaperImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.publisher.Flux;
+
+import java.util.*;
+
+import static com.jesse.examination.core.redis.keys.ConcatRedisKey.correctTimesHashKey;
+import static com.jesse.examination.core.redis.keys.ConcatRedisKey.logoutStateKey;
+import static com.jesse.examination.core.redis.script.ProjectRedisScript.*;
+
+/**
+ * <p>空闲会话回收器测试类（不依赖 Spring 上下文）。</p>
+ *
+ * <p>
+ *     本地没有 Redis，online-touch.lua 与 online-claim-idle.lua
+ *     由 {@link FakeOnlineRedis} 按脚本注释在内存中模拟，同时校验传给脚本的键和参数。
+ * </p>
+ */
+class IdleSessionReaperTest
+{
+    /** 空闲超时（单位：秒）。*/
+    private static final long IDLE_TIMEOUT = 600L;
+
+    /** 每个用户的数据占用的内存（单位：字节）。*/
+    private static final long USER_BYTES = 100L;
+
+    private FakeOnlineRedis redis;
+
+    private OnlineUserRegistry onlineUserRegistry;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private IdleSessionReaperImpl reaper;
+
+    @BeforeEach
+    void setUp()
+    {
+        this.redis         = new FakeOnlineRedis();
+        this.meterRegistry = new SimpleMeterRegistry();
+
+        RedisScriptRegistry scriptRegistry = Mockito.mock(RedisScriptRegistry.class);
+
+        Mockito.when(
+            scriptRegistry.execute(
+                ArgumentMatchers.any(), ArgumentMatchers.anyList(), ArgumentMatchers.anyList()))
+               .thenAnswer((invocation) ->
+                   Flux.defer(() ->
+                       this.redis.execute(
+                           invocation.getArgument(0),
+                           invocation.getArgument(1),
+                           invocation.getArgument(2))));
+
+        ProjectProperties properties = Mockito.mock(ProjectProperties.class);
+
+        Mockito.when(properties.getSessionReaperIdleTimeout()).thenReturn(String.valueOf(IDLE_TIMEOUT));
+        Mockito.when(properties.getJwtExpiration()).thenReturn("60");
+        Mockito.when(properties.getSessionReaperBatchSize()).thenReturn("2");
+        Mockito.when(properties.getSessionReaperMaxBatches()).thenReturn("2");
+        Mockito.when(properties.getSessionReaperInterval()).thenReturn("0");
+
+        this.onlineUserRegistry = new OnlineUserRegistry();
+
+        ReflectionTestUtils.setField(this.onlineUserRegistry, "scriptRegistry", scriptRegistry);
+
+        this.reaper = new IdleSessionReaperImpl();
+
+        ReflectionTestUtils.setField(this.reaper, "onlineUserRegistry", this.onlineUserRegistry);
+        ReflectionTestUtils.setField(this.reaper, "scriptRegistry", scriptRegistry);
+        ReflectionTestUtils.setField(this.reaper, "projectProperties", properties);
+        ReflectionTestUtils.setField(this.reaper, "meterRegistry", this.meterRegistry);
+        ReflectionTestUtils.invokeMethod(this.reaper, "scheduleReap");
+    }
+
+    /** 某用户登录过，最后一次活动在 idleSeconds 秒以前，hasData 表示他的数据是否还在 Redis 中。*/
+    private void online(String userName, long idleSeconds, boolean hasData)
+    {
+        this.redis.onlineUsers.put(userName, System.currentTimeMillis() - idleSeconds * 1000L);
+
+        if (hasData) {
+            this.redis.dataKeys.add(correctTimesHashKey(userName));
+        }
+    }
+
+    private double counter(String name) {
+        return this.meterRegistry.get(name).counter().count();
+    }
+
+    @Test
+    public void TestClaimInBatchesUpToMaxBatches()
+    {
+        for (String userName : List.of("U1", "U2", "U3", "U4", "U5")) {
+            this.online(userName, 3600L, true);
+        }
+
+        ReapResult first = this.reaper.reapIdleUsers().block();
+
+        // 每批 2 个，每轮最多 2 批
+        Assertions.assertEquals(new ReapResult(4, 4 * USER_BYTES), first);
+        Assertions.assertEquals(List.of(2, 2), this.redis.claimedBatches);
+        Assertions.assertEquals(1, this.redis.onlineUsers.size());
+
+        // 下一轮回收剩下的用户，不足一批时结束
+        ReapResult second = this.reaper.reapIdleUsers().block();
+
+        Assertions.assertEquals(new ReapResult(1, USER_BYTES), second);
+        Assertions.assertEquals(List.of(2, 2, 1), this.redis.claimedBatches);
+        Assertions.assertTrue(this.redis.onlineUsers.isEmpty());
+
+        // 所有被回收的用户都登记在 Redis 的待登出集合中，由写回器完成登出
+        Assertions.assertEquals(
+            Set.of("U1", "U2", "U3", "U4", "U5"), this.redis.pendingLogouts.keySet());
+        Assertions.assertEquals("pending", this.redis.states.get(logoutStateKey("U3")));
+
+        Assertions.assertEquals(5.0, counter("user.session.reaped"));
+        Assertions.assertEquals(5.0 * USER_BYTES, counter("user.session.reclaimed"));
+    }
+
+    @Test
+    public void TestTouchedAfterCutoffNotClaimed()
+    {
+        this.online("Jesse", 3600L, true);
+        this.online("Peter", 3600L, true);
+        this.online("Mike", IDLE_TIMEOUT / 2, true);
+
+        // Jesse 刚刚答过题，活动还在内存中没有写入 Redis
+        this.onlineUserRegistry.touch("Jesse");
+
+        long before = System.currentTimeMillis();
+
+        ReapResult result = this.reaper.reapIdleUsers().block();
+
+        long after = System.currentTimeMillis();
+
+        Assertions.assertEquals(new ReapResult(1, USER_BYTES), result);
+
+        // 认领前先写入内存中的活动，截止时间是 空闲超时 以前
+        Assertions.assertTrue(this.redis.cutoffs.getFirst() >= before - IDLE_TIMEOUT * 1000L);
+        Assertions.assertTrue(this.redis.cutoffs.getFirst() <= after - IDLE_TIMEOUT * 1000L);
+
+        Assertions.assertEquals(Set.of("Jesse", "Mike"), this.redis.onlineUsers.keySet());
+        Assertions.assertEquals(Set.of("Peter"), this.redis.pendingLogouts.keySet());
+        Assertions.assertNull(this.redis.states.get(logoutStateKey("Jesse")));
+        Assertions.assertNull(this.redis.states.get(logoutStateKey("Mike")));
+    }
+
+    @Test
+    public void TestUsersWithoutDataNotPending()
+    {
+        // Peter 的数据已经写回存档并删除（例如已经登出过）
+        this.online("Jesse", 3600L, true);
+        this.online("Peter", 3600L, false);
+
+        ReapResult result = this.reaper.reapIdleUsers().block();
+
+        Assertions.assertEquals(new ReapResult(1, USER_BYTES), result);
+
+        // 两个用户都移出了在线集合，只有 Jesse 登记了登出
+        Assertions.assertTrue(this.redis.onlineUsers.isEmpty());
+        Assertions.assertEquals(Set.of("Jesse"), this.redis.pendingLogouts.keySet());
+        Assertions.assertNull(this.redis.states.get(logoutStateKey("Peter")));
+        Assertions.assertEquals(1.0, counter("user.session.reaped"));
+    }
+
+    /** 按在线用户脚本的注释在内存中模拟 Redis。*/
+    private static class FakeOnlineRedis
+    {
+        /** 在线用户有序集合，用户名 -> 最后一次活动的时间戳。*/
+        final Map<String, Long> onlineUsers = new HashMap<>();
+
+        /** 用户的登出状态键 -> 状态。*/
+        final Map<String, String> states = new HashMap<>();
+
+        /** 待登出用户有序集合，用户名 -> 分数。*/
+        final Map<String, Long> pendingLogouts = new HashMap<>();
+
+        /** 存在的用户数据键。*/
+        final Set<String> dataKeys = new HashSet<>();
+
+        /** 每次认领到的用户数。*/
+        final List<Integer> claimedBatches = new ArrayList<>();
+
+        /** 每次认领的截止时间戳。*/
+        final List<Long> cutoffs = new ArrayList<>();
+
+        synchronized Flux<?>
+        execute(ProjectRedisScript<?> script, List<String> keys, List<?> args)
+        {
+            if (script == ONLINE_TOUCH)      { return Flux.just(this.touch(keys, args)); }
+            if (script == ONLINE_CLAIM_IDLE) { return Flux.just(this.claimIdle(keys, args)); }
+            if (script == MEMORY_USAGE)      { return Flux.just(this.memoryUsage(keys)); }
+
+            throw new IllegalArgumentException("Unexpected script: " + script.getFileName());
+        }
+
+        private long touch(List<String> keys, List<?> args)
+        {
+            Assertions.assertEquals("online-users", keys.getFirst());
+
+            boolean login = "1".equals(String.valueOf(args.get(1)));
+
+            for (int index = 2; index < args.size(); index += 2)
+            {
+                long   lastActiveTime = Long.parseLong(String.valueOf(args.get(index)));
+                String userName       = String.valueOf(args.get(index + 1));
+
+                if (login || this.onlineUsers.containsKey(userName)) {
+                    this.onlineUsers.merge(userName, lastActiveTime, Math::max);
+                }
+            }
+
+            return (args.size() - 2) / 2;
+        }
+
+        private List<Object> claimIdle(List<String> keys, List<?> args)
+        {
+            Assertions.assertEquals(List.of("online-users", "pending-logouts"), keys);
+
+            long cutoff = Long.parseLong(String.valueOf(args.get(0)));
+            int  limit  = Integer.parseInt(String.valueOf(args.get(1)));
+
+            this.cutoffs.add(cutoff);
+
+            List<String> idleUsers
+                = this.onlineUsers.entrySet()
+                                  .stream()
+                                  .filter((entry) -> entry.getValue() <= cutoff)
+                                  .sorted(Map.Entry.comparingByValue())
+                                  .limit(limit)
+                                  .map(Map.Entry::getKey)
+                                  .toList();
+
+            List<Object> loggedOut = new ArrayList<>();
+
+            for (String userName : idleUsers)
+            {
+                this.onlineUsers.remove(userName);
+
+                String prefix = args.get(2) + ":" + userName + ":";
+
+                boolean hasData
+                    = args.subList(4, args.size())
+                          .stream()
+                          .anyMatch((subKey) -> this.dataKeys.contains(prefix + subKey));
+
+                if (hasData)
+                {
+                    this.states.put(prefix + args.get(3), "pending");
+                    this.pendingLogouts.putIfAbsent(userName, System.currentTimeMillis());
+                    loggedOut.add(userName);
+                }
+            }
+
+            this.claimedBatches.add(loggedOut.size());
+
+            return loggedOut;
+        }
+
+        /** 每个数据还在 Redis 中的用户占用 USER_BYTES 字节。*/
+        private long memoryUsage(List<String> keys) {
+            return USER_BYTES * keys.stream().filter(this.dataKeys::contains).count();
+        }
+    }
+}
@@ -0,0 +1,444 @@
+package com.jesse.examination.user;
+
+import com.jesse.examination.core.archive.DirtyUserTracker;
+import com.jesse.examination.core.properties.ProjectProperties;
+import com.jesse.examination.core.redis.script.ProjectRedisScript;
+import com.jesse.examination.core.redis.script.RedisScriptRegistry;
+import com.jesse.examination.user.utils.UserArchiveManager;
+import com.jesse.examination.user.utils.impl.UserArchiveFlusherImpl;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static com.jesse.examination.core.redis.keys.ConcatRedisKey.correctTimesHashKey;
+import static com.jesse.examination.core.redis.keys.ConcatRedisKey.logoutStateKey;
+import static com.jesse.examination.core.redis.script.ProjectRedisScript.*;
+
+/**
+ * <p>用户存档后台写回器测试类（不依赖 Spring 上下文）。</p>
+ *
+ * <p>
+ *     本地没有 Redis，登出相关的 4 个脚本（logout-{request,cancel,claim,complete}.lua）
+ *     由 {@link FakeLogoutRedis} 按脚本注释中的状态转换在内存中模拟，
+ *     同时校验写回器传给脚本的键和参数。
+ * </p>
+ */
+class UserArchiveFlusherTest
+{
+    private static final String USER = "Jesse";
+
+    private FakeLogoutRedis redis;
+
+    private DirtyUserTracker dirtyUserTracker;
+
+    private UserArchiveManager userArchiveManager;
+
+    private UserArchiveFlusherImpl flusher;
+
+    @BeforeEach
+    void setUp()
+    {
+        this.redis            = new FakeLogoutRedis();
+        this.dirtyUserTracker = new DirtyUserTracker();
+
+        this.userArchiveManager = Mockito.mock(UserArchiveManager.class);
+
+        Mockito.when(this.userArchiveManager.flushUserArchive(ArgumentMatchers.anyString()))
+               .thenReturn(Mono.empty());
+
+        RedisScriptRegistry scriptRegistry = Mockito.mock(RedisScriptRegistry.class);
+
+        Mockito.when(
+            scriptRegistry.execute(
+                ArgumentMatchers.any(), ArgumentMatchers.anyList(), ArgumentMatchers.anyList()))
+               .thenAnswer((invocation) ->
+                   Flux.defer(() ->
+                       this.redis.execute(
+                           invocation.getArgument(0),
+                           invocation.getArgument(1),
+                           invocation.getArgument(2))));
+
+        ProjectProperties properties = Mockito.mock(ProjectProperties.class);
+
+        Mockito.when(properties.getArchiveFlushBatchSize()).thenReturn("2");
+        Mockito.when(properties.getArchiveFlushConcurrency()).thenReturn("2");
+        Mockito.when(properties.getArchiveFlushInterval()).thenReturn("3600");
+        Mockito.when(properties.getArchiveLogoutLease()).thenReturn("120");
+
+        this.flusher = new UserArchiveFlusherImpl();
+
+        ReflectionTestUtils.setField(this.flusher, "dirtyUserTracker", this.dirtyUserTracker);
+        ReflectionTestUtils.setField(this.flusher, "userArchiveManager", this.userArchiveManager);
+        ReflectionTestUtils.setField(this.flusher, "scriptRegistry", scriptRegistry);
+        ReflectionTestUtils.setField(this.flusher, "projectProperties", properties);
+        ReflectionTestUtils.invokeMethod(this.flusher, "scheduleFlush");
+
+        this.redis.dataKeys.add(correctTimesHashKey(USER));
+    }
+
+    @AfterEach
+    void tearDown() {
+        ReflectionTestUtils.invokeMethod(this.flusher, "flushOnShutdown");
+    }
+
+    private void flushRound()
+    {
+        Mono<Void> round = ReflectionTestUtils.invokeMethod(this.flusher, "flushRound");
+
+        Assertions.assertNotNull(round);
+
+        round.block();
+    }
+
+    @Test
+    public void TestLogoutFlushAndUnlink()
+    {
+        this.flusher.enqueueLogout(USER).block();
+
+        Assertions.assertEquals("pending", this.redis.states.get(logoutStateKey(USER)));
+        Assertions.assertTrue(this.redis.pendingLogouts.containsKey(USER));
+
+        this.flushRound();
+
+        Mockito.verify(this.userArchiveManager, Mockito.times(1)).flushUserArchive(USER);
+
+        Assertions.assertFalse(this.redis.dataKeys.contains(correctTimesHashKey(USER)));
+        Assertions.assertNull(this.redis.states.get(logoutStateKey(USER)));
+        Assertions.assertTrue(this.redis.pendingLogouts.isEmpty());
+    }
+
+    @Test
+    public void TestLogoutWithoutData()
+    {
+        this.redis.dataKeys.clear();
+
+        this.flusher.enqueueLogout(USER).block();
+
+        // 数据不在 Redis 中的用户不会登记登出
+        Assertions.assertNull(this.redis.states.get(logoutStateKey(USER)));
+        Assertions.assertTrue(this.redis.pendingLogouts.isEmpty());
+    }
+
+    @Test
+    public void TestLoginWhilePending()
+    {
+        this.flusher.enqueueLogout(USER).block();
+
+        Assertions.assertEquals(Boolean.TRUE, this.flusher.cancelLogout(USER).block());
+
+        Assertions.assertNull(this.redis.states.get(logoutStateKey(USER)));
+        Assertions.assertTrue(this.redis.pendingLogouts.isEmpty());
+
+        this.flushRound();
+
+        // 撤销后没有登出需要写回，数据保留
+        Mockito.verify(this.userArchiveManager, Mockito.never()).flushUserArchive(USER);
+        Assertions.assertTrue(this.redis.dataKeys.contains(correctTimesHashKey(USER)));
+
+        // 没有待撤销的登出
+        Assertions.assertEquals(Boolean.FALSE, this.flusher.cancelLogout(USER).block());
+    }
+
+    @Test
+    public void TestLoginWhileFlushing() throws Exception
+    {
+        Sinks.Empty<Void> archiveWrite = Sinks.empty();
+
+        Mockito.when(this.userArchiveManager.flushUserArchive(USER))
+               .thenReturn(archiveWrite.asMono());
+
+        this.flusher.enqueueLogout(USER).block();
+
+        Mono<Void> round = ReflectionTestUtils.invokeMethod(this.flusher, "flushRound");
+
+        Assertions.assertNotNull(round);
+
+        CompletableFuture<Void> roundDone = round.toFuture();
+
+        Assertions.assertEquals("flushing", this.redis.states.get(logoutStateKey(USER)));
+
+        // 写回期间重新登录
+        Assertions.assertEquals(Boolean.TRUE, this.flusher.cancelLogout(USER).block());
+        Assertions.assertEquals("cancelled", this.redis.states.get(logoutStateKey(USER)));
+
+        archiveWrite.tryEmitEmpty();
+        roundDone.get(5L, TimeUnit.SECONDS);
+
+        // 写回结束后没有删除数据，只清理了状态
+        Assertions.assertTrue(this.redis.dataKeys.contains(correctTimesHashKey(USER)));
+        Assertions.assertNull(this.redis.states.get(logoutStateKey(USER)));
+        Assertions.assertTrue(this.redis.pendingLogouts.isEmpty());
+    }
+
+    @Test
+    public void TestFlushFailedBackToPending()
+    {
+        Mockito.when(this.userArchiveManager.flushUserArchive(USER))
+               .thenReturn(Mono.error(new IllegalStateException("Disk full")));
+
+        this.flusher.enqueueLogout(USER).block();
+        this.flushRound();
+
+        // 状态退回 pending（一个写回间隔后重试），数据保留，用户重新标记为脏
+        Assertions.assertEquals("pending", this.redis.states.get(logoutStateKey(USER)));
+        Assertions.assertEquals(this.redis.now + 3_600_000L, this.redis.pendingLogouts.get(USER));
+        Assertions.assertTrue(this.redis.dataKeys.contains(correctTimesHashKey(USER)));
+        Assertions.assertTrue(this.dirtyUserTracker.isDirty(USER));
+
+        // 恢复后下一轮完成登出
+        Mockito.when(this.userArchiveManager.flushUserArchive(USER))
+               .thenReturn(Mono.empty());
+
+        this.redis.pendingLogouts.put(USER, this.redis.now);
+        this.flushRound();
+
+        Assertions.assertFalse(this.redis.dataKeys.contains(correctTimesHashKey(USER)));
+        Assertions.assertTrue(this.redis.pendingLogouts.isEmpty());
+    }
+
+    @Test
+    public void TestFailedBatchNotReclaimedInSameRound()
+    {
+        Mockito.when(this.userArchiveManager.flushUserArchive(ArgumentMatchers.anyString()))
+               .thenReturn(Mono.error(new IllegalStateException("Disk full")));
+
+        this.redis.dataKeys.add(correctTimesHashKey("Peter"));
+
+        this.flusher.enqueueLogout(USER).block();
+        this.flusher.enqueueLogout("Peter").block();
+
+        this.flushRound();
+
+        // 认领到满满一批且全部失败，同一轮内不会反复认领
+        Assertions.assertEquals(List.of(2, 0), this.redis.claimedBatches);
+
+        // 登出写回一次，失败后重新标记为脏用户，在本轮作为脏用户再写回一次
+        Mockito.verify(this.userArchiveManager, Mockito.times(2)).flushUserArchive(USER);
+    }
+
+    @Test
+    public void TestExpiredLeaseReclaimed()
+    {
+        // 认领了 Peter 登出的节点崩溃，租约已到期
+        this.redis.dataKeys.add(correctTimesHashKey("Peter"));
+        this.redis.states.put(logoutStateKey("Peter"), "flushing");
+        this.redis.pendingLogouts.put("Peter", this.redis.now - 1L);
+
+        // 认领了 Mike 登出的节点还在写回，租约未到期
+        this.redis.dataKeys.add(correctTimesHashKey("Mike"));
+        this.redis.states.put(logoutStateKey("Mike"), "flushing");
+        this.redis.pendingLogouts.put("Mike", this.redis.now + 60_000L);
+
+        // Tom 在写回期间重新登录，但认领的节点没有结束写回就崩溃了
+        this.redis.dataKeys.add(correctTimesHashKey("Tom"));
+        this.redis.states.put(logoutStateKey("Tom"), "cancelled");
+        this.redis.pendingLogouts.put("Tom", this.redis.now - 1L);
+
+        this.flushRound();
+
+        Mockito.verify(this.userArchiveManager, Mockito.times(1)).flushUserArchive("Peter");
+        Assertions.assertFalse(this.redis.dataKeys.contains(correctTimesHashKey("Peter")));
+
+        Mockito.verify(this.userArchiveManager, Mockito.never()).flushUserArchive("Mike");
+        Assertions.assertEquals("flushing", this.redis.states.get(logoutStateKey("Mike")));
+
+        Mockito.verify(this.userArchiveManager, Mockito.never()).flushUserArchive("Tom");
+        Assertions.assertTrue(this.redis.dataKeys.contains(correctTimesHashKey("Tom")));
+        Assertions.assertNull(this.redis.states.get(logoutStateKey("Tom")));
+
+        Assertions.assertEquals(List.of("Mike"), List.copyOf(this.redis.pendingLogouts.keySet()));
+    }
+
+    @Test
+    public void TestClaimInBatches()
+    {
+        List<String> userNames = List.of("U1", "U2", "U3", "U4", "U5");
+
+        for (String userName : userNames)
+        {
+            this.redis.dataKeys.add(correctTimesHashKey(userName));
+            this.flusher.enqueueLogout(userName).block();
+        }
+
+        this.flushRound();
+
+        // 每批 2 个，一轮认领完所有到期的登出
+        Assertions.assertEquals(List.of(2, 2, 1), this.redis.claimedBatches);
+        Assertions.assertTrue(this.redis.pendingLogouts.isEmpty());
+
+        for (String userName : userNames) {
+            Assertions.assertFalse(this.redis.dataKeys.contains(correctTimesHashKey(userName)));
+        }
+    }
+
+    @Test
+    public void TestDirtyUsersFlushedWithoutUnlink()
+    {
+        this.dirtyUserTracker.markDirty(USER);
+        this.dirtyUserTracker.markDirty(USER);
+        this.dirtyUserTracker.markDirty("");
+
+        Assertions.assertEquals(1, this.dirtyUserTracker.dirtyCount());
+
+        this.flushRound();
+
+        // 两次写回之间只写回一次，不删除 Redis 中的数据
+        Mockito.verify(this.userArchiveManager, Mockito.times(1)).flushUserArchive(USER);
+        Assertions.assertTrue(this.redis.dataKeys.contains(correctTimesHashKey(USER)));
+        Assertions.assertFalse(this.dirtyUserTracker.isDirty(USER));
+        Assertions.assertTrue(this.dirtyUserTracker.drain().isEmpty());
+    }
+
+    /** 按登出脚本的状态转换在内存中模拟 Redis（时间固定为 now）。*/
+    private static class FakeLogoutRedis
+    {
+        final long now = 1_700_000_000_000L;
+
+        /** 用户的登出状态键 -> 状态。*/
+        final Map<String, String> states = new HashMap<>();
+
+        /** 待登出用户有序集合，用户名 -> 分数。*/
+        final Map<String, Long> pendingLogouts = new HashMap<>();
+
+        /** 存在的用户数据键。*/
+        final List<String> dataKeys = new ArrayList<>();
+
+        /** 每次认领到的用户数。*/
+        final List<Integer> claimedBatches = new ArrayList<>();
+
+        synchronized Flux<?>
+        execute(ProjectRedisScript<?> script, List<String> keys, List<?> args)
+        {
+            Assertions.assertEquals("pending-logouts", keys.getFirst());
+
+            if (script == LOGOUT_REQUEST)  { return Flux.just(this.request(keys, args)); }
+            if (script == LOGOUT_CANCEL)   { return Flux.just(this.cancel(keys, args)); }
+            if (script == LOGOUT_CLAIM)    { return Flux.just(this.claim(args)); }
+            if (script == LOGOUT_COMPLETE) { return Flux.just(this.complete(keys, args)); }
+
+            throw new IllegalArgumentException("Unexpected script: " + script.getFileName());
+        }
+
+        private long request(List<String> keys, List<?> args)
+        {
+            if (keys.subList(2, keys.size()).stream().noneMatch(this.dataKeys::contains)) {
+                return 0L;
+            }
+
+            this.states.put(keys.get(1), "pending");
+            this.pendingLogouts.putIfAbsent(String.valueOf(args.getFirst()), this.now);
+
+            return 1L;
+        }
+
+        private long cancel(List<String> keys, List<?> args)
+        {
+            String state = this.states.get(keys.get(1));
+
+            if ("pending".equals(state))
+            {
+                this.states.remove(keys.get(1));
+                this.pendingLogouts.remove(String.valueOf(args.getFirst()));
+
+                return 1L;
+            }
+
+            if ("flushing".equals(state))
+            {
+                this.states.put(keys.get(1), "cancelled");
+
+                return 1L;
+            }
+
+            return ("cancelled".equals(state)) ? 1L : 0L;
+        }
+
+        private List<Object> claim(List<?> args)
+        {
+            long lease = Long.parseLong(String.valueOf(args.get(0)));
+            int  limit = Integer.parseInt(String.valueOf(args.get(1)));
+
+            List<String> dueUsers
+                = this.pendingLogouts.entrySet()
+                                     .stream()
+                                     .filter((entry) -> entry.getValue() <= this.now)
+                                     .sorted(Map.Entry.comparingByValue())
+                                     .limit(limit)
+                                     .map(Map.Entry::getKey)
+                                     .toList();
+
+            List<Object> claimed = new ArrayList<>();
+
+            for (String userName : dueUsers)
+            {
+                String stateKey = args.get(2) + ":" + userName + ":" + args.get(3);
+                String state    = this.states.get(stateKey);
+
+                if ("pending".equals(state) || "flushing".equals(state))
+                {
+                    this.states.put(stateKey, "flushing");
+                    this.pendingLogouts.put(userName, this.now + lease);
+                    claimed.add(userName);
+                }
+                else
+                {
+                    this.states.remove(stateKey);
+                    this.pendingLogouts.remove(userName);
+                }
+            }
+
+            this.claimedBatches.add(claimed.size());
+
+            return claimed;
+        }
+
+        private long complete(List<String> keys, List<?> args)
+        {
+            String userName = String.valueOf(args.get(0));
+            String state    = this.states.get(keys.get(1));
+
+            if ("flushing".equals(state))
+            {
+                if ("1".equals(String.valueOf(args.get(1))))
+                {
+                    this.dataKeys.removeAll(keys.subList(2, keys.size()));
+                    this.states.remove(keys.get(1));
+                    this.pendingLogouts.remove(userName);
+
+                    return 1L;
+                }
+
+                this.states.put(keys.get(1), "pending");
+                this.pendingLogouts.put(userName, this.now + Long.parseLong(String.valueOf(args.get(2))));
+
+                return 0L;
+            }
+
+            if ("cancelled".equals(state))
+            {
+                this.states.remove(keys.get(1));
+                this.pendingLogouts.remove(userName);
+            }
+
+            if ("pending".equals(state)) {
+                this.pendingLogouts.put(userName, this.now);
+            }
+
+            return 0L;
+        }
+    }
+}
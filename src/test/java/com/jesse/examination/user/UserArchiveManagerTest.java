@@ -1,10 +1,12 @@
 package com.jesse.examination.user;
 
+import com.jesse.examination.core.file.cache.CachedFile;
 import com.jesse.examination.core.properties.ProjectProperties;
 import com.jesse.examination.user.utils.UserArchiveManager;
 import com.jesse.examination.user.utils.dto.AvatarImageData;
 import lombok.extern.slf4j.Slf4j;
 import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.MethodOrderer;
 import org.junit.jupiter.api.Order;
 import org.junit.jupiter.api.Test;
@@ -143,21 +145,31 @@ public class UserArchiveManagerTest
 
     @Test
     @Order(3)
-    void TestGetAvatarImageByUserName()
+    void TestGetAvatarImageFile()
     {
         TEST_USERS.forEach(
             (name) -> {
-                Mono<AvatarImageData> getAvatarImageByUserName =
+                Mono<CachedFile> getAvatarImageFile =
                     this.userArchiveManager
-                        .getAvatarImageByUserName(name)
+                        .getAvatarImageFile(name)
                         .cache();
 
-                StepVerifier.create(getAvatarImageByUserName)
+                StepVerifier.create(getAvatarImageFile)
                     .consumeNextWith((avatar) -> {
-                        log.info("Avatar bytes for user: {}", name);
-                        System.out.println(this.getAvatarDataForHex(avatar));
+                        log.info(
+                            "Avatar of user: {}, length = {}, ETag = {}",
+                            name, avatar.length(), avatar.eTag()
+                        );
+
+                        Assertions.assertTrue(avatar.length() > 0);
                     })
                     .verifyComplete();
+
+                // 第二次获取命中缓存，返回同一个条目
+                StepVerifier.create(this.userArchiveManager.getAvatarImageFile(name))
+                    .expectNextMatches((avatar) ->
+                        avatar == getAvatarImageFile.block())
+                    .verifyComplete();
             }
         );
     }
@@ -0,0 +1,181 @@
+package com.jesse.examination.user;
+
+import com.jesse.examination.core.exception.ResourceNotFoundException;
+import com.jesse.examination.core.properties.ProjectProperties;
+import com.jesse.examination.user.entity.UserAuthInfo;
+import com.jesse.examination.user.repository.UserRepository;
+import com.jesse.examination.user.utils.impl.UserDetailsService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/** 用户验证信息服务测试类（不依赖 Spring 上下文）。*/
+class UserDetailsServiceTest
+{
+    private UserRepository userRepository;
+
+    private UserDetailsService userDetailsService;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp()
+    {
+        this.userRepository = Mockito.mock(UserRepository.class);
+
+        ReactiveRedisTemplate<String, Object> redisTemplate
+            = Mockito.mock(ReactiveRedisTemplate.class);
+
+        Mockito.when(redisTemplate.listenToChannel(ArgumentMatchers.<String>any()))
+               .thenReturn(Flux.never());
+        Mockito.when(redisTemplate.convertAndSend(ArgumentMatchers.anyString(), ArgumentMatchers.any()))
+               .thenReturn(Mono.just(1L));
+
+        ProjectProperties properties = Mockito.mock(ProjectProperties.class);
+
+        Mockito.when(properties.getUserDetailsCacheMaximumSize()).thenReturn("100");
+        Mockito.when(properties.getUserDetailsCacheExpireAfterWrite()).thenReturn("60");
+
+        this.userDetailsService = new UserDetailsService();
+
+        ReflectionTestUtils.setField(this.userDetailsService, "userRepository", this.userRepository);
+        ReflectionTestUtils.setField(this.userDetailsService, "redisTemplate", redisTemplate);
+        ReflectionTestUtils.setField(this.userDetailsService, "projectProperties", properties);
+        ReflectionTestUtils.setField(this.userDetailsService, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.invokeMethod(this.userDetailsService, "createCacheAndSubscribe");
+    }
+
+    private static UserAuthInfo
+    authInfo(String userName, String roles)
+    {
+        UserAuthInfo authInfo = new UserAuthInfo();
+
+        authInfo.setUserName(userName);
+        authInfo.setPassword("{noop}1234567890");
+        authInfo.setRoles(roles);
+
+        return authInfo;
+    }
+
+    private static Set<String>
+    authorities(UserDetails userDetails)
+    {
+        return userDetails.getAuthorities()
+                          .stream()
+                          .map(GrantedAuthority::getAuthority)
+                          .collect(Collectors.toSet());
+    }
+
+    @Test
+    public void TestSingleQueryMapping()
+    {
+        Mockito.when(this.userRepository.findAuthInfoByUserName("Jesse"))
+               .thenReturn(Mono.just(authInfo("Jesse", "ROLE_ADMIN, ROLE_USER")));
+
+        UserDetails userDetails = this.userDetailsService.findByUsername("Jesse").block();
+
+        Assertions.assertNotNull(userDetails);
+        Assertions.assertEquals("Jesse", userDetails.getUsername());
+        Assertions.assertEquals("{noop}1234567890", userDetails.getPassword());
+        Assertions.assertEquals(Set.of("ROLE_ADMIN", "ROLE_USER"), authorities(userDetails));
+
+        // 第二次命中缓存，返回的是副本
+        UserDetails cached = this.userDetailsService.findByUsername("Jesse").block();
+
+        Assertions.assertNotNull(cached);
+        Assertions.assertNotSame(userDetails, cached);
+        Assertions.assertEquals(authorities(userDetails), authorities(cached));
+
+        Mockito.verify(this.userRepository, Mockito.times(1)).findAuthInfoByUserName("Jesse");
+    }
+
+    @Test
+    public void TestUserOrRolesNotExist()
+    {
+        Mockito.when(this.userRepository.findAuthInfoByUserName("Peter"))
+               .thenReturn(Mono.empty());
+        Mockito.when(this.userRepository.findAuthInfoByUserName("Mike"))
+               .thenReturn(Mono.just(authInfo("Mike", null)));
+
+        Assertions.assertThrows(
+            ResourceNotFoundException.class,
+            () -> this.userDetailsService.findByUsername("Peter").block()
+        );
+
+        Assertions.assertThrows(
+            ResourceNotFoundException.class,
+            () -> this.userDetailsService.findByUsername("Mike").block()
+        );
+
+        // 不存在的用户不会被缓存（注册时才能立即查到）
+        Assertions.assertThrows(
+            ResourceNotFoundException.class,
+            () -> this.userDetailsService.findByUsername("Peter").block()
+        );
+
+        Mockito.verify(this.userRepository, Mockito.times(2)).findAuthInfoByUserName("Peter");
+    }
+
+    @Test
+    public void TestEvictUser()
+    {
+        Mockito.when(this.userRepository.findAuthInfoByUserName("Jesse"))
+               .thenReturn(Mono.just(authInfo("Jesse", "ROLE_USER")));
+
+        this.userDetailsService.findByUsername("Jesse").block();
+        this.userDetailsService.evictUser("Jesse").block();
+
+        Mockito.when(this.userRepository.findAuthInfoByUserName("Jesse"))
+               .thenReturn(Mono.just(authInfo("Jesse", "ROLE_ADMIN")));
+
+        UserDetails reloaded = this.userDetailsService.findByUsername("Jesse").block();
+
+        Assertions.assertNotNull(reloaded);
+        Assertions.assertEquals(Set.of("ROLE_ADMIN"), authorities(reloaded));
+        Mockito.verify(this.userRepository, Mockito.times(2)).findAuthInfoByUserName("Jesse");
+    }
+
+    @Test
+    public void TestEvictDuringLoad()
+    {
+        Sinks.One<UserAuthInfo> staleLoad = Sinks.one();
+
+        Mockito.when(this.userRepository.findAuthInfoByUserName("Jesse"))
+               .thenReturn(staleLoad.asMono());
+
+        Mono<UserDetails> pending = this.userDetailsService.findByUsername("Jesse").cache();
+
+        pending.subscribe();
+
+        // 查询进行中用户的角色被修改
+        this.userDetailsService.evictUser("Jesse").block();
+
+        staleLoad.tryEmitValue(authInfo("Jesse", "ROLE_USER"));
+
+        UserDetails stale = pending.block();
+
+        Assertions.assertNotNull(stale);
+        Assertions.assertEquals(Set.of("ROLE_USER"), authorities(stale));
+
+        // 旧数据没有写回缓存，下一次查询读取到新的角色
+        Mockito.when(this.userRepository.findAuthInfoByUserName("Jesse"))
+               .thenReturn(Mono.just(authInfo("Jesse", "ROLE_ADMIN")));
+
+        UserDetails reloaded = this.userDetailsService.findByUsername("Jesse").block();
+
+        Assertions.assertNotNull(reloaded);
+        Assertions.assertEquals(Set.of("ROLE_ADMIN"), authorities(reloaded));
+    }
+}
@@ -0,0 +1,33 @@
+package com.jesse.examination.user;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+
+import static com.jesse.examination.core.redis.keys.ConcatRedisKey.*;
+
+/** 用户 Redis 键测试类（不依赖 Spring 上下文）。*/
+class UserRedisKeyTest
+{
+    /** 清理用户数据时使用的键列表，必须覆盖每一种用户数据的键。*/
+    @Test
+    public void TestAllKeysOfUser()
+    {
+        final String user = "Jesse";
+
+        Assertions.assertEquals(
+            Set.of(
+                correctTimesHashKey(user),
+                packedCorrectTimesKey(user),
+                varifyCodeKey(user),
+                userScoreAmountKey(user),
+                logoutStateKey(user)
+            ),
+            Set.copyOf(allKeysOfUser(user))
+        );
+
+        Assertions.assertTrue(
+            allKeysOfUser(user).stream().allMatch((key) -> key.startsWith("user:Jesse:")));
+    }
+}
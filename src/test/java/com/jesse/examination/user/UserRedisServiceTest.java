@@ -2,6 +2,7 @@ package com.jesse.examination.user;
 
 import com.jesse.examination.question.repository.QuestionRepository;
 import com.jesse.examination.user.redis.UserRedisService;
+import com.jesse.examination.user.redis.VerifyCodeCheckResult;
 import lombok.extern.slf4j.Slf4j;
 import org.junit.jupiter.api.MethodOrderer;
 import org.junit.jupiter.api.Order;
@@ -10,7 +11,9 @@ import org.junit.jupiter.api.TestMethodOrder;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
 
 import java.time.Duration;
 import java.util.HashMap;
@@ -168,4 +171,54 @@ public class UserRedisServiceTest
 
          log.info("TestGetUserQuestionCorrectTimes() complete!");
     }
+
+    /** 验证码一次性使用、输错计数与重发后重新计算有效期。*/
+    @Test
+    @Order(value = 3)
+    public void TestVerifyCodeConsume()
+    {
+        final String user = "VerifyCodeTester";
+
+        StepVerifier.create(
+            this.userRedisService.saveUserVerifyCode(user, "12345678")
+                .then(this.userRedisService.consumeUserVerifyCode(user, "00000000"))
+        ).expectNext(VerifyCodeCheckResult.MISMATCHED).verifyComplete();
+
+        // 输错不会改变验证码的有效期
+        StepVerifier.create(this.redisTemplate.getExpire(varifyCodeKey(user)))
+                    .expectNextMatches((ttl) -> ttl.getSeconds() > 0)
+                    .verifyComplete();
+
+        StepVerifier.create(this.userRedisService.consumeUserVerifyCode(user, "12345678"))
+                    .expectNext(VerifyCodeCheckResult.MATCHED)
+                    .verifyComplete();
+
+        // 验证码只能使用一次
+        StepVerifier.create(this.userRedisService.consumeUserVerifyCode(user, "12345678"))
+                    .expectNext(VerifyCodeCheckResult.NOT_EXIST)
+                    .verifyComplete();
+
+        // 重发验证码：重置输错次数并重新设置有效期
+        StepVerifier.create(
+            this.userRedisService.saveUserVerifyCode(user, "87654321")
+                .then(this.userRedisService.saveUserVerifyCode(user, "11223344"))
+                .then(this.redisTemplate.getExpire(varifyCodeKey(user)))
+        ).expectNextMatches((ttl) -> ttl.getSeconds() > 0).verifyComplete();
+
+        Mono<VerifyCodeCheckResult> wrongAttempts
+            = Flux.range(0, 10)
+                  .concatMap((ignore) ->
+                      this.userRedisService.consumeUserVerifyCode(user, "00000000"))
+                  .takeUntil((result) -> result == VerifyCodeCheckResult.TOO_MANY_ATTEMPTS)
+                  .last();
+
+        StepVerifier.create(wrongAttempts)
+                    .expectNext(VerifyCodeCheckResult.TOO_MANY_ATTEMPTS)
+                    .verifyComplete();
+
+        // 输错次数过多后，正确的验证码也已作废
+        StepVerifier.create(this.userRedisService.consumeUserVerifyCode(user, "11223344"))
+                    .expectNext(VerifyCodeCheckResult.NOT_EXIST)
+                    .verifyComplete();
+    }
 }